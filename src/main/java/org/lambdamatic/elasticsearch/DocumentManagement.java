@@ -11,7 +11,12 @@
 
 package org.lambdamatic.elasticsearch;
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.lambdamatic.elasticsearch.exceptions.BulkIndexException;
 
 /**
  * Interface for all operations related to document management.
@@ -34,6 +39,34 @@ public interface DocumentManagement<D> {
    * @param onError the handler to call if the operation failed 
    */
   public void asyncIndex(D document, Consumer<D> onSuccess, Consumer<Throwable> onError);
+
+  /**
+   * Adds the given document in the index, without blocking the calling thread.
+   * 
+   * @param document the document to add to the index
+   * @return a {@link CompletableFuture} completed with the given document, whose id was set if it
+   *         was generated by Elasticsearch
+   */
+  public CompletableFuture<D> asyncIndex(D document);
+
+  /**
+   * Adds the given documents in the index, using as few bulk requests as possible. Documents
+   * whose id was generated by Elasticsearch are updated accordingly.
+   * 
+   * @param documents the documents to add to the index
+   * @throws BulkIndexException if some documents could not be indexed
+   */
+  public void indexAll(Collection<D> documents);
+
+  /**
+   * Adds the documents of the given {@link Stream} in the index, using as few bulk requests as
+   * possible. The stream is consumed as the bulk requests are sent, so it does not need to fit in
+   * memory. Documents whose id was generated by Elasticsearch are updated accordingly.
+   * 
+   * @param documents the documents to add to the index
+   * @throws BulkIndexException if some documents could not be indexed
+   */
+  public void indexAll(Stream<D> documents);
   
   /**
    * The gets the document identified by the given {@code documentId} from the index.
@@ -53,6 +86,102 @@ public interface DocumentManagement<D> {
    * 
    */
   public void asyncGet(String documentId, Consumer<D> onSuccess, Consumer<Throwable> onError);
+
+  /**
+   * Gets the document identified by the given {@code documentId} from the index, without blocking
+   * the calling thread.
+   * 
+   * @param documentId the id of the document to get
+   * @return a {@link CompletableFuture} completed with the instance of document whose id matches
+   *         the given {@code documentId}, or with a
+   *         {@link org.lambdamatic.elasticsearch.exceptions.DocumentNotFoundException} if no
+   *         document was found.
+   */
+  public CompletableFuture<D> asyncGet(String documentId);
+
+  /**
+   * Gets the document identified by the given {@code documentId} from the shard of the given
+   * {@code routing} value, for documents whose type has a field annotated with
+   * {@link org.lambdamatic.elasticsearch.annotations.RoutingField}.
+   * 
+   * @param documentId the id of the document to get
+   * @param routing the value of the routing field of the document to get
+   * @return the instance of document whose id matches the given {@code documentId},
+   *         <code>null</code> if no document was found.
+   */
+  public D get(String documentId, String routing);
+
+  /**
+   * Gets the document identified by the given {@code documentId} from the shard of the given
+   * {@code routing} value, for documents whose type has a field annotated with
+   * {@link org.lambdamatic.elasticsearch.annotations.RoutingField}.
+   * 
+   * @param documentId the id of the document to get
+   * @param routing the value of the routing field of the document to get
+   * @param onSuccess the handler to call when the operation succeeds
+   * @param onError the handler to call if the operation failed
+   */
+  public void asyncGet(String documentId, String routing, Consumer<D> onSuccess,
+      Consumer<Throwable> onError);
+
+  /**
+   * Gets the document identified by the given {@code documentId} from the shard of the given
+   * {@code routing} value, without blocking the calling thread.
+   * 
+   * @param documentId the id of the document to get
+   * @param routing the value of the routing field of the document to get
+   * @return a {@link CompletableFuture} completed with the instance of document whose id matches
+   *         the given {@code documentId}, or with a
+   *         {@link org.lambdamatic.elasticsearch.exceptions.DocumentNotFoundException} if no
+   *         document was found.
+   */
+  public CompletableFuture<D> asyncGet(String documentId, String routing);
+
+  /**
+   * Gets the documents identified by the given {@code documentIds} from the index, using as few
+   * requests as possible.
+   * 
+   * @param documentIds the ids of the documents to get
+   * @return the {@link MultiGetResult} containing the documents that were found, in the order of
+   *         the given {@code documentIds}, and the ids of the documents that were not found.
+   */
+  public MultiGetResult<D> getAll(Collection<String> documentIds);
+
+  /**
+   * Gets the documents identified by the given {@code documentIds} from the index, using as few
+   * requests as possible.
+   * 
+   * @param documentIds the ids of the documents to get
+   * @param onSuccess the handler to call when the operation succeeds
+   * @param onError the handler to call if the operation failed
+   */
+  public void asyncGetAll(Collection<String> documentIds, Consumer<MultiGetResult<D>> onSuccess,
+      Consumer<Throwable> onError);
+
+  /**
+   * Gets the documents identified by the given {@code documentIds} from the shard of the given
+   * {@code routing} value, using as few requests as possible, for documents whose type has a field
+   * annotated with {@link org.lambdamatic.elasticsearch.annotations.RoutingField}.
+   * 
+   * @param documentIds the ids of the documents to get
+   * @param routing the value of the routing field of the documents to get
+   * @return the {@link MultiGetResult} containing the documents that were found, in the order of
+   *         the given {@code documentIds}, and the ids of the documents that were not found.
+   */
+  public MultiGetResult<D> getAll(Collection<String> documentIds, String routing);
+
+  /**
+   * Gets the documents identified by the given {@code documentIds} from the shard of the given
+   * {@code routing} value, using as few requests as possible, for documents whose type has a field
+   * annotated with {@link org.lambdamatic.elasticsearch.annotations.RoutingField}.
+   * 
+   * @param documentIds the ids of the documents to get
+   * @param routing the value of the routing field of the documents to get
+   * @param onSuccess the handler to call when the operation succeeds
+   * @param onError the handler to call if the operation failed
+   */
+  public void asyncGetAll(Collection<String> documentIds, String routing,
+      Consumer<MultiGetResult<D>> onSuccess, Consumer<Throwable> onError);
   
   /**
    * The delete API allows one to delete a typed JSON document from a specific index based on its
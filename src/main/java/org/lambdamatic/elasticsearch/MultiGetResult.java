@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a multi-get operation: the documents that were found, and the ids of the documents
+ * that were not.
+ *
+ * @param <D> the type of the domain document.
+ */
+public class MultiGetResult<D> {
+
+  /** The documents that were found, indexed by their id, in the order of the request. */
+  private final Map<String, D> documents;
+
+  /** The ids of the documents that were not found, in the order of the request. */
+  private final List<String> missingIds;
+
+  /**
+   * Constructor.
+   *
+   * @param documents the documents that were found, indexed by their id
+   * @param missingIds the ids of the documents that were not found
+   */
+  public MultiGetResult(final Map<String, D> documents, final List<String> missingIds) {
+    this.documents = Collections.unmodifiableMap(documents);
+    this.missingIds = Collections.unmodifiableList(missingIds);
+  }
+
+  /**
+   * @return the documents that were found, in the order of the request.
+   */
+  public List<D> getDocuments() {
+    return new ArrayList<>(this.documents.values());
+  }
+
+  /**
+   * @param documentId the id of the document
+   * @return the document with the given id, or <code>null</code> if it was not found.
+   */
+  public D get(final String documentId) {
+    return this.documents.get(documentId);
+  }
+
+  /**
+   * @return the ids of the documents that were not found, in the order of the request.
+   */
+  public List<String> getMissingIds() {
+    return this.missingIds;
+  }
+
+  /**
+   * @return <code>true</code> if some documents were not found.
+   */
+  public boolean hasMissingIds() {
+    return !this.missingIds.isEmpty();
+  }
+
+}
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.elasticsearch.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Defines the field whose value is used as the {@code _routing} value of an Elasticsearch document,
+ * so that all documents with the same value (e.g., the same tenant) are stored in the same shard.
+ * The field must also be annotated with {@link DocumentField}, and its value must be set before the
+ * document is indexed. The {@code _routing} field is then required in the mapping of the document
+ * type, and searches whose filter or must-match clause requires an exact term on this field only
+ * hit the shard holding this value.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface RoutingField {
+
+}
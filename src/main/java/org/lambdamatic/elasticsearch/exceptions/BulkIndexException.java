@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.elasticsearch.exceptions;
+
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link RuntimeException} thrown when some documents could not be indexed during a bulk
+ * operation, even after retries.
+ */
+public class BulkIndexException extends RuntimeException {
+
+  private static final long serialVersionUID = -3349217722471085461L;
+
+  private static final String MESSAGE = "Failed to index {0} document(s) in bulk. First failure: {1}";
+
+  private final transient List<Failure> failures;
+
+  /**
+   * Constructor.
+   *
+   * @param failures the documents which could not be indexed
+   */
+  public BulkIndexException(final List<Failure> failures) {
+    super(MessageFormat.format(MESSAGE, failures.size(),
+        failures.isEmpty() ? null : failures.get(0)));
+    this.failures = Collections.unmodifiableList(failures);
+  }
+
+  /**
+   * @return the documents which could not be indexed, along with the reason of the failure.
+   */
+  public List<Failure> getFailures() {
+    return this.failures;
+  }
+
+  /**
+   * A document which could not be indexed.
+   */
+  public static class Failure {
+
+    /** The document which could not be indexed. */
+    private final Object document;
+
+    /** The HTTP status of the failed action, or <code>-1</code> if none was received. */
+    private final int status;
+
+    /** The reason of the failure. */
+    private final String reason;
+
+    /**
+     * Constructor.
+     *
+     * @param document the document which could not be indexed
+     * @param status the HTTP status of the failed action, or <code>-1</code> if none was received
+     * @param reason the reason of the failure
+     */
+    public Failure(final Object document, final int status, final String reason) {
+      this.document = document;
+      this.status = status;
+      this.reason = reason;
+    }
+
+    public Object getDocument() {
+      return this.document;
+    }
+
+    public int getStatus() {
+      return this.status;
+    }
+
+    public String getReason() {
+      return this.reason;
+    }
+
+    @Override
+    public String toString() {
+      return "Failure [status=" + this.status + ", reason=" + this.reason + "]";
+    }
+
+  }
+
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.elasticsearch.exceptions;
+
+import java.text.MessageFormat;
+
+/**
+ * {@link RuntimeException} thrown when a search whose partial results are not allowed timed out
+ * or failed on some shards, so that the hits of its response are not all the matching documents.
+ */
+public class PartialSearchResultsException extends RuntimeException {
+
+  private static final long serialVersionUID = 4419635360853528151L;
+
+  private static final String MESSAGE =
+      "Search on index ''{0}'' returned partial results (timed out: {1}, failed shards: {2})";
+
+  private final boolean timedOut;
+
+  private final int failedShards;
+
+  /**
+   * Constructor.
+   *
+   * @param indexName the name of the searched index
+   * @param timedOut whether the search timed out on the Elasticsearch side
+   * @param failedShards the number of shards on which the search failed
+   */
+  public PartialSearchResultsException(final String indexName, final boolean timedOut,
+      final int failedShards) {
+    super(MessageFormat.format(MESSAGE, indexName, timedOut, failedShards));
+    this.timedOut = timedOut;
+    this.failedShards = failedShards;
+  }
+
+  /**
+   * @return <code>true</code> if the search timed out on the Elasticsearch side.
+   */
+  public boolean isTimedOut() {
+    return this.timedOut;
+  }
+
+  /**
+   * @return the number of shards on which the search failed.
+   */
+  public int getFailedShards() {
+    return this.failedShards;
+  }
+
+}
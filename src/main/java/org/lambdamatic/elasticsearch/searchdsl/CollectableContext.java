@@ -8,18 +8,104 @@
 
 package org.lambdamatic.elasticsearch.searchdsl;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.lambdamatic.elasticsearch.exceptions.ClientIOException;
+import org.lambdamatic.elasticsearch.exceptions.PartialSearchResultsException;
 import org.lambdamatic.internal.elasticsearch.QueryMetadata;
 
 /**
  * @param <D> the domain type of the search operation.
  * @param <Q> the {@link QueryMetadata} type associated with the type of documents.
  */
-public interface CollectableContext<D, Q> {
+public interface CollectableContext<D, Q> extends Iterable<D>, PageableContext<D, Q> {
+
+  /**
+   * Sets the shard copies on which the search is performed, so that the repeated searches of the
+   * same user or session hit the same copies, and benefit from their shard request cache and file
+   * system cache. Overrides the default preference of the document manager, if any.
+   * 
+   * @param preference the shard copy preference, e.g. <code>_local</code> to prefer the copies
+   *        on the node that receives the request, <code>_primary_first</code>, or a custom string
+   *        such as a session id. <code>null</code> lets Elasticsearch pick the copies in turn.
+   * @return this {@link CollectableContext}
+   * @see <a href=
+   *      "https://www.elastic.co/guide/en/elasticsearch/reference/master/search-request-preference.html">
+   *      Search preference documentation</a>
+   */
+  CollectableContext<D, Q> preference(String preference);
+
+  /**
+   * Sets the time budget of the search when its results are collected or fetched as a
+   * {@link SearchPage}. Elasticsearch is asked to stop searching a little before the budget
+   * expires and to return the hits found so far (see {@link SearchPage#isPartial()}), and the
+   * search fails with a {@link ClientIOException} caused by a
+   * {@link java.net.SocketTimeoutException} if no response was received at all within the budget.
+   * Overrides the default timeout of the document manager, if any. The budget does not apply to
+   * {@link #stream()} and {@link #forEach(java.util.function.Consumer)}, which scroll over all the
+   * matching documents.
+   * 
+   * @param timeout the time budget, or <code>0</code> to wait as long as the socket timeout allows
+   * @param unit the unit of the given {@code timeout}
+   * @return this {@link CollectableContext}
+   * @throws IllegalArgumentException if the given timeout is negative
+   */
+  CollectableContext<D, Q> timeout(long timeout, TimeUnit unit);
+
+  /**
+   * Sets whether {@link #collect(Collector)} and {@link #asyncCollect(Collector)} may reduce the
+   * hits of a search that timed out or failed on some shards, as if they were all the matching
+   * documents. Such partial results are allowed by default, and logged as a warning along with the
+   * number of failed shards. {@link #page(int)} always returns them, since the {@link SearchPage}
+   * tells whether it is partial.
+   * 
+   * @param allowPartialResults <code>false</code> to fail the search with a
+   *        {@link PartialSearchResultsException} when its results are partial
+   * @return this {@link CollectableContext}
+   */
+  CollectableContext<D, Q> allowPartialResults(boolean allowPartialResults);
+
+  /**
+   * Returns a lazy {@link Stream} over all the documents matching the search. Documents are
+   * fetched page by page while the stream is consumed, so the memory footprint is bounded by the
+   * page size regardless of the total number of hits.
+   *
+   * <p>
+   * The returned stream holds a server-side search context until it is fully consumed, so it
+   * should be closed when it is not, for example with a {@code try-with-resources} statement.
+   *
+   * @return a lazy {@link Stream} of the matching documents
+   */
+  Stream<D> stream();
+
+  /**
+   * Returns a lazy, parallel {@link Stream} over all the documents matching the search, split into
+   * as many slices as the index has shards. Each slice is fetched and decoded independently, so
+   * that the documents can be processed on multiple cores. The number of shards is only retrieved
+   * when the terminal operation of the stream starts.
+   *
+   * <p>
+   * As with {@link #stream()}, the returned stream should be closed when it is not fully consumed.
+   *
+   * @return a lazy, parallel {@link Stream} of the matching documents
+   */
+  Stream<D> parallelStream();
+
+  /**
+   * Returns a lazy, parallel {@link Stream} over all the documents matching the search, split into
+   * the given number of slices.
+   *
+   * @param slices the number of slices to fetch concurrently
+   * @return a lazy, parallel {@link Stream} of the matching documents
+   * @see #parallelStream()
+   */
+  Stream<D> parallelStream(int slices);
 
   /**
    * Performs a <a href="package-summary.html#MutableReduction">mutable reduction</a> operation on
@@ -77,8 +163,30 @@ public interface CollectableContext<D, Q> {
    * @param <A> the intermediate accumulation type of the {@code Collector}
    * @param collector the {@code Collector} describing the reduction
    * @return the result of the reduction
+   * @throws PartialSearchResultsException if the search timed out or failed on some shards and
+   *         partial results are not allowed
+   * @see #allowPartialResults(boolean)
    * @see #collect(Supplier, BiConsumer, BiConsumer)
    * @see Collectors
    */
   <R, A> R collect(Collector<? super D, A, R> collector);
+
+  /**
+   * Asynchronously performs the same reduction as {@link #collect(Collector)}, without blocking
+   * the calling thread while the search is in progress. The returned future is completed on an
+   * I/O thread of the underlying client, so the dependent stages that may block should run on
+   * another executor. As with {@link #collect(Collector)}, the future is completed with a
+   * {@link ClientIOException} caused by a {@link java.net.SocketTimeoutException} if no response
+   * was received within the time budget set with {@link #timeout(long, TimeUnit)}.
+   *
+   * @param <R> the type of the result
+   * @param <A> the intermediate accumulation type of the {@code Collector}
+   * @param collector the {@code Collector} describing the reduction
+   * @return a {@link CompletableFuture} completed with the result of the reduction, or with a
+   *         {@link ClientIOException} or a
+   *         {@link org.lambdamatic.elasticsearch.exceptions.ClientResponseException} if the search
+   *         failed, or with a {@link PartialSearchResultsException} if its results are partial
+   *         and not allowed
+   */
+  <R, A> CompletableFuture<R> asyncCollect(Collector<? super D, A, R> collector);
 }
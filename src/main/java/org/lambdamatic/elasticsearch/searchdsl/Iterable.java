@@ -21,7 +21,9 @@ import java.util.stream.Stream;
 public interface Iterable<T> {
 
   /**
-   * Performs an action for each search result of this stream.
+   * Performs an action for each search result of this stream. Results are fetched page by page,
+   * and the underlying resources are released when all results were consumed or when the action
+   * throws an exception.
    * @param action the action to apply on each element
    *
    */
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.elasticsearch.searchdsl;
+
+import org.lambdamatic.internal.elasticsearch.QueryMetadata;
+
+/**
+ * Interface to fetch the documents matching a search page by page, using an opaque cursor rather
+ * than an offset. Pages are sorted by relevance, with ties broken on the document id, so that
+ * fetching a page has the same cost regardless of how deep it is in the results.
+ * 
+ * @param <D> the domain type of the search operation.
+ * @param <Q> the {@link QueryMetadata} type associated with the type of documents.
+ */
+public interface PageableContext<D, Q> {
+
+  /**
+   * Fetches the first page of documents matching the search.
+   * 
+   * @param pageSize the maximum number of documents in the page
+   * @return the first {@link SearchPage}
+   */
+  SearchPage<D> page(int pageSize);
+
+  /**
+   * Fetches the page of documents that follows the given {@code cursor}. The cursor is
+   * self-contained, so that it can be handed to a client and sent back to any other node to
+   * continue the pagination.
+   * 
+   * @param pageSize the maximum number of documents in the page
+   * @param cursor the cursor returned by {@link SearchPage#getNextCursor()} on the previous page,
+   *        or <code>null</code> to fetch the first page
+   * @return the next {@link SearchPage}
+   */
+  SearchPage<D> page(int pageSize, String cursor);
+
+}
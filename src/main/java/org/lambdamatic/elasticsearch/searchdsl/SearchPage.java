@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.elasticsearch.searchdsl;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of documents matching a search, along with the opaque cursor to fetch the next page.
+ * 
+ * @param <D> the associated type of Document being searched
+ * @see PageableContext
+ */
+public class SearchPage<D> implements SearchResult<D> {
+
+  private final List<D> documents;
+
+  private final long totalCount;
+
+  private final String nextCursor;
+
+  private final boolean timedOut;
+
+  private final int failedShards;
+
+  /**
+   * Constructor.
+   * 
+   * @param documents the documents in this page
+   * @param totalCount the total number of matches on the queried index
+   * @param nextCursor the cursor to fetch the next page, or <code>null</code> if this is the last
+   *        page
+   */
+  public SearchPage(final List<D> documents, final long totalCount, final String nextCursor) {
+    this(documents, totalCount, nextCursor, false, 0);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param documents the documents in this page
+   * @param totalCount the total number of matches on the queried index
+   * @param nextCursor the cursor to fetch the next page, or <code>null</code> if this is the last
+   *        page
+   * @param timedOut <code>true</code> if the search timeout expired before all shards were
+   *        searched
+   * @param failedShards the number of shards that could not be searched
+   */
+  public SearchPage(final List<D> documents, final long totalCount, final String nextCursor,
+      final boolean timedOut, final int failedShards) {
+    this.documents = Collections.unmodifiableList(documents);
+    this.totalCount = totalCount;
+    this.nextCursor = nextCursor;
+    this.timedOut = timedOut;
+    this.failedShards = failedShards;
+  }
+
+  @Override
+  public long getTotalCount() {
+    return this.totalCount;
+  }
+
+  @Override
+  public List<D> getDocuments() {
+    return this.documents;
+  }
+
+  /**
+   * @return the opaque cursor to pass to {@link PageableContext#page(int, String)} to fetch the
+   *         next page, or <code>null</code> if this is the last page.
+   */
+  public String getNextCursor() {
+    return this.nextCursor;
+  }
+
+  /**
+   * @return <code>true</code> if there may be more documents after this page.
+   */
+  public boolean hasNextPage() {
+    return this.nextCursor != null;
+  }
+
+  /**
+   * @return <code>true</code> if the search timeout expired before all shards were searched, in
+   *         which case this page holds the documents found so far.
+   * @see CollectableContext#timeout(long, java.util.concurrent.TimeUnit)
+   */
+  public boolean isTimedOut() {
+    return this.timedOut;
+  }
+
+  /**
+   * @return the number of shards that could not be searched.
+   */
+  public int getFailedShards() {
+    return this.failedShards;
+  }
+
+  /**
+   * @return <code>true</code> if this page may miss some matching documents, because the search
+   *         timed out or some shards could not be searched.
+   */
+  public boolean isPartial() {
+    return this.timedOut || this.failedShards > 0;
+  }
+
+}
@@ -8,37 +8,60 @@
 
 package org.lambdamatic.internal.elasticsearch;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 import java.util.stream.Collector;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import org.lambdamatic.elasticsearch.DocumentManagement;
 import org.lambdamatic.elasticsearch.DocumentQuery;
+import org.lambdamatic.elasticsearch.MultiGetResult;
 import org.lambdamatic.elasticsearch.annotations.Document;
 import org.lambdamatic.elasticsearch.exceptions.DocumentNotFoundException;
 import org.lambdamatic.elasticsearch.exceptions.DomainTypeException;
+import org.lambdamatic.elasticsearch.exceptions.PartialSearchResultsException;
 import org.lambdamatic.elasticsearch.searchdsl.CollectableContext;
 import org.lambdamatic.elasticsearch.searchdsl.MustMatchContext;
 import org.lambdamatic.elasticsearch.searchdsl.MustNotMatchContext;
 import org.lambdamatic.elasticsearch.searchdsl.QueryExpression;
+import org.lambdamatic.elasticsearch.searchdsl.SearchPage;
 import org.lambdamatic.elasticsearch.searchdsl.ShouldMatchContext;
 import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentEntity;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentEntity.ContentWriter;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentFormat;
+import org.lambdamatic.internal.elasticsearch.clientdsl.RequestMetrics;
+import org.lambdamatic.internal.elasticsearch.clientdsl.SlowSearchLog;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetDocumentResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetIndexStatsResponse.IndiceStats;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.IndexDocumentResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse.SearchHit;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponseParser.SourceDecoder;
 import org.lambdamatic.internal.elasticsearch.codec.CodecRegistry;
 import org.lambdamatic.internal.elasticsearch.codec.DocumentCodec;
 import org.lambdamatic.internal.elasticsearch.codec.DocumentSearchCodec;
+import org.lambdamatic.internal.elasticsearch.codec.MappingUtils;
+import org.lambdamatic.internal.elasticsearch.codec.SearchCursorCodec;
 import org.lambdamatic.internal.elasticsearch.reactivestreams.GetDocumentPublisher;
 import org.lambdamatic.internal.elasticsearch.reactivestreams.GetDocumentResponseSubscriber;
 import org.lambdamatic.internal.elasticsearch.reactivestreams.IndexDocumentPublisher;
 import org.lambdamatic.internal.elasticsearch.reactivestreams.IndexDocumentResponseSubscriber;
+import org.lambdamatic.internal.elasticsearch.reactivestreams.MultiGetDocumentsPublisher;
+import org.lambdamatic.internal.elasticsearch.reactivestreams.MultiGetDocumentsResponseSubscriber;
 import org.lambdamatic.internal.elasticsearch.searchdsl.DocumentSearch;
+import org.lambdamatic.internal.elasticsearch.searchdsl.SortField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,6 +80,15 @@ public abstract class BaseDocumentManagerImpl<D, Q extends QueryMetadata<D>>
   @SuppressWarnings("unused")
   private static final Logger LOGGER = LoggerFactory.getLogger(BaseDocumentManagerImpl.class);
 
+  /** The maximum number of documents to retrieve in a single <code>_mget</code> request. */
+  static final int MULTI_GET_CHUNK_SIZE = 500;
+
+  /** The default number of documents to retrieve per page when scrolling over search results. */
+  static final int SCROLL_PAGE_SIZE = 500;
+
+  /** How long the scroll context is kept alive between two pages. */
+  static final String SCROLL_KEEP_ALIVE = "1m";
+
   /**
    * the underlying {@link Client} to connect to the Elasticsearch cluster.
    */
@@ -73,6 +105,21 @@ public abstract class BaseDocumentManagerImpl<D, Q extends QueryMetadata<D>>
   /** Value of the <code>_type</code> field to categorize the document in the Elasticsearch. */
   private final String type;
 
+  /**
+   * The name of the document field used as the routing value, or <code>null</code> if the documents
+   * are routed on their id.
+   */
+  private final String routingFieldName;
+
+  /** The default shard copy preference of the searches, or <code>null</code>. */
+  private volatile String defaultPreference;
+
+  /** The default time budget of the searches and document retrievals, in nanoseconds. */
+  private volatile long defaultTimeoutNanos = 0;
+
+  /** The number of documents to retrieve per page when scrolling over search results. */
+  private volatile int scrollPageSize = SCROLL_PAGE_SIZE;
+
   /** The mapping validator. */
   private final IndexMappingService mappingValidator;
 
@@ -96,6 +143,7 @@ public abstract class BaseDocumentManagerImpl<D, Q extends QueryMetadata<D>>
     }
     this.indexName = documentAnnotation.index();
     this.type = documentAnnotation.type();
+    this.routingFieldName = MappingUtils.getRoutingFieldName(domainType);
     this.mappingValidator =
         new IndexMappingService(this.client, this.domainType, this.indexName, this.type);
   }
@@ -142,10 +190,13 @@ public abstract class BaseDocumentManagerImpl<D, Q extends QueryMetadata<D>>
   @Override
   public void index(final D document) {
     final DocumentCodec<D> documentCodec = this.codecRegistry.getDocumentCodec(document);
-    final String jsonDocument = documentCodec.encode(document);
+    final ContentFormat contentFormat = this.client.getContentFormat();
+    final ContentEntity documentBody = encode("index", contentFormat,
+        output -> documentCodec.encode(document, contentFormat, output));
     final String documentId = documentCodec.getDomainObjectId(document);
+    final String routing = documentCodec.getDomainObjectRouting(document);
     final IndexDocumentResponse indexDocumentResponse =
-        client.index(this.indexName, this.type, documentId, jsonDocument);
+        client.index(this.indexName, this.type, documentId, routing, documentBody);
     if (documentId == null) {
       documentCodec.setDomainObjectId(document, indexDocumentResponse.getId());
     }
@@ -161,26 +212,144 @@ public abstract class BaseDocumentManagerImpl<D, Q extends QueryMetadata<D>>
   }
 
   @Override
-  public D get(final String documentId) {
-    final GetDocumentResponse getDocumentResponse =
-        client.getDocument(this.indexName, this.type, documentId);
-    if (getDocumentResponse.isExists()) {
-      return this.codecRegistry.getDocumentCodec(getDocumentResponse.getSource(), this.domainType)
-          .decode(documentId, getDocumentResponse.getSource());
+  public CompletableFuture<D> asyncIndex(final D document) {
+    final DocumentCodec<D> documentCodec = this.codecRegistry.getDocumentCodec(document);
+    final ContentFormat contentFormat = this.client.getContentFormat();
+    final ContentEntity documentBody = encode("index", contentFormat,
+        output -> documentCodec.encode(document, contentFormat, output));
+    final String documentId = documentCodec.getDomainObjectId(document);
+    final String routing = documentCodec.getDomainObjectRouting(document);
+    return client.asyncIndex(this.indexName, this.type, documentId, routing, documentBody)
+        .thenApply(indexDocumentResponse -> {
+          if (documentId == null) {
+            documentCodec.setDomainObjectId(document, indexDocumentResponse.getId());
+          }
+          return document;
+        });
+  }
+
+  @Override
+  public void indexAll(final Collection<D> documents) {
+    indexAll(documents.stream());
+  }
+
+  @Override
+  public void indexAll(final Stream<D> documents) {
+    try (final BulkIndexer<D> bulkIndexer = bulkIndexer(new BulkIndexerSettings())) {
+      documents.forEach(bulkIndexer::add);
     }
-    throw new DocumentNotFoundException(this.indexName, this.type, documentId);
+  }
+
+  /**
+   * Opens a new {@link BulkIndexer} to index documents in batches. The {@link BulkIndexer} must be
+   * closed once all documents were added, to flush the pending documents.
+   * 
+   * @param settings the {@link BulkIndexerSettings} to apply
+   * @return a new {@link BulkIndexer}
+   */
+  public BulkIndexer<D> bulkIndexer(final BulkIndexerSettings settings) {
+    return new BulkIndexer<>(this.client, this.codecRegistry, this.indexName, this.type,
+        settings);
+  }
+
+  @Override
+  public D get(final String documentId) {
+    return get(documentId, null);
+  }
+
+  @Override
+  public D get(final String documentId, final String routing) {
+    final GetDocumentResponse getDocumentResponse = client.getDocument(this.indexName, this.type,
+        documentId, routing, this.defaultTimeoutNanos, TimeUnit.NANOSECONDS);
+    return decodeDocument(documentId, getDocumentResponse);
+  }
+
+  @Override
+  public CompletableFuture<D> asyncGet(final String documentId) {
+    return asyncGet(documentId, (String) null);
+  }
+
+  @Override
+  public CompletableFuture<D> asyncGet(final String documentId, final String routing) {
+    return client.asyncGetDocument(this.indexName, this.type, documentId, routing,
+        this.defaultTimeoutNanos, TimeUnit.NANOSECONDS)
+        .thenApply(getDocumentResponse -> decodeDocument(documentId, getDocumentResponse));
   }
 
   @Override
   public void asyncGet(final String documentId, Consumer<D> onSuccessHandler,
       Consumer<Throwable> onErrorHandler) {
+    asyncGet(documentId, null, onSuccessHandler, onErrorHandler);
+  }
+
+  @Override
+  public void asyncGet(final String documentId, final String routing,
+      final Consumer<D> onSuccessHandler, final Consumer<Throwable> onErrorHandler) {
     final GetDocumentPublisher<D> publisher = new GetDocumentPublisher<>(this.client,
-        this.codecRegistry, this.indexName, this.type, documentId, this.domainType);
+        this.codecRegistry, this.indexName, this.type, documentId, routing, this.domainType);
     publisher.subscribe(new GetDocumentResponseSubscriber<>(this.codecRegistry, this.indexName,
         this.type, documentId, this.domainType, onSuccessHandler, onErrorHandler));
 
   }
 
+  @Override
+  public MultiGetResult<D> getAll(final Collection<String> documentIds) {
+    return getAll(documentIds, null);
+  }
+
+  @Override
+  public MultiGetResult<D> getAll(final Collection<String> documentIds, final String routing) {
+    final List<String> distinctIds = distinct(documentIds);
+    final MultiGetResultBuilder<D> resultBuilder =
+        new MultiGetResultBuilder<>(this.codecRegistry, this.domainType, distinctIds);
+    for (List<String> chunk : chunk(distinctIds, MULTI_GET_CHUNK_SIZE)) {
+      resultBuilder.add(this.client.multiGet(this.indexName, this.type, chunk, routing));
+    }
+    return resultBuilder.build();
+  }
+
+  @Override
+  public void asyncGetAll(final Collection<String> documentIds,
+      final Consumer<MultiGetResult<D>> onSuccessHandler,
+      final Consumer<Throwable> onErrorHandler) {
+    asyncGetAll(documentIds, null, onSuccessHandler, onErrorHandler);
+  }
+
+  @Override
+  public void asyncGetAll(final Collection<String> documentIds, final String routing,
+      final Consumer<MultiGetResult<D>> onSuccessHandler,
+      final Consumer<Throwable> onErrorHandler) {
+    final List<String> distinctIds = distinct(documentIds);
+    final MultiGetDocumentsPublisher publisher = new MultiGetDocumentsPublisher(this.client,
+        this.indexName, this.type, chunk(distinctIds, MULTI_GET_CHUNK_SIZE), routing);
+    publisher.subscribe(new MultiGetDocumentsResponseSubscriber<>(
+        new MultiGetResultBuilder<>(this.codecRegistry, this.domainType, distinctIds),
+        onSuccessHandler, onErrorHandler));
+  }
+
+  /**
+   * @param documentIds the ids of the documents
+   * @return the given ids without duplicates, in their original order
+   */
+  private static List<String> distinct(final Collection<String> documentIds) {
+    return new ArrayList<>(new LinkedHashSet<>(documentIds));
+  }
+
+  /**
+   * Splits the given ids in chunks of (at most) the given size.
+   * 
+   * @param documentIds the ids to split
+   * @param chunkSize the maximum size of each chunk
+   * @return the chunks of ids
+   */
+  private static List<List<String>> chunk(final List<String> documentIds, final int chunkSize) {
+    final List<List<String>> chunks = new ArrayList<>();
+    for (int i = 0; i < documentIds.size(); i += chunkSize) {
+      chunks.add(documentIds.subList(i, Math.min(i + chunkSize, documentIds.size())));
+    }
+    return chunks;
+  }
+
   @Override
   // TODO: replace the returned type 'DocumentSearchDelegate' with something else to avoid exposing
   // the whole DocumentSearchDelegate API ?
@@ -207,6 +376,170 @@ public abstract class BaseDocumentManagerImpl<D, Q extends QueryMetadata<D>>
         Objects.requireNonNull(filterExpression, "'Filter' expression must not be null"));
   }
 
+  /**
+   * @return the default shard copy preference of the searches, or <code>null</code> if none was
+   *         set.
+   */
+  public String getDefaultPreference() {
+    return this.defaultPreference;
+  }
+
+  /**
+   * Sets the shard copy preference of the searches that do not specify one, so that the repeated
+   * searches hit the same shard copies and benefit from their caches.
+   * 
+   * @param defaultPreference the default shard copy preference (e.g. <code>_local</code>,
+   *        <code>_primary_first</code> or a custom string), or <code>null</code> to let
+   *        Elasticsearch pick the copies in turn
+   * @see CollectableContext#preference(String)
+   */
+  public void setDefaultPreference(final String defaultPreference) {
+    this.defaultPreference = defaultPreference;
+  }
+
+  /**
+   * @param unit the unit of the returned timeout
+   * @return the default time budget of the searches and document retrievals, or <code>0</code> if
+   *         none was set.
+   */
+  public long getDefaultTimeout(final TimeUnit unit) {
+    return unit.convert(this.defaultTimeoutNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Sets the time budget of the searches that do not specify one, and of the retrievals of
+   * documents by id returning a {@link CompletableFuture} or the document itself, so that a slow
+   * node or shard does not hold the caller beyond its own deadline.
+   * 
+   * @param timeout the default time budget, or <code>0</code> to wait as long as the socket
+   *        timeout allows
+   * @param unit the unit of the given {@code timeout}
+   * @throws IllegalArgumentException if the given timeout is negative
+   * @see CollectableContext#timeout(long, TimeUnit)
+   */
+  public void setDefaultTimeout(final long timeout, final TimeUnit unit) {
+    this.defaultTimeoutNanos = toTimeoutNanos(timeout, unit);
+  }
+
+  /**
+   * @return the number of documents retrieved per page when streaming or iterating over search
+   *         results.
+   */
+  public int getScrollPageSize() {
+    return this.scrollPageSize;
+  }
+
+  /**
+   * Sets the number of documents retrieved per page when streaming or iterating over search
+   * results. Up to two pages are held in memory at a time, since the next page is fetched while
+   * the current one is consumed.
+   * 
+   * @param scrollPageSize the number of documents per page
+   * @throws IllegalArgumentException if the given page size is not positive
+   * @see CollectableContext#stream()
+   */
+  public void setScrollPageSize(final int scrollPageSize) {
+    if (scrollPageSize < 1) {
+      throw new IllegalArgumentException("Scroll page size must be greater than 0");
+    }
+    this.scrollPageSize = scrollPageSize;
+  }
+
+  /**
+   * @param timeoutNanos the time budget of a search, in nanoseconds, or <code>0</code> if there is
+   *        none
+   * @return the timeout of the search on the Elasticsearch side, slightly shorter than the time
+   *         budget so that the hits found so far are received before the budget expires, or
+   *         <code>0</code> if there is no budget.
+   */
+  static long searchTimeoutMillis(final long timeoutNanos) {
+    if (timeoutNanos <= 0) {
+      return 0;
+    }
+    // divide first, as the budget may be as large as Long.MAX_VALUE
+    return Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeoutNanos / 5 * 4));
+  }
+
+  private static long toTimeoutNanos(final long timeout, final TimeUnit unit) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+    }
+    return unit.toNanos(timeout);
+  }
+
+  /**
+   * @return the {@link SourceDecoder} that binds the source of each search hit directly into the
+   *         domain type, while the search response is read.
+   */
+  SourceDecoder<D> sourceDecoder() {
+    return getDefaultCodec()::decode;
+  }
+
+  /**
+   * @return the request body of the given {@link DocumentSearch}, written in the
+   *         {@link ContentFormat} of the {@link Client}.
+   */
+  ContentEntity searchRequestBody(final DocumentSearch documentSearch) {
+    final DocumentSearchCodec documentSearchCodec = this.codecRegistry.getDocumentQueryCodec();
+    final ContentFormat contentFormat = this.client.getContentFormat();
+    return encode("search", contentFormat,
+        output -> documentSearchCodec.encode(documentSearch, contentFormat, output));
+  }
+
+  /**
+   * Writes a request body, and reports the time spent writing it to the {@link RequestMetrics} of
+   * the {@link Client}.
+   * 
+   * @param operation the name of the operation that sends the request body
+   * @param contentFormat the {@link ContentFormat} in which the {@link ContentWriter} writes
+   * @param contentWriter the {@link ContentWriter} that writes the request body
+   * @return the request body
+   */
+  private ContentEntity encode(final String operation, final ContentFormat contentFormat,
+      final ContentWriter contentWriter) {
+    final long startNanos = System.nanoTime();
+    final ContentEntity requestBody = new ContentEntity(contentFormat, contentWriter);
+    this.client.getRequestMetrics().onEncode(operation, this.indexName, this.type,
+        System.nanoTime() - startNanos);
+    return requestBody;
+  }
+
+  /**
+   * Decodes the source of a retrieved document, and reports the time spent decoding it to the
+   * {@link RequestMetrics} of the {@link Client}.
+   * 
+   * @param documentId the id of the document
+   * @param getDocumentResponse the response of the retrieval of the document
+   * @return the domain document
+   * @throws DocumentNotFoundException if the document does not exist
+   */
+  private D decodeDocument(final String documentId,
+      final GetDocumentResponse getDocumentResponse) {
+    if (!getDocumentResponse.isExists()) {
+      throw new DocumentNotFoundException(this.indexName, this.type, documentId);
+    }
+    final long startNanos = System.nanoTime();
+    final D document =
+        this.codecRegistry.getDocumentCodec(getDocumentResponse.getSource(), this.domainType)
+            .decode(documentId, getDocumentResponse.getSource());
+    this.client.getRequestMetrics().onDecode("get", this.indexName, this.type,
+        System.nanoTime() - startNanos);
+    return document;
+  }
+
+  /**
+   * @return the number of primary shards of the underlying index, or <code>1</code> if it could
+   *         not be determined (e.g. when the index name is an alias).
+   */
+  int getShardCount() {
+    final IndiceStats indexStats =
+        this.client.getIndexStats(this.indexName, true).getIndex(this.indexName);
+    if (indexStats == null || indexStats.getShardCount() < 1) {
+      return 1;
+    }
+    return indexStats.getShardCount();
+  }
+
   public static class DocumentSearchDelegate<D, Q extends QueryMetadata<D>>
       implements ShouldMatchContext<D, Q> {
 
@@ -220,8 +553,16 @@ public abstract class BaseDocumentManagerImpl<D, Q extends QueryMetadata<D>>
 
     private QueryExpression<Q> filterExpression;
 
+    private String preference;
+
+    private long timeoutNanos;
+
+    private boolean allowPartialResults = true;
+
     private DocumentSearchDelegate(final BaseDocumentManagerImpl<D, Q> parent) {
       this.parent = parent;
+      this.preference = parent.defaultPreference;
+      this.timeoutNanos = parent.defaultTimeoutNanos;
     }
 
     public static <D, Q extends QueryMetadata<D>> DocumentSearchDelegate<D, Q> shouldMatch(
@@ -272,23 +613,213 @@ public abstract class BaseDocumentManagerImpl<D, Q extends QueryMetadata<D>>
       return this;
     }
 
+    @Override
+    public CollectableContext<D, Q> preference(final String preference) {
+      this.preference = preference;
+      return this;
+    }
+
+    @Override
+    public CollectableContext<D, Q> timeout(final long timeout, final TimeUnit unit) {
+      this.timeoutNanos = toTimeoutNanos(timeout, unit);
+      return this;
+    }
+
+    @Override
+    public CollectableContext<D, Q> allowPartialResults(final boolean allowPartialResults) {
+      this.allowPartialResults = allowPartialResults;
+      return this;
+    }
+
+    /**
+     * @return the timeout of the search on the Elasticsearch side, or <code>0</code> if there is no
+     *         budget.
+     * @see BaseDocumentManagerImpl#searchTimeoutMillis(long)
+     */
+    private long getSearchTimeoutMillis() {
+      return searchTimeoutMillis(this.timeoutNanos);
+    }
+
     @Override
     public <R, A> R collect(final Collector<? super D, A, R> collector) {
       LOGGER.debug("Executing query...");
       final DocumentSearch documentSearch = new DocumentSearch(this.shouldMatchExpression,
-          this.mustMatchExpression, this.mustNotMatchExpression, this.filterExpression);
-      final DocumentSearchCodec documentSearchCodec = parent.codecRegistry.getDocumentQueryCodec();
+          this.mustMatchExpression, this.mustNotMatchExpression, this.filterExpression)
+              .preference(this.preference).timeout(getSearchTimeoutMillis());
+      final ContentEntity requestBody = parent.searchRequestBody(documentSearch);
+      final String opaqueId = parent.client.getOpaqueId();
+      final long startNanos = System.nanoTime();
       final SearchResponse<D> response = parent.client.search(parent.indexName, parent.type,
-          documentSearchCodec.encode(documentSearch));
+          documentSearch.getRouting(parent.routingFieldName), documentSearch.getPreference(),
+          requestBody, this.timeoutNanos, TimeUnit.NANOSECONDS, parent.sourceDecoder());
+      logSearch(documentSearch, opaqueId, startNanos, response);
+      return collect(response, collector);
+    }
+
+    @Override
+    public <R, A> CompletableFuture<R> asyncCollect(final Collector<? super D, A, R> collector) {
+      LOGGER.debug("Executing query asynchronously...");
+      final DocumentSearch documentSearch = new DocumentSearch(this.shouldMatchExpression,
+          this.mustMatchExpression, this.mustNotMatchExpression, this.filterExpression)
+              .preference(this.preference).timeout(getSearchTimeoutMillis());
+      final ContentEntity requestBody = parent.searchRequestBody(documentSearch);
+      final String opaqueId = parent.client.getOpaqueId();
+      final long startNanos = System.nanoTime();
+      return parent.client.<D>asyncSearch(parent.indexName, parent.type,
+          documentSearch.getRouting(parent.routingFieldName), documentSearch.getPreference(),
+          requestBody, this.timeoutNanos, TimeUnit.NANOSECONDS, parent.sourceDecoder())
+          .thenApply(response -> {
+            logSearch(documentSearch, opaqueId, startNanos, response);
+            return collect(response, collector);
+          });
+    }
+
+    /**
+     * Records the given {@link DocumentSearch} and its {@link SearchResponse} in the
+     * {@link SlowSearchLog} of the {@link Client}, if any.
+     * 
+     * @param opaqueId the opaque id of the search request, or <code>null</code>
+     * @param startNanos the time at which the search request was sent
+     */
+    private void logSearch(final DocumentSearch documentSearch, final String opaqueId,
+        final long startNanos, final SearchResponse<D> response) {
+      final SlowSearchLog slowSearchLog = parent.client.getSlowSearchLog();
+      if (slowSearchLog != null) {
+        slowSearchLog.record(documentSearch.getFingerprint(), documentSearch.getOrigin(),
+            opaqueId, parent.indexName, parent.type, System.nanoTime() - startNanos,
+            response.getTookMillis(), response.getSearchHits().size(), response.getTotalHits());
+      }
+    }
+
+    /**
+     * Collects the documents of the given {@link SearchResponse} with the given {@link Collector},
+     * unless the response is partial and partial results are not allowed.
+     * 
+     * @throws PartialSearchResultsException if the search timed out or failed on some shards and
+     *         partial results are not allowed
+     */
+    private <R, A> R collect(final SearchResponse<D> response,
+        final Collector<? super D, A, R> collector) {
       LOGGER.trace("Query response: {} total hits", response.getTotalHits());
-      final Iterator<SearchHit> iterator = response.getSearchHits().iterator();
-      final Spliterator<SearchHit> spliterator =
-          Spliterators.spliteratorUnknownSize(iterator, Spliterator.IMMUTABLE);
-      return StreamSupport.stream(spliterator, false).map(searchHit -> {
-        final DocumentCodec<D> documentCodec =
-            parent.codecRegistry.getDocumentCodec(searchHit.getSource(), parent.domainType);
-        return documentCodec.decode(searchHit.getId(), searchHit.getSource());
-      }).collect(collector);
+      if (response.isTimedOut() || response.getFailedShards() > 0) {
+        if (!this.allowPartialResults) {
+          throw new PartialSearchResultsException(parent.indexName, response.isTimedOut(),
+              response.getFailedShards());
+        }
+        LOGGER.warn("Collecting partial results of search on index '{}' (timed out: {}, "
+            + "failed shards: {})", parent.indexName, response.isTimedOut(),
+            response.getFailedShards());
+      }
+      return response.getDocuments().stream().collect(collector);
+    }
+
+    @Override
+    public SearchPage<D> page(final int pageSize) {
+      return page(pageSize, null);
+    }
+
+    @Override
+    public SearchPage<D> page(final int pageSize, final String cursor) {
+      if (pageSize < 1) {
+        throw new IllegalArgumentException("Page size must be greater than 0");
+      }
+      final SearchCursorCodec searchCursorCodec = parent.codecRegistry.getSearchCursorCodec();
+      // sort on the document id to break ties between hits with the same score, so that the
+      // order of the hits (hence the cursor) is deterministic
+      final DocumentSearch documentSearch = new DocumentSearch(this.shouldMatchExpression,
+          this.mustMatchExpression, this.mustNotMatchExpression, this.filterExpression)
+              .size(pageSize).sort(SortField.SCORE, SortField.UID).preference(this.preference)
+              .timeout(getSearchTimeoutMillis());
+      if (cursor != null) {
+        documentSearch.searchAfter(searchCursorCodec.decode(cursor));
+      }
+      final ContentEntity requestBody = parent.searchRequestBody(documentSearch);
+      final String opaqueId = parent.client.getOpaqueId();
+      final long startNanos = System.nanoTime();
+      final SearchResponse<D> response = parent.client.search(parent.indexName, parent.type,
+          documentSearch.getRouting(parent.routingFieldName), documentSearch.getPreference(),
+          requestBody, this.timeoutNanos, TimeUnit.NANOSECONDS, parent.sourceDecoder());
+      logSearch(documentSearch, opaqueId, startNanos, response);
+      final List<SearchHit> searchHits = response.getSearchHits();
+      final List<D> documents = response.getDocuments();
+      // a short page is the last one, unless the search timed out before finding all hits
+      final boolean lastPage = searchHits.isEmpty()
+          || (searchHits.size() < pageSize && !response.isTimedOut());
+      final String nextCursor = lastPage ? null
+          : searchCursorCodec.encode(searchHits.get(searchHits.size() - 1).getSortValues());
+      return new SearchPage<>(documents, response.getTotalHits(), nextCursor,
+          response.isTimedOut(), response.getFailedShards());
+    }
+
+    @Override
+    public Stream<D> stream() {
+      final ScrollIterator<D> iterator = scroll();
+      final Spliterator<D> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+          Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+      return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    @Override
+    public Stream<D> parallelStream() {
+      return parallelStream(parent::getShardCount);
+    }
+
+    @Override
+    public Stream<D> parallelStream(final int slices) {
+      if (slices < 1) {
+        throw new IllegalArgumentException("Number of slices must be greater than 0");
+      }
+      return parallelStream(() -> slices);
+    }
+
+    /**
+     * @param slices the supplier of the number of slices, which is only called when the terminal
+     *        operation of the stream starts, on the thread that runs it
+     * @return a lazy, parallel {@link Stream} over all the documents matching this search
+     */
+    private Stream<D> parallelStream(final IntSupplier slices) {
+      final AtomicReference<SlicedScrollSpliterator<D>> spliterator = new AtomicReference<>();
+      return StreamSupport.stream(() -> {
+        final int maxSlices = slices.getAsInt();
+        spliterator.set(
+            new SlicedScrollSpliterator<>(sliceId -> scroll(sliceId, maxSlices), maxSlices));
+        return spliterator.get();
+      }, SlicedScrollSpliterator.CHARACTERISTICS, true).onClose(() -> {
+        final SlicedScrollSpliterator<D> openedSpliterator = spliterator.get();
+        if (openedSpliterator != null) {
+          openedSpliterator.close();
+        }
+      });
+    }
+
+    @Override
+    public void forEach(final Consumer<? super D> action) {
+      try (final ScrollIterator<D> iterator = scroll()) {
+        iterator.forEachRemaining(action);
+      }
+    }
+
+    /**
+     * @return a {@link ScrollIterator} over all the documents matching this search.
+     */
+    private ScrollIterator<D> scroll() {
+      return scroll(0, 1);
+    }
+
+    /**
+     * @param sliceId the id of the slice to scroll over
+     * @param maxSlices the total number of slices
+     * @return a {@link ScrollIterator} over the documents matching this search in the given slice.
+     */
+    private ScrollIterator<D> scroll(final int sliceId, final int maxSlices) {
+      LOGGER.debug("Executing scroll query on slice {}/{}...", sliceId, maxSlices);
+      final DocumentSearch documentSearch = new DocumentSearch(this.shouldMatchExpression,
+          this.mustMatchExpression, this.mustNotMatchExpression, this.filterExpression)
+              .size(parent.scrollPageSize).slice(sliceId, maxSlices).preference(this.preference);
+      final ContentEntity requestBody = parent.searchRequestBody(documentSearch);
+      return new ScrollIterator<>(parent.client, parent.codecRegistry, parent.domainType,
+          parent.indexName, parent.type, documentSearch.getRouting(parent.routingFieldName),
+          documentSearch.getPreference(), requestBody, SCROLL_KEEP_ALIVE);
     }
 
 
@@ -0,0 +1,462 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+import org.lambdamatic.elasticsearch.exceptions.BulkIndexException;
+import org.lambdamatic.elasticsearch.exceptions.BulkIndexException.Failure;
+import org.lambdamatic.elasticsearch.exceptions.CodecException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.RetryPolicy;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.BulkResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.BulkResponse.BulkItemResult;
+import org.lambdamatic.internal.elasticsearch.codec.BulkRequestCodec;
+import org.lambdamatic.internal.elasticsearch.codec.CodecRegistry;
+import org.lambdamatic.internal.elasticsearch.codec.DocumentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Indexes documents in batches using the <code>_bulk</code> endpoint.
+ * <p>
+ * Documents are accumulated until the number of pending documents or the size of the pending
+ * payload reaches the limits defined in the {@link BulkIndexerSettings}, or until the flush
+ * interval elapsed. Several bulk requests can be in flight concurrently, and callers are blocked
+ * when this limit is reached. A bulk request is only retried as a whole if Elasticsearch rejected
+ * it (<code>429 Too Many Requests</code>) or if it could not be sent at all: after any other
+ * failure, some of its documents may have been indexed already. Likewise, only the items of a
+ * partially failed bulk response that were rejected (<code>429</code>) or whose shard was
+ * unavailable (<code>503</code>) are retried.
+ * </p>
+ * <p>
+ * When the {@link Client} has a {@link RetryPolicy}, the rejected bulk requests are only retried
+ * by that policy, within its retry budget, and not once more by this {@link BulkIndexer}, which
+ * would multiply the attempts sent to an overloaded cluster.
+ * </p>
+ * <p>
+ * Closing the {@link BulkIndexer} flushes the pending documents and waits until all in-flight
+ * requests completed. A {@link BulkIndexException} is thrown if some documents could not be
+ * indexed.
+ * </p>
+ *
+ * @param <D> the type of documents to index
+ */
+public class BulkIndexer<D> implements AutoCloseable {
+
+  /** The usual Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkIndexer.class);
+
+  /** The underlying {@link Client} to connect to the Elasticsearch cluster. */
+  private final Client client;
+
+  /** The {@link CodecRegistry} to encode the documents. */
+  private final CodecRegistry codecRegistry;
+
+  /** The name of the index in which documents are indexed. */
+  private final String indexName;
+
+  /** The type of the documents to index. */
+  private final String type;
+
+  private final BulkIndexerSettings settings;
+
+  /** Permits for the bulk requests in flight, including their retries. */
+  private final Semaphore inFlightRequests;
+
+  /** Executor for the time-based flushes and the delayed retries. */
+  private final ScheduledExecutorService scheduler;
+
+  private final JsonFactory jsonFactory;
+
+  /** The documents that could not be indexed. */
+  private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+  /** Lock on the {@link #pendingRequest}. */
+  private final Object lock = new Object();
+
+  /** The bulk request collecting the incoming documents. */
+  private BulkRequest<D> pendingRequest = new BulkRequest<>(0);
+
+  private volatile boolean closed = false;
+
+  /**
+   * Constructor.
+   *
+   * @param client the underlying {@link Client} to connect to the Elasticsearch cluster
+   * @param codecRegistry the {@link CodecRegistry} to encode the documents
+   * @param indexName the name of the index in which documents are indexed
+   * @param type the type of the documents to index
+   * @param settings the {@link BulkIndexerSettings}
+   */
+  public BulkIndexer(final Client client, final CodecRegistry codecRegistry,
+      final String indexName, final String type, final BulkIndexerSettings settings) {
+    this.client = client;
+    this.codecRegistry = codecRegistry;
+    this.indexName = indexName;
+    this.type = type;
+    this.settings = settings;
+    this.inFlightRequests = new Semaphore(settings.getMaxConcurrentRequests());
+    this.jsonFactory = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false).getFactory();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "bulk-indexer-" + indexName);
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long flushInterval = settings.getFlushIntervalMillis();
+    if (flushInterval > 0) {
+      this.scheduler.scheduleWithFixedDelay(this::flushIfExpired, flushInterval, flushInterval,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Adds the given document to the pending bulk request, which is sent if it reached its maximum
+   * number of documents or size. This method blocks if the maximum number of requests in flight
+   * was reached.
+   *
+   * @param document the document to index
+   */
+  public void add(final D document) {
+    if (this.closed) {
+      throw new IllegalStateException("Bulk indexer was closed");
+    }
+    final DocumentCodec<D> documentCodec = this.codecRegistry.getDocumentCodec(document);
+    final String documentId = documentCodec.getDomainObjectId(document);
+    final BulkRequestCodec bulkRequestCodec = this.codecRegistry.getBulkRequestCodec();
+    final byte[] payload = bulkRequestCodec.encodeIndexAction(this.indexName, this.type,
+        documentId, document, documentCodec);
+    final BulkRequest<D> fullRequest;
+    synchronized (this.lock) {
+      this.pendingRequest.add(new BulkItem<>(document, documentCodec, documentId, payload));
+      if (this.pendingRequest.size() < this.settings.getMaxActions()
+          && this.pendingRequest.getByteSize() < this.settings.getMaxBytes()) {
+        return;
+      }
+      fullRequest = swapPendingRequest();
+    }
+    this.inFlightRequests.acquireUninterruptibly();
+    execute(fullRequest);
+  }
+
+  /**
+   * Sends the pending documents, if any. This method blocks if the maximum number of requests in
+   * flight was reached.
+   */
+  public void flush() {
+    final BulkRequest<D> request;
+    synchronized (this.lock) {
+      if (this.pendingRequest.isEmpty()) {
+        return;
+      }
+      request = swapPendingRequest();
+    }
+    this.inFlightRequests.acquireUninterruptibly();
+    execute(request);
+  }
+
+  /**
+   * Flushes the pending documents, waits until all in-flight requests completed and releases the
+   * resources.
+   *
+   * @throws BulkIndexException if some documents could not be indexed
+   */
+  @Override
+  public void close() {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    flush();
+    // wait until all in-flight requests (and their retries) completed
+    final int maxConcurrentRequests = this.settings.getMaxConcurrentRequests();
+    this.inFlightRequests.acquireUninterruptibly(maxConcurrentRequests);
+    this.inFlightRequests.release(maxConcurrentRequests);
+    this.scheduler.shutdownNow();
+    if (!this.failures.isEmpty()) {
+      throw new BulkIndexException(new ArrayList<>(this.failures));
+    }
+  }
+
+  /**
+   * Sends the pending documents if they have been waiting for longer than the flush interval and
+   * if a request slot is available. Called periodically by the scheduler, which must never block.
+   */
+  private void flushIfExpired() {
+    final long flushIntervalNanos =
+        TimeUnit.MILLISECONDS.toNanos(this.settings.getFlushIntervalMillis());
+    final BulkRequest<D> request;
+    synchronized (this.lock) {
+      if (this.pendingRequest.isEmpty()
+          || System.nanoTime() - this.pendingRequest.getFirstItemNanos() < flushIntervalNanos) {
+        return;
+      }
+      if (!this.inFlightRequests.tryAcquire()) {
+        // will try again on next tick, or a caller will flush when adding more documents
+        return;
+      }
+      request = swapPendingRequest();
+    }
+    execute(request);
+  }
+
+  /**
+   * Replaces the pending request with a new, empty one. Must be called while holding the lock.
+   *
+   * @return the previous pending request.
+   */
+  private BulkRequest<D> swapPendingRequest() {
+    final BulkRequest<D> request = this.pendingRequest;
+    this.pendingRequest = new BulkRequest<>(0);
+    return request;
+  }
+
+  /**
+   * Sends the given bulk request. The caller must hold a permit, which is released when the request
+   * and its retries completed.
+   *
+   * @param request the request to send
+   */
+  private void execute(final BulkRequest<D> request) {
+    LOGGER.debug("Sending bulk request with {} item(s) ({} bytes) on attempt #{}",
+        request.size(), request.getByteSize(), request.getAttempt() + 1);
+    try {
+      this.client.bulk(request.getBody(), new ResponseListener() {
+
+        @Override
+        public void onSuccess(final Response response) {
+          try {
+            final BulkResponse bulkResponse =
+                Client.readResponse(BulkIndexer.this.jsonFactory, response, BulkResponse.class);
+            final BulkRequest<D> retryRequest = processResponse(request, bulkResponse);
+            if (!retryRequest.isEmpty()) {
+              scheduleRetry(retryRequest);
+              return;
+            }
+          } catch (RuntimeException e) {
+            failAll(request, -1, e.getMessage());
+          }
+          BulkIndexer.this.inFlightRequests.release();
+        }
+
+        @Override
+        public void onFailure(final Exception exception) {
+          final int status = exception instanceof ResponseException
+              ? ((ResponseException) exception).getResponse().getStatusLine().getStatusCode()
+              : -1;
+          // whole request failed: retry it only if none of its items may have been executed
+          // a rejected request was already retried by the client retry policy, if any
+          final boolean rejected =
+              status == 429 && BulkIndexer.this.client.getRetryPolicy() == RetryPolicy.NONE;
+          if ((rejected || Client.isRequestNotSent(exception)) && canRetry(request)) {
+            scheduleRetry(request.retry(request.getItems()));
+            return;
+          }
+          failAll(request, status, exception.getMessage());
+          BulkIndexer.this.inFlightRequests.release();
+        }
+      });
+    } catch (RuntimeException e) {
+      failAll(request, -1, e.getMessage());
+      this.inFlightRequests.release();
+    }
+  }
+
+  /**
+   * Processes each item of the given {@link BulkResponse}: sets the generated id on the indexed
+   * documents, and collects the failed items.
+   *
+   * @param request the request that was sent
+   * @param response the response to process
+   * @return a bulk request with the items to retry, which may be empty
+   */
+  private BulkRequest<D> processResponse(final BulkRequest<D> request,
+      final BulkResponse response) {
+    final List<BulkItem<D>> retryItems = new ArrayList<>();
+    final List<BulkItem<D>> items = request.getItems();
+    final List<BulkResponse.BulkItem> results = response.getItems();
+    for (int i = 0; i < items.size(); i++) {
+      final BulkItem<D> item = items.get(i);
+      final BulkItemResult result = i < results.size() ? results.get(i).getResult() : null;
+      if (result == null) {
+        this.failures.add(new Failure(item.document, -1, "Missing item in bulk response"));
+      } else if (!result.isFailed()) {
+        if (item.documentId == null) {
+          // document id was allocated by the server and must be set in the given domain object
+          try {
+            item.documentCodec.setDomainObjectId(item.document, result.getId());
+          } catch (CodecException e) {
+            this.failures.add(new Failure(item.document, result.getStatus(), e.getMessage()));
+          }
+        }
+      } else if (isRetryable(result.getStatus()) && canRetry(request)) {
+        retryItems.add(item);
+      } else {
+        this.failures.add(new Failure(item.document, result.getStatus(),
+            result.getError() != null ? result.getError().getReason() : null));
+      }
+    }
+    if (!retryItems.isEmpty()) {
+      LOGGER.debug("{} item(s) out of {} will be retried", retryItems.size(), items.size());
+    }
+    return request.retry(retryItems);
+  }
+
+  /**
+   * Schedules the given request after a delay which doubles on each attempt, up to the maximum
+   * backoff.
+   *
+   * @param request the request to retry
+   */
+  private void scheduleRetry(final BulkRequest<D> request) {
+    final long delay = Math.min(this.settings.getMaxBackoffMillis(),
+        this.settings.getInitialBackoffMillis() << Math.min(request.getAttempt() - 1, 30));
+    try {
+      this.scheduler.schedule(() -> execute(request), delay, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      failAll(request, -1, e.getMessage());
+      this.inFlightRequests.release();
+    }
+  }
+
+  private boolean canRetry(final BulkRequest<D> request) {
+    return request.getAttempt() < this.settings.getMaxRetries();
+  }
+
+  /**
+   * @param status the HTTP status of a failed item
+   * @return <code>true</code> if the item was rejected, or if its shard was unavailable, in which
+   *         case it was not executed and can be sent again
+   */
+  private static boolean isRetryable(final int status) {
+    return status == 429 || status == 503;
+  }
+
+  private void failAll(final BulkRequest<D> request, final int status, final String reason) {
+    LOGGER.error("Failed to index {} document(s) in bulk: {}", request.size(), reason);
+    request.getItems()
+        .forEach(item -> this.failures.add(new Failure(item.document, status, reason)));
+  }
+
+  /**
+   * A document to index, along with its encoded bulk action.
+   *
+   * @param <D> the type of document
+   */
+  static class BulkItem<D> {
+
+    final D document;
+
+    final DocumentCodec<D> documentCodec;
+
+    final String documentId;
+
+    final byte[] payload;
+
+    BulkItem(final D document, final DocumentCodec<D> documentCodec, final String documentId,
+        final byte[] payload) {
+      this.document = document;
+      this.documentCodec = documentCodec;
+      this.documentId = documentId;
+      this.payload = payload;
+    }
+
+  }
+
+  /**
+   * A list of {@link BulkItem} to send in a single request.
+   *
+   * @param <D> the type of document
+   */
+  static class BulkRequest<D> {
+
+    private final List<BulkItem<D>> items = new ArrayList<>();
+
+    private final int attempt;
+
+    /** Time at which the first item was added to this request, in nanoseconds. */
+    private long firstItemNanos = 0;
+
+    private long byteSize = 0;
+
+    BulkRequest(final int attempt) {
+      this.attempt = attempt;
+    }
+
+    void add(final BulkItem<D> item) {
+      if (this.items.isEmpty()) {
+        this.firstItemNanos = System.nanoTime();
+      }
+      this.items.add(item);
+      this.byteSize += item.payload.length;
+    }
+
+    /**
+     * @param retryItems the items to retry
+     * @return a new {@link BulkRequest} with the given items, for the next attempt
+     */
+    BulkRequest<D> retry(final List<BulkItem<D>> retryItems) {
+      final BulkRequest<D> retryRequest = new BulkRequest<>(this.attempt + 1);
+      retryItems.forEach(retryRequest::add);
+      return retryRequest;
+    }
+
+    List<BulkItem<D>> getItems() {
+      return this.items;
+    }
+
+    int size() {
+      return this.items.size();
+    }
+
+    boolean isEmpty() {
+      return this.items.isEmpty();
+    }
+
+    long getByteSize() {
+      return this.byteSize;
+    }
+
+    int getAttempt() {
+      return this.attempt;
+    }
+
+    long getFirstItemNanos() {
+      return this.firstItemNanos;
+    }
+
+    /**
+     * @return the NDJSON body of the request, as one chunk per item.
+     */
+    List<byte[]> getBody() {
+      final List<byte[]> body = new ArrayList<>(this.items.size());
+      for (BulkItem<D> item : this.items) {
+        body.add(item.payload);
+      }
+      return body;
+    }
+
+  }
+
+}
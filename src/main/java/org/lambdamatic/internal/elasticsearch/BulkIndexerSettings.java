@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings for the {@link BulkIndexer}: when pending documents should be flushed, how many bulk
+ * requests may be in flight concurrently and how failed items are retried.
+ */
+public class BulkIndexerSettings {
+
+  /** Default maximum number of documents in a single bulk request. */
+  public static final int DEFAULT_MAX_ACTIONS = 1000;
+
+  /** Default maximum size of a single bulk request body, in bytes. */
+  public static final long DEFAULT_MAX_BYTES = 5 * 1024 * 1024;
+
+  /** Default maximum delay before pending documents are flushed, in milliseconds. */
+  public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+  /** Default maximum number of bulk requests in flight. */
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 2;
+
+  /** Default maximum number of retries for the failed items. */
+  public static final int DEFAULT_MAX_RETRIES = 3;
+
+  /** Default delay before the first retry, in milliseconds. */
+  public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+
+  /** Default maximum delay between two retries, in milliseconds. */
+  public static final long DEFAULT_MAX_BACKOFF_MILLIS = 5000;
+
+  private int maxActions = DEFAULT_MAX_ACTIONS;
+
+  private long maxBytes = DEFAULT_MAX_BYTES;
+
+  private long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+
+  private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+  private int maxRetries = DEFAULT_MAX_RETRIES;
+
+  private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+
+  private long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+
+  /**
+   * @param maxActions the maximum number of documents in a single bulk request
+   * @return this {@link BulkIndexerSettings} for method calls chaining
+   */
+  public BulkIndexerSettings maxActions(final int maxActions) {
+    if (maxActions < 1) {
+      throw new IllegalArgumentException("Maximum number of actions must be greater than 0");
+    }
+    this.maxActions = maxActions;
+    return this;
+  }
+
+  /**
+   * @param maxBytes the maximum size of a single bulk request body, in bytes
+   * @return this {@link BulkIndexerSettings} for method calls chaining
+   */
+  public BulkIndexerSettings maxBytes(final long maxBytes) {
+    if (maxBytes < 1) {
+      throw new IllegalArgumentException("Maximum number of bytes must be greater than 0");
+    }
+    this.maxBytes = maxBytes;
+    return this;
+  }
+
+  /**
+   * @param flushInterval the maximum delay before pending documents are flushed. A value of
+   *        <code>0</code> disables the time-based flush.
+   * @param unit the unit of the given {@code flushInterval}
+   * @return this {@link BulkIndexerSettings} for method calls chaining
+   */
+  public BulkIndexerSettings flushInterval(final long flushInterval, final TimeUnit unit) {
+    this.flushIntervalMillis = unit.toMillis(flushInterval);
+    return this;
+  }
+
+  /**
+   * @param maxConcurrentRequests the maximum number of bulk requests in flight
+   * @return this {@link BulkIndexerSettings} for method calls chaining
+   */
+  public BulkIndexerSettings maxConcurrentRequests(final int maxConcurrentRequests) {
+    if (maxConcurrentRequests < 1) {
+      throw new IllegalArgumentException(
+          "Maximum number of concurrent requests must be greater than 0");
+    }
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    return this;
+  }
+
+  /**
+   * @param maxRetries the maximum number of retries for the failed items, and for the rejected
+   *        requests unless the {@link org.lambdamatic.internal.elasticsearch.clientdsl.Client} has
+   *        a retry policy
+   * @return this {@link BulkIndexerSettings} for method calls chaining
+   */
+  public BulkIndexerSettings maxRetries(final int maxRetries) {
+    if (maxRetries < 0) {
+      throw new IllegalArgumentException("Maximum number of retries must not be negative");
+    }
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  /**
+   * @param initialBackoff the delay before the first retry. The delay doubles on each subsequent
+   *        retry, up to the {@link #maxBackoff(long, TimeUnit) maximum backoff}.
+   * @param unit the unit of the given {@code initialBackoff}
+   * @return this {@link BulkIndexerSettings} for method calls chaining
+   */
+  public BulkIndexerSettings initialBackoff(final long initialBackoff, final TimeUnit unit) {
+    if (initialBackoff < 0) {
+      throw new IllegalArgumentException("Initial backoff must not be negative");
+    }
+    this.initialBackoffMillis = unit.toMillis(initialBackoff);
+    return this;
+  }
+
+  /**
+   * @param maxBackoff the maximum delay between two retries
+   * @param unit the unit of the given {@code maxBackoff}
+   * @return this {@link BulkIndexerSettings} for method calls chaining
+   */
+  public BulkIndexerSettings maxBackoff(final long maxBackoff, final TimeUnit unit) {
+    if (maxBackoff < 0) {
+      throw new IllegalArgumentException("Maximum backoff must not be negative");
+    }
+    this.maxBackoffMillis = unit.toMillis(maxBackoff);
+    return this;
+  }
+
+  public int getMaxActions() {
+    return this.maxActions;
+  }
+
+  public long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  public long getFlushIntervalMillis() {
+    return this.flushIntervalMillis;
+  }
+
+  public int getMaxConcurrentRequests() {
+    return this.maxConcurrentRequests;
+  }
+
+  public int getMaxRetries() {
+    return this.maxRetries;
+  }
+
+  public long getInitialBackoffMillis() {
+    return this.initialBackoffMillis;
+  }
+
+  public long getMaxBackoffMillis() {
+    return this.maxBackoffMillis;
+  }
+
+}
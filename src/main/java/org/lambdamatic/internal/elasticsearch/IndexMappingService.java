@@ -13,6 +13,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -26,6 +27,7 @@ import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetIndexMappingsResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetIndexMappingsResponse.IndexMapping;
 import org.lambdamatic.internal.elasticsearch.codec.DocumentCodec;
+import org.lambdamatic.internal.elasticsearch.codec.MappingUtils;
 
 /**
  * Utility class to validate the mapping of a given Elasticsearch index with its associated domain
@@ -135,6 +137,10 @@ public class IndexMappingService {
     // mapping properties for all document fields, including type and analyzers
     final Map<String, Object> classMapping = new HashMap<>();
     classMapping.put("properties", fieldMappings);
+    // documents routed on a custom value could not be retrieved by their id alone
+    if (MappingUtils.getRoutingField(domainType) != null) {
+      classMapping.put("_routing", Collections.singletonMap("required", true));
+    }
     return classMapping;
   }
 
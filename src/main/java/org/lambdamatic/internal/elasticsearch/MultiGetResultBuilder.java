@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lambdamatic.elasticsearch.MultiGetResult;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetDocumentResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.MultiGetResponse;
+import org.lambdamatic.internal.elasticsearch.codec.CodecRegistry;
+
+/**
+ * Decodes the documents contained in one or more {@link MultiGetResponse} and builds the
+ * corresponding {@link MultiGetResult}.
+ *
+ * @param <D> the type of the domain document.
+ */
+public class MultiGetResultBuilder<D> {
+
+  private final CodecRegistry codecRegistry;
+
+  private final Class<D> domainType;
+
+  /** The ids of the requested documents, in the order of the request. */
+  private final List<String> documentIds;
+
+  /** The documents decoded so far, indexed by their id. */
+  private final Map<String, D> documents = new HashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param codecRegistry the {@link CodecRegistry} to decode the documents
+   * @param domainType the default domain type of the documents
+   * @param documentIds the ids of the requested documents, in the order of the request
+   */
+  public MultiGetResultBuilder(final CodecRegistry codecRegistry, final Class<D> domainType,
+      final List<String> documentIds) {
+    this.codecRegistry = codecRegistry;
+    this.domainType = domainType;
+    this.documentIds = documentIds;
+  }
+
+  /**
+   * Decodes the documents found in the given {@link MultiGetResponse}.
+   *
+   * @param multiGetResponse the response to a <code>_mget</code> request
+   * @return this {@link MultiGetResultBuilder} for method calls chaining
+   */
+  public synchronized MultiGetResultBuilder<D> add(final MultiGetResponse multiGetResponse) {
+    for (GetDocumentResponse getDocumentResponse : multiGetResponse.getDocuments()) {
+      if (getDocumentResponse.isExists()) {
+        final D document = this.codecRegistry
+            .getDocumentCodec(getDocumentResponse.getSource(), this.domainType)
+            .decode(getDocumentResponse.getId(), getDocumentResponse.getSource());
+        this.documents.put(getDocumentResponse.getId(), document);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * @return the {@link MultiGetResult} with the documents found so far, in the order of the
+   *         request.
+   */
+  public synchronized MultiGetResult<D> build() {
+    final Map<String, D> orderedDocuments = new LinkedHashMap<>();
+    final List<String> missingIds = new ArrayList<>();
+    for (String documentId : this.documentIds) {
+      final D document = this.documents.get(documentId);
+      if (document != null) {
+        orderedDocuments.put(documentId, document);
+      } else {
+        missingIds.add(documentId);
+      }
+    }
+    return new MultiGetResult<>(orderedDocuments, missingIds);
+  }
+
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.http.HttpEntity;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+import org.lambdamatic.elasticsearch.exceptions.ClientIOException;
+import org.lambdamatic.elasticsearch.exceptions.ClientResponseException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.ErrorResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponseParser.SourceDecoder;
+import org.lambdamatic.internal.elasticsearch.codec.CodecRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * An {@link Iterator} over all the documents matching a search request, backed by the scroll API.
+ * Only the current page of hits is held in memory while the next one is being fetched in the
+ * background, so the memory footprint is bounded by the page size, regardless of the total number
+ * of hits. The scroll context is cleared when the last page was consumed, or when this iterator is
+ * {@link #close() closed}.
+ *
+ * @param <D> the type of the domain document.
+ */
+public class ScrollIterator<D> implements Iterator<D>, AutoCloseable {
+
+  /** The usual Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ScrollIterator.class);
+
+  private final Client client;
+
+  private final String indexName;
+
+  private final String type;
+
+  /** The routing value of the documents to search, or <code>null</code> to search all shards. */
+  private final String routing;
+
+  /** The shard copies to search, or <code>null</code> to let Elasticsearch pick them in turn. */
+  private final String preference;
+
+  private final HttpEntity requestBody;
+
+  private final String keepAlive;
+
+  private final JsonFactory jsonFactory;
+
+  /** The decoder of the source of each hit, applied while the pages are read. */
+  private final SourceDecoder<D> sourceDecoder;
+
+  /** The documents of the current page. */
+  private Iterator<D> currentDocuments = Collections.emptyIterator();
+
+  /** The next page, being fetched while the current page is consumed, or <code>null</code>. */
+  private CompletableFuture<SearchResponse<D>> nextPage;
+
+  /** The id of the scroll context, or <code>null</code> if it was cleared or not opened yet. */
+  private String scrollId;
+
+  /** The total number of hits matching the search request. */
+  private long totalHits;
+
+  /** The number of hits received so far. */
+  private long receivedHits;
+
+  private boolean started = false;
+
+  private boolean closed = false;
+
+  /**
+   * Constructor.
+   *
+   * @param client the {@link Client} to send the requests with
+   * @param codecRegistry the {@link CodecRegistry} to decode the documents
+   * @param domainType the default domain type of the documents
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search, or <code>null</code>
+   * @param requestBody the (repeatable) entity holding the body of the search request, including
+   *        the page size
+   * @param keepAlive how long the scroll context should be kept alive between two pages
+   */
+  public ScrollIterator(final Client client, final CodecRegistry codecRegistry,
+      final Class<D> domainType, final String indexName, final String type, final String routing,
+      final String preference, final HttpEntity requestBody, final String keepAlive) {
+    this.client = client;
+    this.indexName = indexName;
+    this.type = type;
+    this.routing = routing;
+    this.preference = preference;
+    this.requestBody = requestBody;
+    this.keepAlive = keepAlive;
+    this.jsonFactory = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false).getFactory();
+    this.sourceDecoder = codecRegistry.getDocumentCodec(domainType)::decode;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (this.closed) {
+      return false;
+    }
+    if (!this.started) {
+      this.started = true;
+      onPage(this.client.search(this.indexName, this.type, this.routing, this.preference,
+          this.requestBody, this.keepAlive, this.sourceDecoder));
+    }
+    while (!this.currentDocuments.hasNext() && this.nextPage != null) {
+      final CompletableFuture<SearchResponse<D>> page = this.nextPage;
+      this.nextPage = null;
+      try {
+        onPage(page.join());
+      } catch (CompletionException e) {
+        close();
+        // pages are always completed with a RuntimeException
+        throw (RuntimeException) e.getCause();
+      }
+    }
+    if (!this.currentDocuments.hasNext()) {
+      close();
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public D next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return this.currentDocuments.next();
+  }
+
+  /**
+   * Makes the hits of the given page available and starts fetching the next page, unless all hits
+   * were received.
+   */
+  private void onPage(final SearchResponse<D> page) {
+    this.scrollId = page.getScrollId();
+    this.totalHits = page.getTotalHits();
+    this.currentDocuments = page.getDocuments().iterator();
+    final int pageSize = page.getSearchHits().size();
+    this.receivedHits += pageSize;
+    if (pageSize > 0 && this.receivedHits < this.totalHits && this.scrollId != null) {
+      this.nextPage = fetchNextPage(this.scrollId);
+    }
+  }
+
+  private CompletableFuture<SearchResponse<D>> fetchNextPage(final String scrollId) {
+    final CompletableFuture<SearchResponse<D>> page = new CompletableFuture<>();
+    this.client.scroll(scrollId, this.keepAlive, new ResponseListener() {
+
+      @Override
+      public void onSuccess(final Response response) {
+        try {
+          page.complete(Client.readSearchResponse(jsonFactory, response, sourceDecoder));
+        } catch (RuntimeException e) {
+          page.completeExceptionally(e);
+        }
+      }
+
+      @Override
+      public void onFailure(final Exception exception) {
+        if (exception instanceof ResponseException) {
+          page.completeExceptionally(new ClientResponseException("Failed to scroll documents",
+              Client.readResponse(jsonFactory, ((ResponseException) exception).getResponse(),
+                  ErrorResponse.class)));
+        } else if (exception instanceof IOException) {
+          page.completeExceptionally(
+              new ClientIOException("Failed to scroll documents", (IOException) exception));
+        } else if (exception instanceof RuntimeException) {
+          page.completeExceptionally(exception);
+        } else {
+          page.completeExceptionally(
+              new ClientIOException("Failed to scroll documents", new IOException(exception)));
+        }
+      }
+    });
+    return page;
+  }
+
+  /**
+   * Clears the scroll context and releases the current page. If the next page is still being
+   * fetched, the scroll context is cleared once it was received. This method is idempotent.
+   */
+  @Override
+  public void close() {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    this.currentDocuments = Collections.emptyIterator();
+    final String lastScrollId = this.scrollId;
+    this.scrollId = null;
+    if (this.nextPage != null) {
+      // the pending scroll request may return a new scroll id
+      this.nextPage.whenComplete((page, error) -> clearScroll(
+          page != null && page.getScrollId() != null ? page.getScrollId() : lastScrollId));
+      this.nextPage = null;
+    } else {
+      clearScroll(lastScrollId);
+    }
+  }
+
+  /**
+   * Clears the scroll context without blocking, since this method may be called from the thread
+   * that received the last page.
+   */
+  private void clearScroll(final String scrollId) {
+    if (scrollId == null) {
+      return;
+    }
+    this.client.clearScroll(scrollId, new ResponseListener() {
+
+      @Override
+      public void onSuccess(final Response response) {
+        LOGGER.trace("Cleared scroll context {}", scrollId);
+      }
+
+      @Override
+      public void onFailure(final Exception exception) {
+        // the scroll context will expire anyway after the keep-alive period
+        LOGGER.warn("Failed to clear scroll context", exception);
+      }
+    });
+  }
+
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch;
+
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * A {@link Spliterator} over all the documents matching a search request, backed by a sliced
+ * scroll: each slice is an independent {@link ScrollIterator}, so that a parallel stream can fetch
+ * and decode the slices concurrently. This {@link Spliterator} splits along slice boundaries, until
+ * each part covers a single slice.
+ *
+ * @param <D> the type of the domain document.
+ */
+public class SlicedScrollSpliterator<D> implements Spliterator<D>, AutoCloseable {
+
+  /** The characteristics of all {@link SlicedScrollSpliterator}s. */
+  public static final int CHARACTERISTICS = Spliterator.NONNULL | Spliterator.IMMUTABLE;
+
+  /** Opens the {@link ScrollIterator} for a given slice id. */
+  private final IntFunction<ScrollIterator<D>> sliceOpener;
+
+  /** All the slices opened so far, by this {@link Spliterator} and those split from it. */
+  private final Queue<ScrollIterator<D>> openedSlices;
+
+  /** The id of the next slice to open. */
+  private int nextSliceId;
+
+  /** The id after the last slice covered by this {@link Spliterator}. */
+  private final int endSliceId;
+
+  /** The slice being consumed, or <code>null</code>. */
+  private ScrollIterator<D> currentSlice;
+
+  /**
+   * Constructor.
+   *
+   * @param sliceOpener the function that opens the {@link ScrollIterator} for a given slice id
+   * @param maxSlices the total number of slices
+   */
+  public SlicedScrollSpliterator(final IntFunction<ScrollIterator<D>> sliceOpener,
+      final int maxSlices) {
+    this(sliceOpener, new ConcurrentLinkedQueue<>(), 0, maxSlices);
+  }
+
+  private SlicedScrollSpliterator(final IntFunction<ScrollIterator<D>> sliceOpener,
+      final Queue<ScrollIterator<D>> openedSlices, final int startSliceId,
+      final int endSliceId) {
+    this.sliceOpener = sliceOpener;
+    this.openedSlices = openedSlices;
+    this.nextSliceId = startSliceId;
+    this.endSliceId = endSliceId;
+  }
+
+  @Override
+  public boolean tryAdvance(final Consumer<? super D> action) {
+    while (true) {
+      if (this.currentSlice != null && this.currentSlice.hasNext()) {
+        action.accept(this.currentSlice.next());
+        return true;
+      }
+      // the current slice (if any) closed itself once exhausted
+      if (this.nextSliceId >= this.endSliceId) {
+        this.currentSlice = null;
+        return false;
+      }
+      this.currentSlice = this.sliceOpener.apply(this.nextSliceId++);
+      this.openedSlices.add(this.currentSlice);
+    }
+  }
+
+  @Override
+  public Spliterator<D> trySplit() {
+    if (this.currentSlice != null || this.endSliceId - this.nextSliceId < 2) {
+      return null;
+    }
+    final int middleSliceId = this.nextSliceId + (this.endSliceId - this.nextSliceId) / 2;
+    final SlicedScrollSpliterator<D> prefix = new SlicedScrollSpliterator<>(this.sliceOpener,
+        this.openedSlices, this.nextSliceId, middleSliceId);
+    this.nextSliceId = middleSliceId;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    // the number of hits is unknown until the slices are opened
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public int characteristics() {
+    return CHARACTERISTICS;
+  }
+
+  /**
+   * Closes all the slices opened by this {@link Spliterator} and by those split from it.
+   */
+  @Override
+  public void close() {
+    ScrollIterator<D> openedSlice;
+    while ((openedSlice = this.openedSlices.poll()) != null) {
+      openedSlice.close();
+    }
+  }
+
+}
@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of asynchronous requests in flight, and adapts this limit to the throughput
+ * that Elasticsearch can sustain. The requests above the limit are queued until a request
+ * completes, and rejected with a {@link ConcurrencyLimitExceededException} when the queue is full.
+ *
+ * <p>
+ * The limit follows the gradient of the latency: the latency of the most recent requests is
+ * compared to its long-term average. As long as it stays within the tolerance, the limit grows by
+ * a fraction of its square root on each round-trip. When the latency rises above the
+ * tolerance, requests are queueing inside Elasticsearch and the limit shrinks in proportion. When a
+ * request is rejected (<code>429 Too Many Requests</code>) or times out, the limit is cut by 10%.
+ * The limit only grows when at least half of it is in use, so that it does not drift while the
+ * traffic is low.
+ * </p>
+ *
+ * @see Client#concurrencyLimiter(AdaptiveConcurrencyLimiter)
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  /** The usual Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+  /** Default initial limit of requests in flight. */
+  public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+  /** Default minimum limit of requests in flight. */
+  public static final int DEFAULT_MIN_LIMIT = 1;
+
+  /** Default maximum limit of requests in flight. */
+  public static final int DEFAULT_MAX_LIMIT = 1000;
+
+  /** Default maximum number of requests waiting for the limit. */
+  public static final int DEFAULT_MAX_QUEUE_SIZE = 1000;
+
+  /** Default ratio of the recent latency to the long-term latency that is still tolerated. */
+  public static final double DEFAULT_LATENCY_TOLERANCE = 1.5;
+
+  /** Ratio of the limit kept when a request is rejected or times out. */
+  private static final double BACKOFF_RATIO = 0.9;
+
+  /** Weight of each new limit in the smoothed limit. */
+  private static final double SMOOTHING = 0.2;
+
+  /** Weight of the latency of each round-trip in the long-term average. */
+  private static final double LONG_TERM_ALPHA = 2.0 / (100 + 1);
+
+  private int minLimit = DEFAULT_MIN_LIMIT;
+
+  private int maxLimit = DEFAULT_MAX_LIMIT;
+
+  private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+
+  private double latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+
+  private double limit = DEFAULT_INITIAL_LIMIT;
+
+  private double longTermLatencyNanos = 0;
+
+  /**
+   * The limit is adapted once per round-trip, i.e., once per window of as many completed requests
+   * as the limit.
+   */
+  private int windowRequests = 0;
+
+  private double windowLatencyNanos = 0;
+
+  private int windowSamples = 0;
+
+  private int windowMaxInFlightRequests = 0;
+
+  private boolean windowOverloaded = false;
+
+  private int inFlightRequests = 0;
+
+  private final Deque<Runnable> queue = new ArrayDeque<>();
+
+  /** Whether a thread is currently sending the queued requests. */
+  private boolean draining = false;
+
+  private long rejectedRequests = 0;
+
+  /**
+   * @param initialLimit the limit of requests in flight to start with
+   * @return this {@link AdaptiveConcurrencyLimiter} for method calls chaining
+   */
+  public synchronized AdaptiveConcurrencyLimiter initialLimit(final int initialLimit) {
+    if (initialLimit < 1) {
+      throw new IllegalArgumentException("Initial limit must be greater than 0");
+    }
+    this.limit = initialLimit;
+    return this;
+  }
+
+  /**
+   * @param minLimit the minimum limit of requests in flight
+   * @param maxLimit the maximum limit of requests in flight
+   * @return this {@link AdaptiveConcurrencyLimiter} for method calls chaining
+   */
+  public synchronized AdaptiveConcurrencyLimiter limitRange(final int minLimit,
+      final int maxLimit) {
+    if (minLimit < 1 || maxLimit < minLimit) {
+      throw new IllegalArgumentException(
+          "Minimum limit must be greater than 0 and not greater than the maximum limit");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = clamp(this.limit);
+    return this;
+  }
+
+  /**
+   * @param maxQueueSize the maximum number of requests waiting for the limit, above which requests
+   *        are rejected with a {@link ConcurrencyLimitExceededException}
+   * @return this {@link AdaptiveConcurrencyLimiter} for method calls chaining
+   */
+  public synchronized AdaptiveConcurrencyLimiter maxQueueSize(final int maxQueueSize) {
+    if (maxQueueSize < 0) {
+      throw new IllegalArgumentException("Maximum queue size must not be negative");
+    }
+    this.maxQueueSize = maxQueueSize;
+    return this;
+  }
+
+  /**
+   * @param latencyTolerance the ratio of the recent latency to the long-term latency (e.g.
+   *        <code>1.5</code>) above which the limit shrinks
+   * @return this {@link AdaptiveConcurrencyLimiter} for method calls chaining
+   */
+  public synchronized AdaptiveConcurrencyLimiter latencyTolerance(final double latencyTolerance) {
+    if (latencyTolerance < 1) {
+      throw new IllegalArgumentException("Latency tolerance must not be less than 1");
+    }
+    this.latencyTolerance = latencyTolerance;
+    return this;
+  }
+
+  /**
+   * @return the current limit of requests in flight.
+   */
+  public synchronized int getLimit() {
+    return permits();
+  }
+
+  /**
+   * @return the number of requests in flight.
+   */
+  public synchronized int getInFlightRequests() {
+    return this.inFlightRequests;
+  }
+
+  /**
+   * @return the number of requests waiting for the limit.
+   */
+  public synchronized int getQueuedRequests() {
+    return this.queue.size();
+  }
+
+  /**
+   * @return the number of requests rejected because the queue was full.
+   */
+  public synchronized long getRejectedRequests() {
+    return this.rejectedRequests;
+  }
+
+  /**
+   * Sends the given request now if the limit allows it, or as soon as enough requests completed.
+   * Each request must report its completion with {@link #onRequestCompleted(long, boolean)}, unless
+   * it throws an exception while it is sent.
+   *
+   * @param request the request to send
+   * @throws ConcurrencyLimitExceededException if the queue is full
+   */
+  void execute(final Runnable request) throws ConcurrencyLimitExceededException {
+    synchronized (this) {
+      if (this.queue.size() >= this.maxQueueSize
+          && (this.inFlightRequests >= permits() || !this.queue.isEmpty())) {
+        this.rejectedRequests++;
+        throw new ConcurrencyLimitExceededException("Too many pending requests: "
+            + this.inFlightRequests + " in flight (limit: " + permits() + ") and "
+            + this.queue.size() + " queued");
+      }
+      this.queue.add(request);
+    }
+    drain();
+  }
+
+  /**
+   * Adapts the limit to the outcome of a request, and sends the queued requests that the limit
+   * now allows.
+   *
+   * @param latencyNanos the time elapsed between the sending of the request to Elasticsearch and
+   *        its completion
+   * @param overloaded <code>true</code> if the request was rejected or timed out because
+   *        Elasticsearch is overloaded
+   */
+  void onRequestCompleted(final long latencyNanos, final boolean overloaded) {
+    synchronized (this) {
+      final int inFlightRequests = this.inFlightRequests--;
+      if (overloaded) {
+        // backs off once per round-trip, as the other requests of the window were probably sent
+        // before the limit was cut
+        if (!this.windowOverloaded) {
+          this.windowOverloaded = true;
+          this.limit = clamp(this.limit * BACKOFF_RATIO);
+        }
+      } else {
+        this.windowLatencyNanos += latencyNanos;
+        this.windowSamples++;
+        this.windowMaxInFlightRequests =
+            Math.max(this.windowMaxInFlightRequests, inFlightRequests);
+      }
+      if (++this.windowRequests >= permits()) {
+        if (!this.windowOverloaded && this.windowSamples > 0) {
+          adaptLimit(this.windowLatencyNanos / this.windowSamples);
+        }
+        this.windowRequests = 0;
+        this.windowLatencyNanos = 0;
+        this.windowSamples = 0;
+        this.windowMaxInFlightRequests = 0;
+        this.windowOverloaded = false;
+      }
+    }
+    drain();
+  }
+
+  /**
+   * @param latencyNanos the average latency of the requests of the last round-trip
+   */
+  private void adaptLimit(final double latencyNanos) {
+    if (this.longTermLatencyNanos == 0) {
+      this.longTermLatencyNanos = latencyNanos;
+      return;
+    }
+    this.longTermLatencyNanos += LONG_TERM_ALPHA * (latencyNanos - this.longTermLatencyNanos);
+    if (this.longTermLatencyNanos > 2 * latencyNanos) {
+      // the latency dropped a lot, e.g. after a spike: catch up faster
+      this.longTermLatencyNanos *= 0.95;
+    }
+    if (this.windowMaxInFlightRequests < this.limit / 2) {
+      // the limit is not what holds the throughput back
+      return;
+    }
+    final double gradient = Math.max(0.5,
+        Math.min(1.0, this.latencyTolerance * this.longTermLatencyNanos / latencyNanos));
+    final double newLimit = this.limit * gradient + Math.sqrt(this.limit);
+    this.limit = clamp(this.limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+  }
+
+  private double clamp(final double limit) {
+    return Math.max(this.minLimit, Math.min(this.maxLimit, limit));
+  }
+
+  private int permits() {
+    return (int) this.limit;
+  }
+
+  /**
+   * Sends the queued requests as long as the limit allows it. Only one thread sends them at a time,
+   * so that a request that completes immediately does not recursively send the next one. A request
+   * that throws an exception while it is sent releases its permit, and does not prevent the next
+   * ones from being sent, as this thread may not be the one that queued it.
+   */
+  private void drain() {
+    while (true) {
+      final Runnable request;
+      synchronized (this) {
+        if (this.draining || this.queue.isEmpty() || this.inFlightRequests >= permits()) {
+          return;
+        }
+        this.draining = true;
+        this.inFlightRequests++;
+        request = this.queue.poll();
+      }
+      try {
+        request.run();
+      } catch (RuntimeException e) {
+        LOGGER.warn("Failed to send a queued request", e);
+        synchronized (this) {
+          this.inFlightRequests--;
+        }
+      } finally {
+        synchronized (this) {
+          this.draining = false;
+        }
+      }
+    }
+  }
+
+}
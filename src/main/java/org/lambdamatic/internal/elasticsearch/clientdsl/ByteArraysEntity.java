@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * A repeatable {@link org.apache.http.HttpEntity} whose content is the concatenation of a list of
+ * byte arrays, which are streamed one after the other instead of being copied into a single array.
+ */
+public class ByteArraysEntity extends AbstractHttpEntity {
+
+  private final List<byte[]> chunks;
+
+  private final long contentLength;
+
+  /**
+   * Constructor.
+   * 
+   * @param chunks the byte arrays to send, in order
+   * @param contentType the type of the content
+   */
+  public ByteArraysEntity(final List<byte[]> chunks, final ContentType contentType) {
+    this.chunks = chunks;
+    long length = 0;
+    for (byte[] chunk : chunks) {
+      length += chunk.length;
+    }
+    this.contentLength = length;
+    setContentType(contentType.toString());
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return true;
+  }
+
+  @Override
+  public long getContentLength() {
+    return this.contentLength;
+  }
+
+  @Override
+  public InputStream getContent() {
+    final Iterator<byte[]> chunkIterator = this.chunks.iterator();
+    return new SequenceInputStream(new Enumeration<InputStream>() {
+
+      @Override
+      public boolean hasMoreElements() {
+        return chunkIterator.hasNext();
+      }
+
+      @Override
+      public InputStream nextElement() {
+        return new ByteArrayInputStream(chunkIterator.next());
+      }
+    });
+  }
+
+  @Override
+  public void writeTo(final OutputStream output) throws IOException {
+    for (byte[] chunk : this.chunks) {
+      output.write(chunk);
+    }
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return false;
+  }
+
+}
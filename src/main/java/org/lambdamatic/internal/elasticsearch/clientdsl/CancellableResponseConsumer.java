@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * {@link HttpAsyncResponseConsumer} that fails with a {@link CancelledRequestException} when the
+ * response of a cancelled request arrives, which makes the I/O reactor close the connection.
+ *
+ * <p>
+ * The low-level REST client does not allow aborting a request once sent, so this is the earliest
+ * a cancelled request can be aborted, instead of receiving and decoding a body that nobody will
+ * read.
+ * </p>
+ */
+class CancellableResponseConsumer implements HttpAsyncResponseConsumer<HttpResponse> {
+
+  private final HttpAsyncResponseConsumer<HttpResponse> delegate;
+
+  private final BooleanSupplier cancelled;
+
+  /**
+   * Constructor.
+   *
+   * @param delegate the consumer of the response if the request was not cancelled
+   * @param cancelled tells whether the request was cancelled
+   */
+  CancellableResponseConsumer(final HttpAsyncResponseConsumer<HttpResponse> delegate,
+      final BooleanSupplier cancelled) {
+    this.delegate = delegate;
+    this.cancelled = cancelled;
+  }
+
+  private void checkCancelled() throws CancelledRequestException {
+    if (this.cancelled.getAsBoolean()) {
+      throw new CancelledRequestException();
+    }
+  }
+
+  @Override
+  public void responseReceived(final HttpResponse response) throws IOException, HttpException {
+    checkCancelled();
+    this.delegate.responseReceived(response);
+  }
+
+  @Override
+  public void consumeContent(final ContentDecoder decoder, final IOControl ioctrl)
+      throws IOException {
+    checkCancelled();
+    this.delegate.consumeContent(decoder, ioctrl);
+  }
+
+  @Override
+  public void responseCompleted(final HttpContext context) {
+    this.delegate.responseCompleted(context);
+  }
+
+  @Override
+  public void failed(final Exception ex) {
+    this.delegate.failed(ex);
+  }
+
+  @Override
+  public Exception getException() {
+    return this.delegate.getException();
+  }
+
+  @Override
+  public HttpResponse getResult() {
+    return this.delegate.getResult();
+  }
+
+  @Override
+  public boolean isDone() {
+    return this.delegate.isDone();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.delegate.close();
+  }
+
+  @Override
+  public boolean cancel() {
+    return this.delegate.cancel();
+  }
+
+}
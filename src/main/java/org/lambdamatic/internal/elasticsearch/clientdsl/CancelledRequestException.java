@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * {@link IOException} that aborts the exchange of a request whose response is not expected anymore,
+ * e.g., a hedged request that lost the race, or a request whose deadline expired.
+ *
+ * @see CancellableResponseConsumer
+ */
+class CancelledRequestException extends InterruptedIOException {
+
+  private static final long serialVersionUID = 3364934311226498618L;
+
+  CancelledRequestException() {
+    super("Request cancelled");
+  }
+
+}
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker of a single Elasticsearch node.
+ * <ul>
+ * <li>When <strong>closed</strong>, all calls are permitted, and their outcomes are recorded in a
+ * sliding window. The circuit opens when the rate of failed or slow calls in the window exceeds
+ * its threshold, or immediately if the node could not be connected to.</li>
+ * <li>When <strong>open</strong>, no call is permitted until the open duration elapsed. This
+ * duration doubles on each consecutive opening.</li>
+ * <li>When <strong>half-open</strong>, a few probe calls are permitted: the circuit closes if they
+ * all succeed in a timely manner, and opens again otherwise.</li>
+ * </ul>
+ */
+class CircuitBreaker {
+
+  /** The states of a circuit breaker. */
+  enum State {
+    CLOSED, OPEN, HALF_OPEN;
+  }
+
+  private static final byte SUCCESS = 0;
+
+  private static final byte FAILURE = 1;
+
+  private static final byte SLOW_CALL = 2;
+
+  private final CircuitBreakerSettings settings;
+
+  private final long slowCallDurationNanos;
+
+  private State state = State.CLOSED;
+
+  /** The outcomes of the most recent calls, as a ring buffer. */
+  private final byte[] slidingWindow;
+
+  private int slidingWindowIndex = 0;
+
+  private int calls = 0;
+
+  private int failedCalls = 0;
+
+  private int slowCalls = 0;
+
+  /** The number of times the circuit opened since it was last closed. */
+  private int consecutiveOpenings = 0;
+
+  private long openUntilNanos;
+
+  /** The number of probe calls still permitted while half-open. */
+  private int halfOpenPermits;
+
+  /** The number of probe calls that succeeded while half-open. */
+  private int halfOpenSuccesses;
+
+  /**
+   * Constructor.
+   *
+   * @param settings the settings of this circuit breaker
+   */
+  CircuitBreaker(final CircuitBreakerSettings settings) {
+    this.settings = settings;
+    this.slowCallDurationNanos =
+        TimeUnit.MILLISECONDS.toNanos(settings.getSlowCallDurationMillis());
+    this.slidingWindow = new byte[settings.getSlidingWindowSize()];
+  }
+
+  synchronized State getState() {
+    return this.state;
+  }
+
+  /**
+   * @param nowNanos the current time
+   * @return <code>true</code> if a call would be permitted at the given time.
+   */
+  synchronized boolean isCallPermitted(final long nowNanos) {
+    switch (this.state) {
+      case OPEN:
+        return nowNanos - this.openUntilNanos >= 0;
+      case HALF_OPEN:
+        return this.halfOpenPermits > 0;
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Acquires the permission to perform a call. The outcome of a permitted call must then be
+   * reported with {@link #onSuccess(long)} or {@link #onFailure(boolean)}.
+   *
+   * @param nowNanos the current time
+   * @return <code>true</code> if the call is permitted.
+   */
+  synchronized boolean tryAcquirePermission(final long nowNanos) {
+    if (this.state == State.OPEN) {
+      if (nowNanos - this.openUntilNanos < 0) {
+        return false;
+      }
+      this.state = State.HALF_OPEN;
+      this.halfOpenPermits = this.settings.getHalfOpenCalls();
+      this.halfOpenSuccesses = 0;
+    }
+    if (this.state == State.HALF_OPEN) {
+      if (this.halfOpenPermits == 0) {
+        return false;
+      }
+      this.halfOpenPermits--;
+    }
+    return true;
+  }
+
+  /**
+   * Records a call that completed.
+   *
+   * @param durationNanos the duration of the call
+   */
+  synchronized void onSuccess(final long durationNanos) {
+    final boolean slowCall = durationNanos >= this.slowCallDurationNanos;
+    switch (this.state) {
+      case CLOSED:
+        record(slowCall ? SLOW_CALL : SUCCESS);
+        break;
+      case HALF_OPEN:
+        if (slowCall) {
+          open();
+        } else if (++this.halfOpenSuccesses >= this.settings.getHalfOpenCalls()) {
+          close();
+        }
+        break;
+      default:
+        // response to a call permitted before the circuit opened
+    }
+  }
+
+  /**
+   * Records a call that failed.
+   *
+   * @param connectionFailure <code>true</code> if the node could not be connected to, in which
+   *        case the circuit opens immediately
+   */
+  synchronized void onFailure(final boolean connectionFailure) {
+    switch (this.state) {
+      case CLOSED:
+        if (connectionFailure) {
+          open();
+        } else {
+          record(FAILURE);
+        }
+        break;
+      case HALF_OPEN:
+        open();
+        break;
+      default:
+        // failure of a call permitted before the circuit opened
+    }
+  }
+
+  /**
+   * @return the time at which the circuit will become half-open, if it is open.
+   */
+  synchronized long getOpenUntilNanos() {
+    return this.openUntilNanos;
+  }
+
+  private void record(final byte outcome) {
+    if (this.calls == this.slidingWindow.length) {
+      // evict the oldest outcome
+      updateCounts(this.slidingWindow[this.slidingWindowIndex], -1);
+    } else {
+      this.calls++;
+    }
+    this.slidingWindow[this.slidingWindowIndex] = outcome;
+    updateCounts(outcome, 1);
+    this.slidingWindowIndex = (this.slidingWindowIndex + 1) % this.slidingWindow.length;
+    if (this.calls >= this.settings.getMinimumCalls()
+        && (this.failedCalls >= this.settings.getFailureRateThreshold() * this.calls
+            || this.slowCalls >= this.settings.getSlowCallRateThreshold() * this.calls)) {
+      open();
+    }
+  }
+
+  private void updateCounts(final byte outcome, final int delta) {
+    if (outcome == FAILURE) {
+      this.failedCalls += delta;
+    } else if (outcome == SLOW_CALL) {
+      this.slowCalls += delta;
+    }
+  }
+
+  private void open() {
+    final long openDurationMillis = Math.min(this.settings.getMaxOpenDurationMillis(),
+        this.settings.getOpenDurationMillis() << Math.min(this.consecutiveOpenings, 30));
+    this.consecutiveOpenings++;
+    this.state = State.OPEN;
+    this.openUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+  }
+
+  private void close() {
+    this.state = State.CLOSED;
+    this.consecutiveOpenings = 0;
+    this.calls = 0;
+    this.failedCalls = 0;
+    this.slowCalls = 0;
+    this.slidingWindowIndex = 0;
+  }
+
+}
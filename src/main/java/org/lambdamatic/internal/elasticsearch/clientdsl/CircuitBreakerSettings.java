@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of the circuit breaker of each Elasticsearch node: over how many calls the failure and
+ * slow-call rates are measured, above which rates the circuit opens, for how long it stays open,
+ * and how many probe calls are let through once it is half-open.
+ *
+ * @see ClientConfig#circuitBreaker(CircuitBreakerSettings)
+ */
+public class CircuitBreakerSettings {
+
+  /** Default number of calls in the sliding window. */
+  public static final int DEFAULT_SLIDING_WINDOW_SIZE = 100;
+
+  /** Default minimum number of calls in the sliding window before the rates are evaluated. */
+  public static final int DEFAULT_MINIMUM_CALLS = 20;
+
+  /** Default failure rate above which the circuit opens. */
+  public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+
+  /** Default slow-call rate above which the circuit opens. */
+  public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+
+  /** Default duration above which a call is considered slow, in milliseconds. */
+  public static final long DEFAULT_SLOW_CALL_DURATION_MILLIS = 5000;
+
+  /** Default duration of the first opening of the circuit, in milliseconds. */
+  public static final long DEFAULT_OPEN_DURATION_MILLIS = 2000;
+
+  /** Default maximum duration of the circuit opening, in milliseconds. */
+  public static final long DEFAULT_MAX_OPEN_DURATION_MILLIS = 120000;
+
+  /** Default number of probe calls let through when the circuit is half-open. */
+  public static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+  private int slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
+
+  private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+
+  private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+
+  private double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+
+  private long slowCallDurationMillis = DEFAULT_SLOW_CALL_DURATION_MILLIS;
+
+  private long openDurationMillis = DEFAULT_OPEN_DURATION_MILLIS;
+
+  private long maxOpenDurationMillis = DEFAULT_MAX_OPEN_DURATION_MILLIS;
+
+  private int halfOpenCalls = DEFAULT_HALF_OPEN_CALLS;
+
+  /**
+   * @param slidingWindowSize the number of most recent calls over which the failure and slow-call
+   *        rates are measured
+   * @param minimumCalls the minimum number of calls in the sliding window before the rates are
+   *        evaluated
+   * @return this {@link CircuitBreakerSettings} for method calls chaining
+   */
+  public CircuitBreakerSettings slidingWindow(final int slidingWindowSize,
+      final int minimumCalls) {
+    if (slidingWindowSize < 1 || minimumCalls < 1 || minimumCalls > slidingWindowSize) {
+      throw new IllegalArgumentException(
+          "Minimum number of calls must be between 1 and the size of the sliding window");
+    }
+    this.slidingWindowSize = slidingWindowSize;
+    this.minimumCalls = minimumCalls;
+    return this;
+  }
+
+  /**
+   * @param failureRateThreshold the rate of failed calls (between <code>0</code> and
+   *        <code>1</code>) above which the circuit opens
+   * @return this {@link CircuitBreakerSettings} for method calls chaining
+   */
+  public CircuitBreakerSettings failureRateThreshold(final double failureRateThreshold) {
+    this.failureRateThreshold = checkRate(failureRateThreshold);
+    return this;
+  }
+
+  /**
+   * @param slowCallRateThreshold the rate of slow calls (between <code>0</code> and
+   *        <code>1</code>) above which the circuit opens
+   * @param slowCallDuration the duration above which a call is considered slow
+   * @param unit the unit of the given {@code slowCallDuration}
+   * @return this {@link CircuitBreakerSettings} for method calls chaining
+   */
+  public CircuitBreakerSettings slowCallRateThreshold(final double slowCallRateThreshold,
+      final long slowCallDuration, final TimeUnit unit) {
+    this.slowCallRateThreshold = checkRate(slowCallRateThreshold);
+    this.slowCallDurationMillis = unit.toMillis(slowCallDuration);
+    return this;
+  }
+
+  /**
+   * @param openDuration how long the circuit stays open the first time. The duration doubles on
+   *        each consecutive opening, until the circuit closes again.
+   * @param maxOpenDuration the maximum duration of the circuit opening
+   * @param unit the unit of the given durations
+   * @return this {@link CircuitBreakerSettings} for method calls chaining
+   */
+  public CircuitBreakerSettings openDuration(final long openDuration, final long maxOpenDuration,
+      final TimeUnit unit) {
+    if (openDuration < 0 || maxOpenDuration < openDuration) {
+      throw new IllegalArgumentException(
+          "Open duration must not be negative nor greater than the maximum open duration");
+    }
+    this.openDurationMillis = unit.toMillis(openDuration);
+    this.maxOpenDurationMillis = unit.toMillis(maxOpenDuration);
+    return this;
+  }
+
+  /**
+   * @param halfOpenCalls the number of probe calls let through when the circuit is half-open,
+   *        which must all succeed for the circuit to close
+   * @return this {@link CircuitBreakerSettings} for method calls chaining
+   */
+  public CircuitBreakerSettings halfOpenCalls(final int halfOpenCalls) {
+    if (halfOpenCalls < 1) {
+      throw new IllegalArgumentException("Number of half-open calls must be greater than 0");
+    }
+    this.halfOpenCalls = halfOpenCalls;
+    return this;
+  }
+
+  private static double checkRate(final double rate) {
+    if (rate <= 0 || rate > 1) {
+      throw new IllegalArgumentException("Rate threshold must be in ]0, 1]");
+    }
+    return rate;
+  }
+
+  public int getSlidingWindowSize() {
+    return this.slidingWindowSize;
+  }
+
+  public int getMinimumCalls() {
+    return this.minimumCalls;
+  }
+
+  public double getFailureRateThreshold() {
+    return this.failureRateThreshold;
+  }
+
+  public double getSlowCallRateThreshold() {
+    return this.slowCallRateThreshold;
+  }
+
+  public long getSlowCallDurationMillis() {
+    return this.slowCallDurationMillis;
+  }
+
+  public long getOpenDurationMillis() {
+    return this.openDurationMillis;
+  }
+
+  public long getMaxOpenDurationMillis() {
+    return this.maxOpenDurationMillis;
+  }
+
+  public int getHalfOpenCalls() {
+    return this.halfOpenCalls;
+  }
+
+}
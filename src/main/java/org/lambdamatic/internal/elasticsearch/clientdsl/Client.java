@@ -8,76 +8,637 @@
 
 package org.lambdamatic.internal.elasticsearch.clientdsl;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
 import org.elasticsearch.client.Response;
 import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.ResponseListener;
 import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
 import org.lambdamatic.elasticsearch.exceptions.ClientIOException;
 import org.lambdamatic.elasticsearch.exceptions.ClientResponseException;
 import org.lambdamatic.elasticsearch.exceptions.ResponseParsingException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.NodeSelector.Node;
+import org.lambdamatic.internal.elasticsearch.clientdsl.Transport.TransportFactory;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.BulkResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.ErrorResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetClusterStatsResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetDocumentResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetIndexMappingsResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetIndexStatsResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetIndicesResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetNodesInfoResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.IndexDocumentResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.MultiGetResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.MultiSearchResponse;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponseParser;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponseParser.SourceDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
- * Higher-level client to perform operations on Elasticsearch.
+ * Higher-level client to perform operations on Elasticsearch. A {@link Client} should be
+ * {@link #close() closed} once it is not needed anymore, to stop its threads and to close its
+ * connections.
  */
-public class Client {
+public class Client implements AutoCloseable {
 
   /** The usual Logger. */
   private static final Logger LOGGER = LoggerFactory.getLogger(Client.class);
 
-  private final RestClient client;
+  /** The content type of the <code>_bulk</code> and <code>_msearch</code> request bodies. */
+  private static final ContentType BULK_CONTENT_TYPE =
+      ContentType.create("application/x-ndjson", StandardCharsets.UTF_8);
+
+  /**
+   * The types of the errors that Elasticsearch returns with a <code>503</code> status when the
+   * node itself cannot serve the request, as opposed to an unavailable index or shard.
+   */
+  private static final Set<String> NODE_UNAVAILABLE_ERROR_TYPES =
+      new HashSet<>(Arrays.asList("master_not_discovered_exception", "cluster_block_exception",
+          "node_closed_exception", "node_not_connected_exception"));
 
   private final JsonFactory jsonFactory;
 
-  private Client(RestClient client) {
-    this.client = client;
+  /** Compression of the request and response bodies. */
+  private final GzipCompression compression = new GzipCompression();
+
+  /** The format of the request bodies written by the callers, and of the response bodies. */
+  private volatile ContentFormat contentFormat = ContentFormat.JSON;
+
+  /** Optional coalescer of concurrent search requests into <code>_msearch</code> requests. */
+  private volatile MultiSearchCoalescer searchCoalescer;
+
+  /**
+   * The pool of HTTP connections shared by the {@link RestClient} of all nodes, or
+   * <code>null</code> if the requests are sent by another {@link Transport}.
+   */
+  private final PoolingNHttpClientConnectionManager connectionManager;
+
+  /**
+   * The HTTP client that runs the I/O reactor of the connection pool, or <code>null</code> if the
+   * requests are sent by another {@link Transport}.
+   */
+  private final CloseableHttpAsyncClient ioReactorClient;
+
+  /** Selects the node to send each request to. */
+  private final NodeSelector nodeSelector;
+
+  /** Discovers the nodes of the cluster periodically, if enabled. */
+  private NodeSniffer nodeSniffer;
+
+  /** Decides whether rejected requests should be sent again. */
+  private volatile RetryPolicy retryPolicy = RetryPolicy.NONE;
+
+  private final RetryStats retryStats = new RetryStats();
+
+  /** Single (daemon) thread that sends the asynchronous requests to retry. */
+  private final ScheduledExecutorService retryScheduler =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "lambdamatic-retry");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  /** Decides when read requests should be hedged, if not <code>null</code>. */
+  private volatile HedgingPolicy hedgingPolicy;
+
+  private final HedgingStats hedgingStats = new HedgingStats();
+
+  /**
+   * Single (daemon) thread that sends the hedged requests, and gives up the asynchronous requests
+   * whose timeout expired.
+   */
+  private final ScheduledThreadPoolExecutor hedgingScheduler =
+      new ScheduledThreadPoolExecutor(1, runnable -> {
+        final Thread thread = new Thread(runnable, "lambdamatic-hedging");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  /** Limits the number of asynchronous requests in flight, if not <code>null</code>. */
+  private volatile AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+  /** Receives the measurements of the requests. */
+  private volatile RequestMetrics requestMetrics = RequestMetrics.NONE;
+
+  /** Logs the slow searches issued by the document managers, if not <code>null</code>. */
+  private volatile SlowSearchLog slowSearchLog;
+
+  /** The MDC key to read the opaque id from, if not <code>null</code> and no tag was set. */
+  private volatile String opaqueIdMdcKey;
+
+  private Client(final PoolingNHttpClientConnectionManager connectionManager,
+      final CloseableHttpAsyncClient ioReactorClient, final NodeSelector nodeSelector) {
+    this.connectionManager = connectionManager;
+    this.ioReactorClient = ioReactorClient;
+    this.nodeSelector = nodeSelector;
+    // most hedges are not sent, so their cancelled timers should not linger in the queue
+    this.hedgingScheduler.setRemoveOnCancelPolicy(true);
     this.jsonFactory = new ObjectMapper()
         .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false).getFactory();
   }
 
   public static Client connectTo(final HttpHost... hosts) {
-    return new Client(RestClient.builder(hosts).build());
+    return connectTo(new ClientConfig(), hosts);
+  }
+
+  /**
+   * Connects to the given hosts, with the connection pool, timeouts, I/O reactor and node
+   * discovery settings of the given {@link ClientConfig}.
+   *
+   * @param config the settings of the connections
+   * @param hosts the Elasticsearch hosts to connect to, or the initial hosts to discover the nodes
+   *        of the cluster from if sniffing is enabled
+   * @return the {@link Client}
+   * @see ClientConfig#sniffInterval(long, TimeUnit)
+   */
+  public static Client connectTo(final ClientConfig config, final HttpHost... hosts) {
+    final TransportFactory transportFactory = config.getTransportFactory();
+    final PoolingNHttpClientConnectionManager connectionManager;
+    final CloseableHttpAsyncClient ioReactorClient;
+    final Function<HttpHost, Transport> transports;
+    if (transportFactory != null) {
+      connectionManager = null;
+      ioReactorClient = null;
+      transports = host -> transportFactory.create(host, config);
+    } else {
+      connectionManager = newConnectionManager(config);
+      // this client only runs the I/O reactor on behalf of the RestClients of all nodes, which
+      // share its connection manager
+      ioReactorClient = HttpAsyncClients.custom().setConnectionManager(connectionManager).build();
+      ioReactorClient.start();
+      transports = restClientTransports(config, connectionManager);
+    }
+    final NodeSelector nodeSelector =
+        new NodeSelector(transports, config.getCircuitBreakerSettings(), hosts);
+    final Client client = new Client(connectionManager, ioReactorClient, nodeSelector);
+    if (config.getSniffIntervalMillis() > 0) {
+      client.nodeSniffer = new NodeSniffer(client, nodeSelector, hosts[0].getSchemeName());
+      client.nodeSniffer.start(config.getSniffIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+    return client;
+  }
+
+  private static PoolingNHttpClientConnectionManager newConnectionManager(
+      final ClientConfig config) {
+    final PoolingNHttpClientConnectionManager connectionManager;
+    try {
+      connectionManager = new PoolingNHttpClientConnectionManager(
+          new DefaultConnectingIOReactor(IOReactorConfig.custom()
+              .setIoThreadCount(config.getIoThreadCount())
+              .setConnectTimeout(config.getConnectTimeoutMillis())
+              .setSoTimeout(config.getSocketTimeoutMillis()).build()));
+    } catch (IOReactorException e) {
+      throw new ClientIOException("Failed to start the I/O reactor", e);
+    }
+    connectionManager.setMaxTotal(config.getMaxConnections());
+    connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+    return connectionManager;
+  }
+
+  /**
+   * @return the function that builds the {@link RestClientTransport} of each node, which share the
+   *         given connection manager.
+   */
+  private static Function<HttpHost, Transport> restClientTransports(final ClientConfig config,
+      final PoolingNHttpClientConnectionManager connectionManager) {
+    final ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+      final long keepAliveMillis =
+          DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+      if (config.getKeepAliveMillis() < 0) {
+        return keepAliveMillis;
+      } else if (keepAliveMillis < 0) {
+        return config.getKeepAliveMillis();
+      }
+      return Math.min(keepAliveMillis, config.getKeepAliveMillis());
+    };
+    return host -> {
+      final RestClientBuilder builder = RestClient.builder(host)
+          .setRequestConfigCallback(
+              requestConfigBuilder -> requestConfigBuilder
+                  .setConnectTimeout(config.getConnectTimeoutMillis())
+                  .setSocketTimeout(config.getSocketTimeoutMillis())
+                  .setConnectionRequestTimeout(config.getConnectionRequestTimeoutMillis()))
+          .setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder
+              .setConnectionManager(connectionManager).setConnectionManagerShared(true)
+              .setKeepAliveStrategy(keepAliveStrategy));
+      // a synchronous request is abandoned after this timeout, which should not be shorter than
+      // the time a single request may legitimately take
+      if (config.getSocketTimeoutMillis() > RestClientBuilder.DEFAULT_MAX_RETRY_TIMEOUT_MILLIS) {
+        builder.setMaxRetryTimeoutMillis(config.getSocketTimeoutMillis());
+      }
+      return new RestClientTransport(host, builder.build());
+    };
+  }
+
+  /**
+   * Stops the threads of this {@link Client}, and closes the {@link Transport} of all nodes along
+   * with their connections. The requests in flight fail, and no request can be sent afterwards.
+   */
+  @Override
+  public void close() {
+    if (this.nodeSniffer != null) {
+      this.nodeSniffer.stop();
+    }
+    final MultiSearchCoalescer searchCoalescer = this.searchCoalescer;
+    if (searchCoalescer != null) {
+      searchCoalescer.close();
+    }
+    this.retryScheduler.shutdownNow();
+    this.hedgingScheduler.shutdownNow();
+    this.nodeSelector.close();
+    if (this.ioReactorClient != null) {
+      try {
+        this.ioReactorClient.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to stop the I/O reactor", e);
+      }
+    }
+  }
+
+  /**
+   * @return the hosts of the Elasticsearch nodes that this {@link Client} sends requests to.
+   */
+  public List<HttpHost> getHosts() {
+    return this.nodeSelector.getHosts();
+  }
+
+  /**
+   * @return a snapshot of the state of the HTTP connection pool of this {@link Client}, which is
+   *         empty if the requests are not sent by the low-level REST client.
+   * @see ClientConfig#transport(TransportFactory)
+   */
+  public ConnectionPoolStats getConnectionPoolStats() {
+    if (this.connectionManager == null) {
+      return new ConnectionPoolStats(0, 0, 0, 0);
+    }
+    final PoolStats poolStats = this.connectionManager.getTotalStats();
+    return new ConnectionPoolStats(poolStats.getLeased(), poolStats.getPending(),
+        poolStats.getAvailable(), poolStats.getMax());
+  }
+
+  /**
+   * Enables the coalescing of the search requests: searches submitted concurrently are gathered
+   * and sent together in a single <code>_msearch</code> request, as soon as {@code maxBatchSize}
+   * searches are pending or when the oldest one has been waiting for {@code maxDelay}. This trades
+   * a small queueing delay for fewer HTTP round-trips under load. The searches tagged with an
+   * {@link OpaqueId} are not coalesced, since an <code>_msearch</code> request carries a single
+   * {@value OpaqueId#HEADER} header.
+   * 
+   * @param maxBatchSize the maximum number of searches to send in a single request
+   * @param maxDelay the maximum time a search may wait before being sent
+   * @param timeUnit the unit of {@code maxDelay}
+   * @return this {@link Client} for method calls chaining
+   */
+  public synchronized Client coalesceSearches(final int maxBatchSize, final long maxDelay,
+      final TimeUnit timeUnit) {
+    final MultiSearchCoalescer previousSearchCoalescer = this.searchCoalescer;
+    this.searchCoalescer =
+        new MultiSearchCoalescer(this, this.jsonFactory, maxBatchSize, maxDelay, timeUnit);
+    if (previousSearchCoalescer != null) {
+      previousSearchCoalescer.close();
+    }
+    return this;
+  }
+
+  /**
+   * Enables the gzip compression of the request bodies of at least {@code minRequestBodySize}
+   * bytes, and asks Elasticsearch to compress the response bodies, which are transparently
+   * decompressed.
+   * 
+   * @param minRequestBodySize the minimum size of the request bodies to compress, in bytes
+   * @return this {@link Client} for method calls chaining
+   * @see #getCompressionStats()
+   */
+  public Client enableCompression(final int minRequestBodySize) {
+    this.compression.enable(minRequestBodySize);
+    return this;
+  }
+
+  /**
+   * @return the {@link CompressionStats} of this {@link Client}.
+   */
+  public CompressionStats getCompressionStats() {
+    return this.compression.getStats();
+  }
+
+  /**
+   * Sets the format in which the request bodies should be written, and asks Elasticsearch to
+   * return the response bodies in the same format. The binary formats are cheaper to write and to
+   * parse than JSON, and more compact. The format only applies to the document and search request
+   * bodies, which are written by the callers after {@link #getContentFormat()}: the
+   * <code>_bulk</code> and <code>_msearch</code> request bodies are still written as NDJSON.
+   * 
+   * @param contentFormat the format of the request and response bodies
+   * @return this {@link Client} for method calls chaining
+   */
+  public Client contentFormat(final ContentFormat contentFormat) {
+    if (contentFormat == null) {
+      throw new IllegalArgumentException("Content format must not be null");
+    }
+    this.contentFormat = contentFormat;
+    return this;
+  }
+
+  /**
+   * @return the format in which the request bodies should be written, which is always
+   *         {@link ContentFormat#JSON} while debug logging is enabled, so that the logged request
+   *         and response bodies remain readable.
+   * @see #contentFormat(ContentFormat)
+   */
+  public ContentFormat getContentFormat() {
+    return LOGGER.isDebugEnabled() ? ContentFormat.JSON : this.contentFormat;
+  }
+
+  /**
+   * @param opaqueId the opaque id of the request, or <code>null</code>
+   * @return the headers to add to each request.
+   */
+  private Header[] requestHeaders(final String opaqueId) {
+    final Header[] compressionHeaders = this.compression.requestHeaders();
+    final ContentFormat responseFormat = getContentFormat();
+    if (responseFormat == ContentFormat.JSON && opaqueId == null) {
+      return compressionHeaders;
+    }
+    final List<Header> headers = new ArrayList<>(Arrays.asList(compressionHeaders));
+    if (responseFormat != ContentFormat.JSON) {
+      headers.add(
+          new BasicHeader(HttpHeaders.ACCEPT, responseFormat.getContentType().getMimeType()));
+    }
+    if (opaqueId != null) {
+      headers.add(new BasicHeader(OpaqueId.HEADER, opaqueId));
+    }
+    return headers.toArray(new Header[headers.size()]);
+  }
+
+  /**
+   * Sets the {@link RetryPolicy} that decides whether the requests rejected by Elasticsearch (e.g.
+   * with <code>429 Too Many Requests</code>) should be sent again, including the asynchronous
+   * ones. Requests are not retried by default. When a policy is set, it is also the only one to
+   * retry the rejected <code>_bulk</code> requests of a
+   * {@link org.lambdamatic.internal.elasticsearch.BulkIndexer}, so that both do not multiply their
+   * attempts.
+   *
+   * @param retryPolicy the retry policy, e.g. an {@link ExponentialBackoffRetryPolicy}
+   * @return this {@link Client} for method calls chaining
+   * @see #getRetryStats()
+   */
+  public Client retryPolicy(final RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+    return this;
+  }
+
+  /**
+   * @return the {@link RetryPolicy} of this {@link Client}, which is {@link RetryPolicy#NONE} by
+   *         default.
+   */
+  public RetryPolicy getRetryPolicy() {
+    return this.retryPolicy;
+  }
+
+  /**
+   * @return the {@link RetryStats} of this {@link Client}.
+   */
+  public RetryStats getRetryStats() {
+    return this.retryStats;
+  }
+
+  /**
+   * Enables the hedging of the read requests (document gets, multi-gets, searches and
+   * multi-searches, but not scroll searches): a request that did not respond within a high
+   * percentile of the recent latencies of its operation is sent again to another node, and the
+   * first response wins. This trades a few more requests for a shorter tail latency. Requests are
+   * not hedged by default.
+   *
+   * @param hedgingPolicy the hedging policy, or <code>null</code> to disable hedging
+   * @return this {@link Client} for method calls chaining
+   * @see #getHedgingStats()
+   */
+  public Client hedgingPolicy(final HedgingPolicy hedgingPolicy) {
+    this.hedgingPolicy = hedgingPolicy;
+    return this;
+  }
+
+  /**
+   * @return the {@link HedgingStats} of this {@link Client}.
+   */
+  public HedgingStats getHedgingStats() {
+    return this.hedgingStats;
+  }
+
+  /**
+   * Limits the number of asynchronous requests in flight with the given
+   * {@link AdaptiveConcurrencyLimiter}, which adapts the limit to the throughput that
+   * Elasticsearch can sustain. The requests above the limit are queued, and rejected with a
+   * {@link ConcurrencyLimitExceededException} when the queue is full. Synchronous requests are
+   * already bounded by the number of calling threads, so they are not limited. Asynchronous
+   * requests are not limited by default. Each attempt of a retried request is limited on its own,
+   * so that the requests waiting for their retry do not hold back the other ones.
+   *
+   * @param concurrencyLimiter the concurrency limiter, or <code>null</code> to disable it
+   * @return this {@link Client} for method calls chaining
+   */
+  public Client concurrencyLimiter(final AdaptiveConcurrencyLimiter concurrencyLimiter) {
+    this.concurrencyLimiter = concurrencyLimiter;
+    return this;
+  }
+
+  /**
+   * Sets the {@link RequestMetrics} that receives the measurements of the requests: the network
+   * time, the sizes and the status of each request, and the time spent decoding their responses,
+   * per operation, index and type. Requests are not measured by default.
+   *
+   * @param requestMetrics the request metrics, e.g. an {@link InMemoryRequestMetrics}
+   * @return this {@link Client} for method calls chaining
+   */
+  public Client requestMetrics(final RequestMetrics requestMetrics) {
+    if (requestMetrics == null) {
+      throw new IllegalArgumentException("Request metrics must not be null");
+    }
+    this.requestMetrics = requestMetrics;
+    return this;
+  }
+
+  /**
+   * @return the {@link RequestMetrics} of this {@link Client}, which the callers that encode the
+   *         request bodies report their encoding time to.
+   * @see #requestMetrics(RequestMetrics)
+   */
+  public RequestMetrics getRequestMetrics() {
+    return this.requestMetrics;
+  }
+
+  /**
+   * Sets the {@link SlowSearchLog} that records the latency of the searches issued by the document
+   * managers, per fingerprint, and logs those that take longer than its threshold. Searches are
+   * not logged by default.
+   *
+   * @param slowSearchLog the slow search log, or <code>null</code> to disable it
+   * @return this {@link Client} for method calls chaining
+   */
+  public Client slowSearchLog(final SlowSearchLog slowSearchLog) {
+    this.slowSearchLog = slowSearchLog;
+    return this;
+  }
+
+  /**
+   * @return the {@link SlowSearchLog} of this {@link Client}, or <code>null</code> if none was set.
+   * @see #slowSearchLog(SlowSearchLog)
+   */
+  public SlowSearchLog getSlowSearchLog() {
+    return this.slowSearchLog;
+  }
+
+  /**
+   * Sets the key of the logging MDC entry to send as the {@value OpaqueId#HEADER} header of the
+   * requests that were not tagged with {@link OpaqueId#tag(String)}, so that the requests are
+   * correlated with the application requests that the MDC already identifies. The MDC is not
+   * read by default.
+   *
+   * @param opaqueIdMdcKey the MDC key, or <code>null</code> to only send the explicit tags
+   * @return this {@link Client} for method calls chaining
+   */
+  public Client opaqueIdMdcKey(final String opaqueIdMdcKey) {
+    this.opaqueIdMdcKey = opaqueIdMdcKey;
+    return this;
+  }
+
+  /**
+   * @return the opaque id of the requests sent by the current thread, i.e., its
+   *         {@link OpaqueId} tag, or else the value of the MDC entry set with
+   *         {@link #opaqueIdMdcKey(String)}, or <code>null</code> if there is none.
+   */
+  public String getOpaqueId() {
+    final String opaqueId = OpaqueId.get();
+    if (opaqueId != null) {
+      return opaqueId;
+    }
+    final String mdcKey = this.opaqueIdMdcKey;
+    if (mdcKey == null) {
+      return null;
+    }
+    final String mdcValue = MDC.get(mdcKey);
+    // header values must not contain line breaks
+    return mdcValue != null && !mdcValue.isEmpty()
+        && mdcValue.chars().noneMatch(Character::isISOControl) ? mdcValue : null;
   }
 
   public <T> IndexDocumentResponse index(final String indexName, final String type,
       final String documentId, final String documentSource) {
+    return index(indexName, type, documentId, jsonEntity(documentSource));
+  }
+
+  /**
+   * Indexes a document whose source is already encoded in the given {@link HttpEntity}.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the document
+   * @param documentId the id of the document, or <code>null</code> to let Elasticsearch generate
+   *        one
+   * @param documentSource the entity holding the JSON source of the document
+   * @return the {@link IndexDocumentResponse}
+   * @see ContentEntity
+   */
+  public IndexDocumentResponse index(final String indexName, final String type,
+      final String documentId, final HttpEntity documentSource) {
+    return index(indexName, type, documentId, null, documentSource);
+  }
+
+  /**
+   * Indexes a document whose source is already encoded in the given {@link HttpEntity}, in the
+   * shard of the given {@code routing} value.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the document
+   * @param documentId the id of the document, or <code>null</code> to let Elasticsearch generate
+   *        one
+   * @param routing the routing value of the document, or <code>null</code> to route it on its id
+   * @param documentSource the entity holding the JSON source of the document
+   * @return the {@link IndexDocumentResponse}
+   * @see ContentEntity
+   */
+  public IndexDocumentResponse index(final String indexName, final String type,
+      final String documentId, final String routing, final HttpEntity documentSource) {
     try {
       final PathBuilder pathBuilder = new PathBuilder().append(indexName).append(type);
-      final Map<String, String> params = new HashMap<>();
+      final Map<String, String> params = routingParams(routing);
       if (documentId != null) {
         pathBuilder.append(documentId);
         // use the "op_type=create" argument to obtain a "put-if-absent" behaviour. Will fail if
         // a document with the same id already exists
         params.put("op_type", "create");
       }
-      final Response response = client.performRequest("PUT", pathBuilder.build(), params,
-          new ByteArrayEntity(documentSource.getBytes()));
+      final Response response =
+          performRequest("PUT", pathBuilder.build(), params, documentSource);
       // something wrong happened
       // document id was allocated by the server and must be set in the given domain object
-      return readResponse(this.jsonFactory, response, IndexDocumentResponse.class);
+      return decodeResponse(response, IndexDocumentResponse.class);
     } catch (ResponseException e) {
       throw new ClientResponseException("Failed to index document",
           readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
@@ -88,24 +649,151 @@ public class Client {
 
   public <T> void index(final String indexName, final String type, final String documentId,
       final String documentSource, final ResponseListener responseListener) {
+    index(indexName, type, documentId, jsonEntity(documentSource), responseListener);
+  }
+
+  /**
+   * Asynchronously indexes a document whose source is already encoded in the given
+   * {@link HttpEntity}.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the document
+   * @param documentId the id of the document, or <code>null</code> to let Elasticsearch generate
+   *        one
+   * @param documentSource the entity holding the JSON source of the document
+   * @param responseListener the listener to notify when the response was received
+   * @see ContentEntity
+   */
+  public void index(final String indexName, final String type, final String documentId,
+      final HttpEntity documentSource, final ResponseListener responseListener) {
+    index(indexName, type, documentId, null, documentSource, responseListener);
+  }
+
+  /**
+   * Asynchronously indexes a document whose source is already encoded in the given
+   * {@link HttpEntity}, in the shard of the given {@code routing} value.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the document
+   * @param documentId the id of the document, or <code>null</code> to let Elasticsearch generate
+   *        one
+   * @param routing the routing value of the document, or <code>null</code> to route it on its id
+   * @param documentSource the entity holding the JSON source of the document
+   * @param responseListener the listener to notify when the response was received
+   * @see ContentEntity
+   */
+  public void index(final String indexName, final String type, final String documentId,
+      final String routing, final HttpEntity documentSource,
+      final ResponseListener responseListener) {
     final PathBuilder pathBuilder = new PathBuilder().append(indexName).append(type);
-    final Map<String, String> params = new HashMap<>();
+    final Map<String, String> params = routingParams(routing);
+    if (documentId != null) {
+      pathBuilder.append(documentId);
+      // use the "op_type=create" argument to obtain a "put-if-absent" behaviour. Will fail if
+      // a document with the same id already exists
+      params.put("op_type", "create");
+    }
+    performRequest("PUT", pathBuilder.build(), params, documentSource, responseListener);
+  }
+
+  /**
+   * Asynchronously indexes a document whose source is already encoded in the given
+   * {@link HttpEntity}, in the shard of the given {@code routing} value.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the document
+   * @param documentId the id of the document, or <code>null</code> to let Elasticsearch generate
+   *        one
+   * @param routing the routing value of the document, or <code>null</code> to route it on its id
+   * @param documentSource the entity holding the JSON source of the document
+   * @return a {@link CompletableFuture} completed with the {@link IndexDocumentResponse}
+   * @see #performAsyncRequest(String, String, String, Map, HttpEntity, Class, String)
+   */
+  public CompletableFuture<IndexDocumentResponse> asyncIndex(final String indexName,
+      final String type, final String documentId, final String routing,
+      final HttpEntity documentSource) {
+    final PathBuilder pathBuilder = new PathBuilder().append(indexName).append(type);
+    final Map<String, String> params = routingParams(routing);
     if (documentId != null) {
       pathBuilder.append(documentId);
       // use the "op_type=create" argument to obtain a "put-if-absent" behaviour. Will fail if
       // a document with the same id already exists
       params.put("op_type", "create");
     }
-    client.performRequest("PUT", pathBuilder.build(), params,
-        new ByteArrayEntity(documentSource.getBytes()), responseListener);
+    return performAsyncRequest(null, "PUT", pathBuilder.build(), params, documentSource,
+        IndexDocumentResponse.class, "Failed to index document");
+  }
+
+  /**
+   * Submits a <code>_bulk</code> request.
+   *
+   * @param requestBody the NDJSON body of the bulk request, UTF-8 encoded
+   * @return the {@link BulkResponse}, which may contain errors for some items
+   */
+  public BulkResponse bulk(final byte[] requestBody) {
+    try {
+      final PathBuilder pathBuilder = new PathBuilder().append("_bulk");
+      final Map<String, String> params = new HashMap<>();
+      final Response response = performRequest("POST", pathBuilder.build(), params,
+          new ByteArrayEntity(requestBody, BULK_CONTENT_TYPE));
+      return decodeResponse(response, BulkResponse.class);
+    } catch (ResponseException e) {
+      throw new ClientResponseException("Failed to submit bulk request",
+          readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
+    } catch (IOException e) {
+      throw new ClientIOException("Failed to submit bulk request", e);
+    }
+  }
+
+  /**
+   * Asynchronously submits a <code>_bulk</code> request.
+   *
+   * @param requestBody the NDJSON body of the bulk request, UTF-8 encoded
+   * @param responseListener the listener to notify when the response was received
+   */
+  public void bulk(final byte[] requestBody, final ResponseListener responseListener) {
+    final PathBuilder pathBuilder = new PathBuilder().append("_bulk");
+    final Map<String, String> params = new HashMap<>();
+    performRequest("POST", pathBuilder.build(), params,
+        new ByteArrayEntity(requestBody, BULK_CONTENT_TYPE), responseListener);
+  }
+
+  /**
+   * Asynchronously submits a <code>_bulk</code> request whose body is the concatenation of the
+   * given chunks, which are streamed without being copied into a single array.
+   *
+   * @param requestBodyChunks the chunks of the NDJSON body of the bulk request, UTF-8 encoded
+   * @param responseListener the listener to notify when the response was received
+   */
+  public void bulk(final List<byte[]> requestBodyChunks,
+      final ResponseListener responseListener) {
+    final PathBuilder pathBuilder = new PathBuilder().append("_bulk");
+    final Map<String, String> params = new HashMap<>();
+    performRequest("POST", pathBuilder.build(), params,
+        new ByteArraysEntity(requestBodyChunks, BULK_CONTENT_TYPE), responseListener);
+  }
+
+  /**
+   * Asynchronously submits a <code>_bulk</code> request.
+   *
+   * @param requestBody the NDJSON body of the bulk request, UTF-8 encoded
+   * @return a {@link CompletableFuture} completed with the {@link BulkResponse}, which may contain
+   *         errors for some items
+   */
+  public CompletableFuture<BulkResponse> asyncBulk(final byte[] requestBody) {
+    final PathBuilder pathBuilder = new PathBuilder().append("_bulk");
+    final Map<String, String> params = new HashMap<>();
+    return performAsyncRequest(null, "POST", pathBuilder.build(), params,
+        new ByteArrayEntity(requestBody, BULK_CONTENT_TYPE), BulkResponse.class,
+        "Failed to submit bulk request");
   }
 
   public GetClusterStatsResponse getClusterStats() {
     try {
       final PathBuilder pathBuilder = new PathBuilder().append("_cluster").append("stats");
       final Map<String, String> params = new HashMap<>();
-      final Response response = client.performRequest("GET", pathBuilder.build(), params);
-      return readResponse(this.jsonFactory, response, GetClusterStatsResponse.class);
+      final Response response = performRequest("GET", pathBuilder.build(), params);
+      return decodeResponse(response, GetClusterStatsResponse.class);
     } catch (ResponseException e) {
       throw new ClientResponseException("Failed to retrieve cluster stats",
           readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
@@ -115,12 +803,41 @@ public class Client {
 
   }
 
+  /**
+   * @return the HTTP info of the nodes of the cluster.
+   */
+  public GetNodesInfoResponse getNodesInfo() {
+    try {
+      final PathBuilder pathBuilder = new PathBuilder().append("_nodes").append("http");
+      final Response response = performRequest("GET", pathBuilder.build(), new HashMap<>());
+      return decodeResponse(response, GetNodesInfoResponse.class);
+    } catch (ResponseException e) {
+      throw new ClientResponseException("Failed to retrieve nodes info",
+          readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
+    } catch (IOException e) {
+      throw new ClientIOException("Failed to retrieve nodes info", e);
+    }
+  }
+
   public GetIndexStatsResponse getIndexStats(final String indexName) {
+    return getIndexStats(indexName, false);
+  }
+
+  /**
+   * Retrieves the stats of the given index.
+   *
+   * @param indexName the name of the index
+   * @param shardLevel <code>true</code> to include the stats of each shard copy (for example, to
+   *        know the number of shards of the index), at the cost of a response that grows with the
+   *        number of shards
+   * @return the {@link GetIndexStatsResponse}
+   */
+  public GetIndexStatsResponse getIndexStats(final String indexName, final boolean shardLevel) {
     try {
       final PathBuilder pathBuilder = new PathBuilder().append(indexName).append("_stats");
-      final Map<String, String> params = new HashMap<>();
-      final Response response = client.performRequest("GET", pathBuilder.build(), params);
-      return readResponse(this.jsonFactory, response, GetIndexStatsResponse.class);
+      final Map<String, String> params = indexStatsParams(shardLevel);
+      final Response response = performRequest("GET", pathBuilder.build(), params);
+      return decodeResponse(response, GetIndexStatsResponse.class);
     } catch (ResponseException e) {
       throw new ClientResponseException("Failed to retrieve index stats",
           readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
@@ -129,13 +846,46 @@ public class Client {
     }
   }
 
+  /**
+   * Asynchronously retrieves the stats of the given index.
+   *
+   * @param indexName the name of the index
+   * @return a {@link CompletableFuture} completed with the {@link GetIndexStatsResponse}
+   */
+  public CompletableFuture<GetIndexStatsResponse> asyncGetIndexStats(final String indexName) {
+    return asyncGetIndexStats(indexName, false);
+  }
+
+  /**
+   * Asynchronously retrieves the stats of the given index.
+   *
+   * @param indexName the name of the index
+   * @param shardLevel <code>true</code> to include the stats of each shard copy
+   * @return a {@link CompletableFuture} completed with the {@link GetIndexStatsResponse}
+   * @see #getIndexStats(String, boolean)
+   */
+  public CompletableFuture<GetIndexStatsResponse> asyncGetIndexStats(final String indexName,
+      final boolean shardLevel) {
+    final PathBuilder pathBuilder = new PathBuilder().append(indexName).append("_stats");
+    return performAsyncRequest(null, "GET", pathBuilder.build(), indexStatsParams(shardLevel),
+        null, GetIndexStatsResponse.class, "Failed to retrieve index stats");
+  }
+
+  private static Map<String, String> indexStatsParams(final boolean shardLevel) {
+    final Map<String, String> params = new HashMap<>();
+    if (shardLevel) {
+      params.put("level", "shards");
+    }
+    return params;
+  }
+
   public GetIndexMappingsResponse getIndexMappings(final String indexName, final String type) {
     try {
       final PathBuilder pathBuilder =
           new PathBuilder().append(indexName).append("_mapping").append(type);
       final Map<String, String> params = new HashMap<>();
-      final Response response = client.performRequest("GET", pathBuilder.build(), params);
-      return readResponse(this.jsonFactory, response, GetIndexMappingsResponse.class);
+      final Response response = performRequest("GET", pathBuilder.build(), params);
+      return decodeResponse(response, GetIndexMappingsResponse.class);
     } catch (ResponseException e) {
       throw new ClientResponseException("Failed to retrieve index mappings",
           readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
@@ -144,13 +894,68 @@ public class Client {
     }
   }
 
+  /**
+   * Asynchronously retrieves the mappings of the given type in the given index.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the documents
+   * @return a {@link CompletableFuture} completed with the {@link GetIndexMappingsResponse}
+   */
+  public CompletableFuture<GetIndexMappingsResponse> asyncGetIndexMappings(
+      final String indexName, final String type) {
+    final PathBuilder pathBuilder =
+        new PathBuilder().append(indexName).append("_mapping").append(type);
+    final Map<String, String> params = new HashMap<>();
+    return performAsyncRequest(null, "GET", pathBuilder.build(), params, null,
+        GetIndexMappingsResponse.class, "Failed to retrieve index mappings");
+  }
+
   public GetDocumentResponse getDocument(final String indexName, final String type,
       final String id) {
+    return getDocument(indexName, type, id, (String) null);
+  }
+
+  /**
+   * Retrieves the document identified by the given {@code id} from the shard of the given
+   * {@code routing} value.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the document
+   * @param id the id of the document
+   * @param routing the routing value of the document, or <code>null</code> if it is routed on its
+   *        id
+   * @return the {@link GetDocumentResponse}
+   */
+  public GetDocumentResponse getDocument(final String indexName, final String type,
+      final String id, final String routing) {
+    return getDocument(indexName, type, id, routing, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Retrieves the document identified by the given {@code id} from the shard of the given
+   * {@code routing} value, and gives up if the response was not received within the given
+   * {@code timeout}.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the document
+   * @param id the id of the document
+   * @param routing the routing value of the document, or <code>null</code> if it is routed on its
+   *        id
+   * @param timeout the maximum time to wait for the response, including retries, hedges and
+   *        failovers to other nodes, or <code>0</code> to wait as long as the socket timeout
+   *        allows
+   * @param unit the unit of the given {@code timeout}
+   * @return the {@link GetDocumentResponse}
+   * @throws ClientIOException caused by a {@link SocketTimeoutException} if the timeout expired
+   */
+  public GetDocumentResponse getDocument(final String indexName, final String type,
+      final String id, final String routing, final long timeout, final TimeUnit unit) {
     try {
       final PathBuilder pathBuilder = new PathBuilder().append(indexName).append(type).append(id);
-      final Map<String, String> params = new HashMap<>();
-      final Response response = client.performRequest("GET", pathBuilder.build(), params);
-      return readResponse(this.jsonFactory, response, GetDocumentResponse.class);
+      final Map<String, String> params = routingParams(routing);
+      final Response response = performRequest("get", "GET", pathBuilder.build(), params, null,
+          unit.toNanos(timeout));
+      return decodeResponse(response, GetDocumentResponse.class);
     } catch (ResponseException e) {
       throw new ClientResponseException("Failed to get document",
           readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
@@ -161,23 +966,249 @@ public class Client {
 
   public void getDocument(final String indexName, final String type, final String id,
       final ResponseListener listener) {
-    final PathBuilder pathBuilder = new PathBuilder().append(indexName).append(type).append(id);
-    final Map<String, String> params = new HashMap<>();
-    client.performRequest("GET", pathBuilder.build(), params, listener);
+    getDocument(indexName, type, id, null, listener);
   }
 
-  public GetIndicesResponse getIndices() {
-    try {
-      final PathBuilder pathBuilder = new PathBuilder().append("*").append("_alias");
-      final Map<String, String> params = new HashMap<>();
-      final Response response = client.performRequest("GET", pathBuilder.build(), params);
-      return readResponse(this.jsonFactory, response, GetIndicesResponse.class);
-    } catch (ResponseException e) {
-      throw new ClientResponseException("Failed to retrieve the indices",
-          readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
-    } catch (IOException e) {
-      throw new ClientIOException("Failed to retrieve the indices", e);
-    }
+  /**
+   * Asynchronously retrieves the document identified by the given {@code id} from the shard of
+   * the given {@code routing} value.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the document
+   * @param id the id of the document
+   * @param routing the routing value of the document, or <code>null</code> if it is routed on its
+   *        id
+   * @param listener the listener to notify when the response was received
+   */
+  public void getDocument(final String indexName, final String type, final String id,
+      final String routing, final ResponseListener listener) {
+    final PathBuilder pathBuilder = new PathBuilder().append(indexName).append(type).append(id);
+    final Map<String, String> params = routingParams(routing);
+    performRequest("get", "GET", pathBuilder.build(), params, null, listener);
+  }
+
+  /**
+   * Asynchronously retrieves the document identified by the given {@code id} from the shard of
+   * the given {@code routing} value.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the document
+   * @param id the id of the document
+   * @param routing the routing value of the document, or <code>null</code> if it is routed on its
+   *        id
+   * @return a {@link CompletableFuture} completed with the {@link GetDocumentResponse}
+   */
+  public CompletableFuture<GetDocumentResponse> asyncGetDocument(final String indexName,
+      final String type, final String id, final String routing) {
+    return asyncGetDocument(indexName, type, id, routing, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Asynchronously retrieves the document identified by the given {@code id} from the shard of
+   * the given {@code routing} value, and gives up if the response was not received within the
+   * given {@code timeout}.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the document
+   * @param id the id of the document
+   * @param routing the routing value of the document, or <code>null</code> if it is routed on its
+   *        id
+   * @param timeout the maximum time to wait for the response, including retries, hedges and
+   *        failovers to other nodes, or <code>0</code> to wait as long as the socket timeout
+   *        allows
+   * @param unit the unit of the given {@code timeout}
+   * @return a {@link CompletableFuture} completed with the {@link GetDocumentResponse}, or with a
+   *         {@link ClientIOException} caused by a {@link SocketTimeoutException} if the timeout
+   *         expired
+   */
+  public CompletableFuture<GetDocumentResponse> asyncGetDocument(final String indexName,
+      final String type, final String id, final String routing, final long timeout,
+      final TimeUnit unit) {
+    final PathBuilder pathBuilder = new PathBuilder().append(indexName).append(type).append(id);
+    final Map<String, String> params = routingParams(routing);
+    return performAsyncRequest("get", "GET", pathBuilder.build(), params, null,
+        response -> readResponse(this.jsonFactory, response, GetDocumentResponse.class),
+        "Failed to get document", unit.toNanos(timeout));
+  }
+
+  /**
+   * Retrieves the documents identified by the given {@code ids} in a single <code>_mget</code>
+   * request.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the documents
+   * @param ids the ids of the documents to retrieve
+   * @return the {@link MultiGetResponse}, with one entry per requested id
+   */
+  public MultiGetResponse multiGet(final String indexName, final String type,
+      final Collection<String> ids) {
+    return multiGet(indexName, type, ids, (String) null);
+  }
+
+  /**
+   * Retrieves the documents identified by the given {@code ids} from the shard of the given
+   * {@code routing} value, in a single <code>_mget</code> request.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the documents
+   * @param ids the ids of the documents to retrieve
+   * @param routing the routing value of the documents, or <code>null</code>
+   * @return the {@link MultiGetResponse}, with one entry per requested id
+   */
+  public MultiGetResponse multiGet(final String indexName, final String type,
+      final Collection<String> ids, final String routing) {
+    try {
+      final PathBuilder pathBuilder =
+          new PathBuilder().append(indexName).append(type).append("_mget");
+      final Map<String, String> params = routingParams(routing);
+      final Response response = performRequest("mget", "GET", pathBuilder.build(), params,
+          new ByteArrayEntity(multiGetRequestBody(ids), ContentType.APPLICATION_JSON));
+      return checkDocuments(decodeResponse(response, MultiGetResponse.class));
+    } catch (ResponseException e) {
+      throw new ClientResponseException("Failed to get documents",
+          readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
+    } catch (IOException e) {
+      throw new ClientIOException("Failed to get documents", e);
+    }
+  }
+
+  /**
+   * Asynchronously retrieves the documents identified by the given {@code ids} in a single
+   * <code>_mget</code> request.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the documents
+   * @param ids the ids of the documents to retrieve
+   * @param listener the listener to notify when the response was received
+   */
+  public void multiGet(final String indexName, final String type, final Collection<String> ids,
+      final ResponseListener listener) {
+    multiGet(indexName, type, ids, null, listener);
+  }
+
+  /**
+   * Asynchronously retrieves the documents identified by the given {@code ids} from the shard of
+   * the given {@code routing} value, in a single <code>_mget</code> request.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the documents
+   * @param ids the ids of the documents to retrieve
+   * @param routing the routing value of the documents, or <code>null</code>
+   * @param listener the listener to notify when the response was received
+   */
+  public void multiGet(final String indexName, final String type, final Collection<String> ids,
+      final String routing, final ResponseListener listener) {
+    final PathBuilder pathBuilder =
+        new PathBuilder().append(indexName).append(type).append("_mget");
+    final Map<String, String> params = routingParams(routing);
+    final byte[] requestBody;
+    try {
+      requestBody = multiGetRequestBody(ids);
+    } catch (IOException e) {
+      listener.onFailure(e);
+      return;
+    }
+    performRequest("mget", "GET", pathBuilder.build(), params,
+        new ByteArrayEntity(requestBody, ContentType.APPLICATION_JSON), listener);
+  }
+
+  /**
+   * Asynchronously retrieves the documents identified by the given {@code ids} in a single
+   * <code>_mget</code> request.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the documents
+   * @param ids the ids of the documents to retrieve
+   * @return a {@link CompletableFuture} completed with the {@link MultiGetResponse}, with one
+   *         entry per requested id
+   */
+  public CompletableFuture<MultiGetResponse> asyncMultiGet(final String indexName,
+      final String type, final Collection<String> ids) {
+    return asyncMultiGet(indexName, type, ids, null);
+  }
+
+  /**
+   * Asynchronously retrieves the documents identified by the given {@code ids} from the shard of
+   * the given {@code routing} value, in a single <code>_mget</code> request.
+   *
+   * @param indexName the name of the index
+   * @param type the type of the documents
+   * @param ids the ids of the documents to retrieve
+   * @param routing the routing value of the documents, or <code>null</code>
+   * @return a {@link CompletableFuture} completed with the {@link MultiGetResponse}, with one
+   *         entry per requested id
+   */
+  public CompletableFuture<MultiGetResponse> asyncMultiGet(final String indexName,
+      final String type, final Collection<String> ids, final String routing) {
+    final PathBuilder pathBuilder =
+        new PathBuilder().append(indexName).append(type).append("_mget");
+    final Map<String, String> params = routingParams(routing);
+    final byte[] requestBody;
+    try {
+      requestBody = multiGetRequestBody(ids);
+    } catch (IOException e) {
+      final CompletableFuture<MultiGetResponse> result = new CompletableFuture<>();
+      result.completeExceptionally(new ClientIOException("Failed to get documents", e));
+      return result;
+    }
+    return performAsyncRequest("mget", "GET", pathBuilder.build(), params,
+        new ByteArrayEntity(requestBody, ContentType.APPLICATION_JSON), MultiGetResponse.class,
+        "Failed to get documents").thenApply(Client::checkDocuments);
+  }
+
+  /**
+   * Checks that each document in the given response was either found or missing. The
+   * <code>_mget</code> API reports a document that could not be retrieved (for example, because
+   * its shard is unavailable) in its entry of a successful response, and such a document must not
+   * be taken for a missing one.
+   *
+   * @param multiGetResponse the response to a <code>_mget</code> request
+   * @return the given {@link MultiGetResponse}
+   * @throws ClientResponseException if a document could not be retrieved
+   */
+  public static MultiGetResponse checkDocuments(final MultiGetResponse multiGetResponse) {
+    for (GetDocumentResponse getDocumentResponse : multiGetResponse.getDocuments()) {
+      if (getDocumentResponse.getError() != null) {
+        throw new ClientResponseException(
+            "Failed to get document with id '" + getDocumentResponse.getId() + "'",
+            new ErrorResponse(getDocumentResponse.getError()));
+      }
+    }
+    return multiGetResponse;
+  }
+
+  /**
+   * @param ids the ids of the documents to retrieve
+   * @return the body of the <code>_mget</code> request for the given {@code ids}
+   * @throws IOException if writing the JSON content failed
+   */
+  private byte[] multiGetRequestBody(final Collection<String> ids) throws IOException {
+    final ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+    try (final JsonGenerator generator =
+        this.jsonFactory.createGenerator(requestBody, JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("ids");
+      for (String id : ids) {
+        generator.writeString(id);
+      }
+      generator.writeEndArray();
+      generator.writeEndObject();
+    }
+    return requestBody.toByteArray();
+  }
+
+  public GetIndicesResponse getIndices() {
+    try {
+      final PathBuilder pathBuilder = new PathBuilder().append("*").append("_alias");
+      final Map<String, String> params = new HashMap<>();
+      final Response response = performRequest("GET", pathBuilder.build(), params);
+      return decodeResponse(response, GetIndicesResponse.class);
+    } catch (ResponseException e) {
+      throw new ClientResponseException("Failed to retrieve the indices",
+          readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
+    } catch (IOException e) {
+      throw new ClientIOException("Failed to retrieve the indices", e);
+    }
   }
 
   public void createIndex(final String indexName, final Map<String, Object> settings) {
@@ -222,8 +1253,7 @@ public class Client {
     try {
       final PathBuilder pathBuilder = new PathBuilder().append(indexName);
       final Map<String, String> params = new HashMap<>();
-      client.performRequest("PUT", pathBuilder.build(), params,
-          new ByteArrayEntity(indexConfig.getBytes()));
+      performRequest("PUT", pathBuilder.build(), params, jsonEntity(indexConfig));
     } catch (ResponseException e) {
       throw new ClientResponseException("Failed to create index",
           readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
@@ -232,6 +1262,21 @@ public class Client {
     }
   }
 
+  /**
+   * Asynchronously creates an index with the given settings and mappings.
+   *
+   * @param indexName the name of the index to create
+   * @param indexConfig the settings and mappings of the index, as a JSON document
+   * @return a {@link CompletableFuture} completed when the index was created
+   */
+  public CompletableFuture<Void> asyncCreateIndex(final String indexName,
+      final String indexConfig) {
+    final PathBuilder pathBuilder = new PathBuilder().append(indexName);
+    final Map<String, String> params = new HashMap<>();
+    return performAsyncRequest(null, "PUT", pathBuilder.build(), params,
+        jsonEntity(indexConfig), response -> null, "Failed to create index");
+  }
+
 
   public void deleteAllIndices() {
     LOGGER.warn("Deleting all indices !");
@@ -242,7 +1287,8 @@ public class Client {
     try {
       final PathBuilder pathBuilder = new PathBuilder().append(indexName);
       final Map<String, String> params = new HashMap<>();
-      final Response deleteIndexResponse = client.performRequest("DELETE", pathBuilder.build(), params);
+      final Response deleteIndexResponse =
+          performRequest("DELETE", pathBuilder.build(), params);
       LOGGER.debug(deleteIndexResponse.toString());
     } catch (ResponseException e) {
       throw new ClientResponseException("Failed to delete index",
@@ -251,11 +1297,25 @@ public class Client {
       throw new ClientIOException("Failed to delete index", e);
     }
   }
+
+  /**
+   * Asynchronously deletes the given index.
+   *
+   * @param indexName the name of the index to delete
+   * @return a {@link CompletableFuture} completed when the index was deleted
+   */
+  public CompletableFuture<Void> asyncDeleteIndex(final String indexName) {
+    final PathBuilder pathBuilder = new PathBuilder().append(indexName);
+    final Map<String, String> params = new HashMap<>();
+    return performAsyncRequest(null, "DELETE", pathBuilder.build(), params, null,
+        response -> null, "Failed to delete index");
+  }
   
   public void flush(final String indexName) {
     try {
       final PathBuilder pathBuilder = new PathBuilder().append(indexName).append("_flush");
-      client.performRequest("POST", pathBuilder.build());
+      final Map<String, String> params = new HashMap<>();
+      performRequest("POST", pathBuilder.build(), params);
     } catch (IOException e) {
       throw new ClientIOException("Failed to flush index '" + indexName , e);
     }
@@ -270,7 +1330,8 @@ public class Client {
   public boolean indexExists(final String indexName) {
     try {
       final PathBuilder pathBuilder = new PathBuilder().append(indexName);
-      final Response indexExistsResponse = client.performRequest("HEAD", pathBuilder.build());
+      final Map<String, String> params = new HashMap<>();
+      final Response indexExistsResponse = performRequest("HEAD", pathBuilder.build(), params);
       if (indexExistsResponse.getStatusLine().getStatusCode() == 200) {
         return true;
       }
@@ -283,29 +1344,1250 @@ public class Client {
     }
   }
 
+  /**
+   * Asynchronously checks if an index with the given {@code indexName} exists.
+   * 
+   * @param indexName the name of the index to look-up
+   * @return a {@link CompletableFuture} completed with <code>true</code> if the index exists,
+   *         <code>false</code> otherwise
+   */
+  public CompletableFuture<Boolean> asyncIndexExists(final String indexName) {
+    final PathBuilder pathBuilder = new PathBuilder().append(indexName);
+    final Map<String, String> params = new HashMap<>();
+    return performAsyncRequest(null, "HEAD", pathBuilder.build(), params, null,
+        response -> response.getStatusLine().getStatusCode() == 200,
+        "Failed to check if index '" + indexName + "' exists");
+  }
+
   public <D> SearchResponse<D> search(final String indexName, final String type,
       final String requestBody) {
+    return search(indexName, type, jsonEntity(requestBody));
+  }
+
+  /**
+   * Submits a search request whose body is already encoded in the given {@link HttpEntity}.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param requestBody the entity holding the body of the search request
+   * @return the {@link SearchResponse}
+   * @see ContentEntity
+   */
+  public <D> SearchResponse<D> search(final String indexName, final String type,
+      final HttpEntity requestBody) {
+    return search(indexName, type, null, null, requestBody);
+  }
+
+  /**
+   * Submits a search request whose body is already encoded in the given {@link HttpEntity}, on the
+   * shard of the given {@code routing} value only and on the shard copies of the given
+   * {@code preference}.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search (e.g. <code>_local</code>,
+   *        <code>_primary_first</code> or a custom session string, so that repeated searches hit
+   *        the same copies and their caches), or <code>null</code> to let Elasticsearch pick them
+   *        in turn
+   * @param requestBody the entity holding the body of the search request
+   * @return the {@link SearchResponse}
+   * @see ContentEntity
+   */
+  public <D> SearchResponse<D> search(final String indexName, final String type,
+      final String routing, final String preference, final HttpEntity requestBody) {
+    return search(indexName, type, routing, preference, requestBody, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Submits a search request whose body is already encoded in the given {@link HttpEntity}, and
+   * gives up if the response was not received within the given {@code timeout}. The request body
+   * should also set a (shorter) <code>timeout</code>, so that Elasticsearch stops searching and
+   * returns the hits found so far before the response is given up.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search, or <code>null</code> to let Elasticsearch pick
+   *        them in turn
+   * @param requestBody the entity holding the body of the search request
+   * @param timeout the maximum time to wait for the response, including retries, hedges and
+   *        failovers to other nodes, or <code>0</code> to wait as long as the socket timeout
+   *        allows
+   * @param unit the unit of the given {@code timeout}
+   * @return the {@link SearchResponse}
+   * @throws ClientIOException caused by a {@link SocketTimeoutException} if the timeout expired
+   * @see ContentEntity
+   */
+  public <D> SearchResponse<D> search(final String indexName, final String type,
+      final String routing, final String preference, final HttpEntity requestBody,
+      final long timeout, final TimeUnit unit) {
+    return search(indexName, type, routing, preference, requestBody, timeout, unit, null);
+  }
+
+  /**
+   * Submits a search request whose body is already encoded in the given {@link HttpEntity}, gives
+   * up if the response was not received within the given {@code timeout}, and decodes the source
+   * of each hit with the given {@link SourceDecoder} while the response is read.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search, or <code>null</code> to let Elasticsearch pick
+   *        them in turn
+   * @param requestBody the entity holding the body of the search request
+   * @param timeout the maximum time to wait for the response, including retries, hedges and
+   *        failovers to other nodes, or <code>0</code> to wait as long as the socket timeout
+   *        allows
+   * @param unit the unit of the given {@code timeout}
+   * @param sourceDecoder the decoder of the source of each hit, or <code>null</code> to keep the
+   *        sources as JSON trees
+   * @return the {@link SearchResponse}
+   * @throws ClientIOException caused by a {@link SocketTimeoutException} if the timeout expired
+   * @see SearchResponse#getDocuments()
+   */
+  public <D> SearchResponse<D> search(final String indexName, final String type,
+      final String routing, final String preference, final HttpEntity requestBody,
+      final long timeout, final TimeUnit unit, final SourceDecoder<D> sourceDecoder) {
     try {
       final PathBuilder pathBuilder =
           new PathBuilder().append(indexName).append(type).append("_search");
-      final Map<String, String> params = new HashMap<>();
+      final Map<String, String> params = searchParams(routing, preference);
       if (LOGGER.isDebugEnabled()) {
         final String indented = formatJsonDocument(requestBody);
-        LOGGER.debug("Sending search request on {}:\n{}", pathBuilder.build(), indented);
+        LOGGER.debug("Sending search request on {} [{}]:\n{}", pathBuilder.build(),
+            getOpaqueId(), indented);
 
       }
-      final Response response = client.performRequest("GET", pathBuilder.build(), params,
-          new ByteArrayEntity(requestBody.getBytes()));
-      return readResponse(this.jsonFactory, response, SearchResponse.class);
+      final MultiSearchCoalescer searchCoalescer = this.searchCoalescer;
+      if (searchCoalescer != null && getOpaqueId() == null) {
+        return searchCoalescer.search(indexName, type, routing, preference, requestBody,
+            sourceDecoder, unit.toNanos(timeout));
+      }
+      final Response response = performRequest("search", "GET", pathBuilder.build(), params,
+          requestBody, unit.toNanos(timeout));
+      return decodeResponse(response,
+          searchResponse -> readSearchResponse(this.jsonFactory, searchResponse, sourceDecoder));
     } catch (ResponseException e) {
       throw new ClientResponseException("Failed to search documents",
           readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
     } catch (IOException e) {
+      throw new ClientIOException("Failed to search documents", e);
+    }
+  }
 
-      throw new ClientIOException("Failed to delete index", e);
+  /**
+   * Asynchronously submits a search request whose body is already encoded in the given
+   * {@link HttpEntity}. The search is coalesced with other searches in a <code>_msearch</code>
+   * request if {@link #coalesceSearches(int, long, TimeUnit)} was enabled.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search, or <code>null</code> to let Elasticsearch pick
+   *        them in turn
+   * @param requestBody the entity holding the body of the search request
+   * @return a {@link CompletableFuture} completed with the {@link SearchResponse}
+   * @see ContentEntity
+   */
+  public <D> CompletableFuture<SearchResponse<D>> asyncSearch(final String indexName,
+      final String type, final String routing, final String preference,
+      final HttpEntity requestBody) {
+    return asyncSearch(indexName, type, routing, preference, requestBody, null);
+  }
+
+  /**
+   * Asynchronously submits a search request whose body is already encoded in the given
+   * {@link HttpEntity}, and decodes the source of each hit with the given {@link SourceDecoder}
+   * while the response is read.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search, or <code>null</code> to let Elasticsearch pick
+   *        them in turn
+   * @param requestBody the entity holding the body of the search request
+   * @param sourceDecoder the decoder of the source of each hit, or <code>null</code> to keep the
+   *        sources as JSON trees
+   * @return a {@link CompletableFuture} completed with the {@link SearchResponse}
+   * @see SearchResponse#getDocuments()
+   */
+  public <D> CompletableFuture<SearchResponse<D>> asyncSearch(final String indexName,
+      final String type, final String routing, final String preference,
+      final HttpEntity requestBody, final SourceDecoder<D> sourceDecoder) {
+    return asyncSearch(indexName, type, routing, preference, requestBody, 0,
+        TimeUnit.MILLISECONDS, sourceDecoder);
+  }
+
+  /**
+   * Asynchronously submits a search request whose body is already encoded in the given
+   * {@link HttpEntity}, decodes the source of each hit with the given {@link SourceDecoder} while
+   * the response is read, and gives up if the response was not received within the given
+   * {@code timeout}.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search, or <code>null</code> to let Elasticsearch pick
+   *        them in turn
+   * @param requestBody the entity holding the body of the search request
+   * @param timeout the maximum time to wait for the response, including retries, hedges and
+   *        failovers to other nodes, or <code>0</code> to wait as long as the socket timeout
+   *        allows
+   * @param unit the unit of the given {@code timeout}
+   * @param sourceDecoder the decoder of the source of each hit, or <code>null</code> to keep the
+   *        sources as JSON trees
+   * @return a {@link CompletableFuture} completed with the {@link SearchResponse}, or with a
+   *         {@link ClientIOException} caused by a {@link SocketTimeoutException} if the timeout
+   *         expired
+   * @see SearchResponse#getDocuments()
+   */
+  @SuppressWarnings("unchecked")
+  public <D> CompletableFuture<SearchResponse<D>> asyncSearch(final String indexName,
+      final String type, final String routing, final String preference,
+      final HttpEntity requestBody, final long timeout, final TimeUnit unit,
+      final SourceDecoder<D> sourceDecoder) {
+    final PathBuilder pathBuilder =
+        new PathBuilder().append(indexName).append(type).append("_search");
+    final MultiSearchCoalescer searchCoalescer = this.searchCoalescer;
+    if (searchCoalescer != null && getOpaqueId() == null) {
+      final CompletableFuture<SearchResponse<D>> result = searchCoalescer
+          .submit(indexName, type, routing, preference, requestBody, sourceDecoder)
+          .thenApply(response -> (SearchResponse<D>) response);
+      // the _msearch request is shared with other searches, so it is not aborted
+      expireAfter(result, unit.toNanos(timeout), new AtomicBoolean(), "GET", pathBuilder.build(),
+          "Failed to search documents");
+      return result;
+    }
+    final Map<String, String> params = searchParams(routing, preference);
+    return performAsyncRequest("search", "GET", pathBuilder.build(), params, requestBody,
+        response -> readSearchResponse(this.jsonFactory, response, sourceDecoder),
+        "Failed to search documents", unit.toNanos(timeout));
+  }
+
+  /**
+   * Submits a search request that opens a scroll context, kept alive for {@code keepAlive}. Scroll
+   * searches are never coalesced in <code>_msearch</code> requests.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param requestBody the entity holding the body of the search request
+   * @param keepAlive how long the scroll context should be kept alive (e.g. <code>1m</code>)
+   * @return the {@link SearchResponse} with the first page of hits and the scroll id
+   */
+  public <D> SearchResponse<D> search(final String indexName, final String type,
+      final HttpEntity requestBody, final String keepAlive) {
+    return search(indexName, type, null, null, requestBody, keepAlive);
+  }
+
+  /**
+   * Submits a search request that opens a scroll context, kept alive for {@code keepAlive}, on the
+   * shard of the given {@code routing} value only and on the shard copies of the given
+   * {@code preference}.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search, or <code>null</code> to let Elasticsearch pick
+   *        them in turn
+   * @param requestBody the entity holding the body of the search request
+   * @param keepAlive how long the scroll context should be kept alive (e.g. <code>1m</code>)
+   * @return the {@link SearchResponse} with the first page of hits and the scroll id
+   */
+  public <D> SearchResponse<D> search(final String indexName, final String type,
+      final String routing, final String preference, final HttpEntity requestBody,
+      final String keepAlive) {
+    return search(indexName, type, routing, preference, requestBody, keepAlive, null);
+  }
+
+  /**
+   * Submits a search request that opens a scroll context, kept alive for {@code keepAlive}, and
+   * decodes the source of each hit of the first page with the given {@link SourceDecoder} while
+   * the response is read.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search, or <code>null</code> to let Elasticsearch pick
+   *        them in turn
+   * @param requestBody the entity holding the body of the search request
+   * @param keepAlive how long the scroll context should be kept alive (e.g. <code>1m</code>)
+   * @param sourceDecoder the decoder of the source of each hit, or <code>null</code> to keep the
+   *        sources as JSON trees
+   * @return the {@link SearchResponse} with the first page of hits and the scroll id
+   * @see SearchResponse#getDocuments()
+   */
+  public <D> SearchResponse<D> search(final String indexName, final String type,
+      final String routing, final String preference, final HttpEntity requestBody,
+      final String keepAlive, final SourceDecoder<D> sourceDecoder) {
+    try {
+      final PathBuilder pathBuilder =
+          new PathBuilder().append(indexName).append(type).append("_search");
+      final Map<String, String> params = searchParams(routing, preference);
+      params.put("scroll", keepAlive);
+      if (LOGGER.isDebugEnabled()) {
+        final String indented = formatJsonDocument(requestBody);
+        LOGGER.debug("Sending scroll search request on {} [{}]:\n{}", pathBuilder.build(),
+            getOpaqueId(), indented);
+      }
+      final Response response = performRequest("GET", pathBuilder.build(), params, requestBody);
+      return decodeResponse(response,
+          searchResponse -> readSearchResponse(this.jsonFactory, searchResponse, sourceDecoder));
+    } catch (ResponseException e) {
+      throw new ClientResponseException("Failed to search documents",
+          readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
+    } catch (IOException e) {
+      throw new ClientIOException("Failed to search documents", e);
+    }
+  }
+
+  /**
+   * Asynchronously retrieves the next page of hits of a scroll search, and keeps the scroll context
+   * alive for another {@code keepAlive}.
+   *
+   * @param scrollId the id of the scroll context
+   * @param keepAlive how long the scroll context should be kept alive (e.g. <code>1m</code>)
+   * @param responseListener the listener to notify when the response was received
+   */
+  public void scroll(final String scrollId, final String keepAlive,
+      final ResponseListener responseListener) {
+    final PathBuilder pathBuilder = new PathBuilder().append("_search").append("scroll");
+    final Map<String, String> params = new HashMap<>();
+    final byte[] requestBody;
+    try {
+      requestBody = scrollRequestBody(scrollId, keepAlive);
+    } catch (IOException e) {
+      responseListener.onFailure(e);
+      return;
+    }
+    performRequest("POST", pathBuilder.build(), params,
+        new ByteArrayEntity(requestBody, ContentType.APPLICATION_JSON), responseListener);
+  }
+
+  /**
+   * Clears the scroll context with the given {@code scrollId}, releasing its resources on the
+   * cluster.
+   *
+   * @param scrollId the id of the scroll context
+   */
+  public void clearScroll(final String scrollId) {
+    try {
+      final PathBuilder pathBuilder = new PathBuilder().append("_search").append("scroll");
+      final Map<String, String> params = new HashMap<>();
+      performRequest("DELETE", pathBuilder.build(), params, new ByteArrayEntity(
+          scrollRequestBody(scrollId, null), ContentType.APPLICATION_JSON));
+    } catch (ResponseException e) {
+      throw new ClientResponseException("Failed to clear scroll",
+          readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
+    } catch (IOException e) {
+      throw new ClientIOException("Failed to clear scroll", e);
+    }
+  }
+
+  /**
+   * Asynchronously clears the scroll context with the given {@code scrollId}, releasing its
+   * resources on the cluster.
+   *
+   * @param scrollId the id of the scroll context
+   * @param responseListener the listener to notify when the response was received
+   */
+  public void clearScroll(final String scrollId, final ResponseListener responseListener) {
+    final PathBuilder pathBuilder = new PathBuilder().append("_search").append("scroll");
+    final Map<String, String> params = new HashMap<>();
+    final byte[] requestBody;
+    try {
+      requestBody = scrollRequestBody(scrollId, null);
+    } catch (IOException e) {
+      responseListener.onFailure(e);
+      return;
+    }
+    performRequest("DELETE", pathBuilder.build(), params,
+        new ByteArrayEntity(requestBody, ContentType.APPLICATION_JSON), responseListener);
+  }
+
+  /**
+   * @param scrollId the id of the scroll context
+   * @param keepAlive how long the scroll context should be kept alive, or <code>null</code>
+   * @return the body of a <code>_search/scroll</code> request
+   * @throws IOException if writing the JSON content failed
+   */
+  private byte[] scrollRequestBody(final String scrollId, final String keepAlive)
+      throws IOException {
+    final ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+    try (final JsonGenerator generator =
+        this.jsonFactory.createGenerator(requestBody, JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+      if (keepAlive != null) {
+        generator.writeStringField("scroll", keepAlive);
+      }
+      generator.writeStringField("scroll_id", scrollId);
+      generator.writeEndObject();
+    }
+    return requestBody.toByteArray();
+  }
+
+  /**
+   * Submits a <code>_msearch</code> request.
+   *
+   * @param requestBody the NDJSON body of the multi search request, UTF-8 encoded
+   * @return the {@link MultiSearchResponse}, with one entry per search
+   */
+  public MultiSearchResponse multiSearch(final byte[] requestBody) {
+    try {
+      final PathBuilder pathBuilder = new PathBuilder().append("_msearch");
+      final Map<String, String> params = new HashMap<>();
+      final Response response = performRequest("msearch", "POST", pathBuilder.build(), params,
+          new ByteArrayEntity(requestBody, BULK_CONTENT_TYPE));
+      return decodeResponse(response, MultiSearchResponse.class);
+    } catch (ResponseException e) {
+      throw new ClientResponseException("Failed to search documents",
+          readResponse(this.jsonFactory, e.getResponse(), ErrorResponse.class));
+    } catch (IOException e) {
+      throw new ClientIOException("Failed to search documents", e);
     }
   }
 
+  /**
+   * Asynchronously submits a <code>_msearch</code> request.
+   *
+   * @param requestBody the NDJSON body of the multi search request, UTF-8 encoded
+   * @param responseListener the listener to notify when the response was received
+   */
+  public void multiSearch(final byte[] requestBody, final ResponseListener responseListener) {
+    final PathBuilder pathBuilder = new PathBuilder().append("_msearch");
+    final Map<String, String> params = new HashMap<>();
+    performRequest("msearch", "POST", pathBuilder.build(), params,
+        new ByteArrayEntity(requestBody, BULK_CONTENT_TYPE), responseListener);
+  }
+
+  /**
+   * @param json a JSON document
+   * @return an {@link HttpEntity} with the UTF-8 encoded content of the given JSON document
+   */
+  private static HttpEntity jsonEntity(final String json) {
+    return new ByteArrayEntity(json.getBytes(StandardCharsets.UTF_8),
+        ContentType.APPLICATION_JSON);
+  }
+
+  /**
+   * @param routing a routing value, or <code>null</code>
+   * @return the request parameters, including the <code>routing</code> parameter if the given
+   *         {@code routing} value is not <code>null</code>
+   */
+  private static Map<String, String> routingParams(final String routing) {
+    final Map<String, String> params = new HashMap<>();
+    if (routing != null) {
+      params.put("routing", routing);
+    }
+    return params;
+  }
+
+  /**
+   * @param routing a routing value, or <code>null</code>
+   * @param preference a shard copy preference, or <code>null</code>
+   * @return the request parameters of a search, including the <code>routing</code> and
+   *         <code>preference</code> parameters if they are not <code>null</code>
+   */
+  private static Map<String, String> searchParams(final String routing,
+      final String preference) {
+    final Map<String, String> params = routingParams(routing);
+    if (preference != null) {
+      params.put("preference", preference);
+    }
+    return params;
+  }
+
+  private Response performRequest(final String method, final String endpoint,
+      final Map<String, String> params) throws IOException {
+    return performRequest(method, endpoint, params, (HttpEntity) null);
+  }
+
+  private Response performRequest(final String method, final String endpoint,
+      final Map<String, String> params, final HttpEntity entity) throws IOException {
+    return performRequest(null, method, endpoint, params, entity);
+  }
+
+  /**
+   * Sends the request, and sends it again as long as it is rejected and the {@link RetryPolicy}
+   * allows it.
+   * 
+   * @param hedgedOperation the name of the read operation if the request may be hedged, or
+   *        <code>null</code>
+   */
+  private Response performRequest(final String hedgedOperation, final String method,
+      final String endpoint, final Map<String, String> params, final HttpEntity entity)
+      throws IOException {
+    final HttpEntity requestEntity = this.compression.compress(entity);
+    final RetryPolicy retryPolicy = this.retryPolicy;
+    retryPolicy.onRequest();
+    final HedgingPolicy hedgingPolicy = hedgingPolicy(hedgedOperation);
+    final String opaqueId = getOpaqueId();
+    final MeteredRequest meteredRequest =
+        MeteredRequest.start(this.requestMetrics, method, endpoint, requestEntity, opaqueId);
+    for (int retries = 0;; retries++) {
+      try {
+        meteredRequest.onAttempt();
+        final Response response = hedgingPolicy != null
+            ? performHedgedRequest(hedgingPolicy, hedgedOperation, method, endpoint, params,
+                requestEntity, opaqueId)
+            : performRequestOnNodes(method, endpoint, params, requestEntity, opaqueId);
+        if (retries > 0) {
+          this.retryStats.onRetriedRequest(true);
+        }
+        meteredRequest.onResponse(response);
+        return response;
+      } catch (ResponseException e) {
+        final long retryDelayMillis =
+            retryDelayMillis(retryPolicy, method, endpoint, opaqueId, e, retries);
+        if (retryDelayMillis < 0) {
+          meteredRequest.onFailure(e);
+          throw e;
+        }
+        meteredRequest.onRetry();
+        try {
+          Thread.sleep(retryDelayMillis);
+        } catch (InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+          meteredRequest.onFailure(e);
+          throw e;
+        }
+      } catch (IOException | RuntimeException e) {
+        meteredRequest.onFailure(e);
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Sends the request, and gives up if its response was not received within the given timeout.
+   * The request is sent asynchronously, so that it can be given up while it is retried, hedged or
+   * sent to another node. Once given up, it is aborted as soon as its response starts arriving.
+   * 
+   * @param hedgedOperation the name of the read operation if the request may be hedged, or
+   *        <code>null</code>
+   * @param timeoutNanos the maximum time to wait for the response, or <code>0</code> to wait as
+   *        long as the socket timeout allows
+   */
+  private Response performRequest(final String hedgedOperation, final String method,
+      final String endpoint, final Map<String, String> params, final HttpEntity entity,
+      final long timeoutNanos) throws IOException {
+    if (timeoutNanos <= 0) {
+      return performRequest(hedgedOperation, method, endpoint, params, entity);
+    }
+    final HttpEntity requestEntity = this.compression.compress(entity);
+    final RetryPolicy retryPolicy = this.retryPolicy;
+    retryPolicy.onRequest();
+    final HedgingPolicy hedgingPolicy = hedgingPolicy(hedgedOperation);
+    final String opaqueId = getOpaqueId();
+    final AtomicBoolean expired = new AtomicBoolean(false);
+    final CompletableFuture<Response> response = new CompletableFuture<>();
+    final MeteredRequest meteredRequest =
+        MeteredRequest.start(this.requestMetrics, method, endpoint, requestEntity, opaqueId);
+    performRequest(retryPolicy, 0, hedgingPolicy, hedgedOperation, method, endpoint, params,
+        requestEntity, opaqueId,
+        () -> new CancellableResponseConsumer(this.compression.newResponseConsumer(),
+            expired::get),
+        meteredRequest, meteredRequest.wrap(completingResponseListener(response)));
+    try {
+      return awaitResponse(response, timeoutNanos, method, endpoint);
+    } catch (SocketTimeoutException e) {
+      expired.set(true);
+      throw e;
+    }
+  }
+
+  /**
+   * Sends the request to the preferred node, and to the next ones as long as the node does not
+   * respond or responds that it is unavailable, provided that the request did not reach the node
+   * or is idempotent.
+   * 
+   * @see #canFailOver(String, String, Exception)
+   */
+  private Response performRequestOnNodes(final String method, final String endpoint,
+      final Map<String, String> params, final HttpEntity requestEntity, final String opaqueId)
+      throws IOException {
+    IOException failure = null;
+    for (Node node : this.nodeSelector.select()) {
+      final long startNanos = node.onRequest();
+      if (startNanos < 0) {
+        // the circuit of the node opened in the meantime
+        continue;
+      }
+      try {
+        final Response response = node.getTransport().performRequest(method, endpoint, params,
+            requestEntity, this.compression.newResponseConsumer(), requestHeaders(opaqueId));
+        node.onResponse(startNanos);
+        return response;
+      } catch (IOException e) {
+        if (!isNodeFailure(e)) {
+          node.onResponse(startNanos);
+          throw e;
+        }
+        node.onFailure(e);
+        if (failure != null) {
+          e.addSuppressed(failure);
+        }
+        if (!canFailOver(method, endpoint, e)) {
+          throw e;
+        }
+        failure = e;
+      } catch (RuntimeException e) {
+        // e.g., the request timed out: the elapsed time still tells about the node latency
+        node.onResponse(startNanos);
+        throw e;
+      }
+    }
+    throw failure != null ? failure : noNodeAvailable();
+  }
+
+  /**
+   * Sends the hedged request and waits for the winning response.
+   */
+  private Response performHedgedRequest(final HedgingPolicy hedgingPolicy, final String operation,
+      final String method, final String endpoint, final Map<String, String> params,
+      final HttpEntity requestEntity, final String opaqueId) throws IOException {
+    final CompletableFuture<Response> response = new CompletableFuture<>();
+    performHedgedRequest(hedgingPolicy, operation, method, endpoint, params, requestEntity,
+        opaqueId, this.compression::newResponseConsumer, completingResponseListener(response));
+    return awaitResponse(response, 0, method, endpoint);
+  }
+
+  /**
+   * @return a {@link ResponseListener} that completes the given {@link CompletableFuture}.
+   */
+  private static ResponseListener completingResponseListener(
+      final CompletableFuture<Response> response) {
+    return new ResponseListener() {
+
+      @Override
+      public void onSuccess(final Response result) {
+        response.complete(result);
+      }
+
+      @Override
+      public void onFailure(final Exception exception) {
+        response.completeExceptionally(exception);
+      }
+    };
+  }
+
+  /**
+   * Waits for the response of an asynchronous request.
+   * 
+   * @param timeoutNanos the maximum time to wait, or <code>0</code> to wait until the request
+   *        completes
+   * @throws SocketTimeoutException if the given timeout expired
+   */
+  private static Response awaitResponse(final CompletableFuture<Response> response,
+      final long timeoutNanos, final String method, final String endpoint) throws IOException {
+    try {
+      return timeoutNanos > 0 ? response.get(timeoutNanos, TimeUnit.NANOSECONDS) : response.get();
+    } catch (TimeoutException e) {
+      throw timeoutException(method, endpoint, timeoutNanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for " + method + " " + endpoint);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Asynchronously sends a request, and completes the returned {@link CompletableFuture} with its
+   * parsed response, or with the same {@link ClientResponseException} or
+   * {@link ClientIOException} as the synchronous methods. The future is completed on an I/O
+   * thread of the HTTP client, so the dependent stages that may block should be run on another
+   * executor, with the <code>*Async</code> methods of {@link CompletableFuture}.
+   *
+   * @param hedgedOperation the name of the read operation if the request may be hedged, or
+   *        <code>null</code>
+   * @param responseType the type of the response body
+   * @param failureMessage the message of the exception if the request failed
+   */
+  private <T> CompletableFuture<T> performAsyncRequest(final String hedgedOperation,
+      final String method, final String endpoint, final Map<String, String> params,
+      final HttpEntity entity, final Class<T> responseType, final String failureMessage) {
+    return performAsyncRequest(hedgedOperation, method, endpoint, params, entity,
+        response -> readResponse(this.jsonFactory, response, responseType), failureMessage);
+  }
+
+  /**
+   * Asynchronously sends a request, and completes the returned {@link CompletableFuture} with the
+   * result of the given {@code responseReader}.
+   *
+   * @param hedgedOperation the name of the read operation if the request may be hedged, or
+   *        <code>null</code>
+   * @param responseReader the function that reads the response
+   * @param failureMessage the message of the exception if the request failed
+   * @see #performAsyncRequest(String, String, String, Map, HttpEntity, Class, String)
+   */
+  private <T> CompletableFuture<T> performAsyncRequest(final String hedgedOperation,
+      final String method, final String endpoint, final Map<String, String> params,
+      final HttpEntity entity, final Function<Response, T> responseReader,
+      final String failureMessage) {
+    return performAsyncRequest(hedgedOperation, method, endpoint, params, entity, responseReader,
+        failureMessage, 0);
+  }
+
+  /**
+   * Asynchronously sends a request, and completes the returned {@link CompletableFuture} with the
+   * result of the given {@code responseReader}, or with a {@link ClientIOException} caused by a
+   * {@link SocketTimeoutException} if the response was not received within the given timeout, as
+   * the synchronous methods do. Once given up, the request is aborted as soon as its response
+   * starts arriving.
+   *
+   * @param hedgedOperation the name of the read operation if the request may be hedged, or
+   *        <code>null</code>
+   * @param responseReader the function that reads the response
+   * @param failureMessage the message of the exception if the request failed
+   * @param timeoutNanos the maximum time to wait for the response, or <code>0</code> to wait as
+   *        long as the socket timeout allows
+   */
+  private <T> CompletableFuture<T> performAsyncRequest(final String hedgedOperation,
+      final String method, final String endpoint, final Map<String, String> params,
+      final HttpEntity entity, final Function<Response, T> responseReader,
+      final String failureMessage, final long timeoutNanos) {
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    final AtomicBoolean expired = new AtomicBoolean(false);
+    final Supplier<HttpAsyncResponseConsumer<HttpResponse>> responseConsumerFactory =
+        timeoutNanos > 0
+            ? () -> new CancellableResponseConsumer(this.compression.newResponseConsumer(),
+                expired::get)
+            : this.compression::newResponseConsumer;
+    performRequest(hedgedOperation, method, endpoint, params, entity, responseConsumerFactory,
+        new ResponseListener() {
+
+          @Override
+          public void onSuccess(final Response response) {
+            try {
+              result.complete(decodeResponse(response, responseReader));
+            } catch (RuntimeException e) {
+              result.completeExceptionally(e);
+            }
+          }
+
+          @Override
+          public void onFailure(final Exception exception) {
+            result.completeExceptionally(toClientException(jsonFactory, failureMessage, exception));
+          }
+        });
+    expireAfter(result, timeoutNanos, expired, method, endpoint, failureMessage);
+    return result;
+  }
+
+  /**
+   * Converts the failure of an asynchronous request into the exception thrown by the synchronous
+   * methods.
+   *
+   * @param jsonFactory the {@link JsonFactory} to read the error response with
+   * @param message the message of the exception
+   * @param exception the failure of the request
+   * @return a {@link ClientResponseException} if the request was rejected, a
+   *         {@link ClientIOException} if it could not be sent, or the given exception itself if it
+   *         is a {@link RuntimeException}
+   */
+  static RuntimeException toClientException(final JsonFactory jsonFactory, final String message,
+      final Exception exception) {
+    if (exception instanceof ResponseException) {
+      return new ClientResponseException(message, readResponse(jsonFactory,
+          ((ResponseException) exception).getResponse(), ErrorResponse.class));
+    } else if (exception instanceof IOException) {
+      return new ClientIOException(message, (IOException) exception);
+    } else if (exception instanceof RuntimeException) {
+      return (RuntimeException) exception;
+    }
+    return new ClientIOException(message, new IOException(exception));
+  }
+
+  private void performRequest(final String method, final String endpoint,
+      final Map<String, String> params, final ResponseListener responseListener) {
+    performRequest(method, endpoint, params, null, responseListener);
+  }
+
+  private void performRequest(final String method, final String endpoint,
+      final Map<String, String> params, final HttpEntity entity,
+      final ResponseListener responseListener) {
+    performRequest(null, method, endpoint, params, entity, responseListener);
+  }
+
+  /**
+   * @param hedgedOperation the name of the read operation if the request may be hedged, or
+   *        <code>null</code>
+   */
+  private void performRequest(final String hedgedOperation, final String method,
+      final String endpoint, final Map<String, String> params, final HttpEntity entity,
+      final ResponseListener responseListener) {
+    performRequest(hedgedOperation, method, endpoint, params, entity,
+        this.compression::newResponseConsumer, responseListener);
+  }
+
+  /**
+   * @param hedgedOperation the name of the read operation if the request may be hedged, or
+   *        <code>null</code>
+   * @param responseConsumerFactory the factory of the consumers of the responses of each attempt
+   */
+  private void performRequest(final String hedgedOperation, final String method,
+      final String endpoint, final Map<String, String> params, final HttpEntity entity,
+      final Supplier<HttpAsyncResponseConsumer<HttpResponse>> responseConsumerFactory,
+      final ResponseListener responseListener) {
+    final HttpEntity requestEntity;
+    try {
+      requestEntity = this.compression.compress(entity);
+    } catch (IOException e) {
+      responseListener.onFailure(e);
+      return;
+    }
+    final RetryPolicy retryPolicy = this.retryPolicy;
+    retryPolicy.onRequest();
+    final HedgingPolicy hedgingPolicy = hedgingPolicy(hedgedOperation);
+    // read on the calling thread, as the request may be queued or retried on other threads
+    final String opaqueId = getOpaqueId();
+    final MeteredRequest meteredRequest =
+        MeteredRequest.start(this.requestMetrics, method, endpoint, requestEntity, opaqueId);
+    performRequest(retryPolicy, 0, hedgingPolicy, hedgedOperation, method, endpoint, params,
+        requestEntity, opaqueId, responseConsumerFactory, meteredRequest,
+        meteredRequest.wrap(responseListener));
+  }
+
+  /**
+   * Completes the given {@link CompletableFuture} with a {@link ClientIOException} caused by a
+   * {@link SocketTimeoutException} if it is still pending when the given timeout expires, and
+   * sets the given {@code expired} flag so that the response is aborted as soon as it starts
+   * arriving.
+   * 
+   * @param timeoutNanos the maximum time to wait for the response, or <code>0</code> to wait as
+   *        long as the socket timeout allows
+   */
+  private void expireAfter(final CompletableFuture<?> result, final long timeoutNanos,
+      final AtomicBoolean expired, final String method, final String endpoint,
+      final String failureMessage) {
+    if (timeoutNanos <= 0 || result.isDone()) {
+      return;
+    }
+    final ScheduledFuture<?> timer;
+    try {
+      timer = this.hedgingScheduler.schedule(() -> {
+        expired.set(true);
+        result.completeExceptionally(new ClientIOException(failureMessage,
+            timeoutException(method, endpoint, timeoutNanos)));
+      }, timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // the client is closed: the request fails on its own
+      return;
+    }
+    result.whenComplete((response, exception) -> timer.cancel(false));
+  }
+
+  /**
+   * @return the {@link SocketTimeoutException} of a request that did not complete within the
+   *         given timeout.
+   */
+  private static SocketTimeoutException timeoutException(final String method,
+      final String endpoint, final long timeoutNanos) {
+    return new SocketTimeoutException(method + " " + endpoint + " did not complete within "
+        + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms");
+  }
+
+  /**
+   * @return a {@link ResponseListener} that reports the completion of the attempt to the given
+   *         {@link AdaptiveConcurrencyLimiter} before notifying the given {@code responseListener},
+   *         with the latency elapsed since this method was called.
+   */
+  private static ResponseListener limitedResponseListener(
+      final AdaptiveConcurrencyLimiter concurrencyLimiter,
+      final ResponseListener responseListener) {
+    final long startNanos = System.nanoTime();
+    return new ResponseListener() {
+
+      @Override
+      public void onSuccess(final Response response) {
+        concurrencyLimiter.onRequestCompleted(System.nanoTime() - startNanos, false);
+        responseListener.onSuccess(response);
+      }
+
+      @Override
+      public void onFailure(final Exception exception) {
+        concurrencyLimiter.onRequestCompleted(System.nanoTime() - startNanos,
+            isOverloaded(exception));
+        responseListener.onFailure(exception);
+      }
+    };
+  }
+
+  /**
+   * Asynchronously sends the request, and schedules a retry if it is rejected and the
+   * {@link RetryPolicy} allows it. Each attempt goes through the {@link AdaptiveConcurrencyLimiter}
+   * (if any), so that the limit adapts to the latency of the attempts, and so that a request does
+   * not hold a permit while it waits for its retry.
+   * 
+   * @param responseConsumerFactory the factory of the consumers of the responses of each attempt
+   * @param meteredRequest the {@link MeteredRequest} to notify when each attempt is sent
+   */
+  private void performRequest(final RetryPolicy retryPolicy, final int retries,
+      final HedgingPolicy hedgingPolicy, final String hedgedOperation, final String method,
+      final String endpoint, final Map<String, String> params, final HttpEntity requestEntity,
+      final String opaqueId,
+      final Supplier<HttpAsyncResponseConsumer<HttpResponse>> responseConsumerFactory,
+      final MeteredRequest meteredRequest, final ResponseListener responseListener) {
+    final ResponseListener retryingResponseListener = new ResponseListener() {
+
+      @Override
+      public void onSuccess(final Response response) {
+        if (retries > 0) {
+          retryStats.onRetriedRequest(true);
+        }
+        responseListener.onSuccess(response);
+      }
+
+      @Override
+      public void onFailure(final Exception exception) {
+        final long retryDelayMillis = exception instanceof ResponseException
+            ? retryDelayMillis(retryPolicy, method, endpoint, opaqueId,
+                (ResponseException) exception, retries)
+            : -1;
+        if (retryDelayMillis < 0) {
+          responseListener.onFailure(exception);
+          return;
+        }
+        meteredRequest.onRetry();
+        // never wait on the I/O thread that notified this listener
+        try {
+          retryScheduler.schedule(() -> performRequest(retryPolicy, retries + 1, hedgingPolicy,
+              hedgedOperation, method, endpoint, params, requestEntity, opaqueId,
+              responseConsumerFactory, meteredRequest, responseListener), retryDelayMillis,
+              TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+          // the client was closed
+          responseListener.onFailure(exception);
+        }
+      }
+    };
+    final AdaptiveConcurrencyLimiter concurrencyLimiter = this.concurrencyLimiter;
+    if (concurrencyLimiter == null) {
+      meteredRequest.onAttempt();
+      performAttempt(hedgingPolicy, hedgedOperation, method, endpoint, params, requestEntity,
+          opaqueId, responseConsumerFactory, retryingResponseListener);
+      return;
+    }
+    try {
+      concurrencyLimiter.execute(() -> {
+        final ResponseListener limitedResponseListener =
+            limitedResponseListener(concurrencyLimiter, retryingResponseListener);
+        meteredRequest.onAttempt();
+        try {
+          performAttempt(hedgingPolicy, hedgedOperation, method, endpoint, params,
+              requestEntity, opaqueId, responseConsumerFactory, limitedResponseListener);
+        } catch (RuntimeException e) {
+          limitedResponseListener.onFailure(e);
+        }
+      });
+    } catch (ConcurrencyLimitExceededException e) {
+      retryingResponseListener.onFailure(e);
+    }
+  }
+
+  /**
+   * Sends a single attempt of the request, hedged if the {@link HedgingPolicy} is not
+   * <code>null</code>.
+   */
+  private void performAttempt(final HedgingPolicy hedgingPolicy, final String hedgedOperation,
+      final String method, final String endpoint, final Map<String, String> params,
+      final HttpEntity requestEntity, final String opaqueId,
+      final Supplier<HttpAsyncResponseConsumer<HttpResponse>> responseConsumerFactory,
+      final ResponseListener responseListener) {
+    if (hedgingPolicy != null) {
+      performHedgedRequest(hedgingPolicy, hedgedOperation, method, endpoint, params,
+          requestEntity, opaqueId, responseConsumerFactory, responseListener);
+    } else {
+      performRequestOnNodes(this.nodeSelector.select().iterator(), method, endpoint, params,
+          requestEntity, opaqueId, responseConsumerFactory, responseListener, null);
+    }
+  }
+
+  /**
+   * @param hedgedOperation the name of the read operation if the request may be hedged, or
+   *        <code>null</code>
+   * @return the {@link HedgingPolicy} of the request, or <code>null</code> if it should not be
+   *         hedged.
+   */
+  private HedgingPolicy hedgingPolicy(final String hedgedOperation) {
+    final HedgingPolicy hedgingPolicy = hedgedOperation != null ? this.hedgingPolicy : null;
+    if (hedgingPolicy != null) {
+      hedgingPolicy.onRequest();
+    }
+    return hedgingPolicy;
+  }
+
+  /**
+   * Asynchronously sends the read request to the preferred node and, if it did not respond within
+   * the hedging delay of its operation, sends it again to another node with a different shard
+   * copy preference. The first response is notified, and the other request is cancelled.
+   */
+  private void performHedgedRequest(final HedgingPolicy hedgingPolicy, final String operation,
+      final String method, final String endpoint, final Map<String, String> params,
+      final HttpEntity requestEntity, final String opaqueId,
+      final Supplier<HttpAsyncResponseConsumer<HttpResponse>> responseConsumerFactory,
+      final ResponseListener responseListener) {
+    final long startNanos = System.nanoTime();
+    final HedgedRequest hedgedRequest =
+        new HedgedRequest(responseConsumerFactory, new ResponseListener() {
+
+          @Override
+          public void onSuccess(final Response response) {
+            hedgingPolicy.onLatency(operation, System.nanoTime() - startNanos);
+            responseListener.onSuccess(response);
+          }
+
+          @Override
+          public void onFailure(final Exception exception) {
+            responseListener.onFailure(exception);
+          }
+        }, this.hedgingStats);
+    final List<Node> nodes = this.nodeSelector.select();
+    performRequestOnNodes(nodes.iterator(), method, endpoint, params, requestEntity, opaqueId,
+        hedgedRequest.original::newResponseConsumer, hedgedRequest.original, null);
+    final long hedgeDelayNanos = hedgingPolicy.hedgeDelayNanos(operation);
+    if (hedgeDelayNanos < 0) {
+      return;
+    }
+    hedgedRequest.setHedgeTimer(this.hedgingScheduler.schedule(() -> {
+      if (!hedgedRequest.startHedge(hedgingPolicy)) {
+        return;
+      }
+      // the preference makes Elasticsearch pick the shard copies from its hash rather than in
+      // turn, so the hedge is unlikely to hit the same slow copies unless a preference was given
+      final Map<String, String> hedgeParams = new HashMap<>(params);
+      hedgeParams.putIfAbsent("preference",
+          "hedge-" + Long.toHexString(ThreadLocalRandom.current().nextLong()));
+      final List<Node> hedgeNodes = nodes.size() > 1 ? nodes.subList(1, nodes.size()) : nodes;
+      LOGGER.debug("Hedging {} {} [{}] after {}ms", method, endpoint, opaqueId,
+          TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos));
+      performRequestOnNodes(hedgeNodes.iterator(), method, endpoint, hedgeParams, requestEntity,
+          opaqueId, hedgedRequest.hedge::newResponseConsumer, hedgedRequest.hedge, null);
+    }, hedgeDelayNanos, TimeUnit.NANOSECONDS));
+  }
+
+  /**
+   * Sends the request to the next node, and to the following ones as long as the node does not
+   * respond or responds that it is unavailable, provided that the request did not reach the node
+   * or is idempotent.
+   * 
+   * @see #canFailOver(String, String, Exception)
+   */
+  private void performRequestOnNodes(final Iterator<Node> nodes, final String method,
+      final String endpoint, final Map<String, String> params, final HttpEntity requestEntity,
+      final String opaqueId,
+      final Supplier<HttpAsyncResponseConsumer<HttpResponse>> responseConsumerFactory,
+      final ResponseListener responseListener, final Exception previousFailure) {
+    Node nextNode = null;
+    long nextStartNanos = -1;
+    while (nextStartNanos < 0 && nodes.hasNext()) {
+      nextNode = nodes.next();
+      // the circuit of the node may have opened in the meantime
+      nextStartNanos = nextNode.onRequest();
+    }
+    if (nextStartNanos < 0) {
+      responseListener.onFailure(previousFailure != null ? previousFailure : noNodeAvailable());
+      return;
+    }
+    final Node node = nextNode;
+    final long startNanos = nextStartNanos;
+    node.getTransport().performRequest(method, endpoint, params, requestEntity,
+        responseConsumerFactory.get(), new ResponseListener() {
+
+          @Override
+          public void onSuccess(final Response response) {
+            node.onResponse(startNanos);
+            responseListener.onSuccess(response);
+          }
+
+          @Override
+          public void onFailure(final Exception exception) {
+            if (previousFailure != null) {
+              exception.addSuppressed(previousFailure);
+            }
+            if (!isNodeFailure(exception)) {
+              node.onResponse(startNanos);
+              responseListener.onFailure(exception);
+              return;
+            }
+            node.onFailure(exception);
+            if (!canFailOver(method, endpoint, exception)) {
+              responseListener.onFailure(exception);
+              return;
+            }
+            performRequestOnNodes(nodes, method, endpoint, params, requestEntity, opaqueId,
+                responseConsumerFactory, responseListener, exception);
+          }
+        }, requestHeaders(opaqueId));
+  }
+
+  /**
+   * @return the delay before retrying the request that failed with the given
+   *         {@link ResponseException}, in milliseconds, or a negative value if it should not be
+   *         retried.
+   */
+  private long retryDelayMillis(final RetryPolicy retryPolicy, final String method,
+      final String endpoint, final String opaqueId, final ResponseException exception,
+      final int retries) {
+    final int statusCode = exception.getResponse().getStatusLine().getStatusCode();
+    final long retryDelayMillis =
+        retryPolicy.retryDelayMillis(isIdempotent(method, endpoint), statusCode, retries);
+    if (retryDelayMillis >= 0) {
+      LOGGER.debug("Retrying {} {} [{}] in {}ms after status {} (retry #{})", method, endpoint,
+          opaqueId, retryDelayMillis, statusCode, retries + 1);
+      this.retryStats.onRetry();
+    } else if (retries > 0) {
+      this.retryStats.onRetriedRequest(false);
+    }
+    return retryDelayMillis;
+  }
+
+  /**
+   * @return <code>true</code> if sending the given request several times has the same effect as
+   *         sending it once. Documents are indexed with a <code>PUT</code> request which may
+   *         generate a new id or fail if the document was already created by a previous attempt,
+   *         and scroll requests return the next page on each call, so neither is idempotent.
+   */
+  private static boolean isIdempotent(final String method, final String endpoint) {
+    switch (method) {
+      case "GET":
+      case "HEAD":
+      case "DELETE":
+        return true;
+      case "POST":
+        return endpoint.endsWith("/_search") || endpoint.endsWith("/_msearch")
+            || endpoint.endsWith("/_mget");
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the given exception means that Elasticsearch rejected the request
+   *         or did not respond in time because it is overloaded.
+   */
+  private static boolean isOverloaded(final Exception exception) {
+    if (exception instanceof ResponseException) {
+      final int statusCode =
+          ((ResponseException) exception).getResponse().getStatusLine().getStatusCode();
+      return statusCode == 429 || statusCode == 503;
+    }
+    return exception instanceof SocketTimeoutException;
+  }
+
+  /**
+   * @return <code>true</code> if the request that failed on a node with the given exception can be
+   *         sent to another node, i.e., if the request never reached the node, or if sending it
+   *         again has the same effect as sending it once. Otherwise, a request that timed out or
+   *         whose connection was closed may well have been executed, and sending it again may, for
+   *         instance, index a document twice or skip a page of a scroll.
+   */
+  private static boolean canFailOver(final String method, final String endpoint,
+      final Exception exception) {
+    return isRequestNotSent(exception) || isIdempotent(method, endpoint);
+  }
+
+  /**
+   * @param exception the exception of a failed request
+   * @return <code>true</code> if the given exception means that the request never reached
+   *         Elasticsearch, e.g., if the connection was refused or could not be established in
+   *         time, in which case it can be sent again whatever the request.
+   */
+  public static boolean isRequestNotSent(final Exception exception) {
+    return exception instanceof ConnectException || exception instanceof ConnectTimeoutException
+        || exception instanceof NoRouteToHostException
+        || exception instanceof UnknownHostException
+        || exception instanceof NoNodeAvailableException
+        || exception instanceof ConcurrencyLimitExceededException;
+  }
+
+  private static NoNodeAvailableException noNodeAvailable() {
+    return new NoNodeAvailableException("The circuit of all Elasticsearch nodes is open");
+  }
+
+  /**
+   * @return <code>true</code> if the given exception means that the node did not respond or is
+   *         unavailable, in which case its circuit may open and the request may be sent to
+   *         another node. An error that Elasticsearch returned on behalf of the cluster or of an
+   *         index, e.g., a search phase that failed on all shards of a red index, is not a node
+   *         failure: another node would fail the same way.
+   */
+  private static boolean isNodeFailure(final Exception exception) {
+    if (exception instanceof ResponseException) {
+      final Response response = ((ResponseException) exception).getResponse();
+      final int statusCode = response.getStatusLine().getStatusCode();
+      return statusCode == 502 || statusCode == 504
+          || statusCode == 503 && isNodeUnavailable(response);
+    }
+    return exception instanceof SocketException || exception instanceof SocketTimeoutException
+        || exception instanceof ConnectTimeoutException
+        || exception instanceof UnknownHostException
+        || exception instanceof ConnectionClosedException
+        || exception instanceof NoHttpResponseException;
+  }
+
+  /**
+   * @param response a response with the <code>503 Service Unavailable</code> status
+   * @return <code>true</code> if the response was returned by a proxy in front of the node, or
+   *         if Elasticsearch reports that the node itself cannot serve requests, e.g., because it
+   *         is not part of a cluster with an elected master.
+   */
+  private static boolean isNodeUnavailable(final Response response) {
+    final HttpEntity entity = response.getEntity();
+    if (entity == null || entity.getContentType() == null
+        || ContentFormat.of(entity) == ContentFormat.JSON && !entity.getContentType().getValue()
+            .startsWith(ContentType.APPLICATION_JSON.getMimeType())) {
+      return true;
+    }
+    // the entity of a ResponseException is always repeatable, as its message includes the body
+    try (final InputStream content = entity.getContent();
+        final JsonParser parser = ContentFormat.of(entity).createParser(content)) {
+      return NODE_UNAVAILABLE_ERROR_TYPES.contains(readErrorType(parser));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * @return the type of the error in the given error response, or <code>null</code> if none
+   *         was found.
+   */
+  private static String readErrorType(final JsonParser parser) throws IOException {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      return null;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String fieldName = parser.getCurrentName();
+      if (parser.nextToken() == JsonToken.START_OBJECT && fieldName.equals("error")) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          final String errorFieldName = parser.getCurrentName();
+          parser.nextToken();
+          if (errorFieldName.equals("type")) {
+            return parser.getValueAsString();
+          }
+          parser.skipChildren();
+        }
+        return null;
+      }
+      parser.skipChildren();
+    }
+    return null;
+  }
+
   private static String formatJsonDocument(final String requestBody)
       throws IOException, JsonParseException, JsonMappingException, JsonProcessingException {
     final ObjectMapper mapper = new ObjectMapper();
@@ -314,24 +2596,88 @@ public class Client {
     return indented;
   }
 
-  private static String formatJsonDocument(final InputStream requestBodyStream)
+  private static String formatJsonDocument(final HttpEntity entity)
+      throws IOException, JsonParseException, JsonMappingException, JsonProcessingException {
+    try (final InputStream contentStream = entity.getContent()) {
+      return formatJsonDocument(ContentFormat.of(entity), contentStream);
+    }
+  }
+
+  private static String formatJsonDocument(final ContentFormat contentFormat,
+      final InputStream contentStream)
       throws IOException, JsonParseException, JsonMappingException, JsonProcessingException {
     final ObjectMapper mapper = new ObjectMapper();
-    final Object json = mapper.readValue(requestBodyStream, Object.class);
+    final Object json = mapper.readValue(contentFormat.createParser(contentStream), Object.class);
     final String indented = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
     return indented;
   }
 
+  /**
+   * Creates a parser for the given response body, in the format given by its
+   * <code>Content-Type</code>, and logs the body if trace logging is enabled.
+   */
+  private static JsonParser createResponseParser(final JsonFactory jsonFactory,
+      final HttpEntity responseEntity, final InputStream responseBodyStream) throws IOException {
+    final ContentFormat contentFormat = ContentFormat.of(responseEntity);
+    if (LOGGER.isTraceEnabled()) {
+      final String responseBody = formatJsonDocument(contentFormat, responseBodyStream);
+      LOGGER.trace("Parsing response body:\n{}", responseBody);
+      return jsonFactory.createParser(responseBody);
+    } else if (contentFormat == ContentFormat.JSON) {
+      return jsonFactory.createParser(responseBodyStream);
+    }
+    final JsonParser parser = contentFormat.createParser(responseBodyStream);
+    parser.setCodec(jsonFactory.getCodec());
+    return parser;
+  }
+
+  /**
+   * Reads the given response and reports the time spent reading it to the {@link RequestMetrics}.
+   */
+  private <T> T decodeResponse(final Response response, final Class<T> responseType) {
+    return decodeResponse(response,
+        decodedResponse -> readResponse(this.jsonFactory, decodedResponse, responseType));
+  }
+
+  /**
+   * Reads the given response with the given {@code responseReader} and reports the time spent
+   * reading it to the {@link RequestMetrics}.
+   */
+  private <T> T decodeResponse(final Response response,
+      final Function<Response, T> responseReader) {
+    return MeteredRequest.decode(this.requestMetrics, response, responseReader);
+  }
+
   public static <T> T readResponse(final JsonFactory jsonFactory, final Response response,
       final Class<T> responseType) {
     try {
       try (final InputStream responseBodyStream = response.getEntity().getContent()) {
-        if (LOGGER.isTraceEnabled()) {
-          final String responseBody = formatJsonDocument(responseBodyStream);
-          LOGGER.trace("Parsing response body:\n{}", responseBody);
-          return jsonFactory.createParser(responseBody).readValueAs(responseType);
-        }
-        return jsonFactory.createParser(responseBodyStream).readValueAs(responseType);
+        return createResponseParser(jsonFactory, response.getEntity(), responseBodyStream)
+            .readValueAs(responseType);
+      }
+    } catch (UnsupportedOperationException | IOException e) {
+      throw new ResponseParsingException("Failed to parse response body", e);
+    }
+  }
+
+  /**
+   * Reads the body of a search response with a {@link SearchResponseParser}, so that the source
+   * of each hit is decoded while the body is read.
+   *
+   * @param jsonFactory the {@link JsonFactory} to read the response with
+   * @param response the search response
+   * @param sourceDecoder the decoder of the source of each hit, or <code>null</code> to keep the
+   *        sources as JSON trees
+   * @return the {@link SearchResponse}
+   * @throws ResponseParsingException if the response body could not be parsed
+   */
+  public static <D> SearchResponse<D> readSearchResponse(final JsonFactory jsonFactory,
+      final Response response, final SourceDecoder<D> sourceDecoder) {
+    try {
+      try (final InputStream responseBodyStream = response.getEntity().getContent()) {
+        return SearchResponseParser.parse(
+            createResponseParser(jsonFactory, response.getEntity(), responseBodyStream),
+            sourceDecoder);
       }
     } catch (UnsupportedOperationException | IOException e) {
       throw new ResponseParsingException("Failed to parse response body", e);
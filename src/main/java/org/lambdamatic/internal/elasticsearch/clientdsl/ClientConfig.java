@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.client.RestClientBuilder;
+import org.lambdamatic.internal.elasticsearch.clientdsl.Transport.TransportFactory;
+
+/**
+ * Settings of the HTTP connection pool and I/O reactor of a {@link Client}: how many connections
+ * may be opened, how long to wait for them, how many I/O dispatcher threads serve them and how
+ * long idle connections are kept alive. The defaults are those of the underlying
+ * {@link RestClientBuilder}. Optionally, the nodes of the cluster can be discovered by sniffing,
+ * and the requests to unhealthy nodes are short-circuited according to the
+ * {@link CircuitBreakerSettings}.
+ *
+ * @see Client#connectTo(ClientConfig, org.apache.http.HttpHost...)
+ */
+public class ClientConfig {
+
+  /** Default maximum number of connections, for all hosts. */
+  public static final int DEFAULT_MAX_CONNECTIONS = RestClientBuilder.DEFAULT_MAX_CONN_TOTAL;
+
+  /** Default maximum number of connections, per host. */
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE =
+      RestClientBuilder.DEFAULT_MAX_CONN_PER_ROUTE;
+
+  /** Default timeout to establish a connection, in milliseconds. */
+  public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS =
+      RestClientBuilder.DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+  /** Default timeout to wait for data on an established connection, in milliseconds. */
+  public static final int DEFAULT_SOCKET_TIMEOUT_MILLIS =
+      RestClientBuilder.DEFAULT_SOCKET_TIMEOUT_MILLIS;
+
+  /** Default timeout to lease a connection from the pool, in milliseconds. */
+  public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS =
+      RestClientBuilder.DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS;
+
+  /** Default number of I/O dispatcher threads: one per available processor. */
+  public static final int DEFAULT_IO_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+
+  private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+  private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
+  private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+  private int socketTimeoutMillis = DEFAULT_SOCKET_TIMEOUT_MILLIS;
+
+  private int connectionRequestTimeoutMillis = DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS;
+
+  private int ioThreadCount = DEFAULT_IO_THREAD_COUNT;
+
+  /** Maximum keep-alive of idle connections, or <code>-1</code> to keep them indefinitely. */
+  private long keepAliveMillis = -1;
+
+  /** Delay between two sniffs of the nodes of the cluster, or <code>0</code> to disable it. */
+  private long sniffIntervalMillis = 0;
+
+  private CircuitBreakerSettings circuitBreakerSettings = new CircuitBreakerSettings();
+
+  /** Builds the {@link Transport} of each node, or <code>null</code> to use the REST client. */
+  private TransportFactory transportFactory = null;
+
+  /**
+   * @param maxConnections the maximum number of connections, for all hosts
+   * @return this {@link ClientConfig} for method calls chaining
+   */
+  public ClientConfig maxConnections(final int maxConnections) {
+    if (maxConnections < 1) {
+      throw new IllegalArgumentException("Maximum number of connections must be greater than 0");
+    }
+    this.maxConnections = maxConnections;
+    return this;
+  }
+
+  /**
+   * @param maxConnectionsPerRoute the maximum number of connections, per host
+   * @return this {@link ClientConfig} for method calls chaining
+   */
+  public ClientConfig maxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+    if (maxConnectionsPerRoute < 1) {
+      throw new IllegalArgumentException(
+          "Maximum number of connections per route must be greater than 0");
+    }
+    this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    return this;
+  }
+
+  /**
+   * @param connectTimeout the timeout to establish a connection. A value of <code>0</code> means
+   *        no timeout.
+   * @param unit the unit of the given {@code connectTimeout}
+   * @return this {@link ClientConfig} for method calls chaining
+   */
+  public ClientConfig connectTimeout(final long connectTimeout, final TimeUnit unit) {
+    this.connectTimeoutMillis = toTimeoutMillis(connectTimeout, unit);
+    return this;
+  }
+
+  /**
+   * @param socketTimeout the timeout to wait for data on an established connection, i.e., the
+   *        maximum period of inactivity between two data packets. A value of <code>0</code> means
+   *        no timeout.
+   * @param unit the unit of the given {@code socketTimeout}
+   * @return this {@link ClientConfig} for method calls chaining
+   */
+  public ClientConfig socketTimeout(final long socketTimeout, final TimeUnit unit) {
+    this.socketTimeoutMillis = toTimeoutMillis(socketTimeout, unit);
+    return this;
+  }
+
+  /**
+   * @param connectionRequestTimeout the timeout to lease a connection from the pool when all
+   *        connections are in use. A value of <code>0</code> means no timeout.
+   * @param unit the unit of the given {@code connectionRequestTimeout}
+   * @return this {@link ClientConfig} for method calls chaining
+   */
+  public ClientConfig connectionRequestTimeout(final long connectionRequestTimeout,
+      final TimeUnit unit) {
+    this.connectionRequestTimeoutMillis = toTimeoutMillis(connectionRequestTimeout, unit);
+    return this;
+  }
+
+  /**
+   * @param ioThreadCount the number of I/O dispatcher threads
+   * @return this {@link ClientConfig} for method calls chaining
+   */
+  public ClientConfig ioThreadCount(final int ioThreadCount) {
+    if (ioThreadCount < 1) {
+      throw new IllegalArgumentException("Number of I/O threads must be greater than 0");
+    }
+    this.ioThreadCount = ioThreadCount;
+    return this;
+  }
+
+  /**
+   * @param keepAlive the maximum time an idle connection is kept in the pool. A shorter duration
+   *        sent by Elasticsearch in a <code>Keep-Alive</code> response header takes precedence.
+   * @param unit the unit of the given {@code keepAlive}
+   * @return this {@link ClientConfig} for method calls chaining
+   */
+  public ClientConfig keepAlive(final long keepAlive, final TimeUnit unit) {
+    if (keepAlive < 0) {
+      throw new IllegalArgumentException("Keep-alive must not be negative");
+    }
+    this.keepAliveMillis = unit.toMillis(keepAlive);
+    return this;
+  }
+
+  /**
+   * Enables the discovery of the nodes of the cluster, by sniffing their <code>_nodes/http</code>
+   * info when connecting and then every {@code sniffInterval}. The hosts given when connecting
+   * are then only used to bootstrap the discovery.
+   *
+   * @param sniffInterval the delay between two sniffs, or <code>0</code> to disable sniffing
+   * @param unit the unit of the given {@code sniffInterval}
+   * @return this {@link ClientConfig} for method calls chaining
+   */
+  public ClientConfig sniffInterval(final long sniffInterval, final TimeUnit unit) {
+    if (sniffInterval < 0) {
+      throw new IllegalArgumentException("Sniff interval must not be negative");
+    }
+    this.sniffIntervalMillis = unit.toMillis(sniffInterval);
+    return this;
+  }
+
+  /**
+   * @param circuitBreakerSettings the settings of the circuit breaker of each node
+   * @return this {@link ClientConfig} for method calls chaining
+   */
+  public ClientConfig circuitBreaker(final CircuitBreakerSettings circuitBreakerSettings) {
+    this.circuitBreakerSettings = circuitBreakerSettings;
+    return this;
+  }
+
+  private static int toTimeoutMillis(final long timeout, final TimeUnit unit) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative");
+    }
+    return (int) Math.min(Integer.MAX_VALUE, unit.toMillis(timeout));
+  }
+
+  /**
+   * Sets the HTTP stack that sends the requests to each node. By default, the requests are sent by
+   * the low-level REST client, on the connection pool and I/O reactor configured by these settings.
+   * 
+   * @param transportFactory the factory of the {@link Transport} of each node, e.g.
+   *        <code>UrlConnectionTransport::new</code>, or <code>null</code> to use the REST client
+   * @return this {@link ClientConfig} for method calls chaining
+   */
+  public ClientConfig transport(final TransportFactory transportFactory) {
+    this.transportFactory = transportFactory;
+    return this;
+  }
+
+  public int getMaxConnections() {
+    return this.maxConnections;
+  }
+
+  public int getMaxConnectionsPerRoute() {
+    return this.maxConnectionsPerRoute;
+  }
+
+  public int getConnectTimeoutMillis() {
+    return this.connectTimeoutMillis;
+  }
+
+  public int getSocketTimeoutMillis() {
+    return this.socketTimeoutMillis;
+  }
+
+  public int getConnectionRequestTimeoutMillis() {
+    return this.connectionRequestTimeoutMillis;
+  }
+
+  public int getIoThreadCount() {
+    return this.ioThreadCount;
+  }
+
+  /**
+   * @return the maximum time an idle connection is kept in the pool, in milliseconds, or
+   *         <code>-1</code> if idle connections are kept until Elasticsearch closes them.
+   */
+  public long getKeepAliveMillis() {
+    return this.keepAliveMillis;
+  }
+
+  /**
+   * @return the delay between two sniffs of the nodes of the cluster, in milliseconds, or
+   *         <code>0</code> if sniffing is disabled.
+   */
+  public long getSniffIntervalMillis() {
+    return this.sniffIntervalMillis;
+  }
+
+  public CircuitBreakerSettings getCircuitBreakerSettings() {
+    return this.circuitBreakerSettings;
+  }
+
+  /**
+   * @return the factory of the {@link Transport} of each node, or <code>null</code> if the requests
+   *         are sent by the low-level REST client.
+   */
+  public TransportFactory getTransportFactory() {
+    return this.transportFactory;
+  }
+
+}
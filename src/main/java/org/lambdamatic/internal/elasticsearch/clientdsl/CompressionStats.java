@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte counters of the request and response bodies sent and received by a {@link Client}, before
+ * and after compression.
+ */
+public class CompressionStats {
+
+  private final AtomicLong requestBodyBytes = new AtomicLong();
+
+  private final AtomicLong sentRequestBodyBytes = new AtomicLong();
+
+  private final AtomicLong responseBodyBytes = new AtomicLong();
+
+  private final AtomicLong receivedResponseBodyBytes = new AtomicLong();
+
+  void onRequestBody(final long bodyBytes, final long sentBytes) {
+    this.requestBodyBytes.addAndGet(bodyBytes);
+    this.sentRequestBodyBytes.addAndGet(sentBytes);
+  }
+
+  void onResponseBody(final long bodyBytes, final long receivedBytes) {
+    this.responseBodyBytes.addAndGet(bodyBytes);
+    this.receivedResponseBodyBytes.addAndGet(receivedBytes);
+  }
+
+  /**
+   * @return the total size of the request bodies, before compression.
+   */
+  public long getRequestBodyBytes() {
+    return this.requestBodyBytes.get();
+  }
+
+  /**
+   * @return the total size of the request bodies actually sent, after compression.
+   */
+  public long getSentRequestBodyBytes() {
+    return this.sentRequestBodyBytes.get();
+  }
+
+  /**
+   * @return the total size of the response bodies, after decompression.
+   */
+  public long getResponseBodyBytes() {
+    return this.responseBodyBytes.get();
+  }
+
+  /**
+   * @return the total size of the response bodies actually received, before decompression.
+   */
+  public long getReceivedResponseBodyBytes() {
+    return this.receivedResponseBodyBytes.get();
+  }
+
+  /**
+   * @return the ratio between the sent and the original request body sizes (lower is better), or
+   *         <code>1</code> if no request body was sent yet.
+   */
+  public double getRequestCompressionRatio() {
+    return ratio(getSentRequestBodyBytes(), getRequestBodyBytes());
+  }
+
+  /**
+   * @return the ratio between the received and the decompressed response body sizes (lower is
+   *         better), or <code>1</code> if no response body was received yet.
+   */
+  public double getResponseCompressionRatio() {
+    return ratio(getReceivedResponseBodyBytes(), getResponseBodyBytes());
+  }
+
+  private static double ratio(final long compressedBytes, final long bytes) {
+    return bytes == 0 ? 1 : (double) compressedBytes / bytes;
+  }
+
+  @Override
+  public String toString() {
+    return "CompressionStats [requestBodyBytes=" + getRequestBodyBytes() + ", sentRequestBodyBytes="
+        + getSentRequestBodyBytes() + ", responseBodyBytes=" + getResponseBodyBytes()
+        + ", receivedResponseBodyBytes=" + getReceivedResponseBodyBytes() + "]";
+  }
+
+}
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.IOException;
+
+/**
+ * {@link IOException} raised when an asynchronous request is rejected without being sent, because
+ * the {@link AdaptiveConcurrencyLimiter} already holds as many requests as it may queue.
+ */
+public class ConcurrencyLimitExceededException extends IOException {
+
+  private static final long serialVersionUID = 6014556338407164539L;
+
+  /**
+   * Constructor.
+   *
+   * @param message the error message
+   */
+  public ConcurrencyLimitExceededException(final String message) {
+    super(message);
+  }
+
+}
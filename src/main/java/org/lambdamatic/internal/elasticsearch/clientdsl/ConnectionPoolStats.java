@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+/**
+ * A snapshot of the state of the HTTP connection pool of a {@link Client}.
+ */
+public class ConnectionPoolStats {
+
+  private final int leased;
+
+  private final int pending;
+
+  private final int available;
+
+  private final int max;
+
+  /**
+   * Constructor.
+   *
+   * @param leased the number of connections in use
+   * @param pending the number of requests waiting for a connection
+   * @param available the number of idle connections
+   * @param max the maximum number of connections
+   */
+  public ConnectionPoolStats(final int leased, final int pending, final int available,
+      final int max) {
+    this.leased = leased;
+    this.pending = pending;
+    this.available = available;
+    this.max = max;
+  }
+
+  /**
+   * @return the number of connections in use.
+   */
+  public int getLeased() {
+    return this.leased;
+  }
+
+  /**
+   * @return the number of requests waiting for a connection.
+   */
+  public int getPending() {
+    return this.pending;
+  }
+
+  /**
+   * @return the number of idle connections.
+   */
+  public int getAvailable() {
+    return this.available;
+  }
+
+  /**
+   * @return the maximum number of connections.
+   */
+  public int getMax() {
+    return this.max;
+  }
+
+  @Override
+  public String toString() {
+    return "ConnectionPoolStats [leased=" + this.leased + ", pending=" + this.pending
+        + ", available=" + this.available + ", max=" + this.max + "]";
+  }
+
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.lambdamatic.elasticsearch.exceptions.CodecException;
+
+/**
+ * A repeatable {@link org.apache.http.HttpEntity} whose content is written directly into the buffer
+ * that backs it, so that a request body is materialized only once, rather than as a {@link String},
+ * then as a {@code byte[]} and then as a copy in the entity. The content is written in one of the
+ * {@link ContentFormat}s: UTF-8 encoded JSON by default, or one of the binary formats.
+ */
+public class ContentEntity extends AbstractHttpEntity {
+
+  /**
+   * Writes the content of a {@link ContentEntity}.
+   */
+  @FunctionalInterface
+  public interface ContentWriter {
+
+    /**
+     * Writes the content into the given {@code output}, as UTF-8 encoded JSON unless the entity
+     * was created with another {@link ContentFormat}.
+     * 
+     * @param output the {@link OutputStream} to write into
+     * @throws IOException if writing failed
+     */
+    void writeTo(OutputStream output) throws IOException;
+
+  }
+
+  private final ContentFormat contentFormat;
+
+  private final ContentBuffer content = new ContentBuffer();
+
+  /**
+   * Constructor.
+   * 
+   * @param contentWriter the {@link ContentWriter} that writes the content of this entity
+   * @throws CodecException if the content could not be written
+   */
+  public ContentEntity(final ContentWriter contentWriter) {
+    this(ContentFormat.JSON, contentWriter);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param contentFormat the {@link ContentFormat} in which the {@link ContentWriter} writes
+   * @param contentWriter the {@link ContentWriter} that writes the content of this entity
+   * @throws CodecException if the content could not be written
+   */
+  public ContentEntity(final ContentFormat contentFormat, final ContentWriter contentWriter) {
+    this.contentFormat = contentFormat;
+    setContentType(contentFormat.getContentType().toString());
+    try {
+      contentWriter.writeTo(this.content);
+    } catch (IOException e) {
+      throw new CodecException("Failed to write " + contentFormat + " content", e);
+    }
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return true;
+  }
+
+  @Override
+  public long getContentLength() {
+    return this.content.size();
+  }
+
+  @Override
+  public InputStream getContent() {
+    return this.content.toInputStream();
+  }
+
+  @Override
+  public void writeTo(final OutputStream output) throws IOException {
+    this.content.writeTo(output);
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return false;
+  }
+
+  /**
+   * @return the {@link ContentFormat} of the content of this entity.
+   */
+  public ContentFormat getContentFormat() {
+    return this.contentFormat;
+  }
+
+  /**
+   * @return the content of this entity as a {@link String} if it is JSON, or a description of its
+   *         size and format if it is binary, for logging purposes.
+   */
+  public String getContentAsString() {
+    if (this.contentFormat != ContentFormat.JSON) {
+      return "<" + this.content.size() + " bytes of " + this.contentFormat + " content>";
+    }
+    return new String(this.content.buffer(), 0, this.content.size(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * A {@link ByteArrayOutputStream} that gives access to its internal buffer, to avoid the copy
+   * made by {@link ByteArrayOutputStream#toByteArray()}.
+   */
+  private static class ContentBuffer extends ByteArrayOutputStream {
+
+    ContentBuffer() {
+      super(256);
+    }
+
+    byte[] buffer() {
+      return this.buf;
+    }
+
+    InputStream toInputStream() {
+      return new ByteArrayInputStream(this.buf, 0, this.count);
+    }
+
+  }
+
+}
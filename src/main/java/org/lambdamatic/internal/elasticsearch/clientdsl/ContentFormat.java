@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * The formats in which Elasticsearch accepts and returns request and response bodies. The binary
+ * formats carry the same data model as JSON, but are cheaper to write and to parse, and more
+ * compact.
+ */
+public enum ContentFormat {
+
+  /** Textual JSON, the default format. */
+  JSON(ContentType.APPLICATION_JSON, new JsonFactory()),
+
+  /** Smile, a binary encoding of JSON. */
+  SMILE(ContentType.create("application/smile"),
+      new SmileFactory().disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT)),
+
+  /** Concise Binary Object Representation, as defined by RFC 7049. */
+  CBOR(ContentType.create("application/cbor"), new CBORFactory());
+
+  private final ContentType contentType;
+
+  private final JsonFactory factory;
+
+  ContentFormat(final ContentType contentType, final JsonFactory factory) {
+    this.contentType = contentType;
+    this.factory = factory;
+  }
+
+  /**
+   * @return the {@link ContentType} of the bodies written in this format.
+   */
+  public ContentType getContentType() {
+    return this.contentType;
+  }
+
+  /**
+   * Creates a generator that writes into the given {@code output}, without closing it.
+   *
+   * @param output the {@link OutputStream} to write into
+   * @return the {@link JsonGenerator}
+   * @throws IOException if the generator could not be created
+   */
+  public JsonGenerator createGenerator(final OutputStream output) throws IOException {
+    return this.factory.createGenerator(output, JsonEncoding.UTF8)
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  }
+
+  /**
+   * Creates a parser that reads the given {@code input}.
+   *
+   * @param input the {@link InputStream} to read
+   * @return the {@link JsonParser}, which has no {@link com.fasterxml.jackson.core.ObjectCodec}
+   * @throws IOException if the parser could not be created
+   */
+  public JsonParser createParser(final InputStream input) throws IOException {
+    return this.factory.createParser(input);
+  }
+
+  /**
+   * Finds the format of the given entity from its <code>Content-Type</code>.
+   *
+   * @param entity the request or response entity, or <code>null</code>
+   * @return the matching {@link ContentFormat}, or {@link #JSON} if the content type is missing or
+   *         not a binary format
+   */
+  public static ContentFormat of(final HttpEntity entity) {
+    final Header contentType = entity != null ? entity.getContentType() : null;
+    if (contentType != null && contentType.getValue() != null) {
+      final String mimeType = contentType.getValue();
+      for (ContentFormat format : values()) {
+        if (format != JSON && mimeType.startsWith(format.contentType.getMimeType())) {
+          return format;
+        }
+      }
+    }
+    return JSON;
+  }
+
+}
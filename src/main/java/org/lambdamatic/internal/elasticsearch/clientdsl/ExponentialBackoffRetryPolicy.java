@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RetryPolicy} that retries the requests rejected because Elasticsearch is overloaded
+ * (<code>429 Too Many Requests</code>), and the idempotent requests that failed with a transient
+ * error (<code>502</code>, <code>503</code> or <code>504</code>), after an exponentially growing
+ * and jittered delay.
+ *
+ * <p>
+ * Retries are limited by a budget, so that they do not amplify an overload: each request earns a
+ * fraction of a retry, and a retry is only performed if a whole one is left in the budget. The
+ * budget starts with a small reserve, for when the traffic is low, and holds at most that reserve
+ * plus the retries earned by the last 1000 requests, so that a long healthy period does not save
+ * up a burst of retries for the next overload.
+ * </p>
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+  /** Default maximum number of retries for a single request. */
+  public static final int DEFAULT_MAX_RETRIES = 3;
+
+  /** Default delay before the first retry, in milliseconds. */
+  public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 50;
+
+  /** Default maximum delay between two retries, in milliseconds. */
+  public static final long DEFAULT_MAX_BACKOFF_MILLIS = 5000;
+
+  /** Default maximum ratio of retries to requests. */
+  public static final double DEFAULT_RETRY_BUDGET_RATIO = 0.1;
+
+  /** The number of retries that can be performed regardless of the number of requests. */
+  private static final double RETRY_BUDGET_RESERVE = 10;
+
+  /** The number of requests whose earned retries can be kept in the budget. */
+  private static final int RETRY_BUDGET_WINDOW = 1000;
+
+  private int maxRetries = DEFAULT_MAX_RETRIES;
+
+  private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+
+  private long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+
+  private double retryBudgetRatio = DEFAULT_RETRY_BUDGET_RATIO;
+
+  /** The retries earned so far and not spent yet. */
+  private double retryBudget = RETRY_BUDGET_RESERVE;
+
+  /**
+   * @param maxRetries the maximum number of retries for a single request
+   * @return this {@link ExponentialBackoffRetryPolicy} for method calls chaining
+   */
+  public ExponentialBackoffRetryPolicy maxRetries(final int maxRetries) {
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  /**
+   * @param initialBackoff the delay before the first retry. The delay doubles on each subsequent
+   *        retry, and is randomized between half and all of its value.
+   * @param unit the unit of the given {@code initialBackoff}
+   * @return this {@link ExponentialBackoffRetryPolicy} for method calls chaining
+   */
+  public ExponentialBackoffRetryPolicy initialBackoff(final long initialBackoff,
+      final TimeUnit unit) {
+    if (initialBackoff < 1) {
+      throw new IllegalArgumentException("Initial backoff must be greater than 0");
+    }
+    this.initialBackoffMillis = unit.toMillis(initialBackoff);
+    return this;
+  }
+
+  /**
+   * @param maxBackoff the maximum delay between two retries
+   * @param unit the unit of the given {@code maxBackoff}
+   * @return this {@link ExponentialBackoffRetryPolicy} for method calls chaining
+   */
+  public ExponentialBackoffRetryPolicy maxBackoff(final long maxBackoff, final TimeUnit unit) {
+    this.maxBackoffMillis = unit.toMillis(maxBackoff);
+    return this;
+  }
+
+  /**
+   * @param retryBudgetRatio the maximum ratio of retries to requests, e.g. <code>0.1</code> to
+   *        allow one retry every ten requests
+   * @return this {@link ExponentialBackoffRetryPolicy} for method calls chaining
+   */
+  public ExponentialBackoffRetryPolicy retryBudgetRatio(final double retryBudgetRatio) {
+    if (retryBudgetRatio < 0) {
+      throw new IllegalArgumentException("Retry budget ratio must not be negative");
+    }
+    this.retryBudgetRatio = retryBudgetRatio;
+    return this;
+  }
+
+  @Override
+  public synchronized void onRequest() {
+    this.retryBudget =
+        Math.min(RETRY_BUDGET_RESERVE + this.retryBudgetRatio * RETRY_BUDGET_WINDOW,
+            this.retryBudget + this.retryBudgetRatio);
+  }
+
+  @Override
+  public long retryDelayMillis(final boolean idempotent, final int statusCode, final int retries) {
+    if (retries >= this.maxRetries || !isRetryable(idempotent, statusCode) || !spendRetry()) {
+      return -1;
+    }
+    final long backoffMillis =
+        Math.min(this.maxBackoffMillis, this.initialBackoffMillis << Math.min(retries, 30));
+    // "equal jitter": half of the backoff, plus a random part of the other half
+    return backoffMillis / 2 + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+  }
+
+  private static boolean isRetryable(final boolean idempotent, final int statusCode) {
+    switch (statusCode) {
+      case 429:
+        // the request was rejected before being executed
+        return true;
+      case 502:
+      case 503:
+      case 504:
+        return idempotent;
+      default:
+        return false;
+    }
+  }
+
+  private synchronized boolean spendRetry() {
+    if (this.retryBudget < 1) {
+      return false;
+    }
+    this.retryBudget--;
+    return true;
+  }
+
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.HeapBufferedAsyncResponseConsumer;
+
+/**
+ * Gzip compression of the request bodies sent by a {@link Client}, and transparent decompression of
+ * the response bodies it receives.
+ * <p>
+ * Request bodies are compressed only when compression is enabled and they are at least
+ * {@code minRequestBodySize} bytes long, since small bodies do not compress well and are not worth
+ * the CPU time. Responses are decompressed whenever the server sent them with a
+ * <code>Content-Encoding: gzip</code> header, which it only does if compression is enabled since
+ * the <code>Accept-Encoding</code> header is not sent otherwise.
+ * </p>
+ */
+class GzipCompression {
+
+  private static final String GZIP = "gzip";
+
+  private static final Header[] ACCEPT_GZIP_HEADERS =
+      new Header[] {new BasicHeader(HttpHeaders.ACCEPT_ENCODING, GZIP)};
+
+  private static final Header[] NO_HEADERS = new Header[0];
+
+  private final CompressionStats stats = new CompressionStats();
+
+  private volatile boolean enabled = false;
+
+  private volatile int minRequestBodySize;
+
+  /**
+   * Enables the compression.
+   * 
+   * @param minRequestBodySize the minimum size of the request bodies to compress, in bytes
+   */
+  void enable(final int minRequestBodySize) {
+    if (minRequestBodySize < 0) {
+      throw new IllegalArgumentException("Minimum request body size must not be negative");
+    }
+    this.minRequestBodySize = minRequestBodySize;
+    this.enabled = true;
+  }
+
+  CompressionStats getStats() {
+    return this.stats;
+  }
+
+  /**
+   * @return the headers to add to each request.
+   */
+  Header[] requestHeaders() {
+    return this.enabled ? ACCEPT_GZIP_HEADERS : NO_HEADERS;
+  }
+
+  /**
+   * Compresses the given request entity if needed.
+   * 
+   * @param entity the request entity, or <code>null</code>
+   * @return the entity to send
+   * @throws IOException if the compression failed
+   */
+  HttpEntity compress(final HttpEntity entity) throws IOException {
+    if (entity == null) {
+      return null;
+    }
+    final long contentLength = entity.getContentLength();
+    if (!this.enabled || contentLength < this.minRequestBodySize) {
+      this.stats.onRequestBody(contentLength, contentLength);
+      return entity;
+    }
+    final ByteArrayOutputStream compressedContent =
+        new ByteArrayOutputStream((int) Math.max(contentLength / 4, 64));
+    try (final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressedContent)) {
+      entity.writeTo(gzipOutputStream);
+    }
+    final ByteArrayEntity compressedEntity = new ByteArrayEntity(compressedContent.toByteArray());
+    compressedEntity.setContentType(entity.getContentType());
+    compressedEntity.setContentEncoding(GZIP);
+    this.stats.onRequestBody(contentLength, compressedEntity.getContentLength());
+    return compressedEntity;
+  }
+
+  /**
+   * @return a new {@link HttpAsyncResponseConsumer} that buffers and decompresses the response
+   *         body.
+   */
+  HttpAsyncResponseConsumer<HttpResponse> newResponseConsumer() {
+    return new DecompressingResponseConsumer();
+  }
+
+  /**
+   * A {@link HeapBufferedAsyncResponseConsumer} that replaces the gzip-encoded entity of the
+   * response with its decompressed content once it was fully received.
+   */
+  private class DecompressingResponseConsumer extends HeapBufferedAsyncResponseConsumer {
+
+    @Override
+    protected HttpResponse buildResult(final HttpContext context) throws Exception {
+      final HttpResponse response = super.buildResult(context);
+      final HttpEntity entity = response.getEntity();
+      if (entity == null) {
+        return response;
+      }
+      final Header contentEncoding = entity.getContentEncoding() != null
+          ? entity.getContentEncoding() : response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+      if (contentEncoding == null || !GZIP.equalsIgnoreCase(contentEncoding.getValue())) {
+        stats.onResponseBody(entity.getContentLength(), entity.getContentLength());
+        return response;
+      }
+      final byte[] compressedContent = EntityUtils.toByteArray(entity);
+      final ByteArrayOutputStream content =
+          new ByteArrayOutputStream(compressedContent.length * 4);
+      try (final InputStream gzipInputStream =
+          new GZIPInputStream(new ByteArrayInputStream(compressedContent))) {
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = gzipInputStream.read(buffer)) != -1) {
+          content.write(buffer, 0, read);
+        }
+      }
+      final ByteArrayEntity decompressedEntity = new ByteArrayEntity(content.toByteArray());
+      decompressedEntity.setContentType(entity.getContentType());
+      response.setEntity(decompressedEntity);
+      response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+      response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+      stats.onResponseBody(decompressedEntity.getContentLength(), compressedContent.length);
+      return response;
+    }
+
+  }
+
+}
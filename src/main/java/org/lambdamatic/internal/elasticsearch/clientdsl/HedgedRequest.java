@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+
+/**
+ * The race between the original attempt of a read request and its hedge. The first attempt that
+ * receives a response from Elasticsearch wins and is notified to the listener, and the other one is
+ * cancelled. An attempt that failed without response (e.g., no node could be connected to) does
+ * not win as long as the other one is still pending.
+ *
+ * <p>
+ * The cancelled attempt is aborted as soon as its response starts arriving, by a
+ * {@link CancellableResponseConsumer}.
+ * </p>
+ */
+class HedgedRequest {
+
+  private final Supplier<HttpAsyncResponseConsumer<HttpResponse>> responseConsumerFactory;
+
+  private final ResponseListener responseListener;
+
+  private final HedgingStats stats;
+
+  /** The original attempt. */
+  final Attempt original = new Attempt();
+
+  /** The hedge, sent if the original attempt did not respond in time. */
+  final Attempt hedge = new Attempt();
+
+  private boolean completed = false;
+
+  private int pendingAttempts = 1;
+
+  /** The failure of the attempt that failed first without response. */
+  private Exception failure;
+
+  private Future<?> hedgeTimer;
+
+  /**
+   * Constructor.
+   *
+   * @param responseConsumerFactory the factory of the consumers of the responses of each attempt
+   * @param responseListener the listener to notify with the winning response
+   * @param stats the stats to update
+   */
+  HedgedRequest(final Supplier<HttpAsyncResponseConsumer<HttpResponse>> responseConsumerFactory,
+      final ResponseListener responseListener, final HedgingStats stats) {
+    this.responseConsumerFactory = responseConsumerFactory;
+    this.responseListener = responseListener;
+    this.stats = stats;
+  }
+
+  /**
+   * @param hedgeTimer the scheduled task that sends the hedge, to cancel if the original attempt
+   *        completes before
+   */
+  synchronized void setHedgeTimer(final Future<?> hedgeTimer) {
+    if (this.completed) {
+      hedgeTimer.cancel(false);
+    } else {
+      this.hedgeTimer = hedgeTimer;
+    }
+  }
+
+  /**
+   * @param hedgingPolicy the policy whose budget the hedge is taken from
+   * @return <code>true</code> if the hedge should be sent, i.e., if the original attempt is still
+   *         pending and the budget allows it.
+   */
+  synchronized boolean startHedge(final HedgingPolicy hedgingPolicy) {
+    if (this.completed || !hedgingPolicy.spendHedge()) {
+      return false;
+    }
+    this.pendingAttempts++;
+    this.stats.onHedgeSent();
+    return true;
+  }
+
+  private void complete(final Attempt attempt, final Response response,
+      final Exception exception) {
+    synchronized (this) {
+      if (this.completed) {
+        return;
+      }
+      this.pendingAttempts--;
+      if (response == null && !(exception instanceof ResponseException)
+          && this.pendingAttempts > 0) {
+        // the other attempt may still get a response
+        this.failure = exception;
+        return;
+      }
+      this.completed = true;
+      if (this.hedgeTimer != null) {
+        this.hedgeTimer.cancel(false);
+      }
+    }
+    (attempt == this.original ? this.hedge : this.original).cancelled = true;
+    if (response != null) {
+      if (attempt == this.hedge) {
+        this.stats.onHedgeWon();
+      }
+      this.responseListener.onSuccess(response);
+    } else {
+      if (this.failure != null) {
+        exception.addSuppressed(this.failure);
+      }
+      this.responseListener.onFailure(exception);
+    }
+  }
+
+  /**
+   * One of the attempts of the request, which listens to its own outcome.
+   */
+  class Attempt implements ResponseListener {
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * @return a new consumer of the response of this attempt, which aborts it once it is
+     *         cancelled.
+     */
+    HttpAsyncResponseConsumer<HttpResponse> newResponseConsumer() {
+      return new CancellableResponseConsumer(responseConsumerFactory.get(), () -> this.cancelled);
+    }
+
+    @Override
+    public void onSuccess(final Response response) {
+      complete(this, response, null);
+    }
+
+    @Override
+    public void onFailure(final Exception exception) {
+      complete(this, null, exception);
+    }
+
+  }
+
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a read request (get, multi-get, search or multi-search) that did not respond yet
+ * should be hedged, i.e., sent again to another node, with a different shard copy preference. The
+ * hedging delay of each operation is a high percentile of its recent latencies, so that only the
+ * slowest requests are hedged.
+ *
+ * <p>
+ * Hedges are limited by a budget, so that they do not double the load of a cluster that is slow
+ * as a whole, in which case every request becomes a candidate for a hedge. The budget grows by
+ * the maximum hedge ratio on each request, and shrinks by one on each hedge. It starts with a
+ * small reserve, so that the first slow requests can be hedged, and only keeps the hedges of the
+ * last 100 requests on top of it: hedging is meant for the occasional slow request of the moment,
+ * not for a backlog of earlier quiet traffic.
+ * </p>
+ *
+ * @see Client#hedgingPolicy(HedgingPolicy)
+ */
+public class HedgingPolicy {
+
+  /** Default percentile of the recent latencies after which a request is hedged. */
+  public static final double DEFAULT_DELAY_PERCENTILE = 0.95;
+
+  /** Default minimum delay before a request is hedged, in milliseconds. */
+  public static final long DEFAULT_MIN_DELAY_MILLIS = 5;
+
+  /** Default maximum ratio of hedges to requests. */
+  public static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+
+  /** The number of hedges that can be sent regardless of the number of requests. */
+  private static final double HEDGE_BUDGET_RESERVE = 10;
+
+  /** The number of requests whose earned hedges can be kept in the budget. */
+  private static final int HEDGE_BUDGET_WINDOW = 100;
+
+  private double delayPercentile = DEFAULT_DELAY_PERCENTILE;
+
+  private long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MIN_DELAY_MILLIS);
+
+  private double maxHedgeRatio = DEFAULT_MAX_HEDGE_RATIO;
+
+  /** The hedges earned so far and not spent yet. */
+  private double hedgeBudget = HEDGE_BUDGET_RESERVE;
+
+  /** The recent latencies, per operation. */
+  private final ConcurrentMap<String, LatencyTracker> latencyTrackers = new ConcurrentHashMap<>();
+
+  /**
+   * @param delayPercentile the percentile of the recent latencies of an operation (between
+   *        <code>0</code> and <code>1</code>, e.g. <code>0.95</code>) after which a request that
+   *        did not respond yet is hedged
+   * @return this {@link HedgingPolicy} for method calls chaining
+   */
+  public HedgingPolicy delayPercentile(final double delayPercentile) {
+    if (delayPercentile <= 0 || delayPercentile >= 1) {
+      throw new IllegalArgumentException("Delay percentile must be in ]0, 1[");
+    }
+    this.delayPercentile = delayPercentile;
+    this.latencyTrackers.clear();
+    return this;
+  }
+
+  /**
+   * @param minDelay the minimum delay before a request is hedged, which prevents hedging requests
+   *        that are only slow by a few milliseconds
+   * @param unit the unit of the given {@code minDelay}
+   * @return this {@link HedgingPolicy} for method calls chaining
+   */
+  public HedgingPolicy minDelay(final long minDelay, final TimeUnit unit) {
+    if (minDelay < 0) {
+      throw new IllegalArgumentException("Minimum delay must not be negative");
+    }
+    this.minDelayNanos = unit.toNanos(minDelay);
+    return this;
+  }
+
+  /**
+   * @param maxHedgeRatio the maximum ratio of hedges to requests, e.g. <code>0.1</code> to allow
+   *        one hedge every ten requests
+   * @return this {@link HedgingPolicy} for method calls chaining
+   */
+  public HedgingPolicy maxHedgeRatio(final double maxHedgeRatio) {
+    if (maxHedgeRatio < 0) {
+      throw new IllegalArgumentException("Maximum hedge ratio must not be negative");
+    }
+    this.maxHedgeRatio = maxHedgeRatio;
+    return this;
+  }
+
+  /**
+   * Called once for each read request sent by the {@link Client}, before its first attempt.
+   */
+  synchronized void onRequest() {
+    this.hedgeBudget = Math.min(HEDGE_BUDGET_RESERVE + this.maxHedgeRatio * HEDGE_BUDGET_WINDOW,
+        this.hedgeBudget + this.maxHedgeRatio);
+  }
+
+  /**
+   * @param operation the read operation
+   * @param latencyNanos the latency of a read request of the given operation
+   */
+  void onLatency(final String operation, final long latencyNanos) {
+    this.latencyTrackers
+        .computeIfAbsent(operation, key -> new LatencyTracker(this.delayPercentile))
+        .record(latencyNanos);
+  }
+
+  /**
+   * @param operation the read operation
+   * @return the delay after which a request of the given operation should be hedged, in
+   *         nanoseconds, or a negative value if not enough of its latencies are known yet.
+   */
+  long hedgeDelayNanos(final String operation) {
+    final LatencyTracker latencyTracker = this.latencyTrackers.get(operation);
+    final long percentileNanos = latencyTracker != null ? latencyTracker.getPercentileNanos() : -1;
+    if (percentileNanos < 0) {
+      return -1;
+    }
+    return Math.max(this.minDelayNanos, percentileNanos);
+  }
+
+  /**
+   * @return <code>true</code> if a hedge may be sent, in which case it is taken from the budget.
+   */
+  synchronized boolean spendHedge() {
+    if (this.hedgeBudget < 1) {
+      return false;
+    }
+    this.hedgeBudget--;
+    return true;
+  }
+
+}
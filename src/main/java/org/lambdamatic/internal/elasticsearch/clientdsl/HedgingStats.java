@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the read requests hedged by a {@link Client}.
+ */
+public class HedgingStats {
+
+  private final AtomicLong hedgesSent = new AtomicLong();
+
+  private final AtomicLong hedgesWon = new AtomicLong();
+
+  void onHedgeSent() {
+    this.hedgesSent.incrementAndGet();
+  }
+
+  void onHedgeWon() {
+    this.hedgesWon.incrementAndGet();
+  }
+
+  /**
+   * @return the number of hedged requests sent.
+   */
+  public long getHedgesSent() {
+    return this.hedgesSent.get();
+  }
+
+  /**
+   * @return the number of hedged requests that responded before the original request.
+   */
+  public long getHedgesWon() {
+    return this.hedgesWon.get();
+  }
+
+  @Override
+  public String toString() {
+    return "HedgingStats [hedgesSent=" + getHedgesSent() + ", hedgesWon=" + getHedgesWon() + "]";
+  }
+
+}
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link RequestMetrics} that keeps the measurements in memory, per operation, index and type,
+ * so that they can be read with {@link #getOperationMetrics()} or dumped with {@link #dump()}.
+ */
+public class InMemoryRequestMetrics implements RequestMetrics {
+
+  private final ConcurrentMap<List<String>, OperationMetrics> operationMetrics =
+      new ConcurrentHashMap<>();
+
+  private OperationMetrics operationMetrics(final String operation, final String index,
+      final String type) {
+    return this.operationMetrics.computeIfAbsent(Arrays.asList(operation, index, type),
+        key -> new OperationMetrics(operation, index, type));
+  }
+
+  @Override
+  public void onRequest(final String operation, final String index, final String type,
+      final String opaqueId) {
+    final OperationMetrics metrics = operationMetrics(operation, index, type);
+    metrics.inFlight.incrementAndGet();
+    if (opaqueId != null) {
+      metrics.inFlightOpaqueIds.merge(opaqueId, 1, Integer::sum);
+    }
+  }
+
+  @Override
+  public void onResponse(final String operation, final String index, final String type,
+      final String opaqueId, final int status, final long networkNanos, final long requestBytes,
+      final long responseBytes) {
+    final OperationMetrics metrics = operationMetrics(operation, index, type);
+    metrics.inFlight.decrementAndGet();
+    if (opaqueId != null) {
+      metrics.inFlightOpaqueIds.computeIfPresent(opaqueId,
+          (key, count) -> count > 1 ? count - 1 : null);
+    }
+    metrics.calls.incrementAndGet();
+    if (status == 0 || status >= 400) {
+      metrics.errors.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+    }
+    metrics.networkLatency.record(networkNanos);
+    metrics.requestBytes.addAndGet(requestBytes);
+    metrics.responseBytes.addAndGet(responseBytes);
+  }
+
+  @Override
+  public void onEncode(final String operation, final String index, final String type,
+      final long encodeNanos) {
+    operationMetrics(operation, index, type).encodeLatency.record(encodeNanos);
+  }
+
+  @Override
+  public void onDecode(final String operation, final String index, final String type,
+      final long decodeNanos) {
+    operationMetrics(operation, index, type).decodeLatency.record(decodeNanos);
+  }
+
+  /**
+   * @return the measurements of each operation, index and type, ordered by operation, index and
+   *         type.
+   */
+  public List<OperationMetrics> getOperationMetrics() {
+    final List<OperationMetrics> result = new ArrayList<>(this.operationMetrics.values());
+    result.sort(Comparator.comparing(OperationMetrics::toKey));
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * @param operation the name of the operation
+   * @param index the name of the index, or <code>null</code>
+   * @param type the document type, or <code>null</code>
+   * @return the measurements of the given operation, index and type, or <code>null</code> if none
+   *         was recorded
+   */
+  public OperationMetrics getOperationMetrics(final String operation, final String index,
+      final String type) {
+    return this.operationMetrics.get(Arrays.asList(operation, index, type));
+  }
+
+  /**
+   * Discards all measurements.
+   */
+  public void clear() {
+    this.operationMetrics.clear();
+  }
+
+  /**
+   * @return the measurements of all operations, one line per operation, index and type.
+   */
+  public String dump() {
+    return getOperationMetrics().stream().map(OperationMetrics::toString)
+        .collect(Collectors.joining(System.lineSeparator()));
+  }
+
+  @Override
+  public String toString() {
+    return dump();
+  }
+
+  /**
+   * The measurements of a single operation on an index and type.
+   */
+  public static class OperationMetrics {
+
+    private final String operation;
+
+    private final String index;
+
+    private final String type;
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ConcurrentMap<String, Integer> inFlightOpaqueIds = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Integer, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    private final AtomicLong requestBytes = new AtomicLong();
+
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    private final LatencyHistogram networkLatency = new LatencyHistogram();
+
+    private final LatencyHistogram encodeLatency = new LatencyHistogram();
+
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+
+    OperationMetrics(final String operation, final String index, final String type) {
+      this.operation = operation;
+      this.index = index;
+      this.type = type;
+    }
+
+    public String getOperation() {
+      return this.operation;
+    }
+
+    /**
+     * @return the name of the index, or <code>null</code>.
+     */
+    public String getIndex() {
+      return this.index;
+    }
+
+    /**
+     * @return the document type, or <code>null</code>.
+     */
+    public String getType() {
+      return this.type;
+    }
+
+    /**
+     * @return the number of completed requests, successful or not.
+     */
+    public long getCalls() {
+      return this.calls.get();
+    }
+
+    /**
+     * @return the number of requests sent and not completed yet.
+     */
+    public int getInFlight() {
+      return this.inFlight.get();
+    }
+
+    /**
+     * @return the number of requests sent and not completed yet, per {@link OpaqueId}, so that the
+     *         application requests behind the long-running requests can be found.
+     */
+    public Map<String, Integer> getInFlightOpaqueIds() {
+      return new TreeMap<>(this.inFlightOpaqueIds);
+    }
+
+    /**
+     * @return the number of requests that got an error status (<code>400</code> and above), or no
+     *         response at all (counted under the status <code>0</code>), per HTTP status.
+     */
+    public Map<Integer, Long> getErrors() {
+      final Map<Integer, Long> result = new TreeMap<>();
+      this.errors.forEach((status, count) -> result.put(status, count.get()));
+      return result;
+    }
+
+    /**
+     * @return the total size of the request bodies as sent.
+     */
+    public long getRequestBytes() {
+      return this.requestBytes.get();
+    }
+
+    /**
+     * @return the total size of the (decompressed) response bodies.
+     */
+    public long getResponseBytes() {
+      return this.responseBytes.get();
+    }
+
+    /**
+     * @return the {@link LatencyHistogram} of the time spent on the network.
+     */
+    public LatencyHistogram getNetworkLatency() {
+      return this.networkLatency;
+    }
+
+    /**
+     * @return the {@link LatencyHistogram} of the time spent encoding the request bodies.
+     */
+    public LatencyHistogram getEncodeLatency() {
+      return this.encodeLatency;
+    }
+
+    /**
+     * @return the {@link LatencyHistogram} of the time spent decoding the response bodies.
+     */
+    public LatencyHistogram getDecodeLatency() {
+      return this.decodeLatency;
+    }
+
+    private String toKey() {
+      return this.operation + ' ' + (this.index != null ? this.index : "")
+          + (this.type != null ? '/' + this.type : "");
+    }
+
+    @Override
+    public String toString() {
+      return toKey() + ": calls=" + getCalls() + ", inFlight=" + getInFlight()
+          + (this.inFlightOpaqueIds.isEmpty() ? "" : " " + getInFlightOpaqueIds()) + ", errors="
+          + getErrors() + ", requestBytes=" + getRequestBytes() + ", responseBytes="
+          + getResponseBytes() + ", network=" + getNetworkLatency() + ", encode="
+          + getEncodeLatency() + ", decode=" + getDecodeLatency();
+    }
+
+  }
+
+}
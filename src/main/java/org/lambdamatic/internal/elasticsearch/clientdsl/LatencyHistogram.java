@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies with a fixed relative precision, in the manner of HdrHistogram: values
+ * are counted in buckets whose width doubles with each power of two, and each power of two is
+ * split in {@value #SUB_BUCKET_COUNT} linear sub-buckets, so that the reported percentiles are
+ * within about 6% of the recorded values over the whole range of latencies. Recording a value only
+ * increments a few counters, without locking nor allocating.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+
+  /** The number of sub-buckets of each power of two. */
+  static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  /** Enough buckets for all positive <code>long</code> values. */
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+  private final AtomicLong count = new AtomicLong();
+
+  private final AtomicLong totalNanos = new AtomicLong();
+
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  /**
+   * @param valueNanos a (non-negative) value
+   * @return the index of the bucket that counts the given value
+   */
+  static int bucketIndex(final long valueNanos) {
+    if (valueNanos < SUB_BUCKET_COUNT) {
+      return (int) valueNanos;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(valueNanos);
+    final int shift = exponent - SUB_BUCKET_BITS;
+    // the mantissa keeps the highest bits of the value, between SUB_BUCKET_COUNT and 2x that
+    final long mantissa = valueNanos >>> shift;
+    return (shift + 1) * SUB_BUCKET_COUNT + (int) (mantissa - SUB_BUCKET_COUNT);
+  }
+
+  /**
+   * @param bucketIndex the index of a bucket
+   * @return the highest value counted in the given bucket
+   */
+  static long highestValue(final int bucketIndex) {
+    if (bucketIndex < SUB_BUCKET_COUNT) {
+      return bucketIndex;
+    }
+    final int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+    final long mantissa = SUB_BUCKET_COUNT + bucketIndex % SUB_BUCKET_COUNT;
+    return ((mantissa + 1) << shift) - 1;
+  }
+
+  /**
+   * Records a latency.
+   *
+   * @param latencyNanos the latency, in nanoseconds (negative values are counted as
+   *        <code>0</code>)
+   */
+  void record(final long latencyNanos) {
+    final long valueNanos = Math.max(latencyNanos, 0);
+    this.counts.incrementAndGet(bucketIndex(valueNanos));
+    this.count.incrementAndGet();
+    this.totalNanos.addAndGet(valueNanos);
+    this.maxNanos.accumulateAndGet(valueNanos, Math::max);
+  }
+
+  /**
+   * @return the number of recorded latencies.
+   */
+  public long getCount() {
+    return this.count.get();
+  }
+
+  /**
+   * @return the sum of the recorded latencies, in nanoseconds.
+   */
+  public long getTotalNanos() {
+    return this.totalNanos.get();
+  }
+
+  /**
+   * @return the mean of the recorded latencies, in nanoseconds, or <code>0</code> if none was
+   *         recorded.
+   */
+  public long getMeanNanos() {
+    final long count = getCount();
+    return count == 0 ? 0 : this.totalNanos.get() / count;
+  }
+
+  /**
+   * @return the highest recorded latency, in nanoseconds.
+   */
+  public long getMaxNanos() {
+    return this.maxNanos.get();
+  }
+
+  /**
+   * @param percentile the percentile, between <code>0</code> and <code>1</code>
+   * @return the latency under which the given percentile of the recorded latencies fall, in
+   *         nanoseconds (i.e., the highest value of the bucket that the percentile falls into), or
+   *         <code>0</code> if none was recorded
+   */
+  public long getValueAtPercentile(final double percentile) {
+    if (percentile < 0 || percentile > 1) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 1");
+    }
+    final long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile * count));
+    long cumulatedCount = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      cumulatedCount += this.counts.get(i);
+      if (cumulatedCount >= rank) {
+        return Math.min(highestValue(i), getMaxNanos());
+      }
+    }
+    // latencies recorded concurrently may not all be counted in the buckets yet
+    return getMaxNanos();
+  }
+
+  private static String toMillis(final long nanos) {
+    return String.format("%.3fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyHistogram [count=" + getCount() + ", mean=" + toMillis(getMeanNanos())
+        + ", p50=" + toMillis(getValueAtPercentile(0.5)) + ", p90="
+        + toMillis(getValueAtPercentile(0.9)) + ", p99=" + toMillis(getValueAtPercentile(0.99))
+        + ", max=" + toMillis(getMaxNanos()) + "]";
+  }
+
+}
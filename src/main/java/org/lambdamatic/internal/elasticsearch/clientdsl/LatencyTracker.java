@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.Arrays;
+
+/**
+ * Tracks a percentile of the most recent latencies of an operation. The percentile is computed
+ * again after every {@link #RECOMPUTE_INTERVAL} samples rather than on each one, so that recording
+ * a latency remains cheap.
+ */
+class LatencyTracker {
+
+  /** The number of most recent latencies that the percentile is computed from. */
+  static final int WINDOW_SIZE = 1024;
+
+  /** The minimum number of latencies recorded before the percentile is known. */
+  static final int MIN_SAMPLES = 100;
+
+  private static final int RECOMPUTE_INTERVAL = 64;
+
+  private final double percentile;
+
+  /** The most recent latencies, as a ring buffer. */
+  private final long[] samples = new long[WINDOW_SIZE];
+
+  private int sampleIndex = 0;
+
+  private int sampleCount = 0;
+
+  private long recordedSamples = 0;
+
+  private volatile long percentileNanos = -1;
+
+  /**
+   * Constructor.
+   *
+   * @param percentile the percentile to track, between <code>0</code> and <code>1</code>
+   */
+  LatencyTracker(final double percentile) {
+    this.percentile = percentile;
+  }
+
+  /**
+   * @param latencyNanos the latency of a completed operation
+   */
+  synchronized void record(final long latencyNanos) {
+    this.samples[this.sampleIndex] = latencyNanos;
+    this.sampleIndex = (this.sampleIndex + 1) % WINDOW_SIZE;
+    if (this.sampleCount < WINDOW_SIZE) {
+      this.sampleCount++;
+    }
+    if (this.sampleCount >= MIN_SAMPLES
+        && (this.percentileNanos < 0 || ++this.recordedSamples % RECOMPUTE_INTERVAL == 0)) {
+      final long[] sortedSamples = Arrays.copyOf(this.samples, this.sampleCount);
+      Arrays.sort(sortedSamples);
+      final int rank = (int) Math.ceil(this.percentile * this.sampleCount) - 1;
+      this.percentileNanos = sortedSamples[Math.max(0, rank)];
+    }
+  }
+
+  /**
+   * @return the tracked percentile of the recent latencies, in nanoseconds, or <code>-1</code> if
+   *         not enough latencies were recorded yet.
+   */
+  long getPercentileNanos() {
+    return this.percentileNanos;
+  }
+
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+import org.apache.http.HttpEntity;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents.RequestEvent;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents.ResponseDecodingEvent;
+
+/**
+ * A request whose network time and sizes are reported to the {@link RequestMetrics} of the
+ * {@link Client}, and recorded as a Flight Recorder {@link RequestEvent}, under the operation,
+ * index and type deduced from its method and endpoint.
+ *
+ * <p>
+ * The network time only runs while an attempt of the request is sent to the nodes, i.e., between
+ * {@link #onAttempt()} and the outcome of the attempt. It excludes the time spent waiting for the
+ * concurrency limiter and the delays between the retries.
+ * </p>
+ */
+class MeteredRequest {
+
+  private final RequestMetrics requestMetrics;
+
+  /** The Flight Recorder event of this request, or <code>null</code> if not recorded. */
+  private final RequestEvent requestEvent;
+
+  /** The operation, index and type of this request, or <code>null</code> if not metered. */
+  private final String[] description;
+
+  /** The {@link OpaqueId} of this request, or <code>null</code>. */
+  private final String opaqueId;
+
+  private final long requestBytes;
+
+  /** The network time of the previous attempts. */
+  private long networkNanos = 0;
+
+  /** The start time of the current attempt, or <code>-1</code> if none is in progress. */
+  private long attemptStartNanos = -1;
+
+  private MeteredRequest(final RequestMetrics requestMetrics, final RequestEvent requestEvent,
+      final String[] description, final String opaqueId, final long requestBytes) {
+    this.requestMetrics = requestMetrics;
+    this.requestEvent = requestEvent;
+    this.description = description;
+    this.opaqueId = opaqueId;
+    this.requestBytes = requestBytes;
+  }
+
+  /**
+   * Reports the start of a request to the given {@link RequestMetrics}, and begins its Flight
+   * Recorder event if it is recorded.
+   *
+   * @param requestMetrics the {@link RequestMetrics} to report to
+   * @param method the HTTP method
+   * @param endpoint the path of the request
+   * @param requestEntity the request body as sent, or <code>null</code>
+   * @param opaqueId the {@link OpaqueId} of the request, or <code>null</code>
+   * @return the {@link MeteredRequest}, to notify with the outcome of the request
+   */
+  static MeteredRequest start(final RequestMetrics requestMetrics, final String method,
+      final String endpoint, final HttpEntity requestEntity, final String opaqueId) {
+    final RequestEvent requestEvent = FlightRecorderEvents.beginRequest();
+    if (requestMetrics == RequestMetrics.NONE && requestEvent == null) {
+      return new MeteredRequest(requestMetrics, null, null, null, 0);
+    }
+    final String[] description = describe(method, endpoint);
+    requestMetrics.onRequest(description[0], description[1], description[2], opaqueId);
+    return new MeteredRequest(requestMetrics, requestEvent, description, opaqueId,
+        contentLength(requestEntity));
+  }
+
+  /**
+   * Reads a response, and reports the time spent reading it as decoding time, also as a Flight
+   * Recorder event if it is recorded.
+   *
+   * @param requestMetrics the {@link RequestMetrics} to report to
+   * @param response the response to read
+   * @param responseReader the function that reads the response
+   * @return the result of the given {@code responseReader}
+   */
+  static <T> T decode(final RequestMetrics requestMetrics, final Response response,
+      final Function<Response, T> responseReader) {
+    final ResponseDecodingEvent decodingEvent = FlightRecorderEvents.beginResponseDecoding();
+    if (requestMetrics == RequestMetrics.NONE && decodingEvent == null) {
+      return responseReader.apply(response);
+    }
+    final long startNanos = System.nanoTime();
+    final T result = responseReader.apply(response);
+    final long decodeNanos = System.nanoTime() - startNanos;
+    final String[] description = describe(response.getRequestLine().getMethod(),
+        response.getRequestLine().getUri());
+    requestMetrics.onDecode(description[0], description[1], description[2], decodeNanos);
+    if (decodingEvent != null) {
+      final SearchResponse<?> searchResponse =
+          result instanceof SearchResponse ? (SearchResponse<?>) result : null;
+      decodingEvent.commit(description[0], description[1], description[2],
+          contentLength(response.getEntity()),
+          searchResponse != null ? searchResponse.getSearchHits().size() : 0,
+          searchResponse != null ? searchResponse.getTotalHits() : 0);
+    }
+    return result;
+  }
+
+  /**
+   * Deduces the operation, index and type of a request from its method and endpoint, e.g.
+   * <code>search</code> for <code>GET /blog/post/_search</code>, or <code>get</code> for
+   * <code>GET /blog/post/1</code>.
+   *
+   * @param method the HTTP method
+   * @param endpoint the path of the request, possibly with a query string
+   * @return the operation, index (or <code>null</code>) and type (or <code>null</code>)
+   */
+  static String[] describe(final String method, final String endpoint) {
+    final int queryStart = endpoint.indexOf('?');
+    final String path = (queryStart < 0 ? endpoint : endpoint.substring(0, queryStart))
+        .replaceAll("^/+|/+$", "");
+    final String[] segments = path.isEmpty() ? new String[0] : path.split("/+");
+    for (int i = 0; i < segments.length; i++) {
+      if (segments[i].startsWith("_")) {
+        // e.g. _bulk, blog/_stats, blog/post/_search, blog/_mapping/post
+        String operation = segments[i].substring(1);
+        final String index = i > 0 ? segments[0] : null;
+        String type = i > 1 ? segments[1] : null;
+        if (operation.equals("search") && i + 1 < segments.length
+            && segments[i + 1].equals("scroll")) {
+          operation = method.equals("DELETE") ? "clear_scroll" : "scroll";
+        } else if (operation.equals("mapping") && type == null && i + 1 < segments.length) {
+          type = segments[i + 1];
+        }
+        return new String[] {operation, index, type};
+      }
+    }
+    switch (segments.length) {
+      case 1:
+        return new String[] {indexOperation(method), segments[0], null};
+      case 2:
+      case 3:
+        return new String[] {documentOperation(method), segments[0], segments[1]};
+      default:
+        return new String[] {method.toLowerCase(Locale.ROOT), null, null};
+    }
+  }
+
+  private static String indexOperation(final String method) {
+    switch (method) {
+      case "HEAD":
+        return "index_exists";
+      case "PUT":
+        return "create_index";
+      case "DELETE":
+        return "delete_index";
+      default:
+        return "get_index";
+    }
+  }
+
+  private static String documentOperation(final String method) {
+    switch (method) {
+      case "PUT":
+      case "POST":
+        return "index";
+      case "DELETE":
+        return "delete";
+      case "HEAD":
+        return "exists";
+      default:
+        return "get";
+    }
+  }
+
+  private static long contentLength(final HttpEntity entity) {
+    return entity != null ? Math.max(entity.getContentLength(), 0) : 0;
+  }
+
+  /**
+   * Reports the response of this request.
+   *
+   * @param response the response
+   */
+  void onResponse(final Response response) {
+    if (this.description != null) {
+      onCompletion(response.getStatusLine().getStatusCode(), contentLength(response.getEntity()));
+    }
+  }
+
+  /**
+   * Reports the failure of this request, which may have an error response.
+   *
+   * @param failure the failure
+   */
+  void onFailure(final Exception failure) {
+    if (failure instanceof ResponseException) {
+      onResponse(((ResponseException) failure).getResponse());
+    } else if (this.description != null) {
+      onCompletion(0, 0);
+    }
+  }
+
+  /**
+   * Reports that an attempt of this request is being sent to the nodes.
+   */
+  synchronized void onAttempt() {
+    this.attemptStartNanos = System.nanoTime();
+  }
+
+  /**
+   * Reports that the current attempt of this request failed and that the request will be retried.
+   */
+  synchronized void onRetry() {
+    endAttempt();
+  }
+
+  private void endAttempt() {
+    if (this.attemptStartNanos >= 0) {
+      this.networkNanos += System.nanoTime() - this.attemptStartNanos;
+      this.attemptStartNanos = -1;
+    }
+  }
+
+  private synchronized void onCompletion(final int status, final long responseBytes) {
+    endAttempt();
+    this.requestMetrics.onResponse(this.description[0], this.description[1], this.description[2],
+        this.opaqueId, status, this.networkNanos, this.requestBytes, responseBytes);
+    if (this.requestEvent != null) {
+      this.requestEvent.commit(this.description[0], this.description[1], this.description[2],
+          this.opaqueId, status, this.requestBytes, responseBytes);
+    }
+  }
+
+  /**
+   * @param responseListener the listener of the request
+   * @return a {@link ResponseListener} that reports the outcome of this request before notifying
+   *         the given {@code responseListener}
+   */
+  ResponseListener wrap(final ResponseListener responseListener) {
+    if (this.description == null) {
+      return responseListener;
+    }
+    return new ResponseListener() {
+
+      @Override
+      public void onSuccess(final Response response) {
+        onResponse(response);
+        responseListener.onSuccess(response);
+      }
+
+      @Override
+      public void onFailure(final Exception exception) {
+        MeteredRequest.this.onFailure(exception);
+        responseListener.onFailure(exception);
+      }
+    };
+  }
+
+}
@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.HttpEntity;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.lambdamatic.elasticsearch.exceptions.ClientIOException;
+import org.lambdamatic.elasticsearch.exceptions.ClientResponseException;
+import org.lambdamatic.elasticsearch.exceptions.ResponseParsingException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.ErrorResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.MultiSearchResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponseParser;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponseParser.SourceDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Gathers the search requests submitted concurrently on a {@link Client} and sends them as a
+ * single <code>_msearch</code> request, either when {@code maxBatchSize} searches are pending or
+ * when the oldest pending search has been waiting for {@code maxDelay}, whichever comes first.
+ * The entries of the {@link MultiSearchResponse} are then dispatched back to their respective
+ * callers.
+ */
+class MultiSearchCoalescer {
+
+  /** The usual Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(MultiSearchCoalescer.class);
+
+  private final Client client;
+
+  private final JsonFactory jsonFactory;
+
+  private final int maxBatchSize;
+
+  private final long maxDelayNanos;
+
+  /** Single (daemon) thread that sends the pending searches when the delay expired. */
+  private final ScheduledExecutorService scheduler;
+
+  /** The searches waiting to be sent. */
+  private List<PendingSearch> pendingSearches = new ArrayList<>();
+
+  /** The scheduled task that will send the pending searches, if any. */
+  private ScheduledFuture<?> scheduledFlush;
+
+  /** Whether this coalescer was closed, in which case the searches are sent right away. */
+  private boolean closed = false;
+
+  /**
+   * Constructor.
+   *
+   * @param client the {@link Client} to send the <code>_msearch</code> requests with
+   * @param jsonFactory the {@link JsonFactory} to write the request and read the response bodies
+   * @param maxBatchSize the maximum number of searches to send in a single request
+   * @param maxDelay the maximum time a search may wait before being sent
+   * @param timeUnit the unit of {@code maxDelay}
+   */
+  MultiSearchCoalescer(final Client client, final JsonFactory jsonFactory,
+      final int maxBatchSize, final long maxDelay, final TimeUnit timeUnit) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Max batch size must be greater than 0");
+    }
+    this.client = client;
+    this.jsonFactory = jsonFactory;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = timeUnit.toNanos(maxDelay);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "lambdamatic-msearch");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Submits a search request and waits until its response is received as part of a
+   * <code>_msearch</code> response.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search, or <code>null</code>
+   * @param requestBody the entity holding the body of the search request
+   * @param sourceDecoder the decoder of the source of each hit, or <code>null</code>
+   * @param timeoutNanos the maximum time to wait for the response, or <code>0</code> to wait until
+   *        the <code>_msearch</code> request completes
+   * @return the {@link SearchResponse}
+   * @throws ClientResponseException if the search failed
+   * @throws ClientIOException if the <code>_msearch</code> request could not be sent, or caused by
+   *         a {@link SocketTimeoutException} if the timeout expired
+   */
+  @SuppressWarnings("unchecked")
+  <D> SearchResponse<D> search(final String indexName, final String type, final String routing,
+      final String preference, final HttpEntity requestBody, final SourceDecoder<D> sourceDecoder,
+      final long timeoutNanos) {
+    final CompletableFuture<SearchResponse<?>> response =
+        submit(indexName, type, routing, preference, requestBody, sourceDecoder);
+    try {
+      return (SearchResponse<D>) (timeoutNanos > 0
+          ? response.get(timeoutNanos, TimeUnit.NANOSECONDS) : response.get());
+    } catch (ExecutionException e) {
+      // pending searches are always completed with a RuntimeException
+      throw (RuntimeException) e.getCause();
+    } catch (TimeoutException e) {
+      throw new ClientIOException("Failed to search documents",
+          new SocketTimeoutException("Search on " + indexName + " did not complete within "
+              + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms"));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ClientIOException("Interrupted while waiting for the search response",
+          new InterruptedIOException(e.getMessage()));
+    }
+  }
+
+  /**
+   * Submits a search request to be sent with the next <code>_msearch</code> request.
+   *
+   * @param indexName the name of the index to search
+   * @param type the type of the documents to search
+   * @param routing the routing value of the documents to search, or <code>null</code> to search
+   *        all shards
+   * @param preference the shard copies to search, or <code>null</code>
+   * @param requestBody the entity holding the body of the search request
+   * @param sourceDecoder the decoder of the source of each hit, or <code>null</code>
+   * @return a {@link CompletableFuture} completed when the response is received
+   */
+  CompletableFuture<SearchResponse<?>> submit(final String indexName, final String type,
+      final String routing, final String preference, final HttpEntity requestBody,
+      final SourceDecoder<?> sourceDecoder) {
+    final PendingSearch pendingSearch =
+        new PendingSearch(indexName, type, routing, preference, requestBody, sourceDecoder);
+    final List<PendingSearch> batch;
+    synchronized (this) {
+      this.pendingSearches.add(pendingSearch);
+      if (this.pendingSearches.size() < this.maxBatchSize && !this.closed) {
+        if (this.pendingSearches.size() == 1) {
+          this.scheduledFlush =
+              this.scheduler.schedule(this::flush, this.maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+        return pendingSearch.response;
+      }
+      batch = drain();
+    }
+    send(batch);
+    return pendingSearch.response;
+  }
+
+  /**
+   * Sends all pending searches, if any.
+   */
+  void flush() {
+    final List<PendingSearch> batch;
+    synchronized (this) {
+      batch = drain();
+    }
+    if (!batch.isEmpty()) {
+      send(batch);
+    }
+  }
+
+  /**
+   * Sends the pending searches, and stops the thread of this coalescer. The searches submitted
+   * afterwards, e.g., by a caller that is not aware that the coalescer was replaced, are sent right
+   * away.
+   */
+  void close() {
+    synchronized (this) {
+      this.closed = true;
+    }
+    flush();
+    this.scheduler.shutdown();
+  }
+
+  /**
+   * Removes all pending searches and cancels the scheduled flush. Must be called while holding the
+   * lock on this {@link MultiSearchCoalescer}.
+   * 
+   * @return the searches that were pending
+   */
+  private List<PendingSearch> drain() {
+    if (this.scheduledFlush != null) {
+      this.scheduledFlush.cancel(false);
+      this.scheduledFlush = null;
+    }
+    final List<PendingSearch> batch = this.pendingSearches;
+    this.pendingSearches = new ArrayList<>();
+    return batch;
+  }
+
+  private void send(final List<PendingSearch> batch) {
+    final byte[] requestBody;
+    try {
+      requestBody = multiSearchRequestBody(batch);
+    } catch (IOException e) {
+      final ClientIOException exception =
+          new ClientIOException("Failed to write the multi search request", e);
+      batch.forEach(pendingSearch -> pendingSearch.response.completeExceptionally(exception));
+      return;
+    }
+    LOGGER.debug("Sending {} coalesced search request(s)", batch.size());
+    this.client.multiSearch(requestBody, new ResponseListener() {
+
+      @Override
+      public void onSuccess(final Response response) {
+        try {
+          dispatch(batch, Client.readResponse(jsonFactory, response, MultiSearchResponse.class));
+        } catch (RuntimeException e) {
+          batch.forEach(pendingSearch -> pendingSearch.response.completeExceptionally(e));
+        }
+      }
+
+      @Override
+      public void onFailure(final Exception exception) {
+        final RuntimeException e =
+            Client.toClientException(jsonFactory, "Failed to search documents", exception);
+        batch.forEach(pendingSearch -> pendingSearch.response.completeExceptionally(e));
+      }
+    });
+  }
+
+  /**
+   * Completes each pending search with its matching entry in the given
+   * {@link MultiSearchResponse}.
+   */
+  private void dispatch(final List<PendingSearch> batch,
+      final MultiSearchResponse multiSearchResponse) {
+    final List<JsonNode> responses = multiSearchResponse.getResponses();
+    if (responses == null || responses.size() != batch.size()) {
+      throw new ResponseParsingException("Expected " + batch.size()
+          + " responses in the multi search response but got "
+          + (responses == null ? 0 : responses.size()), null);
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      final JsonNode response = responses.get(i);
+      final PendingSearch pendingSearch = batch.get(i);
+      final CompletableFuture<SearchResponse<?>> pendingResponse = pendingSearch.response;
+      try {
+        if (MultiSearchResponse.isError(response)) {
+          pendingResponse.completeExceptionally(new ClientResponseException(
+              "Failed to search documents", treeToValue(response, ErrorResponse.class)));
+        } else {
+          pendingResponse.complete(parseSearchResponse(response, pendingSearch.sourceDecoder));
+        }
+      } catch (RuntimeException e) {
+        pendingResponse.completeExceptionally(e);
+      }
+    }
+  }
+
+  private <T> T treeToValue(final JsonNode node, final Class<T> valueType) {
+    try (final JsonParser parser = this.jsonFactory.getCodec().treeAsTokens(node)) {
+      return parser.readValueAs(valueType);
+    } catch (IOException e) {
+      throw new ResponseParsingException("Failed to parse response body", e);
+    }
+  }
+
+  /**
+   * Parses an entry of the <code>_msearch</code> response with a {@link SearchResponseParser}, so
+   * that the sources of the hits are decoded from the entry without being serialized again.
+   */
+  private SearchResponse<?> parseSearchResponse(final JsonNode response,
+      final SourceDecoder<?> sourceDecoder) {
+    try (final JsonParser parser = this.jsonFactory.getCodec().treeAsTokens(response)) {
+      return SearchResponseParser.parse(parser, sourceDecoder);
+    } catch (IOException e) {
+      throw new ResponseParsingException("Failed to parse response body", e);
+    }
+  }
+
+  /**
+   * Writes the NDJSON body of the <code>_msearch</code> request: one header line with the index,
+   * type, routing and preference, followed by one line with the (compacted) search request body,
+   * for each search.
+   */
+  private byte[] multiSearchRequestBody(final List<PendingSearch> batch) throws IOException {
+    final ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+    for (PendingSearch pendingSearch : batch) {
+      try (final JsonGenerator generator =
+          this.jsonFactory.createGenerator(requestBody, JsonEncoding.UTF8)) {
+        generator.setRootValueSeparator(null);
+        generator.writeStartObject();
+        generator.writeStringField("index", pendingSearch.indexName);
+        generator.writeStringField("type", pendingSearch.type);
+        if (pendingSearch.routing != null) {
+          generator.writeStringField("routing", pendingSearch.routing);
+        }
+        if (pendingSearch.preference != null) {
+          generator.writeStringField("preference", pendingSearch.preference);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        // each search body must fit on a single line, and is transcoded if written in a binary
+        // format
+        try (final JsonParser parser = ContentFormat.of(pendingSearch.requestBody)
+            .createParser(pendingSearch.requestBody.getContent())) {
+          while (parser.nextToken() != null) {
+            generator.copyCurrentEvent(parser);
+          }
+        }
+        generator.writeRaw('\n');
+      }
+    }
+    return requestBody.toByteArray();
+  }
+
+  /**
+   * A search request waiting to be sent.
+   */
+  private static class PendingSearch {
+
+    final String indexName;
+
+    final String type;
+
+    final String routing;
+
+    final String preference;
+
+    final HttpEntity requestBody;
+
+    final SourceDecoder<?> sourceDecoder;
+
+    final CompletableFuture<SearchResponse<?>> response = new CompletableFuture<>();
+
+    PendingSearch(final String indexName, final String type, final String routing,
+        final String preference, final HttpEntity requestBody,
+        final SourceDecoder<?> sourceDecoder) {
+      this.indexName = indexName;
+      this.type = type;
+      this.routing = routing;
+      this.preference = preference;
+      this.requestBody = requestBody;
+      this.sourceDecoder = sourceDecoder;
+    }
+
+  }
+
+}
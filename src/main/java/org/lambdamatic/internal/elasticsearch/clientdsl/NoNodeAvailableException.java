@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.IOException;
+
+/**
+ * {@link IOException} raised when a request could not be sent because the circuit breakers of all
+ * the Elasticsearch nodes are open.
+ */
+public class NoNodeAvailableException extends IOException {
+
+  private static final long serialVersionUID = -2797618404405335420L;
+
+  /**
+   * Constructor.
+   * 
+   * @param message the error message
+   */
+  public NoNodeAvailableException(final String message) {
+    super(message);
+  }
+
+}
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.CircuitBreaker.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects the Elasticsearch node to send each request to. Nodes are scored by an exponentially
+ * weighted moving average (EWMA) of their observed response latency, multiplied by their number of
+ * requests in flight, so that a node that stalls (e.g., during a GC pause) is quickly avoided even
+ * before its slow responses come back. The preferred node is the best of two nodes picked at
+ * random, which spreads the load instead of sending all requests to the single fastest node.
+ *
+ * <p>
+ * Each node has its own {@link CircuitBreaker}: nodes whose circuit is open are not selected, and
+ * nodes whose circuit is half-open are preferred, so that the probe calls are performed promptly.
+ * Nodes that were not selected for a while are also probed again, so that their latency is
+ * re-evaluated.
+ * </p>
+ */
+class NodeSelector {
+
+  /** The usual Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(NodeSelector.class);
+
+  /** Weight of the latest observed latency in the moving average. */
+  private static final double EWMA_ALPHA = 0.3;
+
+  /** Delay after which a node that was not selected is probed again. */
+  private static final long PROBE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /** Builds the {@link Transport} that sends the requests to a given node. */
+  private final Function<HttpHost, Transport> transportFactory;
+
+  /** The settings of the circuit breaker of each node. */
+  private final CircuitBreakerSettings circuitBreakerSettings;
+
+  /** The known nodes, indexed by their host. */
+  private volatile Map<HttpHost, Node> nodes = Collections.emptyMap();
+
+  /**
+   * Constructor.
+   *
+   * @param transportFactory the function that builds the {@link Transport} to send the requests to
+   *        a given node
+   * @param circuitBreakerSettings the settings of the circuit breaker of each node
+   * @param hosts the initial hosts
+   */
+  NodeSelector(final Function<HttpHost, Transport> transportFactory,
+      final CircuitBreakerSettings circuitBreakerSettings, final HttpHost... hosts) {
+    if (hosts.length == 0) {
+      throw new IllegalArgumentException("At least one host is required");
+    }
+    this.transportFactory = transportFactory;
+    this.circuitBreakerSettings = circuitBreakerSettings;
+    setHosts(Arrays.asList(hosts));
+  }
+
+  /**
+   * @return the hosts of the known nodes.
+   */
+  List<HttpHost> getHosts() {
+    return new ArrayList<>(this.nodes.keySet());
+  }
+
+  /**
+   * Replaces the known nodes. The state of the nodes that were already known is retained, while
+   * the {@link Transport} of the nodes that are not part of the given hosts are closed.
+   *
+   * @param hosts the hosts of the nodes
+   */
+  synchronized void setHosts(final Collection<HttpHost> hosts) {
+    if (hosts.isEmpty()) {
+      return;
+    }
+    final Map<HttpHost, Node> previousNodes = this.nodes;
+    final Map<HttpHost, Node> updatedNodes = new LinkedHashMap<>();
+    for (HttpHost host : hosts) {
+      final Node previousNode = previousNodes.get(host);
+      updatedNodes.put(host, previousNode != null ? previousNode : new Node(host,
+          this.transportFactory.apply(host), new CircuitBreaker(this.circuitBreakerSettings)));
+    }
+    this.nodes = Collections.unmodifiableMap(updatedNodes);
+    for (Node previousNode : previousNodes.values()) {
+      if (!updatedNodes.containsKey(previousNode.getHost())) {
+        LOGGER.debug("Removing node {}", previousNode.getHost());
+        previousNode.close();
+      }
+    }
+  }
+
+  /**
+   * Closes the {@link Transport} of all nodes.
+   */
+  synchronized void close() {
+    for (Node node : this.nodes.values()) {
+      node.close();
+    }
+  }
+
+  /**
+   * @return the nodes to try for a request, in order of preference, or an empty list if the
+   *         circuit of all nodes is open.
+   */
+  List<Node> select() {
+    final long now = System.nanoTime();
+    final List<Node> availableNodes = this.nodes.values().stream()
+        .filter(node -> node.isCallPermitted(now)).collect(Collectors.toList());
+    if (availableNodes.isEmpty()) {
+      return availableNodes;
+    }
+    final Map<Node, Double> scores = availableNodes.stream()
+        .collect(Collectors.toMap(Function.identity(), node -> node.score(now)));
+    availableNodes.sort(Comparator.comparing(scores::get));
+    if (availableNodes.size() > 1) {
+      // power of two choices: the best of two random nodes comes first
+      final ThreadLocalRandom random = ThreadLocalRandom.current();
+      final int first = random.nextInt(availableNodes.size());
+      final int second =
+          (first + 1 + random.nextInt(availableNodes.size() - 1)) % availableNodes.size();
+      Collections.swap(availableNodes, 0, Math.min(first, second));
+    }
+    availableNodes.get(0).onSelected(now);
+    return availableNodes;
+  }
+
+  /**
+   * An Elasticsearch node, with its {@link Transport} and the statistics used to select it.
+   */
+  static class Node {
+
+    private final HttpHost host;
+
+    private final Transport transport;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+    /** The moving average of the response latency, or <code>0</code> if unknown. */
+    private double latencyEwmaNanos = 0;
+
+    private volatile long lastSelectedNanos = System.nanoTime();
+
+    Node(final HttpHost host, final Transport transport, final CircuitBreaker circuitBreaker) {
+      this.host = host;
+      this.transport = transport;
+      this.circuitBreaker = circuitBreaker;
+    }
+
+    HttpHost getHost() {
+      return this.host;
+    }
+
+    Transport getTransport() {
+      return this.transport;
+    }
+
+    /**
+     * Records the start of a request sent to this node, if its {@link CircuitBreaker} permits it.
+     *
+     * @return the start time of the request, to pass to {@link #onResponse(long)} or
+     *         {@link #onFailure(Exception)}, or <code>-1</code> if the request is not permitted
+     */
+    long onRequest() {
+      final long startNanos = System.nanoTime();
+      if (!this.circuitBreaker.tryAcquirePermission(startNanos)) {
+        return -1;
+      }
+      this.inFlightRequests.incrementAndGet();
+      return startNanos;
+    }
+
+    /**
+     * Records a response received from this node.
+     *
+     * @param startNanos the start time of the request
+     */
+    void onResponse(final long startNanos) {
+      this.inFlightRequests.decrementAndGet();
+      final long latencyNanos = System.nanoTime() - startNanos;
+      synchronized (this) {
+        this.latencyEwmaNanos = this.latencyEwmaNanos == 0 ? latencyNanos
+            : EWMA_ALPHA * latencyNanos + (1 - EWMA_ALPHA) * this.latencyEwmaNanos;
+      }
+      final boolean wasClosed = this.circuitBreaker.getState() == State.CLOSED;
+      this.circuitBreaker.onSuccess(latencyNanos);
+      logStateChange(wasClosed);
+    }
+
+    /**
+     * Records a failure to get a response from this node.
+     *
+     * @param failure the cause of the failure
+     */
+    void onFailure(final Exception failure) {
+      this.inFlightRequests.decrementAndGet();
+      final boolean wasClosed = this.circuitBreaker.getState() == State.CLOSED;
+      this.circuitBreaker.onFailure(failure instanceof ConnectException
+          || failure instanceof ConnectTimeoutException || failure instanceof UnknownHostException);
+      logStateChange(wasClosed);
+    }
+
+    private void logStateChange(final boolean wasClosed) {
+      final State state = this.circuitBreaker.getState();
+      if (wasClosed && state == State.OPEN) {
+        LOGGER.warn("Opening the circuit of node {}", this.host);
+      } else if (!wasClosed && state == State.CLOSED) {
+        LOGGER.info("Closing the circuit of node {}", this.host);
+      }
+    }
+
+    void onSelected(final long nowNanos) {
+      this.lastSelectedNanos = nowNanos;
+    }
+
+    boolean isCallPermitted(final long nowNanos) {
+      return this.circuitBreaker.isCallPermitted(nowNanos);
+    }
+
+    /**
+     * @return the score of this node (lower is better): <code>0</code> if its latency is unknown,
+     *         if it should be probed again, or if its circuit is not closed (i.e., it can only be
+     *         selected for a probe call).
+     */
+    synchronized double score(final long nowNanos) {
+      if (this.circuitBreaker.getState() != State.CLOSED
+          || nowNanos - this.lastSelectedNanos > PROBE_INTERVAL_NANOS) {
+        return 0;
+      }
+      return this.latencyEwmaNanos * (this.inFlightRequests.get() + 1);
+    }
+
+    void close() {
+      try {
+        this.transport.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to close client of node {}", this.host, e);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetNodesInfoResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetNodesInfoResponse.HttpInfo;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetNodesInfoResponse.NodeInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Discovers the nodes of the cluster from their <code>_nodes/http</code> info, once at startup and
+ * then periodically, and updates the {@link NodeSelector} of a {@link Client} accordingly.
+ */
+class NodeSniffer {
+
+  /** The usual Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(NodeSniffer.class);
+
+  private final Client client;
+
+  private final NodeSelector nodeSelector;
+
+  /** The scheme of the discovered hosts, which is the same as the scheme of the initial hosts. */
+  private final String scheme;
+
+  /** Single (daemon) thread that sniffs the nodes periodically. */
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Constructor.
+   *
+   * @param client the {@link Client} to retrieve the nodes info with
+   * @param nodeSelector the {@link NodeSelector} to update with the discovered nodes
+   * @param scheme the scheme of the discovered hosts
+   */
+  NodeSniffer(final Client client, final NodeSelector nodeSelector, final String scheme) {
+    this.client = client;
+    this.nodeSelector = nodeSelector;
+    this.scheme = scheme;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "lambdamatic-sniffer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Sniffs the nodes now, then every {@code interval}.
+   *
+   * @param interval the delay between two sniffs
+   * @param timeUnit the unit of {@code interval}
+   */
+  void start(final long interval, final TimeUnit timeUnit) {
+    sniff();
+    this.scheduler.scheduleWithFixedDelay(this::sniff, interval, interval, timeUnit);
+  }
+
+  /**
+   * Stops sniffing the nodes.
+   */
+  void stop() {
+    this.scheduler.shutdownNow();
+  }
+
+  /**
+   * Retrieves the HTTP addresses of the nodes of the cluster and updates the
+   * {@link NodeSelector}. Failures are logged, and the known nodes are retained.
+   */
+  void sniff() {
+    try {
+      final GetNodesInfoResponse nodesInfo = this.client.getNodesInfo();
+      final List<HttpHost> hosts = new ArrayList<>();
+      for (NodeInfo nodeInfo : nodesInfo.getNodes().values()) {
+        final HttpInfo httpInfo = nodeInfo.getHttp();
+        if (httpInfo != null && httpInfo.getPublishAddress() != null) {
+          hosts.add(toHost(httpInfo.getPublishAddress()));
+        }
+      }
+      LOGGER.debug("Sniffed nodes: {}", hosts);
+      this.nodeSelector.setHosts(hosts);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Failed to sniff the nodes of the cluster", e);
+    }
+  }
+
+  /**
+   * Converts the given publish address to an {@link HttpHost}.
+   *
+   * @param publishAddress the HTTP publish address of a node, as <code>[hostname/]ip:port</code>
+   * @return the corresponding {@link HttpHost}
+   */
+  HttpHost toHost(final String publishAddress) {
+    final String address = publishAddress.substring(publishAddress.lastIndexOf('/') + 1);
+    final int portSeparator = address.lastIndexOf(':');
+    final String hostname = address.substring(0, portSeparator).replace("[", "").replace("]", "");
+    final int port = Integer.parseInt(address.substring(portSeparator + 1));
+    return new HttpHost(hostname, port, this.scheme);
+  }
+
+}
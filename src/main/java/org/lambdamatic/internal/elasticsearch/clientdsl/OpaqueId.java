@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+/**
+ * Tags the requests sent by the current thread with an operation tag, which the {@link Client}
+ * sends as the {@value #HEADER} header, so that the tasks, slow logs and hot threads of
+ * Elasticsearch can be correlated with the application request that caused them:
+ *
+ * <pre>
+ * final OpaqueId.Scope scope = OpaqueId.tag("checkout-" + orderId);
+ * try {
+ *   blogposts.search()...
+ * } finally {
+ *   scope.close();
+ * }
+ * </pre>
+ *
+ * <p>
+ * The tag is read when a request is sent, so it also applies to the retries and hedged requests
+ * of the asynchronous requests, which are sent from other threads. When no tag is set, the
+ * {@link Client} can read it from the logging MDC instead.
+ * </p>
+ *
+ * @see Client#opaqueIdMdcKey(String)
+ * @see Client#getOpaqueId()
+ */
+public final class OpaqueId {
+
+  /** The name of the request header that carries the tag. */
+  public static final String HEADER = "X-Opaque-Id";
+
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  private OpaqueId() {
+    // utility class
+  }
+
+  /**
+   * Restores the previous tag of the thread when closed.
+   */
+  @FunctionalInterface
+  public interface Scope extends AutoCloseable {
+
+    @Override
+    void close();
+
+  }
+
+  /**
+   * Tags the requests sent by the current thread until the returned {@link Scope} is closed.
+   *
+   * @param opaqueId the tag, or <code>null</code> to send the requests without tag
+   * @return the {@link Scope} to close (on the same thread) once the requests are sent
+   * @throws IllegalArgumentException if the tag contains control characters, which are not
+   *         allowed in a header
+   */
+  public static Scope tag(final String opaqueId) {
+    if (opaqueId != null && opaqueId.chars().anyMatch(Character::isISOControl)) {
+      throw new IllegalArgumentException("Opaque id must not contain control characters");
+    }
+    final String previousOpaqueId = CURRENT.get();
+    CURRENT.set(opaqueId);
+    return () -> {
+      if (previousOpaqueId != null) {
+        CURRENT.set(previousOpaqueId);
+      } else {
+        CURRENT.remove();
+      }
+    };
+  }
+
+  /**
+   * @return the tag of the current thread, or <code>null</code> if none was set.
+   */
+  public static String get() {
+    return CURRENT.get();
+  }
+
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+/**
+ * Receives the measurements of the requests sent by a {@link Client}, per operation (e.g.,
+ * <code>search</code>, <code>get</code> or <code>index</code>), index and type. The time spent on
+ * the network (including the retries and the hedged requests) is reported separately from the time
+ * spent encoding the request bodies and decoding the response bodies, so that a slow cluster can
+ * be told apart from slow (de)serialization.
+ *
+ * <p>
+ * The methods are called on the threads that send the requests and on the I/O threads of the HTTP
+ * client, so implementations must be thread-safe and must not block. All methods do nothing by
+ * default.
+ * </p>
+ *
+ * @see Client#requestMetrics(RequestMetrics)
+ * @see InMemoryRequestMetrics
+ */
+public interface RequestMetrics {
+
+  /** The {@link RequestMetrics} that ignores all measurements. */
+  RequestMetrics NONE = new RequestMetrics() {};
+
+  /**
+   * Called when a request is sent.
+   *
+   * @param operation the name of the operation
+   * @param index the name of the index, or <code>null</code> if the operation is not specific to
+   *        an index
+   * @param type the document type, or <code>null</code> if the operation is not specific to a type
+   * @param opaqueId the {@link OpaqueId} of the request, or <code>null</code>
+   */
+  default void onRequest(final String operation, final String index, final String type,
+      final String opaqueId) {}
+
+  /**
+   * Called when a request completed, after a call to
+   * {@link #onRequest(String, String, String, String)}.
+   *
+   * @param operation the name of the operation
+   * @param index the name of the index, or <code>null</code>
+   * @param type the document type, or <code>null</code>
+   * @param opaqueId the {@link OpaqueId} of the request, or <code>null</code>
+   * @param status the HTTP status of the response, or <code>0</code> if no response was received
+   * @param networkNanos the time elapsed between sending each attempt of the request to the nodes
+   *        and receiving its outcome, summed over the retries, but excluding the time spent
+   *        waiting for the concurrency limiter and the delays between the retries
+   * @param requestBytes the size of the request body as sent, i.e., compressed if it was
+   * @param responseBytes the size of the (decompressed) response body
+   */
+  default void onResponse(final String operation, final String index, final String type,
+      final String opaqueId, final int status, final long networkNanos, final long requestBytes,
+      final long responseBytes) {}
+
+  /**
+   * Called when a request body was encoded.
+   *
+   * @param operation the name of the operation
+   * @param index the name of the index, or <code>null</code>
+   * @param type the document type, or <code>null</code>
+   * @param encodeNanos the time spent encoding the request body
+   */
+  default void onEncode(final String operation, final String index, final String type,
+      final long encodeNanos) {}
+
+  /**
+   * Called when a response body, or the documents that it contains, were decoded. This may be
+   * called more than once per request when the documents are decoded after the response body.
+   *
+   * @param operation the name of the operation
+   * @param index the name of the index, or <code>null</code>
+   * @param type the document type, or <code>null</code>
+   * @param decodeNanos the time spent decoding
+   */
+  default void onDecode(final String operation, final String index, final String type,
+      final long decodeNanos) {}
+
+}
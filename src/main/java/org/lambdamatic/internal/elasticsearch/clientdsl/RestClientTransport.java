@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
+
+/**
+ * The default {@link Transport}, which sends the requests with the low-level {@link RestClient}
+ * and its asynchronous Apache HTTP client.
+ */
+class RestClientTransport implements Transport {
+
+  private final HttpHost host;
+
+  private final RestClient restClient;
+
+  /**
+   * Constructor.
+   *
+   * @param host the host of the node
+   * @param restClient the {@link RestClient} to the given host
+   */
+  RestClientTransport(final HttpHost host, final RestClient restClient) {
+    this.host = host;
+    this.restClient = restClient;
+  }
+
+  @Override
+  public HttpHost getHost() {
+    return this.host;
+  }
+
+  @Override
+  public Response performRequest(final String method, final String endpoint,
+      final Map<String, String> params, final HttpEntity entity,
+      final HttpAsyncResponseConsumer<HttpResponse> responseConsumer, final Header... headers)
+      throws IOException {
+    return this.restClient.performRequest(method, endpoint, params, entity, responseConsumer,
+        headers);
+  }
+
+  @Override
+  public void performRequest(final String method, final String endpoint,
+      final Map<String, String> params, final HttpEntity entity,
+      final HttpAsyncResponseConsumer<HttpResponse> responseConsumer,
+      final ResponseListener responseListener, final Header... headers) {
+    this.restClient.performRequest(method, endpoint, params, entity, responseConsumer,
+        responseListener, headers);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.restClient.close();
+  }
+
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+/**
+ * Decides whether and when a request that Elasticsearch rejected should be sent again.
+ *
+ * <p>
+ * The policy is only asked once the request failed on all the nodes that the {@link Client}
+ * tried. A request that is not idempotent is never sent to another node after a failure, unless
+ * it never reached the first node, so a policy that does not retry such requests has the
+ * guarantee that they are executed at most once.
+ * </p>
+ *
+ * @see Client#retryPolicy(RetryPolicy)
+ * @see ExponentialBackoffRetryPolicy
+ */
+public interface RetryPolicy {
+
+  /** The policy that never retries. */
+  RetryPolicy NONE = (idempotent, statusCode, retries) -> -1;
+
+  /**
+   * Called once for each request sent by the {@link Client}, before its first attempt.
+   */
+  default void onRequest() {
+    // nothing to do by default
+  }
+
+  /**
+   * @param idempotent whether sending the request more than once has the same effect as sending it
+   *        once, which is unknown when the failed attempt may have been executed
+   * @param statusCode the HTTP status code of the failed attempt
+   * @param retries the number of retries performed so far for this request
+   * @return the delay before retrying the request, in milliseconds, or a negative value to give up
+   */
+  long retryDelayMillis(boolean idempotent, int statusCode, int retries);
+
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the requests retried by a {@link Client}.
+ */
+public class RetryStats {
+
+  private final AtomicLong retries = new AtomicLong();
+
+  private final AtomicLong recoveredRequests = new AtomicLong();
+
+  private final AtomicLong failedRequests = new AtomicLong();
+
+  void onRetry() {
+    this.retries.incrementAndGet();
+  }
+
+  void onRetriedRequest(final boolean succeeded) {
+    if (succeeded) {
+      this.recoveredRequests.incrementAndGet();
+    } else {
+      this.failedRequests.incrementAndGet();
+    }
+  }
+
+  /**
+   * @return the total number of retries.
+   */
+  public long getRetries() {
+    return this.retries.get();
+  }
+
+  /**
+   * @return the number of requests that succeeded after one or more retries.
+   */
+  public long getRecoveredRequests() {
+    return this.recoveredRequests.get();
+  }
+
+  /**
+   * @return the number of requests that still failed after one or more retries.
+   */
+  public long getFailedRequests() {
+    return this.failedRequests.get();
+  }
+
+  @Override
+  public String toString() {
+    return "RetryStats [retries=" + getRetries() + ", recoveredRequests="
+        + getRecoveredRequests() + ", failedRequests=" + getFailedRequests() + "]";
+  }
+
+}
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A client-side log of the slow searches, keyed by the fingerprint of the searches, i.e., the
+ * shape of their queries without the values that they look for, so that all the searches issued
+ * by the same code are accounted together.
+ *
+ * <p>
+ * Each search that took longer than the threshold is logged (at the <code>WARN</code> level) with
+ * its fingerprint, the class that it originates from, the time that Elasticsearch reported and
+ * the number of hits. The latency of all searches is also recorded per fingerprint, so that the
+ * most expensive fingerprints can be reported with {@link #report(int)}, either on demand or
+ * periodically with {@link #reportEvery(long, TimeUnit, int)}.
+ * </p>
+ */
+public class SlowSearchLog {
+
+  /** The usual Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SlowSearchLog.class);
+
+  private final long thresholdNanos;
+
+  private final ConcurrentMap<String, FingerprintStats> fingerprintStats =
+      new ConcurrentHashMap<>();
+
+  /** Single (daemon) thread that logs the report periodically, if enabled. */
+  private ScheduledExecutorService reportScheduler;
+
+  /**
+   * Constructor.
+   *
+   * @param threshold the latency above which a search is logged
+   * @param unit the unit of {@code threshold}
+   */
+  public SlowSearchLog(final long threshold, final TimeUnit unit) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Threshold must not be negative");
+    }
+    this.thresholdNanos = unit.toNanos(threshold);
+  }
+
+  /**
+   * @return the latency above which a search is logged, in nanoseconds.
+   */
+  public long getThresholdNanos() {
+    return this.thresholdNanos;
+  }
+
+  /**
+   * Records a completed search, and logs it if it took longer than the threshold.
+   *
+   * @param fingerprint the fingerprint of the search
+   * @param origin the class in which the search was written, or <code>null</code>
+   * @param opaqueId the {@link OpaqueId} of the search request, or <code>null</code>
+   * @param index the name of the index
+   * @param type the document type
+   * @param latencyNanos the time between the sending of the request and the decoding of its
+   *        response, in nanoseconds
+   * @param tookMillis the time that Elasticsearch spent executing the search, in milliseconds
+   * @param hits the number of hits in the response
+   * @param totalHits the total number of documents matching the search
+   */
+  public void record(final String fingerprint, final String origin, final String opaqueId,
+      final String index, final String type, final long latencyNanos, final long tookMillis,
+      final int hits, final long totalHits) {
+    final FingerprintStats stats = this.fingerprintStats.computeIfAbsent(fingerprint,
+        key -> new FingerprintStats(fingerprint, origin));
+    stats.latency.record(latencyNanos);
+    stats.tookMillis.addAndGet(tookMillis);
+    stats.hits.addAndGet(hits);
+    if (latencyNanos > this.thresholdNanos) {
+      stats.slowSearches.incrementAndGet();
+      LOGGER.warn("Slow search on {}/{} from {} [{}] in {}ms (took {}ms, {}/{} hits): {}", index,
+          type, origin, opaqueId, TimeUnit.NANOSECONDS.toMillis(latencyNanos), tookMillis, hits,
+          totalHits, fingerprint);
+    }
+  }
+
+  /**
+   * @param limit the maximum number of fingerprints to return
+   * @return the statistics of the most expensive fingerprints, i.e., those whose searches spent
+   *         the longest time in total, in descending order.
+   */
+  public List<FingerprintStats> getTopFingerprints(final int limit) {
+    final List<FingerprintStats> result = new ArrayList<>(this.fingerprintStats.values());
+    result.sort(Comparator.comparingLong(FingerprintStats::getTotalLatencyNanos).reversed());
+    return Collections.unmodifiableList(result.subList(0, Math.min(limit, result.size())));
+  }
+
+  /**
+   * @param limit the maximum number of fingerprints to report
+   * @return the statistics of the most expensive fingerprints, one line per fingerprint.
+   * @see #getTopFingerprints(int)
+   */
+  public String report(final int limit) {
+    return getTopFingerprints(limit).stream().map(FingerprintStats::toString)
+        .collect(Collectors.joining(System.lineSeparator()));
+  }
+
+  /**
+   * Logs the report of the most expensive fingerprints (at the <code>INFO</code> level) every
+   * {@code period}, from a daemon thread, until {@link #stopReporting()} is called.
+   *
+   * @param period the delay between two reports
+   * @param unit the unit of {@code period}
+   * @param limit the maximum number of fingerprints per report
+   * @return this {@link SlowSearchLog} for method calls chaining
+   */
+  public synchronized SlowSearchLog reportEvery(final long period, final TimeUnit unit,
+      final int limit) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("Report period must be greater than 0");
+    }
+    stopReporting();
+    this.reportScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "lambdamatic-slow-search-report");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.reportScheduler.scheduleAtFixedRate(() -> logReport(limit), period, period, unit);
+    return this;
+  }
+
+  private void logReport(final int limit) {
+    if (!this.fingerprintStats.isEmpty()) {
+      LOGGER.info("Most expensive searches:{}{}", System.lineSeparator(), report(limit));
+    }
+  }
+
+  /**
+   * Stops the periodic report, if it was started.
+   */
+  public synchronized void stopReporting() {
+    if (this.reportScheduler != null) {
+      this.reportScheduler.shutdownNow();
+      this.reportScheduler = null;
+    }
+  }
+
+  /**
+   * Discards all statistics.
+   */
+  public void clear() {
+    this.fingerprintStats.clear();
+  }
+
+  @Override
+  public String toString() {
+    return report(Integer.MAX_VALUE);
+  }
+
+  /**
+   * The statistics of the searches with the same fingerprint.
+   */
+  public static class FingerprintStats {
+
+    private final String fingerprint;
+
+    private final String origin;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final AtomicLong slowSearches = new AtomicLong();
+
+    private final AtomicLong tookMillis = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    FingerprintStats(final String fingerprint, final String origin) {
+      this.fingerprint = fingerprint;
+      this.origin = origin;
+    }
+
+    public String getFingerprint() {
+      return this.fingerprint;
+    }
+
+    /**
+     * @return the class in which the first search with this fingerprint was written, or
+     *         <code>null</code>.
+     */
+    public String getOrigin() {
+      return this.origin;
+    }
+
+    /**
+     * @return the {@link LatencyHistogram} of the searches.
+     */
+    public LatencyHistogram getLatency() {
+      return this.latency;
+    }
+
+    /**
+     * @return the total latency of the searches, in nanoseconds.
+     */
+    public long getTotalLatencyNanos() {
+      return this.latency.getTotalNanos();
+    }
+
+    /**
+     * @return the number of searches that took longer than the threshold.
+     */
+    public long getSlowSearches() {
+      return this.slowSearches.get();
+    }
+
+    /**
+     * @return the total time that Elasticsearch spent executing the searches, in milliseconds.
+     */
+    public long getTookMillis() {
+      return this.tookMillis.get();
+    }
+
+    /**
+     * @return the total number of hits returned by the searches.
+     */
+    public long getHits() {
+      return this.hits.get();
+    }
+
+    @Override
+    public String toString() {
+      return this.fingerprint + " (" + this.origin + "): searches=" + this.latency.getCount()
+          + ", slow=" + getSlowSearches() + ", totalMs="
+          + TimeUnit.NANOSECONDS.toMillis(getTotalLatencyNanos()) + ", tookMs=" + getTookMillis()
+          + ", hits=" + getHits() + ", latency=" + this.latency;
+    }
+
+  }
+
+}
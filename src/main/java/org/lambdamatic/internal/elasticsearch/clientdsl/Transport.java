@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+
+/**
+ * The HTTP stack that sends the requests of a {@link Client} to a single Elasticsearch node. All
+ * requests of a {@link Client} go through the {@link Transport} of the node it selected, so that
+ * the HTTP stack can be swapped without changing the {@link Client}.
+ *
+ * <p>
+ * Implementations stream the request entity to the node and hand the response to the given
+ * {@link HttpAsyncResponseConsumer}, which buffers (and possibly decompresses) its body, and which
+ * may abort the request by failing. As with the low-level REST client, a response with an error
+ * status is reported as a {@link ResponseException}, except a <code>404 Not Found</code> response
+ * to a <code>HEAD</code> request.
+ * </p>
+ *
+ * @see ClientConfig#transport(TransportFactory)
+ */
+public interface Transport extends Closeable {
+
+  /**
+   * Builds the {@link Transport} of each node.
+   */
+  @FunctionalInterface
+  interface TransportFactory {
+
+    /**
+     * Builds the {@link Transport} to the given node.
+     *
+     * @param host the host of the node
+     * @param config the settings of the connections
+     * @return the {@link Transport}
+     */
+    Transport create(HttpHost host, ClientConfig config);
+
+  }
+
+  /**
+   * @return the host of the node that this {@link Transport} sends the requests to.
+   */
+  HttpHost getHost();
+
+  /**
+   * Sends a request and waits for its response.
+   *
+   * @param method the HTTP method
+   * @param endpoint the path of the request
+   * @param params the query string parameters
+   * @param entity the request body, or <code>null</code>
+   * @param responseConsumer the consumer of the response
+   * @param headers the request headers
+   * @return the {@link Response}
+   * @throws ResponseException if the response has an error status
+   * @throws IOException if the request failed
+   */
+  Response performRequest(String method, String endpoint, Map<String, String> params,
+      HttpEntity entity, HttpAsyncResponseConsumer<HttpResponse> responseConsumer,
+      Header... headers) throws IOException;
+
+  /**
+   * Sends a request without waiting for its response.
+   *
+   * @param method the HTTP method
+   * @param endpoint the path of the request
+   * @param params the query string parameters
+   * @param entity the request body, or <code>null</code>
+   * @param responseConsumer the consumer of the response
+   * @param responseListener the listener notified with the {@link Response}, or with a
+   *        {@link ResponseException} if the response has an error status
+   * @param headers the request headers
+   */
+  void performRequest(String method, String endpoint, Map<String, String> params,
+      HttpEntity entity, HttpAsyncResponseConsumer<HttpResponse> responseConsumer,
+      ResponseListener responseListener, Header... headers);
+
+}
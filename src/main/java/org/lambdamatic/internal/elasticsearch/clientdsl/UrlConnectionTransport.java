@@ -0,0 +1,358 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.RequestLine;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicRequestLine;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.BasicHttpContext;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+
+/**
+ * A {@link Transport} that sends the requests with the {@link HttpURLConnection} of the JDK, on a
+ * pool of (daemon) threads: the asynchronous requests are sent and their responses received by
+ * one thread each, and the synchronous requests by the calling thread.
+ *
+ * <p>
+ * The connect and socket timeouts of the {@link ClientConfig} apply, and at most
+ * {@link ClientConfig#getMaxConnectionsPerRoute()} asynchronous requests are sent concurrently.
+ * The idle connections are kept alive by the JDK, as configured by its <code>http.keepAlive</code>
+ * and <code>http.maxConnections</code> system properties. Note that {@link HttpURLConnection}
+ * sends a <code>GET</code> request with a body as a <code>POST</code> request, which Elasticsearch
+ * accepts on all its search and multi-get endpoints.
+ * </p>
+ *
+ * <p>
+ * The {@link Response} and {@link ResponseException} of the low-level REST client cannot be built
+ * outside of its package, so they are built through their (package-private) constructors.
+ * </p>
+ */
+public class UrlConnectionTransport implements Transport {
+
+  private static final Constructor<Response> RESPONSE_CONSTRUCTOR;
+
+  private static final Constructor<ResponseException> RESPONSE_EXCEPTION_CONSTRUCTOR;
+
+  static {
+    try {
+      RESPONSE_CONSTRUCTOR = Response.class.getDeclaredConstructor(RequestLine.class,
+          HttpHost.class, HttpResponse.class);
+      RESPONSE_CONSTRUCTOR.setAccessible(true);
+      RESPONSE_EXCEPTION_CONSTRUCTOR =
+          ResponseException.class.getDeclaredConstructor(Response.class);
+      RESPONSE_EXCEPTION_CONSTRUCTOR.setAccessible(true);
+    } catch (NoSuchMethodException | SecurityException e) {
+      throw new IllegalStateException("Unsupported version of the low-level REST client", e);
+    }
+  }
+
+  /** The connection is never suspended, as its response body is read by a blocking stream. */
+  private static final IOControl BLOCKING_IO_CONTROL = new IOControl() {
+
+    @Override
+    public void requestInput() {
+      // always reading
+    }
+
+    @Override
+    public void suspendInput() {
+      // always reading
+    }
+
+    @Override
+    public void requestOutput() {
+      // the request was already sent
+    }
+
+    @Override
+    public void suspendOutput() {
+      // the request was already sent
+    }
+
+    @Override
+    public void shutdown() {
+      // the connection is disconnected when the consumer fails
+    }
+  };
+
+  private final HttpHost host;
+
+  private final int connectTimeoutMillis;
+
+  private final int socketTimeoutMillis;
+
+  /** Sends the asynchronous requests. */
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Constructor.
+   *
+   * @param host the host of the node
+   * @param config the settings of the connections
+   */
+  public UrlConnectionTransport(final HttpHost host, final ClientConfig config) {
+    this.host = host;
+    this.connectTimeoutMillis = config.getConnectTimeoutMillis();
+    this.socketTimeoutMillis = config.getSocketTimeoutMillis();
+    this.executor = new ThreadPoolExecutor(config.getMaxConnectionsPerRoute(),
+        config.getMaxConnectionsPerRoute(), 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        runnable -> {
+          final Thread thread = new Thread(runnable, "lambdamatic-transport-" + host);
+          thread.setDaemon(true);
+          return thread;
+        });
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  public HttpHost getHost() {
+    return this.host;
+  }
+
+  @Override
+  public Response performRequest(final String method, final String endpoint,
+      final Map<String, String> params, final HttpEntity entity,
+      final HttpAsyncResponseConsumer<HttpResponse> responseConsumer, final Header... headers)
+      throws IOException {
+    final String uri = endpoint + queryString(params);
+    final HttpURLConnection connection =
+        (HttpURLConnection) new URL(this.host.toURI() + uri).openConnection();
+    final HttpResponse httpResponse;
+    try {
+      httpResponse = send(connection, method, entity, responseConsumer, headers);
+    } finally {
+      responseConsumer.close();
+    }
+    final Response response = newResponse(
+        new BasicRequestLine(method, uri, HttpVersion.HTTP_1_1), this.host, httpResponse);
+    final int statusCode = httpResponse.getStatusLine().getStatusCode();
+    if (statusCode >= 300 && !(method.equals("HEAD") && statusCode == HttpStatus.SC_NOT_FOUND)) {
+      throw newResponseException(response);
+    }
+    return response;
+  }
+
+  @Override
+  public void performRequest(final String method, final String endpoint,
+      final Map<String, String> params, final HttpEntity entity,
+      final HttpAsyncResponseConsumer<HttpResponse> responseConsumer,
+      final ResponseListener responseListener, final Header... headers) {
+    try {
+      this.executor.execute(() -> {
+        final Response response;
+        try {
+          response = performRequest(method, endpoint, params, entity, responseConsumer, headers);
+        } catch (IOException | RuntimeException e) {
+          responseListener.onFailure(e);
+          return;
+        }
+        responseListener.onSuccess(response);
+      });
+    } catch (RejectedExecutionException e) {
+      responseListener.onFailure(e);
+    }
+  }
+
+  /**
+   * Sends the request on the given connection, and hands its response to the given consumer.
+   *
+   * @return the response built by the consumer
+   */
+  private HttpResponse send(final HttpURLConnection connection, final String method,
+      final HttpEntity entity, final HttpAsyncResponseConsumer<HttpResponse> responseConsumer,
+      final Header... headers) throws IOException {
+    connection.setRequestMethod(method);
+    connection.setConnectTimeout(this.connectTimeoutMillis);
+    connection.setReadTimeout(this.socketTimeoutMillis);
+    connection.setUseCaches(false);
+    connection.setInstanceFollowRedirects(false);
+    for (Header header : headers) {
+      connection.addRequestProperty(header.getName(), header.getValue());
+    }
+    if (entity != null) {
+      if (entity.getContentType() != null) {
+        connection.setRequestProperty(HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+      }
+      if (entity.getContentEncoding() != null) {
+        connection.setRequestProperty(HttpHeaders.CONTENT_ENCODING,
+            entity.getContentEncoding().getValue());
+      }
+      connection.setDoOutput(true);
+      if (entity.getContentLength() >= 0) {
+        connection.setFixedLengthStreamingMode(entity.getContentLength());
+      } else {
+        connection.setChunkedStreamingMode(0);
+      }
+    }
+    try {
+      connection.connect();
+    } catch (SocketTimeoutException e) {
+      // same exception as the asynchronous client, which tells that the request was not sent
+      throw new ConnectTimeoutException(e, this.host);
+    }
+    if (entity != null) {
+      try (final OutputStream requestBody = connection.getOutputStream()) {
+        entity.writeTo(requestBody);
+      }
+    }
+    final int statusCode = connection.getResponseCode();
+    final BasicHttpResponse httpResponse =
+        new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, connection.getResponseMessage());
+    for (int i = 0; connection.getHeaderField(i) != null; i++) {
+      // the status line is the header without a name
+      if (connection.getHeaderFieldKey(i) != null) {
+        httpResponse.addHeader(connection.getHeaderFieldKey(i), connection.getHeaderField(i));
+      }
+    }
+    final InputStream responseBody = statusCode >= HttpStatus.SC_BAD_REQUEST
+        ? connection.getErrorStream() : connection.getInputStream();
+    if (responseBody != null && !method.equals("HEAD")) {
+      final BasicHttpEntity responseEntity = new BasicHttpEntity();
+      responseEntity.setContent(responseBody);
+      responseEntity.setContentLength(connection.getContentLengthLong());
+      responseEntity.setContentType(httpResponse.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+      responseEntity.setContentEncoding(httpResponse.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+      httpResponse.setEntity(responseEntity);
+    }
+    try {
+      responseConsumer.responseReceived(httpResponse);
+      if (httpResponse.getEntity() != null) {
+        final StreamContentDecoder decoder = new StreamContentDecoder(responseBody);
+        while (!decoder.isCompleted()) {
+          responseConsumer.consumeContent(decoder, BLOCKING_IO_CONTROL);
+        }
+      }
+      responseConsumer.responseCompleted(new BasicHttpContext());
+    } catch (IOException | HttpException | RuntimeException e) {
+      responseConsumer.failed(e);
+      // the rest of the response body is not read, so the connection cannot be reused
+      connection.disconnect();
+      throw e instanceof IOException ? (IOException) e : new IOException(e);
+    } finally {
+      if (responseBody != null) {
+        responseBody.close();
+      }
+    }
+    if (responseConsumer.getResult() == null) {
+      throw new IOException("Failed to read the response", responseConsumer.getException());
+    }
+    return responseConsumer.getResult();
+  }
+
+  private static String queryString(final Map<String, String> params)
+      throws UnsupportedEncodingException {
+    if (params.isEmpty()) {
+      return "";
+    }
+    final StringBuilder queryString = new StringBuilder();
+    for (Entry<String, String> param : params.entrySet()) {
+      queryString.append(queryString.length() == 0 ? '?' : '&')
+          .append(URLEncoder.encode(param.getKey(), StandardCharsets.UTF_8.name())).append('=')
+          .append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8.name()));
+    }
+    return queryString.toString();
+  }
+
+  private static Response newResponse(final RequestLine requestLine, final HttpHost host,
+      final HttpResponse httpResponse) {
+    try {
+      return RESPONSE_CONSTRUCTOR.newInstance(requestLine, host, httpResponse);
+    } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Failed to build the response", e);
+    }
+  }
+
+  private static ResponseException newResponseException(final Response response)
+      throws IOException {
+    try {
+      return RESPONSE_EXCEPTION_CONSTRUCTOR.newInstance(response);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to build the response exception", e);
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new IllegalStateException("Failed to build the response exception", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * A {@link ContentDecoder} that reads the response body from a blocking stream.
+   */
+  private static class StreamContentDecoder implements ContentDecoder {
+
+    private final ReadableByteChannel channel;
+
+    private boolean completed = false;
+
+    StreamContentDecoder(final InputStream content) {
+      this.channel = Channels.newChannel(content);
+    }
+
+    @Override
+    public int read(final ByteBuffer destination) throws IOException {
+      if (this.completed) {
+        return -1;
+      }
+      final int read = this.channel.read(destination);
+      if (read == -1) {
+        this.completed = true;
+      }
+      return read;
+    }
+
+    @Override
+    public boolean isCompleted() {
+      return this.completed;
+    }
+
+  }
+
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl.responses;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.ErrorResponse.Error;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The response to a <code>_bulk</code> request.
+ */
+public class BulkResponse {
+
+  @JsonProperty("took")
+  private long took;
+
+  @JsonProperty("errors")
+  private boolean errors;
+
+  @JsonProperty("items")
+  private List<BulkItem> items;
+
+  public long getTook() {
+    return this.took;
+  }
+
+  /**
+   * @return <code>true</code> if at least one item in the bulk request failed.
+   */
+  public boolean hasErrors() {
+    return this.errors;
+  }
+
+  /**
+   * @return the result of each action, in the same order as in the bulk request.
+   */
+  public List<BulkItem> getItems() {
+    return this.items != null ? this.items : Collections.emptyList();
+  }
+
+  /**
+   * A single item in the bulk response. Only one of the fields is set, depending on the type of
+   * action that was submitted in the bulk request.
+   */
+  public static class BulkItem {
+
+    @JsonProperty("index")
+    private BulkItemResult index;
+
+    @JsonProperty("create")
+    private BulkItemResult create;
+
+    @JsonProperty("update")
+    private BulkItemResult update;
+
+    @JsonProperty("delete")
+    private BulkItemResult delete;
+
+    /**
+     * @return the result of the action, whatever its type.
+     */
+    public BulkItemResult getResult() {
+      if (this.index != null) {
+        return this.index;
+      } else if (this.create != null) {
+        return this.create;
+      } else if (this.update != null) {
+        return this.update;
+      }
+      return this.delete;
+    }
+
+  }
+
+  /**
+   * The result of a single action in a bulk request.
+   */
+  public static class BulkItemResult {
+
+    @JsonProperty("_index")
+    private String indexName;
+
+    @JsonProperty("_type")
+    private String type;
+
+    @JsonProperty("_id")
+    private String id;
+
+    @JsonProperty("status")
+    private int status;
+
+    @JsonProperty("error")
+    private Error error;
+
+    public String getIndexName() {
+      return this.indexName;
+    }
+
+    public String getType() {
+      return this.type;
+    }
+
+    public String getId() {
+      return this.id;
+    }
+
+    public int getStatus() {
+      return this.status;
+    }
+
+    public Error getError() {
+      return this.error;
+    }
+
+    /**
+     * @return <code>true</code> if the action failed.
+     */
+    public boolean isFailed() {
+      return this.error != null || this.status >= 300;
+    }
+
+  }
+
+}
@@ -21,6 +21,23 @@ public class ErrorResponse {
   @JsonProperty("error")
   private Error error;
 
+  /**
+   * Default constructor, used when reading the response.
+   */
+  public ErrorResponse() {
+    super();
+  }
+
+  /**
+   * Constructor for the error of a single item in a multi-document response, which has no status
+   * of its own.
+   * 
+   * @param error the {@link Error} of the item
+   */
+  public ErrorResponse(final Error error) {
+    this.error = error;
+  }
+
   public int getStatus() {
     return status;
   }
@@ -25,6 +25,9 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
  */
 public class GetDocumentResponse {
 
+  @JsonProperty("_id")
+  private String id;
+
   @JsonProperty("found")
   private boolean exists;
 
@@ -32,6 +35,13 @@ public class GetDocumentResponse {
   @JsonDeserialize(using = DocumentSourceDeserializer.class)
   private JsonNode source;
 
+  @JsonProperty("error")
+  private ErrorResponse.Error error;
+
+  public String getId() {
+    return this.id;
+  }
+
   public boolean isExists() {
     return this.exists;
   }
@@ -40,6 +50,14 @@ public class GetDocumentResponse {
     return this.source;
   }
 
+  /**
+   * @return the error that prevented retrieving the document in a <code>_mget</code> request (for
+   *         example, when its shard is unavailable), or <code>null</code>.
+   */
+  public ErrorResponse.Error getError() {
+    return this.error;
+  }
+
   static class DocumentSourceDeserializer extends JsonDeserializer<JsonNode> {
 
     @Override
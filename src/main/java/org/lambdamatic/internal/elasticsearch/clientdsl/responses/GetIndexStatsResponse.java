@@ -11,9 +11,11 @@
 
 package org.lambdamatic.internal.elasticsearch.clientdsl.responses;
 
+import java.util.List;
 import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
 
 /**
  * JSON POJO for the response to the request to get indices stats.
@@ -31,10 +33,22 @@ public class GetIndexStatsResponse {
 
     @JsonProperty("total")
     private Total total;
+
+    /** The stats of each copy of each shard, indexed by shard number. */
+    @JsonProperty("shards")
+    private Map<String, List<JsonNode>> shards;
     
     public Total getTotal() {
       return total;
     }
+
+    /**
+     * @return the number of primary shards of the index, or <code>0</code> if the stats were not
+     *         retrieved at the shard level.
+     */
+    public int getShardCount() {
+      return shards != null ? shards.size() : 0;
+    }
     
   }
   
@@ -42,10 +56,17 @@ public class GetIndexStatsResponse {
 
     @JsonProperty("docs")
     private Docs docs;
+
+    @JsonProperty("search")
+    private Search search;
     
     public Docs getDocs() {
       return docs;
     }
+
+    public Search getSearch() {
+      return search;
+    }
     
   }
   
@@ -59,6 +80,18 @@ public class GetIndexStatsResponse {
     }
     
   }
+
+  public static class Search {
+
+    /** The number of search contexts (such as scrolls) currently open. */
+    @JsonProperty("open_contexts")
+    private long openContexts;
+
+    public long getOpenContexts() {
+      return openContexts;
+    }
+
+  }
   
   
 }
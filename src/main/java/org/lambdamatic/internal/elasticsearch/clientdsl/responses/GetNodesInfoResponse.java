@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl.responses;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * JSON POJO for the response to the request to get the HTTP info of the nodes of the cluster.
+ */
+public class GetNodesInfoResponse {
+
+  @JsonProperty("nodes")
+  private Map<String, NodeInfo> nodes;
+
+  /**
+   * @return the info of the nodes, indexed by their id.
+   */
+  public Map<String, NodeInfo> getNodes() {
+    return nodes != null ? nodes : Collections.emptyMap();
+  }
+
+  public static class NodeInfo {
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("http")
+    private HttpInfo http;
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the HTTP info of the node, or <code>null</code> if HTTP is disabled on this node.
+     */
+    public HttpInfo getHttp() {
+      return http;
+    }
+
+  }
+
+  public static class HttpInfo {
+
+    /** The address to send the HTTP requests to, as <code>[hostname/]ip:port</code>. */
+    @JsonProperty("publish_address")
+    private String publishAddress;
+
+    public String getPublishAddress() {
+      return publishAddress;
+    }
+
+  }
+
+}
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl.responses;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The response to a <code>_mget</code> request.
+ */
+public class MultiGetResponse {
+
+  @JsonProperty("docs")
+  private List<GetDocumentResponse> documents;
+
+  /**
+   * @return the response for each requested document, in the same order as in the request.
+   */
+  public List<GetDocumentResponse> getDocuments() {
+    return this.documents != null ? this.documents : Collections.emptyList();
+  }
+
+}
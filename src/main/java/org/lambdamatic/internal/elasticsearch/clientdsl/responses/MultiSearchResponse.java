@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl.responses;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * The response to a <code>_msearch</code> request. Each entry is either a {@link SearchResponse}
+ * or an {@link ErrorResponse}, in the same order as the searches in the request, and is kept as a
+ * raw {@link JsonNode} until the caller knows which type to bind it to.
+ */
+public class MultiSearchResponse {
+
+  @JsonProperty("responses")
+  private List<JsonNode> responses;
+
+  public List<JsonNode> getResponses() {
+    return this.responses;
+  }
+
+  /**
+   * @param response an entry of the {@link MultiSearchResponse}
+   * @return <code>true</code> if the given entry is an {@link ErrorResponse}.
+   */
+  public static boolean isError(final JsonNode response) {
+    return response.has("error");
+  }
+
+}
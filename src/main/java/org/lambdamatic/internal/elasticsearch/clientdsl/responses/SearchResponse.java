@@ -8,6 +8,7 @@
 
 package org.lambdamatic.internal.elasticsearch.clientdsl.responses;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -22,9 +23,72 @@ import com.fasterxml.jackson.databind.JsonNode;
  */
 public class SearchResponse<D> {
 
+  @JsonProperty("_scroll_id")
+  private String scrollId;
+
+  @JsonProperty("took")
+  private long tookMillis;
+
+  @JsonProperty("timed_out")
+  private boolean timedOut;
+
+  @JsonProperty("_shards")
+  private ShardsInfo shards;
+
   @JsonProperty("hits")
   private SearchHits searchHits;
 
+  /**
+   * Constructor used when binding the response with Jackson.
+   */
+  public SearchResponse() {
+    super();
+  }
+
+  /**
+   * Constructor used by the {@link SearchResponseParser}.
+   */
+  SearchResponse(final String scrollId, final long tookMillis, final boolean timedOut,
+      final ShardsInfo shards, final SearchHits searchHits) {
+    this.scrollId = scrollId;
+    this.tookMillis = tookMillis;
+    this.timedOut = timedOut;
+    this.shards = shards;
+    this.searchHits = searchHits;
+  }
+
+  /**
+   * @return the id of the scroll context, or <code>null</code> if the search was not a scroll
+   *         search.
+   */
+  public String getScrollId() {
+    return this.scrollId;
+  }
+
+  /**
+   * @return the time that Elasticsearch spent executing the search, in milliseconds, which
+   *         excludes the time spent queuing the request and transferring the response.
+   */
+  public long getTookMillis() {
+    return this.tookMillis;
+  }
+
+  /**
+   * @return <code>true</code> if the search timeout expired before all shards were searched, in
+   *         which case the hits are the ones found so far.
+   */
+  public boolean isTimedOut() {
+    return this.timedOut;
+  }
+
+  /**
+   * @return the number of shards that could not be searched, in which case the hits are the ones
+   *         found on the other shards.
+   */
+  public int getFailedShards() {
+    return this.shards != null ? this.shards.getFailed() : 0;
+  }
+
   public List<SearchHit> getSearchHits() {
     return Arrays.asList(this.searchHits.getHits());
   }
@@ -33,6 +97,59 @@ public class SearchResponse<D> {
     return this.searchHits.getTotal();
   }
 
+  /**
+   * @return the documents of the hits, in the same order, if they were decoded while the response
+   *         was parsed.
+   * @throws IllegalStateException if the documents were not decoded.
+   * @see SearchResponseParser
+   */
+  @SuppressWarnings("unchecked")
+  public List<D> getDocuments() {
+    final List<D> documents = new ArrayList<>(this.searchHits.getHits().length);
+    for (SearchHit searchHit : this.searchHits.getHits()) {
+      if (searchHit.document == null) {
+        throw new IllegalStateException("Document of hit '" + searchHit.getId()
+            + "' was not decoded while the search response was parsed");
+      }
+      documents.add((D) searchHit.document);
+    }
+    return documents;
+  }
+
+  public static class ShardsInfo {
+
+    @JsonProperty("total")
+    private int total;
+
+    @JsonProperty("successful")
+    private int successful;
+
+    @JsonProperty("failed")
+    private int failed;
+
+    public ShardsInfo() {
+      super();
+    }
+
+    ShardsInfo(final int total, final int successful, final int failed) {
+      this.total = total;
+      this.successful = successful;
+      this.failed = failed;
+    }
+
+    public int getTotal() {
+      return this.total;
+    }
+
+    public int getSuccessful() {
+      return this.successful;
+    }
+
+    public int getFailed() {
+      return this.failed;
+    }
+  }
+
   public static class SearchHits {
 
     @JsonProperty("total")
@@ -41,6 +158,15 @@ public class SearchResponse<D> {
     @JsonProperty("hits")
     private SearchHit[] hits;
 
+    public SearchHits() {
+      super();
+    }
+
+    SearchHits(final long total, final SearchHit[] hits) {
+      this.total = total;
+      this.hits = hits;
+    }
+
     public long getTotal() {
       return this.total;
     }
@@ -64,6 +190,26 @@ public class SearchResponse<D> {
     @JsonProperty("_source")
     private JsonNode source;
 
+    @JsonProperty("sort")
+    private JsonNode sortValues;
+
+    /** The document decoded from the source of this hit, or <code>null</code>. */
+    private Object document;
+
+    public SearchHit() {
+      super();
+    }
+
+    SearchHit(final String indexName, final String type, final String id, final JsonNode source,
+        final JsonNode sortValues, final Object document) {
+      this.indexName = indexName;
+      this.type = type;
+      this.id = id;
+      this.source = source;
+      this.sortValues = sortValues;
+      this.document = document;
+    }
+
     public String getIndexName() {
       return this.indexName;
     }
@@ -76,10 +222,22 @@ public class SearchResponse<D> {
       return this.id;
     }
 
+    /**
+     * @return the source of this hit, or <code>null</code> if it was directly decoded into a
+     *         document while the search response was parsed.
+     */
     public JsonNode getSource() {
       return this.source;
     }
 
+    /**
+     * @return the sort values of this hit, as a JSON array, or <code>null</code> if the search
+     *         request was not sorted.
+     */
+    public JsonNode getSortValues() {
+      return this.sortValues;
+    }
+
   }
 
 }
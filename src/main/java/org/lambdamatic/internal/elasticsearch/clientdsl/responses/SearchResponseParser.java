@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl.responses;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse.SearchHit;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse.SearchHits;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse.ShardsInfo;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A streaming parser for the body of a search response, which walks the <code>hits.hits</code>
+ * array and hands the <code>_source</code> of each hit to a {@link SourceDecoder} while the body is
+ * read, so that documents are bound to their domain type without building an intermediate
+ * {@link JsonNode} tree (nor a {@link String}) for each hit.
+ */
+public class SearchResponseParser {
+
+  /**
+   * Decodes the source of a hit into a document.
+   *
+   * @param <D> the type of the domain document.
+   */
+  @FunctionalInterface
+  public interface SourceDecoder<D> {
+
+    /**
+     * Decodes the source of a hit.
+     *
+     * @param documentId the id of the hit
+     * @param sourceParser the parser positioned on the {@link JsonToken#START_OBJECT} of the
+     *        source, which must be consumed up to its matching {@link JsonToken#END_OBJECT}
+     * @return the decoded document
+     * @throws IOException if reading the source failed
+     */
+    D decode(String documentId, JsonParser sourceParser) throws IOException;
+  }
+
+  private SearchResponseParser() {
+    // utility class
+  }
+
+  /**
+   * Parses the body of a search response.
+   *
+   * @param parser the parser of the response body, which must have an
+   *        {@link com.fasterxml.jackson.core.ObjectCodec}
+   * @param sourceDecoder the decoder of the source of each hit, or <code>null</code> to keep the
+   *        sources as {@link JsonNode}s
+   * @return the {@link SearchResponse}
+   * @throws IOException if reading the response body failed
+   */
+  public static <D> SearchResponse<D> parse(final JsonParser parser,
+      final SourceDecoder<D> sourceDecoder) throws IOException {
+    expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+    String scrollId = null;
+    long tookMillis = 0;
+    boolean timedOut = false;
+    ShardsInfo shards = null;
+    SearchHits searchHits = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String fieldName = parser.getCurrentName();
+      final JsonToken valueToken = parser.nextToken();
+      if (valueToken == JsonToken.VALUE_NULL) {
+        continue;
+      }
+      switch (fieldName) {
+        case "_scroll_id":
+          scrollId = parser.getText();
+          break;
+        case "took":
+          tookMillis = parser.getLongValue();
+          break;
+        case "timed_out":
+          timedOut = parser.getBooleanValue();
+          break;
+        case "_shards":
+          shards = parseShardsInfo(parser);
+          break;
+        case "hits":
+          searchHits = parseSearchHits(parser, sourceDecoder);
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return new SearchResponse<>(scrollId, tookMillis, timedOut, shards, searchHits);
+  }
+
+  private static ShardsInfo parseShardsInfo(final JsonParser parser) throws IOException {
+    expect(parser, parser.getCurrentToken(), JsonToken.START_OBJECT);
+    int total = 0;
+    int successful = 0;
+    int failed = 0;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String fieldName = parser.getCurrentName();
+      final JsonToken valueToken = parser.nextToken();
+      if (!valueToken.isNumeric()) {
+        // e.g. the "failures" array
+        parser.skipChildren();
+      } else if (fieldName.equals("total")) {
+        total = parser.getIntValue();
+      } else if (fieldName.equals("successful")) {
+        successful = parser.getIntValue();
+      } else if (fieldName.equals("failed")) {
+        failed = parser.getIntValue();
+      }
+    }
+    return new ShardsInfo(total, successful, failed);
+  }
+
+  private static <D> SearchHits parseSearchHits(final JsonParser parser,
+      final SourceDecoder<D> sourceDecoder) throws IOException {
+    expect(parser, parser.getCurrentToken(), JsonToken.START_OBJECT);
+    long total = 0;
+    final List<SearchHit> hits = new ArrayList<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String fieldName = parser.getCurrentName();
+      final JsonToken valueToken = parser.nextToken();
+      if (fieldName.equals("total") && valueToken.isNumeric()) {
+        total = parser.getLongValue();
+      } else if (fieldName.equals("hits") && valueToken == JsonToken.START_ARRAY) {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          hits.add(parseSearchHit(parser, sourceDecoder));
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return new SearchHits(total, hits.toArray(new SearchHit[hits.size()]));
+  }
+
+  private static <D> SearchHit parseSearchHit(final JsonParser parser,
+      final SourceDecoder<D> sourceDecoder) throws IOException {
+    String indexName = null;
+    String type = null;
+    String id = null;
+    JsonNode source = null;
+    JsonNode sortValues = null;
+    D document = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String fieldName = parser.getCurrentName();
+      final JsonToken valueToken = parser.nextToken();
+      switch (fieldName) {
+        case "_index":
+          indexName = parser.getText();
+          break;
+        case "_type":
+          type = parser.getText();
+          break;
+        case "_id":
+          id = parser.getText();
+          break;
+        case "_source":
+          // Elasticsearch writes the id before the source, but the source is kept as a tree
+          // otherwise, so that the decoder is always given the id
+          if (sourceDecoder != null && id != null && valueToken == JsonToken.START_OBJECT) {
+            document = sourceDecoder.decode(id, parser);
+          } else {
+            source = parser.readValueAsTree();
+          }
+          break;
+        case "sort":
+          sortValues = parser.readValueAsTree();
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    if (sourceDecoder != null && document == null && source != null && source.isObject()) {
+      try (final JsonParser sourceParser = source.traverse(parser.getCodec())) {
+        sourceParser.nextToken();
+        document = sourceDecoder.decode(id, sourceParser);
+      }
+      source = null;
+    }
+    return new SearchHit(indexName, type, id, source, sortValues, document);
+  }
+
+  private static void expect(final JsonParser parser, final JsonToken actualToken,
+      final JsonToken expectedToken) throws JsonParseException {
+    if (actualToken != expectedToken) {
+      throw new JsonParseException(parser,
+          "Expected " + expectedToken + " in search response but got " + actualToken);
+    }
+  }
+
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.lambdamatic.elasticsearch.annotations.RoutingField;
+import org.lambdamatic.elasticsearch.exceptions.CodecException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * A utility class to encode the actions of a <code>_bulk</code> request, using the newline
+ * delimited JSON format (NDJSON) expected by Elasticsearch.
+ *
+ * @see <a href="https://www.elastic.co/guide/en/elasticsearch/reference/master/docs-bulk.html">
+ *      Elasticsearch Bulk API documentation</a>
+ */
+public class BulkRequestCodec {
+
+  /** The line separator between each JSON document in the bulk request body. */
+  private static final byte NEW_LINE = '\n';
+
+  /** The {@link JsonFactory} to write the action metadata. */
+  private final JsonFactory jsonFactory = new JsonFactory();
+
+  /**
+   * Encodes an <code>index</code> action along with the given document source.
+   * <p>
+   * When a {@code documentId} is provided, the action is a <code>create</code> action, to obtain
+   * the same "put-if-absent" behaviour as the single document index operation. Otherwise, the
+   * action is an <code>index</code> action and the document id is generated by Elasticsearch.
+   * </p>
+   *
+   * @param indexName the name of the target index
+   * @param type the type of the document
+   * @param documentId the id of the document, or <code>null</code> to let Elasticsearch generate
+   *        one
+   * @param documentSource the JSON source of the document
+   * @return the two lines (action metadata and document source) of the bulk request body as a
+   *         UTF-8 encoded byte array
+   */
+  public byte[] encodeIndexAction(final String indexName, final String type,
+      final String documentId, final String documentSource) {
+    final byte[] source = documentSource.getBytes(StandardCharsets.UTF_8);
+    final ByteArrayOutputStream output = new ByteArrayOutputStream(source.length + 128);
+    writeActionMetadata(indexName, type, documentId, null, output);
+    output.write(source, 0, source.length);
+    output.write(NEW_LINE);
+    return output.toByteArray();
+  }
+
+  /**
+   * Encodes an <code>index</code> action along with the source of the given document, which is
+   * written directly after the action metadata, without being materialized as a {@link String}.
+   * The action is routed on the value of the field annotated with {@link RoutingField}, if any.
+   *
+   * @param indexName the name of the target index
+   * @param type the type of the document
+   * @param documentId the id of the document, or <code>null</code> to let Elasticsearch generate
+   *        one
+   * @param document the document to index
+   * @param documentCodec the {@link DocumentCodec} to write the document source
+   * @return the two lines (action metadata and document source) of the bulk request body as a
+   *         UTF-8 encoded byte array
+   * @see #encodeIndexAction(String, String, String, String)
+   */
+  public <D> byte[] encodeIndexAction(final String indexName, final String type,
+      final String documentId, final D document, final DocumentCodec<D> documentCodec) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream(512);
+    writeActionMetadata(indexName, type, documentId,
+        documentCodec.getDomainObjectRouting(document), output);
+    documentCodec.encode(document, output);
+    output.write(NEW_LINE);
+    return output.toByteArray();
+  }
+
+  private void writeActionMetadata(final String indexName, final String type,
+      final String documentId, final String routing, final ByteArrayOutputStream output) {
+    try (final JsonGenerator generator =
+        this.jsonFactory.createGenerator(output, JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+      generator.writeObjectFieldStart(documentId != null ? "create" : "index");
+      generator.writeStringField("_index", indexName);
+      generator.writeStringField("_type", type);
+      if (documentId != null) {
+        generator.writeStringField("_id", documentId);
+      }
+      if (routing != null) {
+        generator.writeStringField("_routing", routing);
+      }
+      generator.writeEndObject(); // end action
+      generator.writeEndObject(); // end root
+    } catch (IOException e) {
+      throw new CodecException("Failed to write bulk action metadata", e);
+    }
+    output.write(NEW_LINE);
+  }
+
+}
@@ -28,6 +28,10 @@ public class CodecRegistry {
   
   private final DocumentSearchCodec documentSearchCodec = new DocumentSearchCodec();
 
+  private final BulkRequestCodec bulkRequestCodec = new BulkRequestCodec();
+
+  private final SearchCursorCodec searchCursorCodec = new SearchCursorCodec();
+
   /**
    * Registers a new {@link DocumentCodec} for a given type.
    * 
@@ -101,4 +105,12 @@ public class CodecRegistry {
     return this.documentSearchCodec;
   }
 
+  public BulkRequestCodec getBulkRequestCodec() {
+    return this.bulkRequestCodec;
+  }
+
+  public SearchCursorCodec getSearchCursorCodec() {
+    return this.searchCursorCodec;
+  }
+
 }
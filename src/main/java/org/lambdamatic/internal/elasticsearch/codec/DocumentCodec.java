@@ -13,6 +13,7 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -20,15 +21,22 @@ import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.apache.commons.io.output.CountingOutputStream;
 import org.lambdamatic.elasticsearch.annotations.Document;
 import org.lambdamatic.elasticsearch.annotations.DocumentIdField;
 import org.lambdamatic.elasticsearch.annotations.EmbeddedDocument;
+import org.lambdamatic.elasticsearch.annotations.RoutingField;
 import org.lambdamatic.elasticsearch.exceptions.CodecException;
 import org.lambdamatic.elasticsearch.exceptions.DomainTypeException;
 import org.lambdamatic.internal.elasticsearch.MappingException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentFormat;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse.SearchHit;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents.CodecEvent;
 import org.lambdamatic.internal.elasticsearch.utils.Pair;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -97,14 +105,80 @@ public class DocumentCodec<T> {
     if (domainObject == null) {
       return null;
     }
+    final CodecEvent codecEvent = FlightRecorderEvents.beginCodec();
     try {
-      return this.objectMapper.writeValueAsString(domainObject);
+      final String documentSource = this.objectMapper.writeValueAsString(domainObject);
+      if (codecEvent != null) {
+        codecEvent.commit("encode", this.domainType.getName(), null, ContentFormat.JSON.name(),
+            documentSource.length());
+      }
+      return documentSource;
     } catch (JsonProcessingException e) {
       throw new CodecException("Failed to convert domain object of type '"
           + this.domainType.getName() + "' into a document source", e);
     }
   }
 
+  /**
+   * Writes the given {@code document} as a UTF-8 encoded JSON document source into the given
+   * {@code output}, without materializing it as a {@link String} first. The {@code output} is not
+   * closed.
+   * 
+   * @param domainObject the document to convert
+   * @param output the {@link OutputStream} to write into
+   * @see DocumentCodec#encode(Object)
+   */
+  public void encode(final Object domainObject, final OutputStream output) {
+    final CodecEvent codecEvent = FlightRecorderEvents.beginCodec();
+    final OutputStream eventOutput = countingOutput(codecEvent, output);
+    try {
+      this.objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+          .writeValue(eventOutput, domainObject);
+    } catch (IOException e) {
+      throw new CodecException("Failed to convert domain object of type '"
+          + this.domainType.getName() + "' into a document source", e);
+    }
+    commitEncodeEvent(codecEvent, ContentFormat.JSON, eventOutput);
+  }
+
+  /**
+   * Writes the given {@code document} as a document source in the given {@link ContentFormat}
+   * into the given {@code output}, which is not closed.
+   * 
+   * @param domainObject the document to convert
+   * @param contentFormat the format to write the document source in
+   * @param output the {@link OutputStream} to write into
+   * @see DocumentCodec#encode(Object, OutputStream)
+   */
+  public void encode(final Object domainObject, final ContentFormat contentFormat,
+      final OutputStream output) {
+    final CodecEvent codecEvent = FlightRecorderEvents.beginCodec();
+    final OutputStream eventOutput = countingOutput(codecEvent, output);
+    try (final JsonGenerator generator = contentFormat.createGenerator(eventOutput)) {
+      this.objectMapper.writeValue(generator, domainObject);
+    } catch (IOException e) {
+      throw new CodecException("Failed to convert domain object of type '"
+          + this.domainType.getName() + "' into a document source", e);
+    }
+    commitEncodeEvent(codecEvent, contentFormat, eventOutput);
+  }
+
+  /**
+   * @return an {@link OutputStream} that counts the bytes written into the given {@code output}
+   *         if the given {@link CodecEvent} is recorded, or the given {@code output} itself
+   */
+  static OutputStream countingOutput(final CodecEvent codecEvent, final OutputStream output) {
+    return codecEvent != null ? new CountingOutputStream(output) : output;
+  }
+
+  private void commitEncodeEvent(final CodecEvent codecEvent, final ContentFormat contentFormat,
+      final OutputStream eventOutput) {
+    if (codecEvent != null) {
+      codecEvent.commit("encode", this.domainType.getName(), null, contentFormat.name(),
+          ((CountingOutputStream) eventOutput).getByteCount());
+    }
+  }
+
   /**
    * Converts the elements contained in the given {@code searchHit} into a Domain instance.
    * 
@@ -115,20 +189,55 @@ public class DocumentCodec<T> {
    *         given {@code domainType} failed.
    */
   public T decode(final String documentId, final JsonNode documentSourceAsMap) {
+    final CodecEvent codecEvent = FlightRecorderEvents.beginCodec();
     final T domainObject;
     try {
-      //FIXME: this needs to be improved: we should not have to convert the Map back into a String to parse it again !
-      final String documentSource = this.objectMapper.writeValueAsString(documentSourceAsMap);
-      domainObject = this.objectMapper.readValue(documentSource, this.domainType);
+      domainObject = this.objectMapper.treeToValue(documentSourceAsMap, this.domainType);
     } catch (IOException e) {
       throw new CodecException("Failed to convert a document source into a domain object of type '"
           + this.domainType.getName() + "'", e);
     }
     setDomainObjectId(domainObject, documentId);
+    if (codecEvent != null) {
+      // the size of the source is unknown once parsed into a tree
+      codecEvent.commit("decode", this.domainType.getName(), documentId, null, 0);
+    }
     return domainObject;
 
   }
 
+  /**
+   * Reads the source of a document from the given {@link JsonParser} and binds it directly into a
+   * Domain instance, without building an intermediate tree.
+   * 
+   * @param documentId the id of the document retrieved in Elasticsearch
+   * @param documentSourceParser the parser positioned on the start of the document source, which
+   *        is left on its end
+   * @return the generated instance of DomainType
+   * @throws CodecException if the conversion of the document source into an instance of the given
+   *         {@code domainType} failed.
+   */
+  public T decode(final String documentId, final JsonParser documentSourceParser) {
+    final CodecEvent codecEvent = FlightRecorderEvents.beginCodec();
+    final long startOffset =
+        codecEvent != null ? documentSourceParser.getTokenLocation().getByteOffset() : -1;
+    final T domainObject;
+    try {
+      domainObject = this.objectMapper.readValue(documentSourceParser, this.domainType);
+    } catch (IOException e) {
+      throw new CodecException("Failed to convert a document source into a domain object of type '"
+          + this.domainType.getName() + "'", e);
+    }
+    setDomainObjectId(domainObject, documentId);
+    if (codecEvent != null) {
+      // byte offsets are only known to the parsers that read bytes rather than characters
+      final long endOffset = documentSourceParser.getCurrentLocation().getByteOffset();
+      codecEvent.commit("decode", this.domainType.getName(), documentId, null,
+          startOffset >= 0 && endOffset >= startOffset ? endOffset - startOffset : 0);
+    }
+    return domainObject;
+  }
+
   /**
    * Gets the {@code documentId} value for the given {@code domainObject} using the getter for the
    * property annotated with the {@link DocumentIdField} annotation.
@@ -150,6 +259,38 @@ public class DocumentCodec<T> {
     }
   }
 
+  /**
+   * Gets the {@code routing} value for the given {@code domainObject} using the getter for the
+   * property annotated with the {@link RoutingField} annotation.
+   * 
+   * @param domainObject the instance of DomainType from which to get the routing value
+   * @return the {@code routing} value converted as a String, or <code>null</code> if the domain
+   *         type has no routing field
+   * @throws CodecException if the domain type has a routing field but its value is
+   *         <code>null</code>, since the document could not be retrieved afterwards
+   */
+  public String getDomainObjectRouting(final Object domainObject) {
+    final Field routingField = MappingUtils.getRoutingField(domainObject.getClass());
+    if (routingField == null) {
+      return null;
+    }
+    final PropertyDescriptor routingPropertyDescriptor =
+        MappingUtils.getPropertyDescriptor(this.domainTypeBeanInfo, routingField);
+    final Object routing;
+    try {
+      routing = routingPropertyDescriptor.getReadMethod().invoke(domainObject);
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      throw new CodecException("Failed to get routing value for document of type '"
+          + domainObject.getClass().getName() + "' using method '"
+          + routingPropertyDescriptor.getReadMethod().toString() + "'", e);
+    }
+    if (routing == null) {
+      throw new CodecException("Missing routing value in field '" + routingField.getName()
+          + "' of document of type '" + domainObject.getClass().getName() + "'");
+    }
+    return routing.toString();
+  }
+
   /**
    * Sets the given {@code documentId} value to the given {@code domainObject} using the setter for
    * the property annotated with the {@link DocumentIdField} annotation.
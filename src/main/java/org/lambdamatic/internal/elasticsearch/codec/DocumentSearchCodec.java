@@ -8,7 +8,14 @@
 
 package org.lambdamatic.internal.elasticsearch.codec;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.io.output.CountingOutputStream;
 import org.lambdamatic.elasticsearch.exceptions.CodecException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentFormat;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents.CodecEvent;
 import org.lambdamatic.internal.elasticsearch.searchdsl.BooleanQuery;
 import org.lambdamatic.internal.elasticsearch.searchdsl.DocumentSearch;
 import org.lambdamatic.internal.elasticsearch.searchdsl.GeoBoundingBoxQuery;
@@ -16,6 +23,7 @@ import org.lambdamatic.internal.elasticsearch.searchdsl.MatchQuery;
 import org.lambdamatic.internal.elasticsearch.searchdsl.RangeQuery;
 import org.lambdamatic.internal.elasticsearch.searchdsl.TermQuery;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -56,11 +64,64 @@ public class DocumentSearchCodec {
   }
 
   public <D, Q, F> String encode(final DocumentSearch documentSearch) {
+    final CodecEvent codecEvent = FlightRecorderEvents.beginCodec();
     try {
-      return this.objectMapper.writeValueAsString(documentSearch);
+      final String searchRequest = this.objectMapper.writeValueAsString(documentSearch);
+      if (codecEvent != null) {
+        codecEvent.commit("encode", "search", null, ContentFormat.JSON.name(),
+            searchRequest.length());
+      }
+      return searchRequest;
     } catch (JsonProcessingException e) {
       throw new CodecException("Failed to convert search request into a JSON document", e);
     }
   }
 
+  /**
+   * Writes the given {@link DocumentSearch} as a UTF-8 encoded JSON document into the given
+   * {@code output}, which is not closed.
+   * 
+   * @param documentSearch the search request to encode
+   * @param output the {@link OutputStream} to write into
+   */
+  public void encode(final DocumentSearch documentSearch, final OutputStream output) {
+    final CodecEvent codecEvent = FlightRecorderEvents.beginCodec();
+    final OutputStream eventOutput = DocumentCodec.countingOutput(codecEvent, output);
+    try {
+      this.objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+          .writeValue(eventOutput, documentSearch);
+    } catch (IOException e) {
+      throw new CodecException("Failed to convert search request into a JSON document", e);
+    }
+    commitEncodeEvent(codecEvent, ContentFormat.JSON, eventOutput);
+  }
+
+  /**
+   * Writes the given {@link DocumentSearch} in the given {@link ContentFormat} into the given
+   * {@code output}, which is not closed.
+   * 
+   * @param documentSearch the search request to encode
+   * @param contentFormat the format to write the search request in
+   * @param output the {@link OutputStream} to write into
+   */
+  public void encode(final DocumentSearch documentSearch, final ContentFormat contentFormat,
+      final OutputStream output) {
+    final CodecEvent codecEvent = FlightRecorderEvents.beginCodec();
+    final OutputStream eventOutput = DocumentCodec.countingOutput(codecEvent, output);
+    try (final JsonGenerator generator = contentFormat.createGenerator(eventOutput)) {
+      this.objectMapper.writeValue(generator, documentSearch);
+    } catch (IOException e) {
+      throw new CodecException("Failed to convert search request into a document", e);
+    }
+    commitEncodeEvent(codecEvent, contentFormat, eventOutput);
+  }
+
+  private static void commitEncodeEvent(final CodecEvent codecEvent,
+      final ContentFormat contentFormat, final OutputStream eventOutput) {
+    if (codecEvent != null) {
+      codecEvent.commit("encode", "search", null, contentFormat.name(),
+          ((CountingOutputStream) eventOutput).getByteCount());
+    }
+  }
+
 }
@@ -11,6 +11,7 @@ package org.lambdamatic.internal.elasticsearch.codec;
 import java.io.IOException;
 
 import org.lambdamatic.internal.elasticsearch.searchdsl.DocumentSearch;
+import org.lambdamatic.internal.elasticsearch.searchdsl.SortField;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -42,7 +43,35 @@ public class DocumentSearchSerializer extends JsonSerializer<DocumentSearch> {
     }
     generator.writeEndObject(); // end "bool"
     generator.writeEndObject(); // end "query"
-    // TODO: other search criteria (sort, from/size, etc.) come here
+    if (documentSearch.getSize() != null) {
+      generator.writeNumberField("size", documentSearch.getSize());
+    }
+    if (!documentSearch.getSort().isEmpty()) {
+      generator.writeArrayFieldStart("sort");
+      for (SortField sortField : documentSearch.getSort()) {
+        generator.writeStartObject();
+        generator.writeObjectFieldStart(sortField.getFieldName());
+        generator.writeStringField("order", sortField.getOrder());
+        generator.writeEndObject();
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+    }
+    if (documentSearch.getSearchAfter() != null) {
+      generator.writeFieldName("search_after");
+      generator.writeTree(documentSearch.getSearchAfter());
+    }
+    // a single slice is the same as no slice at all, and is rejected by Elasticsearch
+    if (documentSearch.getMaxSlices() > 1) {
+      generator.writeObjectFieldStart("slice");
+      generator.writeNumberField("id", documentSearch.getSliceId());
+      generator.writeNumberField("max", documentSearch.getMaxSlices());
+      generator.writeEndObject();
+    }
+    if (documentSearch.getTimeoutMillis() > 0) {
+      generator.writeStringField("timeout", documentSearch.getTimeoutMillis() + "ms");
+    }
+    // TODO: other search criteria (from, etc.) come here
     generator.writeEndObject(); // end root
 
   }
@@ -26,6 +26,7 @@ import org.lambdamatic.elasticsearch.annotations.DocumentField;
 import org.lambdamatic.elasticsearch.annotations.DocumentIdField;
 import org.lambdamatic.elasticsearch.annotations.LatitudeField;
 import org.lambdamatic.elasticsearch.annotations.LongitudeField;
+import org.lambdamatic.elasticsearch.annotations.RoutingField;
 import org.lambdamatic.elasticsearch.exceptions.CodecException;
 import org.lambdamatic.elasticsearch.exceptions.DomainTypeException;
 
@@ -183,6 +184,42 @@ public class MappingUtils {
     return mappings;
   }
 
+  /**
+   * Looks-up the field in the given {@code domainType} that is annotated with {@link RoutingField}.
+   * 
+   * @param domainType the domain type to inspect
+   * @return the routing field, or <code>null</code> if the documents of the given
+   *         {@code domainType} are routed on their id
+   * @throws CodecException if more than one field was annotated with {@link RoutingField}
+   */
+  public static Field getRoutingField(final Class<?> domainType) {
+    final List<Field> routingFields = Stream.of(domainType.getDeclaredFields())
+        .filter(domainField -> domainField.isAnnotationPresent(RoutingField.class))
+        .collect(Collectors.toList());
+    if (routingFields.size() > 1) {
+      throw new CodecException("Domain type '" + domainType.getName()
+          + "' has more than one field annotated with @" + RoutingField.class.getName() + "'");
+    }
+    return routingFields.isEmpty() ? null : routingFields.get(0);
+  }
+
+  /**
+   * Gets the name of the Elasticsearch/Lucene field annotated with {@link RoutingField} in the
+   * given {@code domainType}.
+   * 
+   * @param domainType the domain type to inspect
+   * @return the name of the routing field in the Elasticsearch/Lucene document, or
+   *         <code>null</code> if the documents of the given {@code domainType} are routed on their
+   *         id
+   */
+  public static String getRoutingFieldName(final Class<?> domainType) {
+    final Field routingField = getRoutingField(domainType);
+    if (routingField == null) {
+      return null;
+    }
+    return getDocumentFieldName(routingField, routingField.getAnnotation(DocumentField.class));
+  }
+
   /**
    * Gets the name of the Elasticsearch/Lucene field associated with the given {@code documentField}
    * annotated with the given {@code documentFieldAnnotation}.
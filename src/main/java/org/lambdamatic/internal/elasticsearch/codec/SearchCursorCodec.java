@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.codec;
+
+import java.io.IOException;
+import java.util.Base64;
+
+import org.lambdamatic.elasticsearch.exceptions.CodecException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A utility class to encode the sort values of the last hit of a page into an opaque, URL-safe
+ * cursor, and to decode such a cursor back into the <code>search_after</code> values of the
+ * request for the next page.
+ */
+public class SearchCursorCodec {
+
+  /** The {@link ObjectMapper} to read and write the sort values. */
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  /**
+   * Encodes the given sort values into a cursor.
+   * 
+   * @param sortValues the sort values of the last hit of a page, as a JSON array
+   * @return the opaque cursor
+   * @throws CodecException if the sort values could not be written
+   */
+  public String encode(final JsonNode sortValues) {
+    try {
+      return Base64.getUrlEncoder().withoutPadding()
+          .encodeToString(this.objectMapper.writeValueAsBytes(sortValues));
+    } catch (JsonProcessingException e) {
+      throw new CodecException("Failed to encode the search cursor", e);
+    }
+  }
+
+  /**
+   * Decodes the given cursor into sort values.
+   * 
+   * @param cursor a cursor obtained with {@link #encode(JsonNode)}
+   * @return the sort values, as a JSON array
+   * @throws CodecException if the given cursor is not valid
+   */
+  public JsonNode decode(final String cursor) {
+    try {
+      final JsonNode sortValues = this.objectMapper.readTree(Base64.getUrlDecoder().decode(cursor));
+      if (sortValues == null || !sortValues.isArray()) {
+        throw new CodecException("Invalid search cursor: " + cursor);
+      }
+      return sortValues;
+    } catch (IllegalArgumentException | IOException e) {
+      throw new CodecException("Invalid search cursor: " + cursor, e);
+    }
+  }
+
+}
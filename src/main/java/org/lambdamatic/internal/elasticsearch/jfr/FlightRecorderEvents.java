@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.jfr;
+
+/**
+ * Begins the JDK Flight Recorder events of the client operations, the codecs and the analysis of
+ * the query expressions.
+ *
+ * <p>
+ * Each <code>begin*()</code> method returns <code>null</code> unless its event is enabled in a
+ * running recording, so that the instrumented code only pays for a field read and a null check
+ * when Flight Recorder is not recording. The events are committed with their fields once the
+ * operation completed, possibly on another thread.
+ * </p>
+ *
+ * <p>
+ * The <code>jdk.jfr</code> classes are only loaded if they are available in the running JVM, so
+ * that the library still runs on the JVMs that do not ship Flight Recorder.
+ * </p>
+ */
+public final class FlightRecorderEvents {
+
+  /** Whether the <code>jdk.jfr</code> API is available in the running JVM. */
+  private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+  private FlightRecorderEvents() {
+    // utility class
+  }
+
+  private static boolean isFlightRecorderAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+      // also registers the event types
+      return JfrEvents.isInitialized();
+    } catch (ClassNotFoundException | LinkageError | SecurityException e) {
+      return false;
+    }
+  }
+
+  /**
+   * The event of a request sent to Elasticsearch, including its retries and hedged requests.
+   */
+  public interface RequestEvent {
+
+    /**
+     * Ends and commits this event.
+     *
+     * @param operation the name of the operation, e.g. <code>search</code>
+     * @param index the name of the index, or <code>null</code>
+     * @param type the document type, or <code>null</code>
+     * @param opaqueId the <code>X-Opaque-Id</code> header of the request, or <code>null</code>
+     * @param status the HTTP status of the response, or <code>0</code> if no response was received
+     * @param requestBytes the size of the request body as sent
+     * @param responseBytes the size of the (decompressed) response body
+     */
+    void commit(String operation, String index, String type, String opaqueId, int status,
+        long requestBytes, long responseBytes);
+
+  }
+
+  /**
+   * The event of the decoding of a response body.
+   */
+  public interface ResponseDecodingEvent {
+
+    /**
+     * Ends and commits this event.
+     *
+     * @param operation the name of the operation, e.g. <code>search</code>
+     * @param index the name of the index, or <code>null</code>
+     * @param type the document type, or <code>null</code>
+     * @param responseBytes the size of the (decompressed) response body
+     * @param hits the number of hits in the response, or <code>0</code> if it is not a search
+     *        response
+     * @param totalHits the total number of documents matching the search, or <code>0</code> if it
+     *        is not a search response
+     */
+    void commit(String operation, String index, String type, long responseBytes, long hits,
+        long totalHits);
+
+  }
+
+  /**
+   * The event of the encoding or the decoding of a document or of a search request by a codec.
+   */
+  public interface CodecEvent {
+
+    /**
+     * Ends and commits this event.
+     *
+     * @param operation <code>encode</code> or <code>decode</code>
+     * @param target the name of the domain type, or <code>search</code> for a search request
+     * @param documentId the id of the document, or <code>null</code>
+     * @param contentFormat the name of the content format, or <code>null</code> if unknown
+     * @param payloadBytes the size of the encoded content, or <code>0</code> if unknown
+     */
+    void commit(String operation, String target, String documentId, String contentFormat,
+        long payloadBytes);
+
+  }
+
+  /**
+   * The event of the analysis of a query expression (i.e., of the bytecode of a lambda
+   * expression) into a query.
+   */
+  public interface QueryAnalysisEvent {
+
+    /**
+     * Ends and commits this event.
+     *
+     * @param expressionType the class of the lambda expression
+     * @param queryType the class of the resulting query, or <code>null</code>
+     */
+    void commit(String expressionType, String queryType);
+
+  }
+
+  /**
+   * @return a new {@link RequestEvent}, or <code>null</code> if it is not recorded.
+   */
+  public static RequestEvent beginRequest() {
+    return AVAILABLE ? JfrEvents.beginRequest() : null;
+  }
+
+  /**
+   * @return a new {@link ResponseDecodingEvent}, or <code>null</code> if it is not recorded.
+   */
+  public static ResponseDecodingEvent beginResponseDecoding() {
+    return AVAILABLE ? JfrEvents.beginResponseDecoding() : null;
+  }
+
+  /**
+   * @return a new {@link CodecEvent}, or <code>null</code> if it is not recorded.
+   */
+  public static CodecEvent beginCodec() {
+    return AVAILABLE ? JfrEvents.beginCodec() : null;
+  }
+
+  /**
+   * @return a new {@link QueryAnalysisEvent}, or <code>null</code> if it is not recorded.
+   */
+  public static QueryAnalysisEvent beginQueryAnalysis() {
+    return AVAILABLE ? JfrEvents.beginQueryAnalysis() : null;
+  }
+
+}
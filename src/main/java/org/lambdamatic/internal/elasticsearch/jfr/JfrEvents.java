@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.jfr;
+
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents.CodecEvent;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents.QueryAnalysisEvent;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents.RequestEvent;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents.ResponseDecodingEvent;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JDK Flight Recorder events, which are only loaded by {@link FlightRecorderEvents} if the
+ * <code>jdk.jfr</code> API is available. An event is only instantiated if its type is enabled, and
+ * only committed if it lasted longer than its threshold.
+ */
+final class JfrEvents {
+
+  private static final String CATEGORY = "Lambdamatic Elasticsearch";
+
+  private static final EventType REQUEST_TYPE = EventType.getEventType(JfrRequestEvent.class);
+
+  private static final EventType RESPONSE_DECODING_TYPE =
+      EventType.getEventType(JfrResponseDecodingEvent.class);
+
+  private static final EventType CODEC_TYPE = EventType.getEventType(JfrCodecEvent.class);
+
+  private static final EventType QUERY_ANALYSIS_TYPE =
+      EventType.getEventType(JfrQueryAnalysisEvent.class);
+
+  private JfrEvents() {
+    // utility class
+  }
+
+  /**
+   * @return <code>true</code> once the event types are registered.
+   */
+  static boolean isInitialized() {
+    return REQUEST_TYPE != null && RESPONSE_DECODING_TYPE != null && CODEC_TYPE != null
+        && QUERY_ANALYSIS_TYPE != null;
+  }
+
+  static RequestEvent beginRequest() {
+    if (!REQUEST_TYPE.isEnabled()) {
+      return null;
+    }
+    final JfrRequestEvent event = new JfrRequestEvent();
+    event.begin();
+    return event;
+  }
+
+  static ResponseDecodingEvent beginResponseDecoding() {
+    if (!RESPONSE_DECODING_TYPE.isEnabled()) {
+      return null;
+    }
+    final JfrResponseDecodingEvent event = new JfrResponseDecodingEvent();
+    event.begin();
+    return event;
+  }
+
+  static CodecEvent beginCodec() {
+    if (!CODEC_TYPE.isEnabled()) {
+      return null;
+    }
+    final JfrCodecEvent event = new JfrCodecEvent();
+    event.begin();
+    return event;
+  }
+
+  static QueryAnalysisEvent beginQueryAnalysis() {
+    if (!QUERY_ANALYSIS_TYPE.isEnabled()) {
+      return null;
+    }
+    final JfrQueryAnalysisEvent event = new JfrQueryAnalysisEvent();
+    event.begin();
+    return event;
+  }
+
+  @Name("org.lambdamatic.elasticsearch.Request")
+  @Label("Elasticsearch Request")
+  @Description("A request sent to Elasticsearch, including its retries and hedged requests")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static class JfrRequestEvent extends Event implements RequestEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Index")
+    String index;
+
+    @Label("Type")
+    String type;
+
+    @Label("Opaque Id")
+    String opaqueId;
+
+    @Label("Status")
+    int status;
+
+    @Label("Request Bytes")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    long responseBytes;
+
+    @Override
+    public void commit(final String operation, final String index, final String type,
+        final String opaqueId, final int status, final long requestBytes,
+        final long responseBytes) {
+      end();
+      if (shouldCommit()) {
+        this.operation = operation;
+        this.index = index;
+        this.type = type;
+        this.opaqueId = opaqueId;
+        this.status = status;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        commit();
+      }
+    }
+
+  }
+
+  @Name("org.lambdamatic.elasticsearch.ResponseDecoding")
+  @Label("Elasticsearch Response Decoding")
+  @Description("The decoding of the body of a response of Elasticsearch")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static class JfrResponseDecodingEvent extends Event implements ResponseDecodingEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Index")
+    String index;
+
+    @Label("Type")
+    String type;
+
+    @Label("Response Bytes")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Hits")
+    long hits;
+
+    @Label("Total Hits")
+    long totalHits;
+
+    @Override
+    public void commit(final String operation, final String index, final String type,
+        final long responseBytes, final long hits, final long totalHits) {
+      end();
+      if (shouldCommit()) {
+        this.operation = operation;
+        this.index = index;
+        this.type = type;
+        this.responseBytes = responseBytes;
+        this.hits = hits;
+        this.totalHits = totalHits;
+        commit();
+      }
+    }
+
+  }
+
+  @Name("org.lambdamatic.elasticsearch.Codec")
+  @Label("Lambdamatic Codec")
+  @Description("The encoding or decoding of a document, or the encoding of a search request")
+  @Category(CATEGORY)
+  static class JfrCodecEvent extends Event implements CodecEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Target")
+    @Description("The domain type, or 'search' for a search request")
+    String target;
+
+    @Label("Document Id")
+    String documentId;
+
+    @Label("Content Format")
+    String contentFormat;
+
+    @Label("Payload Bytes")
+    @DataAmount
+    long payloadBytes;
+
+    @Override
+    public void commit(final String operation, final String target, final String documentId,
+        final String contentFormat, final long payloadBytes) {
+      end();
+      if (shouldCommit()) {
+        this.operation = operation;
+        this.target = target;
+        this.documentId = documentId;
+        this.contentFormat = contentFormat;
+        this.payloadBytes = payloadBytes;
+        commit();
+      }
+    }
+
+  }
+
+  @Name("org.lambdamatic.elasticsearch.QueryAnalysis")
+  @Label("Lambdamatic Query Analysis")
+  @Description("The analysis of the bytecode of a query expression into a query")
+  @Category(CATEGORY)
+  static class JfrQueryAnalysisEvent extends Event implements QueryAnalysisEvent {
+
+    @Label("Expression Type")
+    String expressionType;
+
+    @Label("Query Type")
+    String queryType;
+
+    @Override
+    public void commit(final String expressionType, final String queryType) {
+      end();
+      if (shouldCommit()) {
+        this.expressionType = expressionType;
+        this.queryType = queryType;
+        commit();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,13 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+/**
+ * Package to emit JDK Flight Recorder events for the Elasticsearch requests and for the codecs, so
+ * that the recordings can correlate them with the CPU and allocation profiles.
+ */
+package org.lambdamatic.internal.elasticsearch.jfr;
@@ -9,6 +9,7 @@
 package org.lambdamatic.internal.elasticsearch.reactivestreams;
 
 import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.OpaqueId;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetDocumentResponse;
 import org.lambdamatic.internal.elasticsearch.codec.CodecRegistry;
 import org.reactivestreams.Publisher;
@@ -34,10 +35,19 @@ public class GetDocumentPublisher<D> implements Publisher<GetDocumentResponse> {
   /** The id of the document to get. */
   private final String documentId;
 
+  /** The routing value of the document to get, or <code>null</code> if it is routed on its id. */
+  private final String routing;
+
   private final CodecRegistry codecRegistry;
 
   private Class<D> domainType;
 
+  /**
+   * The {@link OpaqueId} of the thread that created this publisher, which also tags the requests
+   * sent from the threads that request the elements, or <code>null</code>.
+   */
+  private final String opaqueId;
+
   /**
    * Constructor.
    * 
@@ -46,20 +56,25 @@ public class GetDocumentPublisher<D> implements Publisher<GetDocumentResponse> {
    *        performed.
    * @param type the type of document to get.
    * @param documentId the id of the document to get.
+   * @param routing the routing value of the document to get, or <code>null</code> if it is
+   *        routed on its id.
    */
   public GetDocumentPublisher(final Client client, final CodecRegistry codecRegistry, final String indexName, final String type,
-      final String documentId, final Class<D> domainType) {
+      final String documentId, final String routing, final Class<D> domainType) {
     this.client = client;
     this.codecRegistry = codecRegistry;
     this.indexName = indexName;
     this.type = type;
     this.documentId = documentId;
+    this.routing = routing;
     this.domainType = domainType;
+    this.opaqueId = client.getOpaqueId();
   }
 
   public void subscribe(Subscriber<? super GetDocumentResponse> subscriber) {
     final GetDocumentSubscription<D> subscription = new GetDocumentSubscription<>(subscriber,
-        this.client, this.codecRegistry, this.indexName, this.type, this.documentId, this.domainType);
+        this.client, this.codecRegistry, this.indexName, this.type, this.documentId, this.routing,
+        this.domainType, this.opaqueId);
     subscriber.onSubscribe(subscription);
   }
 
@@ -14,6 +14,7 @@ import org.elasticsearch.client.Response;
 import org.elasticsearch.client.ResponseListener;
 import org.lambdamatic.elasticsearch.exceptions.DocumentNotFoundException;
 import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.OpaqueId;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetDocumentResponse;
 import org.lambdamatic.internal.elasticsearch.codec.CodecRegistry;
 import org.reactivestreams.Subscriber;
@@ -50,8 +51,13 @@ public class GetDocumentSubscription<D> implements Subscription {
 
   private String documentId;
 
+  private String routing;
+
   private JsonFactory jsonFactory;
 
+  /** The {@link OpaqueId} of the requests, or <code>null</code>. */
+  private final String opaqueId;
+
   /**
    * Constructor.
    * 
@@ -59,14 +65,17 @@ public class GetDocumentSubscription<D> implements Subscription {
    */
   public GetDocumentSubscription(final Subscriber<? super GetDocumentResponse> subscriber,
       final Client client, final CodecRegistry codecRegistry, final String indexName,
-      final String type, final String documentId, final Class<D> domainType) {
+      final String type, final String documentId, final String routing,
+      final Class<D> domainType, final String opaqueId) {
     this.subscriber = subscriber;
     this.client = client;
     this.codecRegistry = codecRegistry;
     this.indexName = indexName;
     this.type = type;
     this.documentId = documentId;
+    this.routing = routing;
     this.domainType = domainType;
+    this.opaqueId = opaqueId;
     this.jsonFactory = new ObjectMapper()
         .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false).getFactory();
   }
@@ -74,26 +83,31 @@ public class GetDocumentSubscription<D> implements Subscription {
   @Override
   public void request(final long n) {
     if (!this.cancelled.get()) {
-      this.client.getDocument(indexName, type, documentId, new ResponseListener() {
-
-        @Override
-        public void onSuccess(final Response response) {
-          final GetDocumentResponse getDocumentResponse =
-              Client.readResponse(jsonFactory, response, GetDocumentResponse.class);
-          if (getDocumentResponse.isExists()) {
-            GetDocumentSubscription.this.subscriber.onNext(getDocumentResponse);
-            GetDocumentSubscription.this.subscriber.onComplete();
-          } else {
-            GetDocumentSubscription.this.subscriber.onNext(null);
-            GetDocumentSubscription.this.subscriber.onComplete();
+      final OpaqueId.Scope scope = OpaqueId.tag(this.opaqueId);
+      try {
+        this.client.getDocument(indexName, type, documentId, routing, new ResponseListener() {
+
+          @Override
+          public void onSuccess(final Response response) {
+            final GetDocumentResponse getDocumentResponse =
+                Client.readResponse(jsonFactory, response, GetDocumentResponse.class);
+            if (getDocumentResponse.isExists()) {
+              GetDocumentSubscription.this.subscriber.onNext(getDocumentResponse);
+              GetDocumentSubscription.this.subscriber.onComplete();
+            } else {
+              GetDocumentSubscription.this.subscriber.onNext(null);
+              GetDocumentSubscription.this.subscriber.onComplete();
+            }
           }
-        }
 
-        @Override
-        public void onFailure(Exception exception) {
-          GetDocumentSubscription.this.subscriber.onError(exception);
-        }
-      });
+          @Override
+          public void onFailure(Exception exception) {
+            GetDocumentSubscription.this.subscriber.onError(exception);
+          }
+        });
+      } finally {
+        scope.close();
+      }
     }
       
       
@@ -9,6 +9,7 @@
 package org.lambdamatic.internal.elasticsearch.reactivestreams;
 
 import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.OpaqueId;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.IndexDocumentResponse;
 import org.lambdamatic.internal.elasticsearch.codec.CodecRegistry;
 import org.lambdamatic.internal.elasticsearch.codec.DocumentCodec;
@@ -42,6 +43,12 @@ public class IndexDocumentPublisher<D> implements Publisher<IndexDocumentRespons
    */
   private final CodecRegistry codecRegistry;
 
+  /**
+   * The {@link OpaqueId} of the thread that created this publisher, which also tags the requests
+   * sent from the threads that request the elements, or <code>null</code>.
+   */
+  private final String opaqueId;
+
   /**
    * Constructor.
    * 
@@ -59,13 +66,14 @@ public class IndexDocumentPublisher<D> implements Publisher<IndexDocumentRespons
     this.indexName = indexName;
     this.type = type;
     this.document = document;
-
+    this.opaqueId = client.getOpaqueId();
   }
 
   @Override
   public void subscribe(final Subscriber<? super IndexDocumentResponse> subscriber) {
     final IndexDocumentSubscription<D> subscription = new IndexDocumentSubscription<>(subscriber,
-        this.client, this.codecRegistry, this.indexName, this.type, this.document);
+        this.client, this.codecRegistry, this.indexName, this.type, this.document,
+        this.opaqueId);
     subscriber.onSubscribe(subscription);
   }
 
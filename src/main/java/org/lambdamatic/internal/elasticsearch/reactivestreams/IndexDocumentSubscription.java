@@ -13,6 +13,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.elasticsearch.client.Response;
 import org.elasticsearch.client.ResponseListener;
 import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.OpaqueId;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentEntity;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentFormat;
 import org.lambdamatic.internal.elasticsearch.clientdsl.responses.IndexDocumentResponse;
 import org.lambdamatic.internal.elasticsearch.codec.CodecRegistry;
 import org.lambdamatic.internal.elasticsearch.codec.DocumentCodec;
@@ -59,6 +62,9 @@ public class IndexDocumentSubscription<D> implements Subscription {
 
   private JsonFactory jsonFactory;
 
+  /** The {@link OpaqueId} of the requests, or <code>null</code>. */
+  private final String opaqueId;
+
   /**
    * Constructor.
    * 
@@ -66,13 +72,14 @@ public class IndexDocumentSubscription<D> implements Subscription {
    */
   public IndexDocumentSubscription(final Subscriber<? super IndexDocumentResponse> subscriber,
       final Client client, final CodecRegistry codecRegistry, final String indexName,
-      final String type, final D document) {
+      final String type, final D document, final String opaqueId) {
     this.subscriber = subscriber;
     this.client = client;
     this.indexName = indexName;
     this.type = type;
     this.document = document;
     this.codecRegistry = codecRegistry;
+    this.opaqueId = opaqueId;
     this.jsonFactory = new ObjectMapper()
         .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false).getFactory();
   }
@@ -82,22 +89,34 @@ public class IndexDocumentSubscription<D> implements Subscription {
     if (!this.cancelled.get()) {
       final DocumentCodec<D> documentCodec = this.codecRegistry.getDocumentCodec(document);
       final String documentId = documentCodec.getDomainObjectId(document);
-      final String jsonDocument = documentCodec.encode(document);
-      this.client.index(indexName, type, documentId, jsonDocument, new ResponseListener() {
-
-        @Override
-        public void onSuccess(final Response response) {
-          final IndexDocumentResponse indexDocumentResponse =
-              Client.readResponse(jsonFactory, response, IndexDocumentResponse.class);
-          IndexDocumentSubscription.this.subscriber.onNext(indexDocumentResponse);
-          IndexDocumentSubscription.this.subscriber.onComplete();
-        }
-
-        @Override
-        public void onFailure(Exception exception) {
-          IndexDocumentSubscription.this.subscriber.onError(exception);
-        }
-      });
+      final String routing = documentCodec.getDomainObjectRouting(document);
+      final ContentFormat contentFormat = this.client.getContentFormat();
+      final long encodeStartNanos = System.nanoTime();
+      final ContentEntity documentBody = new ContentEntity(contentFormat,
+          output -> documentCodec.encode(document, contentFormat, output));
+      this.client.getRequestMetrics().onEncode("index", indexName, type,
+          System.nanoTime() - encodeStartNanos);
+      final OpaqueId.Scope scope = OpaqueId.tag(this.opaqueId);
+      try {
+        this.client.index(indexName, type, documentId, routing, documentBody,
+            new ResponseListener() {
+
+              @Override
+              public void onSuccess(final Response response) {
+                final IndexDocumentResponse indexDocumentResponse =
+                    Client.readResponse(jsonFactory, response, IndexDocumentResponse.class);
+                IndexDocumentSubscription.this.subscriber.onNext(indexDocumentResponse);
+                IndexDocumentSubscription.this.subscriber.onComplete();
+              }
+
+              @Override
+              public void onFailure(Exception exception) {
+                IndexDocumentSubscription.this.subscriber.onError(exception);
+              }
+            });
+      } finally {
+        scope.close();
+      }
     }
   }
 
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.reactivestreams;
+
+import java.util.List;
+
+import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.OpaqueId;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.MultiGetResponse;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+/**
+ * A <a href= "https://github.com/reactive-streams/reactive-streams-jvm/blob/v1.0.0/README.md">
+ * Reactive Streams</a> {@link Publisher} for a <code>Multi Get</code> operation. Publishes one
+ * {@link MultiGetResponse} per chunk of document ids.
+ */
+public class MultiGetDocumentsPublisher implements Publisher<MultiGetResponse> {
+
+  /**
+   * The Elasticsearch {@link Client}.
+   */
+  private final Client client;
+
+  /** The name of the index in which the <code>Multi Get</code> operation will be performed. */
+  private final String indexName;
+
+  /** The type of documents to get. */
+  private final String type;
+
+  /** The ids of the documents to get, split in chunks. */
+  private final List<List<String>> documentIdChunks;
+
+  /** The routing value of the documents to get, or <code>null</code>. */
+  private final String routing;
+
+  /**
+   * The {@link OpaqueId} of the thread that created this publisher, which also tags the requests
+   * sent from the threads that request the elements, or <code>null</code>.
+   */
+  private final String opaqueId;
+
+  /**
+   * Constructor.
+   * 
+   * @param client the Elasticsearch {@link Client}
+   * @param indexName the name of the index in which the <code>Multi Get</code> operation will be
+   *        performed.
+   * @param type the type of documents to get.
+   * @param documentIdChunks the ids of the documents to get, split in chunks. A
+   *        <code>_mget</code> request is sent for each chunk.
+   */
+  public MultiGetDocumentsPublisher(final Client client, final String indexName,
+      final String type, final List<List<String>> documentIdChunks) {
+    this(client, indexName, type, documentIdChunks, null);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param client the Elasticsearch {@link Client}
+   * @param indexName the name of the index in which the <code>Multi Get</code> operation will be
+   *        performed.
+   * @param type the type of documents to get.
+   * @param documentIdChunks the ids of the documents to get, split in chunks. A
+   *        <code>_mget</code> request is sent for each chunk.
+   * @param routing the routing value of the documents to get, or <code>null</code>
+   */
+  public MultiGetDocumentsPublisher(final Client client, final String indexName,
+      final String type, final List<List<String>> documentIdChunks, final String routing) {
+    this.client = client;
+    this.indexName = indexName;
+    this.type = type;
+    this.documentIdChunks = documentIdChunks;
+    this.routing = routing;
+    this.opaqueId = client.getOpaqueId();
+  }
+
+  @Override
+  public void subscribe(final Subscriber<? super MultiGetResponse> subscriber) {
+    final MultiGetDocumentsSubscription subscription = new MultiGetDocumentsSubscription(
+        subscriber, this.client, this.indexName, this.type, this.documentIdChunks, this.routing,
+        this.opaqueId);
+    subscriber.onSubscribe(subscription);
+  }
+
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.reactivestreams;
+
+import java.util.function.Consumer;
+
+import org.lambdamatic.elasticsearch.MultiGetResult;
+import org.lambdamatic.internal.elasticsearch.MultiGetResultBuilder;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.MultiGetResponse;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A {@link Subscriber} for the multi get documents operation, which collects the documents of all
+ * chunks before notifying the success handler.
+ * 
+ * @param <D> the type of the domain document.
+ */
+public class MultiGetDocumentsResponseSubscriber<D> implements Subscriber<MultiGetResponse> {
+
+  private final MultiGetResultBuilder<D> resultBuilder;
+
+  private final Consumer<MultiGetResult<D>> onSuccessHandler;
+
+  private final Consumer<Throwable> onErrorHandler;
+
+  /**
+   * Constructor.
+   * 
+   * @param resultBuilder the {@link MultiGetResultBuilder} to decode the received documents
+   * @param onSuccessHandler the handler to call when all documents were received
+   * @param onErrorHandler the handler to call if the operation failed
+   */
+  public MultiGetDocumentsResponseSubscriber(final MultiGetResultBuilder<D> resultBuilder,
+      final Consumer<MultiGetResult<D>> onSuccessHandler,
+      final Consumer<Throwable> onErrorHandler) {
+    this.resultBuilder = resultBuilder;
+    this.onSuccessHandler = onSuccessHandler;
+    this.onErrorHandler = onErrorHandler;
+  }
+
+  @Override
+  public void onSubscribe(final Subscription s) {
+    s.request(Long.MAX_VALUE);
+  }
+
+  @Override
+  public void onNext(final MultiGetResponse multiGetResponse) {
+    this.resultBuilder.add(multiGetResponse);
+  }
+
+  @Override
+  public void onError(final Throwable t) {
+    this.onErrorHandler.accept(t);
+  }
+
+  @Override
+  public void onComplete() {
+    this.onSuccessHandler.accept(this.resultBuilder.build());
+  }
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.reactivestreams;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.OpaqueId;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.MultiGetResponse;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A <a href= "https://github.com/reactive-streams/reactive-streams-jvm/blob/v1.0.0/README.md">
+ * Reactive Streams</a> {@link Subscription} for a <code>Multi Get</code> operation. Each requested
+ * element triggers a <code>_mget</code> request for the next chunk of document ids, and all
+ * requests run concurrently.
+ */
+public class MultiGetDocumentsSubscription implements Subscription {
+
+  /**
+   * the associated {@link Subscriber}.
+   */
+  final Subscriber<? super MultiGetResponse> subscriber;
+
+  private final Client client;
+
+  private final String indexName;
+
+  private final String type;
+
+  /** The ids of the documents to get, split in chunks. */
+  private final List<List<String>> documentIdChunks;
+
+  /** The routing value of the documents to get, or <code>null</code>. */
+  private final String routing;
+
+  /** The index of the next chunk to request. */
+  private final AtomicInteger nextChunk = new AtomicInteger(0);
+
+  /** The number of chunks whose response was received. */
+  private final AtomicInteger completedChunks = new AtomicInteger(0);
+
+  /** A flag to indicate if the operation was cancelled or terminated with an error. */
+  private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+  private final JsonFactory jsonFactory;
+
+  /** The {@link OpaqueId} of the requests, or <code>null</code>. */
+  private final String opaqueId;
+
+  /**
+   * Constructor.
+   * 
+   * @param subscriber the {@link Subscriber} for this {@link Subscription}.
+   * @param client the Elasticsearch {@link Client}
+   * @param indexName the name of the index
+   * @param type the type of documents to get
+   * @param documentIdChunks the ids of the documents to get, split in chunks
+   * @param routing the routing value of the documents to get, or <code>null</code>
+   * @param opaqueId the {@link OpaqueId} of the requests, or <code>null</code>
+   */
+  public MultiGetDocumentsSubscription(final Subscriber<? super MultiGetResponse> subscriber,
+      final Client client, final String indexName, final String type,
+      final List<List<String>> documentIdChunks, final String routing, final String opaqueId) {
+    this.subscriber = subscriber;
+    this.client = client;
+    this.indexName = indexName;
+    this.type = type;
+    this.documentIdChunks = documentIdChunks;
+    this.routing = routing;
+    this.opaqueId = opaqueId;
+    this.jsonFactory = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false).getFactory();
+  }
+
+  @Override
+  public void request(final long n) {
+    if (this.documentIdChunks.isEmpty()) {
+      complete();
+      return;
+    }
+    // the elements may be requested from the I/O threads that notify the previous responses
+    final OpaqueId.Scope scope = OpaqueId.tag(this.opaqueId);
+    try {
+      requestChunks(n);
+    } finally {
+      scope.close();
+    }
+  }
+
+  private void requestChunks(final long n) {
+    for (long i = 0; i < n && !this.cancelled.get(); i++) {
+      final int chunk = this.nextChunk.getAndIncrement();
+      if (chunk >= this.documentIdChunks.size()) {
+        return;
+      }
+      this.client.multiGet(this.indexName, this.type, this.documentIdChunks.get(chunk),
+          this.routing, new ResponseListener() {
+
+            @Override
+            public void onSuccess(final Response response) {
+              final MultiGetResponse multiGetResponse;
+              try {
+                multiGetResponse = Client.checkDocuments(Client.readResponse(
+                    MultiGetDocumentsSubscription.this.jsonFactory, response,
+                    MultiGetResponse.class));
+              } catch (RuntimeException e) {
+                onFailure(e);
+                return;
+              }
+              publish(multiGetResponse);
+            }
+
+            @Override
+            public void onFailure(final Exception exception) {
+              fail(exception);
+            }
+          });
+    }
+  }
+
+  /**
+   * Sends the given response to the {@link Subscriber}, and completes the subscription if all
+   * chunks were received. Calls to the {@link Subscriber} are serialized on this subscription,
+   * since responses and failures may be received concurrently.
+   * 
+   * @param multiGetResponse the response to publish
+   */
+  private synchronized void publish(final MultiGetResponse multiGetResponse) {
+    if (this.cancelled.get()) {
+      return;
+    }
+    try {
+      this.subscriber.onNext(multiGetResponse);
+    } catch (RuntimeException e) {
+      fail(e);
+      return;
+    }
+    if (this.completedChunks.incrementAndGet() == this.documentIdChunks.size()) {
+      complete();
+    }
+  }
+
+  /**
+   * Terminates the subscription with the given error, unless it was already terminated or
+   * cancelled.
+   * 
+   * @param error the error to send to the {@link Subscriber}
+   */
+  private synchronized void fail(final Throwable error) {
+    if (this.cancelled.compareAndSet(false, true)) {
+      this.subscriber.onError(error);
+    }
+  }
+
+  /**
+   * Completes the subscription, unless it was already terminated or cancelled.
+   */
+  private synchronized void complete() {
+    if (this.cancelled.compareAndSet(false, true)) {
+      this.subscriber.onComplete();
+    }
+  }
+
+  @Override
+  public void cancel() {
+    this.cancelled.set(true);
+  }
+
+}
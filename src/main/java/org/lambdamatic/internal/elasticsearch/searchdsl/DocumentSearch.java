@@ -8,9 +8,16 @@
 
 package org.lambdamatic.internal.elasticsearch.searchdsl;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.lambdamatic.elasticsearch.searchdsl.QueryExpression;
 import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 /**
  * The top-level (root) {@link Query} element. It that can be serialized into a JSON document and
  * sent by the {@link Client} to the Elasticsearch cluster.
@@ -26,6 +33,33 @@ public class DocumentSearch {
   
   private final Query filterQuery;
 
+  /** The class in which the query expressions were written, or <code>null</code>. */
+  private final String origin;
+
+  /** The number of hits to return per page, or <code>null</code> to use the server default. */
+  private Integer size;
+
+  /** The sort criteria, in order of precedence. */
+  private List<SortField> sort = Collections.emptyList();
+
+  /** The sort values of the last hit of the previous page, or <code>null</code>. */
+  private JsonNode searchAfter;
+
+  /** The id of the slice to retrieve in a sliced scroll. */
+  private int sliceId = 0;
+
+  /** The total number of slices of a sliced scroll, or <code>1</code> if it is not sliced. */
+  private int maxSlices = 1;
+
+  /** The shard copies to search, or <code>null</code> to let Elasticsearch pick them in turn. */
+  private String preference;
+
+  /**
+   * The time after which Elasticsearch should stop searching and return the hits found so far, in
+   * milliseconds, or <code>0</code> to wait for all hits.
+   */
+  private long timeoutMillis = 0;
+
   public DocumentSearch(final QueryExpression<?> shouldMatchExpression,
       final QueryExpression<?> mustMatchExpression,
       final QueryExpression<?> mustNotMatchExpression,
@@ -36,6 +70,24 @@ public class DocumentSearch {
     this.mustMatchQuery = QueryUtils.getQuery(mustMatchExpression);
     this.mustNotMatchQuery = QueryUtils.getQuery(mustNotMatchExpression);
     this.filterQuery = QueryUtils.getQuery(filterExpression);
+    this.origin = getOrigin(shouldMatchExpression, mustMatchExpression, mustNotMatchExpression,
+        filterExpression);
+  }
+
+  /**
+   * @return the name of the class in which the first of the given expressions was written, i.e.,
+   *         the name of its lambda class without the suffix that the JVM generates, or
+   *         <code>null</code> if all expressions are <code>null</code>.
+   */
+  private static String getOrigin(final QueryExpression<?>... expressions) {
+    for (QueryExpression<?> expression : expressions) {
+      if (expression != null) {
+        final String className = expression.getClass().getName();
+        final int lambdaSuffix = className.indexOf("$$Lambda$");
+        return lambdaSuffix < 0 ? className : className.substring(0, lambdaSuffix);
+      }
+    }
+    return null;
   }
 
   public Query getShouldMatchQuery() {
@@ -54,11 +106,187 @@ public class DocumentSearch {
     return this.filterQuery;
   }
 
+  /**
+   * @return the name of the class in which the query expressions of this search were written, or
+   *         <code>null</code> if this search has no query expression.
+   */
+  public String getOrigin() {
+    return this.origin;
+  }
+
+  /**
+   * Normalizes this search into a fingerprint: the shape of its queries and its sort criteria,
+   * without the values that the queries look for nor the paging settings, so that all the
+   * searches issued by the same code have the same fingerprint. For example:
+   * <code>must=and(term(title),range_gt(stars)) sort=_score:desc</code>.
+   * 
+   * @return the fingerprint of this search
+   * @see QueryUtils#getQueryShape(Query)
+   */
+  public String getFingerprint() {
+    final StringBuilder fingerprint = new StringBuilder();
+    appendQueryShape(fingerprint, "should", this.shouldMatchQuery);
+    appendQueryShape(fingerprint, "must", this.mustMatchQuery);
+    appendQueryShape(fingerprint, "must_not", this.mustNotMatchQuery);
+    appendQueryShape(fingerprint, "filter", this.filterQuery);
+    if (fingerprint.length() == 0) {
+      fingerprint.append("match_all");
+    }
+    if (!this.sort.isEmpty()) {
+      fingerprint.append(" sort=").append(this.sort.stream()
+          .map(sortField -> sortField.getFieldName() + ':' + sortField.getOrder())
+          .collect(Collectors.joining(",")));
+    }
+    return fingerprint.toString();
+  }
+
+  private static void appendQueryShape(final StringBuilder fingerprint, final String clause,
+      final Query query) {
+    if (query != null) {
+      if (fingerprint.length() > 0) {
+        fingerprint.append(' ');
+      }
+      fingerprint.append(clause).append('=').append(QueryUtils.getQueryShape(query));
+    }
+  }
+
+  /**
+   * Finds the routing value of the documents matching this search, so that it is only sent to the
+   * shard holding them.
+   * 
+   * @param routingFieldName the name of the document field used as the routing value, or
+   *        <code>null</code> if the documents are routed on their id
+   * @return the value of the exact term required on the given field by the filter or the
+   *         must-match query, or <code>null</code> if the documents may be in any shard
+   */
+  public String getRouting(final String routingFieldName) {
+    if (routingFieldName == null) {
+      return null;
+    }
+    Object routing = QueryUtils.getRequiredTermValue(this.filterQuery, routingFieldName);
+    if (routing == null) {
+      routing = QueryUtils.getRequiredTermValue(this.mustMatchQuery, routingFieldName);
+    }
+    return routing != null ? routing.toString() : null;
+  }
+
+  public Integer getSize() {
+    return this.size;
+  }
+
+  /**
+   * Sets the number of hits to return per page.
+   * 
+   * @param size the number of hits to return per page
+   * @return this {@link DocumentSearch} for method calls chaining
+   */
+  public DocumentSearch size(final int size) {
+    this.size = size;
+    return this;
+  }
+
+  public List<SortField> getSort() {
+    return this.sort;
+  }
+
+  /**
+   * Sets the sort criteria, in order of precedence.
+   * 
+   * @param sortFields the sort criteria
+   * @return this {@link DocumentSearch} for method calls chaining
+   */
+  public DocumentSearch sort(final SortField... sortFields) {
+    this.sort = Arrays.asList(sortFields);
+    return this;
+  }
+
+  public JsonNode getSearchAfter() {
+    return this.searchAfter;
+  }
+
+  /**
+   * Sets the sort values after which the hits should be returned. The values must match the sort
+   * criteria of this {@link DocumentSearch}.
+   * 
+   * @param searchAfter the sort values of the last hit of the previous page, as a JSON array
+   * @return this {@link DocumentSearch} for method calls chaining
+   */
+  public DocumentSearch searchAfter(final JsonNode searchAfter) {
+    this.searchAfter = searchAfter;
+    return this;
+  }
+
+  public int getSliceId() {
+    return this.sliceId;
+  }
+
+  public int getMaxSlices() {
+    return this.maxSlices;
+  }
+
+  /**
+   * Restricts this search to a single slice of a sliced scroll.
+   * 
+   * @param sliceId the id of the slice to retrieve, between <code>0</code> and
+   *        <code>maxSlices - 1</code>
+   * @param maxSlices the total number of slices
+   * @return this {@link DocumentSearch} for method calls chaining
+   */
+  public DocumentSearch slice(final int sliceId, final int maxSlices) {
+    if (sliceId < 0 || sliceId >= maxSlices) {
+      throw new IllegalArgumentException(
+          "Slice id must be between 0 and " + (maxSlices - 1) + ": " + sliceId);
+    }
+    this.sliceId = sliceId;
+    this.maxSlices = maxSlices;
+    return this;
+  }
+
+  public String getPreference() {
+    return this.preference;
+  }
+
+  /**
+   * Sets the shard copies to search, so that repeated searches hit the same copies and benefit
+   * from their caches.
+   * 
+   * @param preference the shard copy preference (e.g. <code>_local</code>,
+   *        <code>_primary_first</code> or a custom session string), or <code>null</code> to let
+   *        Elasticsearch pick the copies in turn
+   * @return this {@link DocumentSearch} for method calls chaining
+   */
+  public DocumentSearch preference(final String preference) {
+    this.preference = preference;
+    return this;
+  }
+
+  public long getTimeoutMillis() {
+    return this.timeoutMillis;
+  }
+
+  /**
+   * Sets the time after which Elasticsearch should stop searching and return the hits found so
+   * far, in which case the response is flagged as timed out.
+   * 
+   * @param timeoutMillis the search timeout in milliseconds, or <code>0</code> to wait for all
+   *        hits
+   * @return this {@link DocumentSearch} for method calls chaining
+   */
+  public DocumentSearch timeout(final long timeoutMillis) {
+    if (timeoutMillis < 0) {
+      throw new IllegalArgumentException("Search timeout must not be negative: " + timeoutMillis);
+    }
+    this.timeoutMillis = timeoutMillis;
+    return this;
+  }
+
   @Override
   public String toString() {
     return "DocumentSearch [shouldMatchQuery=" + shouldMatchQuery + ", mustMatchQuery="
         + mustMatchQuery + ", mustNotMatchQuery=" + mustNotMatchQuery + ", filterQuery="
-        + filterQuery + "]";
+        + filterQuery + ", size=" + size + ", sort=" + sort + ", searchAfter=" + searchAfter
+        + ", slice=" + sliceId + "/" + maxSlices + ", preference=" + preference + ", timeout="
+        + timeoutMillis + "ms]";
   }
   
   
@@ -8,10 +8,16 @@
 
 package org.lambdamatic.internal.elasticsearch.searchdsl;
 
+import java.util.Locale;
+import java.util.stream.Collectors;
+
 import org.lambdamatic.analyzer.LambdaExpressionAnalyzer;
 import org.lambdamatic.analyzer.ast.node.LambdaExpression;
 import org.lambdamatic.analyzer.ast.node.SimpleStatement;
 import org.lambdamatic.elasticsearch.searchdsl.QueryExpression;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents;
+import org.lambdamatic.internal.elasticsearch.jfr.FlightRecorderEvents.QueryAnalysisEvent;
+import org.lambdamatic.internal.elasticsearch.searchdsl.BooleanQuery.BooleanQueryType;
 
 /**
  * A utility class to get a {@link Query} from a {@link QueryExpression}.
@@ -19,7 +25,13 @@ import org.lambdamatic.elasticsearch.searchdsl.QueryExpression;
 public class QueryUtils {
 
   public static Query getQuery(final QueryExpression<?> queryExpression) {
-    return analyseExpression(queryExpression);
+    final QueryAnalysisEvent queryAnalysisEvent = FlightRecorderEvents.beginQueryAnalysis();
+    final Query query = analyseExpression(queryExpression);
+    if (queryAnalysisEvent != null && queryExpression != null) {
+      queryAnalysisEvent.commit(queryExpression.getClass().getName(),
+          query != null ? query.getClass().getSimpleName() : null);
+    }
+    return query;
   }
 
   private static Query analyseExpression(final Object expression) {
@@ -35,6 +47,66 @@ public class QueryUtils {
     return queryExpressionVisitor.getQuery();
   }
 
+  /**
+   * Finds the value of the exact term that all documents matching the given {@code query} have in
+   * the given field, i.e., the value of a {@link TermQuery} on this field that is either the given
+   * {@code query} itself or one of the (nested) operands of an <code>AND</code>
+   * {@link BooleanQuery}.
+   * 
+   * @param query the query to analyze, or <code>null</code>
+   * @param fieldName the name of the document field
+   * @return the value of the exact term, or <code>null</code> if the given {@code query} does not
+   *         require a single exact term on the given field.
+   */
+  public static Object getRequiredTermValue(final Query query, final String fieldName) {
+    if (query instanceof TermQuery) {
+      final TermQuery termQuery = (TermQuery) query;
+      return fieldName.equals(termQuery.getFieldName()) ? termQuery.getValue() : null;
+    } else if (query instanceof BooleanQuery
+        && ((BooleanQuery) query).getType() == BooleanQueryType.AND) {
+      for (Query operand : ((BooleanQuery) query).getQueries()) {
+        final Object value = getRequiredTermValue(operand, fieldName);
+        if (value != null) {
+          return value;
+        }
+      }
+    }
+    return null;
+  }
 
+  /**
+   * Describes the shape of the given {@code query}, i.e., its structure and the fields that it
+   * applies to, without the values that it looks for, so that the queries that only differ by
+   * their values have the same shape. For example, the shape of
+   * <code>title == "foo" &amp;&amp; (stars &gt; 3 || stars &lt; 1)</code> is
+   * <code>and(term(title),or(range_gt(stars),range_lt(stars)))</code>.
+   * 
+   * @param query the query to describe, or <code>null</code>
+   * @return the shape of the given {@code query}, or <code>null</code> if it was <code>null</code>
+   */
+  public static String getQueryShape(final Query query) {
+    if (query == null) {
+      return null;
+    } else if (query instanceof BooleanQuery) {
+      final BooleanQuery booleanQuery = (BooleanQuery) query;
+      return booleanQuery.getType().name().toLowerCase(Locale.ROOT) + '('
+          + booleanQuery.getQueries().stream().map(QueryUtils::getQueryShape)
+              .collect(Collectors.joining(","))
+          + ')';
+    } else if (query instanceof TermQuery) {
+      return "term(" + ((TermQuery) query).getFieldName() + ')';
+    } else if (query instanceof MatchQuery) {
+      return "match(" + ((MatchQuery) query).getFieldName() + ')';
+    } else if (query instanceof RangeQuery) {
+      final RangeQuery rangeQuery = (RangeQuery) query;
+      return "range_" + rangeQuery.getType().name().toLowerCase(Locale.ROOT) + '('
+          + rangeQuery.getFieldName() + ')';
+    } else if (query instanceof GeoBoundingBoxQuery) {
+      return "geo_bounding_box(" + ((GeoBoundingBoxQuery) query).getFieldName() + ')';
+    } else if (query instanceof BaseQuery) {
+      return query.getClass().getSimpleName() + '(' + ((BaseQuery) query).getFieldName() + ')';
+    }
+    return query.getClass().getSimpleName();
+  }
 
 }
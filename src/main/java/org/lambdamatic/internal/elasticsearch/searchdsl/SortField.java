@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.searchdsl;
+
+/**
+ * A sort criterion of a {@link DocumentSearch}.
+ * 
+ * @see <a href=
+ *      "https://www.elastic.co/guide/en/elasticsearch/reference/master/search-request-sort.html">Sort
+ *      documentation</a>
+ */
+public class SortField {
+
+  /** Sort on the relevance score, highest first. */
+  public static final SortField SCORE = desc("_score");
+
+  /**
+   * Sort on the unique id of the document (<code>_type#_id</code>), which is the field to use as a
+   * tie-breaker in Elasticsearch 5.x since <code>_id</code> has no doc values.
+   */
+  public static final SortField UID = asc("_uid");
+
+  private final String fieldName;
+
+  private final boolean ascending;
+
+  private SortField(final String fieldName, final boolean ascending) {
+    this.fieldName = fieldName;
+    this.ascending = ascending;
+  }
+
+  public static SortField asc(final String fieldName) {
+    return new SortField(fieldName, true);
+  }
+
+  public static SortField desc(final String fieldName) {
+    return new SortField(fieldName, false);
+  }
+
+  public String getFieldName() {
+    return this.fieldName;
+  }
+
+  public String getOrder() {
+    return this.ascending ? "asc" : "desc";
+  }
+
+  @Override
+  public String toString() {
+    return "SortField: " + this.fieldName + " " + getOrder();
+  }
+
+}
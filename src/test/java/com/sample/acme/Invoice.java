@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package com.sample.acme;
+
+import org.lambdamatic.elasticsearch.annotations.Document;
+import org.lambdamatic.elasticsearch.annotations.DocumentField;
+import org.lambdamatic.elasticsearch.annotations.DocumentIdField;
+import org.lambdamatic.elasticsearch.annotations.Keyword;
+import org.lambdamatic.elasticsearch.annotations.RoutingField;
+
+/**
+ * A sample class whose documents are routed on the customer they belong to.
+ */
+@Document(index = "invoices", type = "invoice")
+public class Invoice {
+
+  @DocumentIdField
+  private String id;
+
+  @DocumentField(name = "customer_id")
+  @Keyword
+  @RoutingField
+  private String customerId;
+
+  @DocumentField
+  private double amount;
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getCustomerId() {
+    return customerId;
+  }
+
+  public void setCustomerId(String customerId) {
+    this.customerId = customerId;
+  }
+
+  public double getAmount() {
+    return amount;
+  }
+
+  public void setAmount(double amount) {
+    this.amount = amount;
+  }
+
+}
@@ -12,11 +12,15 @@ import static org.assertj.core.api.Assertions.fail;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.http.HttpHost;
 import org.elasticsearch.client.RestClient;
+import org.junit.AfterClass;
 import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ClientConfig;
 
 /**
  * Base class for all integration test cases. Provides the underlying {@link Client} to connect to
@@ -24,7 +28,26 @@ import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
  */
 public abstract class BaseIntegrationTest {
 
+  /** The clients connected by the tests of the current class. */
+  private static final List<Client> clients = new CopyOnWriteArrayList<>();
+
+  @AfterClass
+  public static void closeClients() {
+    clients.forEach(Client::close);
+    clients.clear();
+  }
+
   protected static Client client() {
+    return client(new ClientConfig());
+  }
+
+  protected static Client client(final ClientConfig config) {
+    final Client client = Client.connectTo(config, new HttpHost("localhost", port()));
+    clients.add(client);
+    return client;
+  }
+
+  private static int port() {
     final InputStream portsStream =
         Thread.currentThread().getContextClassLoader().getResourceAsStream("ports.properties");
     if (portsStream != null) {
@@ -34,10 +57,9 @@ public abstract class BaseIntegrationTest {
       } catch (IOException e) {
         fail("Failed to load port properties from file", e);
       }
-      return Client.connectTo(
-          new HttpHost("localhost", Integer.parseInt(properties.getProperty("es.9200"))));
+      return Integer.parseInt(properties.getProperty("es.9200"));
     }
-    return Client.connectTo(new HttpHost("localhost", 9200));
+    return 9200;
   }
 
 }
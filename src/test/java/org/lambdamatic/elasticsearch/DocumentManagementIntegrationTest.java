@@ -8,18 +8,25 @@
 
 package org.lambdamatic.elasticsearch;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import org.assertj.core.api.Assertions;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
+import org.lambdamatic.elasticsearch.exceptions.DocumentNotFoundException;
 import org.lambdamatic.internal.elasticsearch.testutils.Dataset;
 import org.lambdamatic.internal.elasticsearch.testutils.DatasetRule;
 import org.lambdamatic.internal.elasticsearch.testutils.ESAssertions;
@@ -79,6 +86,58 @@ public class DocumentManagementIntegrationTest extends BaseIntegrationTest {
     Assertions.assertThat(result.getTitle()).isEqualTo("First blog post");
   }
 
+  @Test
+  @Dataset(settings = "blogposts-settings.json", documents = "blogposts-data.json")
+  public void shouldGetDocumentsWithFutures() throws Exception {
+    // given
+    final Blogposts blogPosts = new Blogposts(client());
+    // when
+    final CompletableFuture<Blogpost> first = blogPosts.asyncGet("1");
+    final CompletableFuture<Blogpost> second = blogPosts.asyncGet("2");
+    final CompletableFuture<Blogpost> missing = blogPosts.asyncGet("3");
+    // then
+    Assertions.assertThat(first.thenCombine(second, (f, s) -> f.getTitle() + "/" + s.getTitle())
+        .get(1, TimeUnit.SECONDS)).isEqualTo("First blog post/Second blog post");
+    assertThatThrownBy(() -> missing.get(1, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(DocumentNotFoundException.class);
+  }
+
+  @Test
+  @Dataset(settings = "blogposts-settings.json", documents = "blogposts-data.json")
+  public void shouldGetAllDocuments() {
+    // given
+    final Blogposts blogPosts = new Blogposts(client());
+    // when
+    final MultiGetResult<Blogpost> result = blogPosts.getAll(Arrays.asList("2", "3", "1"));
+    // then
+    Assertions.assertThat(result.getDocuments()).extracting("id").containsExactly(2L, 1L);
+    Assertions.assertThat(result.getMissingIds()).containsExactly("3");
+  }
+
+  @Test
+  @Dataset(settings = "blogposts-settings.json", documents = "blogposts-data.json")
+  public void shouldGetAllDocumentsAsync() throws InterruptedException {
+    // given
+    final Blogposts blogPosts = new Blogposts(client());
+    final Queue<MultiGetResult<Blogpost>> queue = new ArrayBlockingQueue<>(1);
+    final CountDownLatch latch = new CountDownLatch(1);
+    // when
+    blogPosts.asyncGetAll(Arrays.asList("1", "2", "3"), r -> {
+      queue.add(r);
+      latch.countDown();
+    }, t -> {
+      t.printStackTrace();
+      latch.countDown();
+    });
+    // then
+    latch.await(1, TimeUnit.SECONDS);
+    Assertions.assertThat(queue.size()).isEqualTo(1);
+    final MultiGetResult<Blogpost> result = queue.poll();
+    Assertions.assertThat(result.getDocuments()).extracting("id").containsExactly(1L, 2L);
+    Assertions.assertThat(result.get("1").getTitle()).isEqualTo("First blog post");
+    Assertions.assertThat(result.getMissingIds()).containsExactly("3");
+  }
+
   @Test
   @Dataset(settings = "blogposts-settings.json")
   public void shouldIndexSimpleBlogpostWithId() throws InterruptedException {
@@ -140,4 +199,23 @@ public class DocumentManagementIntegrationTest extends BaseIntegrationTest {
     Thread.sleep(TimeUnit.SECONDS.toMillis(1));
     ESAssertions.assertThat(client()).hasIndexSize(Blogposts.BLOGPOST_INDEX_NAME, 1);
   }
+
+  @Test
+  @Dataset(settings = "blogposts-settings.json")
+  public void shouldIndexAllBlogposts() {
+    // given
+    final Blogposts blogPosts = new Blogposts(client());
+    final List<Blogpost> blogposts = LongStream.rangeClosed(1, 2500).mapToObj(i -> {
+      final Blogpost blogpost = new Blogpost();
+      blogpost.setId(i);
+      blogpost.setTitle("Title " + i);
+      blogpost.setContent("Lorem ipsum");
+      return blogpost;
+    }).collect(Collectors.toList());
+    // when
+    blogPosts.indexAll(blogposts);
+    // then
+    assertTrue(client().getDocument(Blogposts.BLOGPOST_INDEX_NAME, Blogposts.BLOGPOST_TYPE, "2500").isExists());
+    ESAssertions.assertThat(client()).hasIndexSize(Blogposts.BLOGPOST_INDEX_NAME, 2500);
+  }
 }
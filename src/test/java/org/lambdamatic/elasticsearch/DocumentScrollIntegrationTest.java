@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.BulkIndexer;
+import org.lambdamatic.internal.elasticsearch.BulkIndexerSettings;
+import org.lambdamatic.internal.elasticsearch.testutils.Dataset;
+import org.lambdamatic.internal.elasticsearch.testutils.DatasetRule;
+import org.lambdamatic.internal.elasticsearch.testutils.ESAssertions;
+import org.lambdamatic.internal.elasticsearch.testutils.TestWatcher;
+
+import com.sample.blog.Blogpost;
+import com.sample.blog.Blogposts;
+
+/**
+ * Testing the iteration and the streaming of search results over several scroll pages.
+ */
+@Dataset(settings = "blogposts-settings.json")
+public class DocumentScrollIntegrationTest extends BaseIntegrationTest {
+
+  /** The number of indexed documents, which spans several pages and ends with a short one. */
+  private static final int DOCUMENT_COUNT = 25;
+
+  /** The number of documents per scroll page. */
+  private static final int PAGE_SIZE = 10;
+
+  @ClassRule
+  public static DatasetRule datasetRule = new DatasetRule(client());
+
+  @Rule
+  public TestWatcher testWatcher = new TestWatcher();
+
+  private Blogposts blogPosts;
+
+  @BeforeClass
+  public static void indexDocuments() {
+    final Blogposts blogPosts = new Blogposts(client());
+    try (final BulkIndexer<Blogpost> bulkIndexer =
+        blogPosts.bulkIndexer(new BulkIndexerSettings())) {
+      LongStream.rangeClosed(1, DOCUMENT_COUNT).forEach(id -> {
+        final Blogpost blogpost = new Blogpost();
+        blogpost.setId(id);
+        blogpost.setTitle("Blog post #" + id);
+        bulkIndexer.add(blogpost);
+      });
+    }
+    ESAssertions.assertThat(client()).hasIndexSize("blogposts", DOCUMENT_COUNT);
+  }
+
+  @Before
+  public void setScrollPageSize() {
+    this.blogPosts = new Blogposts(client());
+    this.blogPosts.setScrollPageSize(PAGE_SIZE);
+  }
+
+  private static List<Long> ids(final List<Blogpost> blogposts) {
+    return blogposts.stream().map(Blogpost::getId).collect(Collectors.toList());
+  }
+
+  @Test
+  public void shouldIterateOverAllPages() {
+    // given
+    final List<Blogpost> result = new ArrayList<>();
+    // when
+    this.blogPosts.filter(p -> p.title.matches("post")).forEach(result::add);
+    // then each document was received once, across the pages
+    Assertions.assertThat(ids(result)).hasSize(DOCUMENT_COUNT).doesNotHaveDuplicates()
+        .containsOnlyElementsOf(
+            LongStream.rangeClosed(1, DOCUMENT_COUNT).boxed().collect(Collectors.toList()));
+    ESAssertions.assertThat(client()).hasNoOpenSearchContext("blogposts");
+  }
+
+  @Test
+  public void shouldStreamAllPagesInOrder() {
+    // given
+    final List<Blogpost> iteratedDocuments = new ArrayList<>();
+    this.blogPosts.filter(p -> p.title.matches("post")).forEach(iteratedDocuments::add);
+    // when
+    final List<Blogpost> result;
+    try (final Stream<Blogpost> stream =
+        this.blogPosts.filter(p -> p.title.matches("post")).stream()) {
+      result = stream.collect(Collectors.toList());
+    }
+    // then the pages were chained in the order in which Elasticsearch returned them
+    Assertions.assertThat(ids(result)).hasSize(DOCUMENT_COUNT)
+        .containsExactlyElementsOf(ids(iteratedDocuments));
+    ESAssertions.assertThat(client()).hasNoOpenSearchContext("blogposts");
+  }
+
+  @Test
+  public void shouldClearScrollWhenStreamIsClosedMidIteration() {
+    // given
+    final List<Blogpost> iteratedDocuments = new ArrayList<>();
+    this.blogPosts.filter(p -> p.title.matches("post")).forEach(iteratedDocuments::add);
+    // when the stream is closed in the middle of the second page
+    final List<Blogpost> result;
+    try (final Stream<Blogpost> stream =
+        this.blogPosts.filter(p -> p.title.matches("post")).stream()) {
+      result = stream.limit(PAGE_SIZE + PAGE_SIZE / 2).collect(Collectors.toList());
+    }
+    // then
+    Assertions.assertThat(ids(result))
+        .containsExactlyElementsOf(ids(iteratedDocuments.subList(0, PAGE_SIZE + PAGE_SIZE / 2)));
+    ESAssertions.assertThat(client()).hasNoOpenSearchContext("blogposts");
+  }
+
+}
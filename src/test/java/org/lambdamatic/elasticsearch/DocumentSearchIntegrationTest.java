@@ -11,15 +11,25 @@ package org.lambdamatic.elasticsearch;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.assertj.core.api.Assertions;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.lambdamatic.elasticsearch.searchdsl.SearchPage;
 import org.lambdamatic.elasticsearch.types.Location;
+import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ClientConfig;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ConnectionPoolStats;
+import org.lambdamatic.internal.elasticsearch.clientdsl.UrlConnectionTransport;
 import org.lambdamatic.internal.elasticsearch.testutils.Dataset;
 import org.lambdamatic.internal.elasticsearch.testutils.DatasetRule;
 import org.lambdamatic.internal.elasticsearch.testutils.TestWatcher;
@@ -78,6 +88,154 @@ public class DocumentSearchIntegrationTest extends BaseIntegrationTest {
     Assertions.assertThat(result).contains(firstBlogPost(), secondBlogPost());
   }
 
+  @Test
+  public void shouldSearchWithPreference() {
+    // given
+    final Blogposts blogPosts = new Blogposts(client());
+    blogPosts.setDefaultPreference("_local");
+    // when
+    final List<Blogpost> result = blogPosts.filter(p -> p.title.matches("post"))
+        .preference("session-1").collect(Collectors.toList());
+    final SearchPage<Blogpost> page = blogPosts.filter(p -> p.title.matches("post")).page(10);
+    // then
+    Assertions.assertThat(result).containsOnly(firstBlogPost(), secondBlogPost());
+    Assertions.assertThat(page.getDocuments()).containsOnly(firstBlogPost(), secondBlogPost());
+  }
+
+  @Test
+  public void shouldCoalesceConcurrentSearches() {
+    // given
+    final Blogposts blogPosts =
+        new Blogposts(client().coalesceSearches(10, 10, TimeUnit.MILLISECONDS));
+    // when
+    final List<CompletableFuture<List<Blogpost>>> results = IntStream.range(0, 25)
+        .mapToObj(i -> CompletableFuture.supplyAsync(() -> blogPosts
+            .filter(p -> p.title.matches("post")).collect(Collectors.toList())))
+        .collect(Collectors.toList());
+    // then
+    results.stream().map(CompletableFuture::join).forEach(result -> Assertions.assertThat(result)
+        .containsOnly(firstBlogPost(), secondBlogPost()));
+  }
+
+  @Test
+  public void shouldCollectAsynchronously() throws Exception {
+    // given
+    final Blogposts blogPosts = new Blogposts(client());
+    // when
+    final CompletableFuture<List<Blogpost>> result =
+        blogPosts.filter(p -> p.title.matches("post")).asyncCollect(Collectors.toList());
+    // then
+    Assertions.assertThat(result.get(1, TimeUnit.SECONDS))
+        .containsOnly(firstBlogPost(), secondBlogPost());
+  }
+
+  @Test
+  public void shouldSearchWithCompression() {
+    // given
+    final Client client = client().enableCompression(0);
+    final Blogposts blogPosts = new Blogposts(client);
+    // when
+    final List<Blogpost> result =
+        blogPosts.filter(p -> p.title.matches("post")).collect(Collectors.toList());
+    // then
+    Assertions.assertThat(result).containsOnly(firstBlogPost(), secondBlogPost());
+    Assertions.assertThat(client.getCompressionStats().getSentRequestBodyBytes()).isPositive();
+    Assertions.assertThat(client.getCompressionStats().getResponseBodyBytes()).isPositive();
+  }
+
+  @Test
+  public void shouldSearchWithConfiguredConnectionPool() {
+    // given
+    final Client client = client(new ClientConfig().maxConnections(8).maxConnectionsPerRoute(4)
+        .socketTimeout(10, TimeUnit.SECONDS).ioThreadCount(2).keepAlive(30, TimeUnit.SECONDS));
+    final Blogposts blogPosts = new Blogposts(client);
+    // when
+    final List<Blogpost> result =
+        blogPosts.filter(p -> p.title.matches("post")).collect(Collectors.toList());
+    // then
+    Assertions.assertThat(result).containsOnly(firstBlogPost(), secondBlogPost());
+    final ConnectionPoolStats poolStats = client.getConnectionPoolStats();
+    Assertions.assertThat(poolStats.getMax()).isEqualTo(8);
+    Assertions.assertThat(poolStats.getLeased() + poolStats.getAvailable()).isPositive()
+        .isLessThanOrEqualTo(4);
+  }
+
+  @Test
+  public void shouldSearchWithUrlConnectionTransport() throws Exception {
+    // given
+    final Blogposts blogPosts =
+        new Blogposts(client(new ClientConfig().transport(UrlConnectionTransport::new)));
+    // when
+    final List<Blogpost> result =
+        blogPosts.filter(p -> p.title.matches("post")).collect(Collectors.toList());
+    final CompletableFuture<List<Blogpost>> asyncResult =
+        blogPosts.filter(p -> p.title.matches("post")).asyncCollect(Collectors.toList());
+    // then
+    Assertions.assertThat(result).containsOnly(firstBlogPost(), secondBlogPost());
+    Assertions.assertThat(asyncResult.get(1, TimeUnit.SECONDS))
+        .containsOnly(firstBlogPost(), secondBlogPost());
+  }
+
+  @Test
+  public void shouldIterateOverAllMatchingDocuments() {
+    // given
+    final Blogposts blogPosts = new Blogposts(client());
+    final List<Blogpost> result = new ArrayList<>();
+    // when
+    blogPosts.filter(p -> p.title.matches("post")).forEach(result::add);
+    // then
+    Assertions.assertThat(result).containsOnly(firstBlogPost(), secondBlogPost());
+  }
+
+  @Test
+  public void shouldStreamMatchingDocuments() {
+    // given
+    final Blogposts blogPosts = new Blogposts(client());
+    // when
+    final List<Blogpost> result;
+    try (final Stream<Blogpost> stream = blogPosts.filter(p -> p.title.matches("post")).stream()) {
+      result = stream.limit(1).collect(Collectors.toList());
+    }
+    // then
+    Assertions.assertThat(result).hasSize(1);
+    Assertions.assertThat(result.get(0)).isIn(firstBlogPost(), secondBlogPost());
+  }
+
+  @Test
+  public void shouldStreamMatchingDocumentsInParallel() {
+    // given
+    final Blogposts blogPosts = new Blogposts(client());
+    // when
+    final List<Blogpost> result;
+    try (final Stream<Blogpost> stream =
+        blogPosts.filter(p -> p.title.matches("post")).parallelStream()) {
+      result = stream.collect(Collectors.toList());
+    }
+    // then
+    Assertions.assertThat(result).containsOnly(firstBlogPost(), secondBlogPost());
+  }
+
+  @Test
+  public void shouldFetchPagesWithCursor() {
+    // given
+    final Blogposts blogPosts = new Blogposts(client());
+    // when
+    final SearchPage<Blogpost> firstPage = blogPosts.filter(p -> p.title.matches("post")).page(1);
+    final SearchPage<Blogpost> secondPage =
+        blogPosts.filter(p -> p.title.matches("post")).page(1, firstPage.getNextCursor());
+    final SearchPage<Blogpost> lastPage =
+        blogPosts.filter(p -> p.title.matches("post")).page(1, secondPage.getNextCursor());
+    // then
+    Assertions.assertThat(firstPage.getTotalCount()).isEqualTo(2);
+    Assertions.assertThat(firstPage.hasNextPage()).isTrue();
+    Assertions.assertThat(secondPage.hasNextPage()).isTrue();
+    final List<Blogpost> result = new ArrayList<>(firstPage.getDocuments());
+    result.addAll(secondPage.getDocuments());
+    Assertions.assertThat(result).containsOnly(firstBlogPost(), secondBlogPost());
+    Assertions.assertThat(lastPage.getDocuments()).isEmpty();
+    Assertions.assertThat(lastPage.hasNextPage()).isFalse();
+  }
+
   @Test
   public void shouldMatchSingleDocumentByComment() throws IOException, InterruptedException {
     // given
@@ -12,6 +12,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Map;
 
 import org.assertj.core.api.Assertions;
@@ -26,6 +27,7 @@ import org.lambdamatic.internal.elasticsearch.codec.DocumentCodec;
 import org.lambdamatic.internal.elasticsearch.testutils.MappingAssertions;
 import org.lambdamatic.internal.elasticsearch.testutils.TypeMappingAssertions;
 
+import com.sample.acme.Invoice;
 import com.sample.blog.Blogpost;
 import com.sample.blog.Blogposts;
 
@@ -49,6 +51,19 @@ public class IndexMappingServiceTest extends BaseIntegrationTest {
         // special field to store the corresponding domain type
         .hasMapping(DocumentCodec.DOMAIN_TYPE, "keyword")
         .hasMapping("comments." + DocumentCodec.DOMAIN_TYPE, "keyword");
+    assertThat(classMapping).doesNotContainKey("_routing");
+  }
+
+  @Test
+  public void shouldRequireRoutingInMapping() {
+    // given
+    // when
+    final Map<String, Object> classMapping =
+        IndexMappingService.getDomainTypeMapping(Invoice.class);
+    // then
+    MappingAssertions.assertThat(classMapping).hasMapping("customer_id", "keyword");
+    assertThat(classMapping).containsEntry("_routing",
+        Collections.singletonMap("required", true));
   }
 
 }
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Test;
+import org.lambdamatic.elasticsearch.MultiGetResult;
+import org.lambdamatic.elasticsearch.exceptions.ClientIOException;
+import org.lambdamatic.elasticsearch.exceptions.PartialSearchResultsException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.ReceivedRequest;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.StubResponse;
+
+import com.sample.acme.Invoice;
+import com.sample.blog.Blogpost;
+import com.sample.blog.Blogposts;
+
+/**
+ * Testing the {@link BaseDocumentManagerImpl}.
+ */
+public class BaseDocumentManagerImplTest {
+
+  private StubHttpServer node;
+
+  private Client client;
+
+  @After
+  public void stopNode() {
+    if (this.client != null) {
+      this.client.close();
+    }
+    if (this.node != null) {
+      this.node.close();
+    }
+  }
+
+  private static String invoice(final String id) {
+    return "{\"_index\":\"invoices\",\"_type\":\"invoice\",\"_id\":\"" + id
+        + "\",\"_version\":1,\"_routing\":\"acme\",\"found\":true,"
+        + "\"_source\":{\"amount\":" + id + "}}";
+  }
+
+  private static String routingMissing(final String id) {
+    return "{\"_index\":\"invoices\",\"_type\":\"invoice\",\"_id\":\"" + id
+        + "\",\"error\":{\"root_cause\":[],\"type\":\"routing_missing_exception\","
+        + "\"reason\":\"routing is required for [invoices]/[invoice]/[" + id + "]\"}}";
+  }
+
+  /**
+   * Starts a node that only finds the invoices of the requests routed on their customer, like an
+   * index whose mapping requires the routing.
+   */
+  private BaseDocumentManagerImpl<Invoice, QueryMetadata<Invoice>> invoices() throws IOException {
+    this.node = StubHttpServer.start(request -> request.getUri().contains("routing=acme")
+        ? StubResponse.json(200, "{\"docs\":[" + invoice("1") + "," + invoice("2") + "]}")
+        : StubResponse.json(200,
+            "{\"docs\":[" + routingMissing("1") + "," + routingMissing("2") + "]}"));
+    this.client = Client.connectTo(this.node.getHost());
+    return new BaseDocumentManagerImpl<Invoice, QueryMetadata<Invoice>>(this.client,
+        Invoice.class) {};
+  }
+
+  @Test
+  public void shouldGetAllRoutedDocuments() throws IOException {
+    // given
+    final BaseDocumentManagerImpl<Invoice, QueryMetadata<Invoice>> invoices = invoices();
+    // when
+    final MultiGetResult<Invoice> result = invoices.getAll(Arrays.asList("1", "2"), "acme");
+    // then
+    assertThat(result.getDocuments()).extracting("id").containsExactly("1", "2");
+    assertThat(result.getMissingIds()).isEmpty();
+    final ReceivedRequest request = this.node.getRequests().get(0);
+    assertThat(request.getUri()).startsWith("/invoices/invoice/_mget").contains("routing=acme");
+  }
+
+  @Test
+  public void shouldAsyncGetAllRoutedDocuments() throws Exception {
+    // given
+    final BaseDocumentManagerImpl<Invoice, QueryMetadata<Invoice>> invoices = invoices();
+    final CompletableFuture<MultiGetResult<Invoice>> result = new CompletableFuture<>();
+    // when
+    invoices.asyncGetAll(Arrays.asList("1", "2"), "acme", result::complete,
+        result::completeExceptionally);
+    // then
+    assertThat(result.get(5, TimeUnit.SECONDS).getDocuments()).extracting("id")
+        .containsExactly("1", "2");
+    assertThat(this.node.getRequests().get(0).getUri()).contains("routing=acme");
+  }
+
+  @Test
+  public void shouldFailAsyncGetWhenDefaultTimeoutExpires() throws IOException {
+    // given a node that responds after 5 seconds
+    this.node = StubHttpServer.start(request -> StubResponse.json(200, invoice("1")).delay(5000));
+    this.client = Client.connectTo(this.node.getHost());
+    final BaseDocumentManagerImpl<Invoice, QueryMetadata<Invoice>> invoices =
+        new BaseDocumentManagerImpl<Invoice, QueryMetadata<Invoice>>(this.client,
+            Invoice.class) {};
+    invoices.setDefaultTimeout(100, TimeUnit.MILLISECONDS);
+    // when
+    final CompletableFuture<Invoice> result = invoices.asyncGet("1", "acme");
+    // then
+    final Throwable failure = catchThrowable(() -> result.get(1, TimeUnit.SECONDS));
+    assertThat(failure).hasCauseInstanceOf(ClientIOException.class);
+    assertThat(failure.getCause().getCause()).isInstanceOf(SocketTimeoutException.class);
+  }
+
+  /**
+   * Starts a node whose searches time out on one of their 5 shards, and returns the blog posts
+   * found on the other shards.
+   */
+  private Blogposts timedOutBlogposts() throws IOException {
+    this.node = StubHttpServer.start(request -> StubResponse.json(200, "{\"took\":800,"
+        + "\"timed_out\":true,\"_shards\":{\"total\":5,\"successful\":4,\"failed\":1},"
+        + "\"hits\":{\"total\":1,\"max_score\":1.0,\"hits\":[{\"_index\":\"blogposts\","
+        + "\"_type\":\"blogpost\",\"_id\":\"1\",\"_score\":1.0,"
+        + "\"_source\":{\"title\":\"First blog post\"}}]}}"));
+    this.client = Client.connectTo(this.node.getHost());
+    return new Blogposts(this.client);
+  }
+
+  @Test
+  public void shouldCollectPartialResults() throws IOException {
+    // given
+    final Blogposts blogPosts = timedOutBlogposts();
+    // when
+    final List<Blogpost> result =
+        blogPosts.filter(p -> p.title.matches("post")).collect(Collectors.toList());
+    // then
+    assertThat(result).extracting("title").containsExactly("First blog post");
+  }
+
+  @Test
+  public void shouldFailToCollectPartialResultsWhenNotAllowed() throws IOException {
+    // given
+    final Blogposts blogPosts = timedOutBlogposts();
+    // when
+    final Throwable failure = catchThrowable(() -> blogPosts.filter(p -> p.title.matches("post"))
+        .allowPartialResults(false).collect(Collectors.toList()));
+    // then
+    assertThat(failure).isInstanceOf(PartialSearchResultsException.class);
+    assertThat(((PartialSearchResultsException) failure).isTimedOut()).isTrue();
+    assertThat(((PartialSearchResultsException) failure).getFailedShards()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldFailToAsyncCollectPartialResultsWhenNotAllowed() throws IOException {
+    // given
+    final Blogposts blogPosts = timedOutBlogposts();
+    // when
+    final CompletableFuture<List<Blogpost>> result = blogPosts
+        .filter(p -> p.title.matches("post")).allowPartialResults(false)
+        .asyncCollect(Collectors.toList());
+    // then
+    assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(PartialSearchResultsException.class);
+  }
+
+  @Test
+  public void shouldShortenSearchTimeout() {
+    // when
+    final long searchTimeoutMillis =
+        BaseDocumentManagerImpl.searchTimeoutMillis(TimeUnit.SECONDS.toNanos(1));
+    // then
+    assertThat(searchTimeoutMillis).isEqualTo(800);
+  }
+
+  @Test
+  public void shouldNotSetSearchTimeoutWithoutBudget() {
+    // when
+    final long searchTimeoutMillis = BaseDocumentManagerImpl.searchTimeoutMillis(0);
+    // then
+    assertThat(searchTimeoutMillis).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldNotOverflowWithUnboundedBudget() {
+    // given a budget that saturated when converted to nanoseconds
+    final long timeoutNanos = TimeUnit.DAYS.toNanos(Long.MAX_VALUE);
+    // when
+    final long searchTimeoutMillis = BaseDocumentManagerImpl.searchTimeoutMillis(timeoutNanos);
+    // then
+    assertThat(searchTimeoutMillis).isEqualTo(TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE / 5 * 4))
+        .isPositive();
+  }
+
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.lambdamatic.elasticsearch.exceptions.BulkIndexException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ExponentialBackoffRetryPolicy;
+import org.lambdamatic.internal.elasticsearch.codec.CodecRegistry;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.Handler;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.ReceivedRequest;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.StubResponse;
+
+import com.sample.blog.Blogpost;
+
+/**
+ * Testing the {@link BulkIndexer} against a stub Elasticsearch node.
+ */
+public class BulkIndexerTest {
+
+  private StubHttpServer node;
+
+  private Client client;
+
+  @After
+  public void stopNode() {
+    if (this.client != null) {
+      this.client.close();
+    }
+    if (this.node != null) {
+      this.node.close();
+    }
+  }
+
+  private BulkIndexer<Blogpost> bulkIndexer(final Handler handler) throws IOException {
+    return bulkIndexer(handler, new BulkIndexerSettings().flushInterval(0, TimeUnit.MILLISECONDS)
+        .initialBackoff(1, TimeUnit.MILLISECONDS));
+  }
+
+  private BulkIndexer<Blogpost> bulkIndexer(final Handler handler,
+      final BulkIndexerSettings settings) throws IOException {
+    this.node = StubHttpServer.start(handler);
+    this.client = Client.connectTo(this.node.getHost());
+    final CodecRegistry codecRegistry = new CodecRegistry();
+    codecRegistry.registerCodec(Blogpost.class);
+    return new BulkIndexer<>(this.client, codecRegistry, "blog", "blogpost", settings);
+  }
+
+  private static StubResponse rejected() {
+    return StubResponse.json(429,
+        "{\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"rejected\"},"
+            + "\"status\":429}");
+  }
+
+  private static Blogpost blogpost(final Long id) {
+    final Blogpost blogpost = new Blogpost();
+    blogpost.setId(id);
+    blogpost.setTitle("Blogpost #" + id);
+    return blogpost;
+  }
+
+  private static String created(final String id) {
+    return "{\"index\":{\"_index\":\"blog\",\"_type\":\"blogpost\",\"_id\":\"" + id
+        + "\",\"_version\":1,\"result\":\"created\",\"status\":201}}";
+  }
+
+  private static String failed(final String id, final int status, final String type) {
+    return "{\"index\":{\"_index\":\"blog\",\"_type\":\"blogpost\",\"_id\":\"" + id
+        + "\",\"status\":" + status + ",\"error\":{\"type\":\"" + type + "\",\"reason\":\""
+        + type + " on " + id + "\"}}}";
+  }
+
+  private static StubResponse bulkResponse(final String... items) {
+    return StubResponse.json(200,
+        "{\"took\":3,\"errors\":true,\"items\":[" + String.join(",", items) + "]}");
+  }
+
+  @Test
+  public void shouldRetryOnlyRejectedItems() throws IOException {
+    // given
+    final AtomicInteger attempts = new AtomicInteger();
+    final BulkIndexer<Blogpost> bulkIndexer = bulkIndexer(request -> {
+      if (attempts.incrementAndGet() == 1) {
+        return bulkResponse(created("1"), failed("2", 429, "es_rejected_execution_exception"),
+            failed("3", 400, "mapper_parsing_exception"),
+            failed("4", 503, "unavailable_shards_exception"));
+      }
+      return bulkResponse(created("2"), created("4"));
+    });
+    // when
+    bulkIndexer.add(blogpost(1L));
+    bulkIndexer.add(blogpost(2L));
+    bulkIndexer.add(blogpost(3L));
+    bulkIndexer.add(blogpost(4L));
+    final Throwable thrown = catchThrowable(bulkIndexer::close);
+    // then only the invalid document failed
+    assertThat(thrown).isInstanceOf(BulkIndexException.class);
+    assertThat(((BulkIndexException) thrown).getFailures()).extracting("document.id", "status")
+        .containsExactly(tuple(3L, 400));
+    final List<ReceivedRequest> requests = this.node.getRequests();
+    assertThat(requests).hasSize(2);
+    assertThat(requests.get(1).getBody()).contains("\"_id\":\"2\"").contains("\"_id\":\"4\"")
+        .doesNotContain("\"_id\":\"1\"").doesNotContain("\"_id\":\"3\"");
+  }
+
+  @Test
+  public void shouldSetGeneratedIdOnIndexedDocuments() throws IOException {
+    // given
+    final BulkIndexer<Blogpost> bulkIndexer =
+        bulkIndexer(request -> bulkResponse(created("42"), created("43")));
+    final Blogpost firstBlogpost = blogpost(null);
+    final Blogpost secondBlogpost = blogpost(null);
+    // when
+    bulkIndexer.add(firstBlogpost);
+    bulkIndexer.add(secondBlogpost);
+    bulkIndexer.close();
+    // then
+    assertThat(firstBlogpost.getId()).isEqualTo(42L);
+    assertThat(secondBlogpost.getId()).isEqualTo(43L);
+  }
+
+  @Test
+  public void shouldRetryWholeRequestWhenRejected() throws IOException {
+    // given
+    final AtomicInteger attempts = new AtomicInteger();
+    final BulkIndexer<Blogpost> bulkIndexer = bulkIndexer(
+        request -> attempts.incrementAndGet() == 1 ? rejected() : bulkResponse(created("1")));
+    // when
+    bulkIndexer.add(blogpost(1L));
+    bulkIndexer.close();
+    // then
+    assertThat(this.node.getRequests()).hasSize(2);
+  }
+
+  @Test
+  public void shouldLeaveRejectedRequestToClientRetryPolicy() throws IOException {
+    // given
+    final BulkIndexer<Blogpost> bulkIndexer = bulkIndexer(request -> rejected());
+    this.client.retryPolicy(new ExponentialBackoffRetryPolicy().maxRetries(2)
+        .initialBackoff(1, TimeUnit.MILLISECONDS).retryBudgetRatio(1));
+    // when
+    bulkIndexer.add(blogpost(1L));
+    final Throwable thrown = catchThrowable(bulkIndexer::close);
+    // then the request was retried by the client only
+    assertThat(thrown).isInstanceOf(BulkIndexException.class);
+    assertThat(((BulkIndexException) thrown).getFailures()).extracting("status")
+        .containsExactly(429);
+    assertThat(this.node.getRequests()).hasSize(3);
+  }
+
+  @Test
+  public void shouldNotRetryWholeRequestOnServerError() throws IOException {
+    // given
+    final BulkIndexer<Blogpost> bulkIndexer = bulkIndexer(request -> StubResponse.json(500,
+        "{\"error\":{\"type\":\"exception\",\"reason\":\"failed\"},\"status\":500}"));
+    // when
+    bulkIndexer.add(blogpost(1L));
+    bulkIndexer.add(blogpost(2L));
+    final Throwable thrown = catchThrowable(bulkIndexer::close);
+    // then some documents may have been indexed, so none is sent again
+    assertThat(thrown).isInstanceOf(BulkIndexException.class);
+    assertThat(((BulkIndexException) thrown).getFailures()).extracting("status")
+        .containsExactly(500, 500);
+    assertThat(this.node.getRequests()).hasSize(1);
+  }
+
+  @Test
+  public void shouldCapRetryDelayAtMaxBackoff() throws IOException {
+    // given a backoff that would overflow if it was not capped
+    final BulkIndexer<Blogpost> bulkIndexer = bulkIndexer(request -> rejected(),
+        new BulkIndexerSettings().flushInterval(0, TimeUnit.MILLISECONDS).maxRetries(70)
+            .initialBackoff(1, TimeUnit.HOURS).maxBackoff(1, TimeUnit.MILLISECONDS));
+    // when
+    bulkIndexer.add(blogpost(1L));
+    final Throwable thrown = catchThrowable(bulkIndexer::close);
+    // then
+    assertThat(thrown).isInstanceOf(BulkIndexException.class);
+    assertThat(this.node.getRequests()).hasSize(71);
+  }
+
+  @Test
+  public void shouldRejectNegativeRetrySettings() {
+    // when
+    final Throwable negativeMaxRetries =
+        catchThrowable(() -> new BulkIndexerSettings().maxRetries(-1));
+    final Throwable negativeInitialBackoff = catchThrowable(
+        () -> new BulkIndexerSettings().initialBackoff(-1, TimeUnit.MILLISECONDS));
+    final Throwable negativeMaxBackoff =
+        catchThrowable(() -> new BulkIndexerSettings().maxBackoff(-1, TimeUnit.MILLISECONDS));
+    // then
+    assertThat(negativeMaxRetries).isInstanceOf(IllegalArgumentException.class);
+    assertThat(negativeInitialBackoff).isInstanceOf(IllegalArgumentException.class);
+    assertThat(negativeMaxBackoff).isInstanceOf(IllegalArgumentException.class);
+  }
+
+}
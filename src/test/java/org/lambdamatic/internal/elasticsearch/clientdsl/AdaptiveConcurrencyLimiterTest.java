@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Testing the {@link AdaptiveConcurrencyLimiter}.
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Sends as many requests as the limit allows, and completes them all with the given latency.
+   */
+  private static void roundTrip(final AdaptiveConcurrencyLimiter limiter, final long latencyNanos)
+      throws ConcurrencyLimitExceededException {
+    final int requests = limiter.getLimit();
+    for (int i = 0; i < requests; i++) {
+      limiter.execute(() -> {
+      });
+    }
+    for (int i = 0; i < requests; i++) {
+      limiter.onRequestCompleted(latencyNanos, false);
+    }
+  }
+
+  @Test
+  public void shouldQueueThenRejectRequestsAboveLimit() throws ConcurrencyLimitExceededException {
+    // given
+    final AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter().initialLimit(2).maxQueueSize(1);
+    final AtomicInteger sentRequests = new AtomicInteger();
+    // when
+    for (int i = 0; i < 3; i++) {
+      limiter.execute(sentRequests::incrementAndGet);
+    }
+    // then
+    assertThat(sentRequests.get()).isEqualTo(2);
+    assertThat(limiter.getQueuedRequests()).isEqualTo(1);
+    try {
+      limiter.execute(sentRequests::incrementAndGet);
+      fail("Expected the request to be rejected");
+    } catch (ConcurrencyLimitExceededException e) {
+      assertThat(limiter.getRejectedRequests()).isEqualTo(1);
+    }
+    limiter.onRequestCompleted(10 * MILLIS, false);
+    assertThat(sentRequests.get()).isEqualTo(3);
+    assertThat(limiter.getInFlightRequests()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldReleasePermitWhenRequestFailsToBeSent()
+      throws ConcurrencyLimitExceededException {
+    // given
+    final AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter().initialLimit(1).maxQueueSize(2);
+    final AtomicInteger sentRequests = new AtomicInteger();
+    limiter.execute(sentRequests::incrementAndGet);
+    limiter.execute(() -> {
+      throw new IllegalStateException("I/O reactor is stopped");
+    });
+    limiter.execute(sentRequests::incrementAndGet);
+    // when the first request completes
+    limiter.onRequestCompleted(10 * MILLIS, false);
+    // then the failed request does not hold its permit, and the next one is sent
+    assertThat(sentRequests.get()).isEqualTo(2);
+    assertThat(limiter.getInFlightRequests()).isEqualTo(1);
+    assertThat(limiter.getQueuedRequests()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldIncreaseLimitWhileLatencyIsStable() throws ConcurrencyLimitExceededException {
+    // given
+    final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter().initialLimit(10);
+    // when
+    for (int i = 0; i < 10; i++) {
+      roundTrip(limiter, 10 * MILLIS);
+    }
+    // then
+    assertThat(limiter.getLimit()).isGreaterThan(10);
+  }
+
+  @Test
+  public void shouldDecreaseLimitWhenLatencyRises() throws ConcurrencyLimitExceededException {
+    // given
+    final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter().initialLimit(10);
+    for (int i = 0; i < 10; i++) {
+      roundTrip(limiter, 10 * MILLIS);
+    }
+    final int limit = limiter.getLimit();
+    // when
+    for (int i = 0; i < 5; i++) {
+      roundTrip(limiter, 50 * MILLIS);
+    }
+    // then
+    assertThat(limiter.getLimit()).isLessThan(limit);
+  }
+
+  @Test
+  public void shouldDecreaseLimitWhenOverloaded() throws ConcurrencyLimitExceededException {
+    // given
+    final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter().initialLimit(20);
+    for (int i = 0; i < 20; i++) {
+      limiter.execute(() -> {
+      });
+    }
+    // when: several requests of the same round-trip are rejected
+    limiter.onRequestCompleted(10 * MILLIS, true);
+    limiter.onRequestCompleted(10 * MILLIS, true);
+    // then: the limit is only cut once
+    assertThat(limiter.getLimit()).isEqualTo(18);
+  }
+
+}
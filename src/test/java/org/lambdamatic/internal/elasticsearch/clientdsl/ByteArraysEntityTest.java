@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.entity.ContentType;
+import org.junit.Test;
+
+/**
+ * Testing the {@link ByteArraysEntity}.
+ */
+public class ByteArraysEntityTest {
+
+  private static byte[] writeTo(final ByteArraysEntity entity) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    entity.writeTo(output);
+    return output.toByteArray();
+  }
+
+  @Test
+  public void shouldConcatenateChunks() throws IOException {
+    // given
+    final byte[] firstChunk = "{\"index\":{}}\n".getBytes(StandardCharsets.UTF_8);
+    final byte[] secondChunk =
+        "{\"title\":\"Caf\u00e9 \u2014 \u65e5\u672c\"}\n".getBytes(StandardCharsets.UTF_8);
+    final byte[] expectedContent = new byte[firstChunk.length + secondChunk.length];
+    System.arraycopy(firstChunk, 0, expectedContent, 0, firstChunk.length);
+    System.arraycopy(secondChunk, 0, expectedContent, firstChunk.length, secondChunk.length);
+    // when
+    final ByteArraysEntity entity = new ByteArraysEntity(
+        Arrays.asList(firstChunk, new byte[0], secondChunk), ContentType.APPLICATION_JSON);
+    // then
+    assertThat(entity.getContentLength()).isEqualTo(expectedContent.length);
+    assertThat(IOUtils.toByteArray(entity.getContent())).isEqualTo(expectedContent);
+    assertThat(writeTo(entity)).isEqualTo(expectedContent);
+    // the entity is repeatable
+    assertThat(IOUtils.toByteArray(entity.getContent())).isEqualTo(expectedContent);
+  }
+
+  @Test
+  public void shouldHaveNoContentWithoutChunks() throws IOException {
+    // when
+    final ByteArraysEntity entity =
+        new ByteArraysEntity(Collections.emptyList(), ContentType.APPLICATION_JSON);
+    // then
+    assertThat(entity.getContentLength()).isZero();
+    assertThat(IOUtils.toByteArray(entity.getContent())).isEmpty();
+    assertThat(writeTo(entity)).isEmpty();
+  }
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.clientdsl.CircuitBreaker.State;
+
+/**
+ * Testing the {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTest {
+
+  private static final long FAST_CALL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private static final long SLOW_CALL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private static CircuitBreaker circuitBreaker() {
+    return new CircuitBreaker(new CircuitBreakerSettings().slidingWindow(10, 4)
+        .failureRateThreshold(0.5).slowCallRateThreshold(0.5, 500, TimeUnit.MILLISECONDS)
+        .openDuration(1, 10, TimeUnit.SECONDS).halfOpenCalls(2));
+  }
+
+  @Test
+  public void shouldOpenWhenFailureRateExceedsThreshold() {
+    // given
+    final CircuitBreaker circuitBreaker = circuitBreaker();
+    // when
+    circuitBreaker.onSuccess(FAST_CALL_NANOS);
+    circuitBreaker.onFailure(false);
+    circuitBreaker.onSuccess(FAST_CALL_NANOS);
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+    circuitBreaker.onFailure(false);
+    // then
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    assertThat(circuitBreaker.tryAcquirePermission(System.nanoTime())).isFalse();
+  }
+
+  @Test
+  public void shouldOpenWhenSlowCallRateExceedsThreshold() {
+    // given
+    final CircuitBreaker circuitBreaker = circuitBreaker();
+    // when
+    circuitBreaker.onSuccess(SLOW_CALL_NANOS);
+    circuitBreaker.onSuccess(FAST_CALL_NANOS);
+    circuitBreaker.onSuccess(SLOW_CALL_NANOS);
+    circuitBreaker.onSuccess(FAST_CALL_NANOS);
+    // then
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  public void shouldOpenImmediatelyOnConnectionFailure() {
+    // given
+    final CircuitBreaker circuitBreaker = circuitBreaker();
+    // when
+    circuitBreaker.onFailure(true);
+    // then
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  public void shouldCloseAfterSuccessfulProbeCalls() {
+    // given
+    final CircuitBreaker circuitBreaker = circuitBreaker();
+    circuitBreaker.onFailure(true);
+    final long afterOpenDuration = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    // when
+    assertThat(circuitBreaker.tryAcquirePermission(afterOpenDuration)).isTrue();
+    assertThat(circuitBreaker.tryAcquirePermission(afterOpenDuration)).isTrue();
+    // then only two probe calls are permitted
+    assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+    assertThat(circuitBreaker.tryAcquirePermission(afterOpenDuration)).isFalse();
+    circuitBreaker.onSuccess(FAST_CALL_NANOS);
+    circuitBreaker.onSuccess(FAST_CALL_NANOS);
+    assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  public void shouldReopenLongerAfterFailedProbeCall() {
+    // given
+    final CircuitBreaker circuitBreaker = circuitBreaker();
+    circuitBreaker.onFailure(true);
+    final long firstOpenUntil = circuitBreaker.getOpenUntilNanos();
+    // when
+    assertThat(circuitBreaker.tryAcquirePermission(firstOpenUntil)).isTrue();
+    circuitBreaker.onFailure(false);
+    // then the open duration doubled
+    assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    assertThat(circuitBreaker.isCallPermitted(firstOpenUntil + TimeUnit.SECONDS.toNanos(1)))
+        .isFalse();
+  }
+
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.http.HttpHost;
+import org.junit.After;
+import org.junit.Test;
+import org.lambdamatic.elasticsearch.exceptions.ClientResponseException;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.StubResponse;
+
+/**
+ * Testing the failover of the requests of the {@link Client} to the other nodes.
+ */
+public class ClientFailoverTest {
+
+  private static final String BAD_GATEWAY =
+      "{\"error\":{\"type\":\"bad_gateway\",\"reason\":\"Bad gateway\"},\"status\":502}";
+
+  private static final String ALL_SHARDS_FAILED = "{\"error\":{\"root_cause\":[],"
+      + "\"type\":\"search_phase_execution_exception\",\"reason\":\"all shards failed\","
+      + "\"phase\":\"query\",\"grouped\":true,\"failed_shards\":[]},\"status\":503}";
+
+  private static final String NO_MASTER = "{\"error\":{\"root_cause\":[{\"type\":"
+      + "\"master_not_discovered_exception\",\"reason\":null}],"
+      + "\"type\":\"master_not_discovered_exception\",\"reason\":null},\"status\":503}";
+
+  private static final String INDEXED =
+      "{\"_index\":\"blog\",\"_type\":\"blogpost\",\"_id\":\"1\",\"_version\":1,\"created\":true}";
+
+  private static final String FOUND =
+      "{\"_index\":\"blog\",\"_type\":\"blogpost\",\"_id\":\"1\",\"found\":true,\"_source\":{}}";
+
+  private StubHttpServer firstNode;
+
+  private StubHttpServer secondNode;
+
+  private Client connectedClient;
+
+  @After
+  public void stopNodes() {
+    if (this.connectedClient != null) {
+      this.connectedClient.close();
+    }
+    if (this.firstNode != null) {
+      this.firstNode.close();
+    }
+    if (this.secondNode != null) {
+      this.secondNode.close();
+    }
+  }
+
+  private Client connectTo(final HttpHost... hosts) {
+    this.connectedClient = Client.connectTo(hosts);
+    return this.connectedClient;
+  }
+
+  private static HttpHost unreachableHost() throws IOException {
+    try (final ServerSocket serverSocket =
+        new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      return new HttpHost(serverSocket.getInetAddress().getHostAddress(),
+          serverSocket.getLocalPort());
+    }
+  }
+
+  @Test
+  public void shouldFailOverIdempotentRequestOnNodeFailure() throws IOException {
+    // given
+    this.firstNode = StubHttpServer.start(request -> StubResponse.json(502, BAD_GATEWAY));
+    this.secondNode = StubHttpServer.start(request -> StubResponse.json(200, FOUND));
+    final Client client = connectTo(this.firstNode.getHost(), this.secondNode.getHost());
+    for (int i = 0; i < 10; i++) {
+      // when
+      final boolean found = client.getDocument("blog", "blogpost", "1").isExists();
+      // then whichever node was tried first
+      assertThat(found).isTrue();
+    }
+  }
+
+  @Test
+  public void shouldNotFailOverNonIdempotentRequestOnNodeFailure() throws IOException {
+    // given
+    this.firstNode = StubHttpServer.start(request -> StubResponse.json(502, BAD_GATEWAY));
+    this.secondNode = StubHttpServer.start(request -> StubResponse.json(502, BAD_GATEWAY));
+    final Client client = connectTo(this.firstNode.getHost(), this.secondNode.getHost());
+    // when
+    assertThatThrownBy(() -> client.index("blog", "blogpost", "1", "{}"))
+        .isInstanceOf(ClientResponseException.class);
+    // then the document was not sent to the second node, as it may have been indexed by the first
+    assertThat(this.firstNode.getRequests().size() + this.secondNode.getRequests().size())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void shouldFailOverNonIdempotentRequestWhenConnectionRefused() throws IOException {
+    // given
+    this.firstNode = StubHttpServer.start(request -> StubResponse.json(201, INDEXED));
+    final Client client = connectTo(unreachableHost(), this.firstNode.getHost());
+    for (int i = 0; i < 10; i++) {
+      // when
+      final String id = client.index("blog", "blogpost", "1", "{}").getId();
+      // then whichever node was tried first
+      assertThat(id).isEqualTo("1");
+    }
+    assertThat(this.firstNode.getRequests()).hasSize(10);
+  }
+
+  @Test
+  public void shouldNotFailOverWhenIndexIsUnavailable() throws IOException {
+    // given
+    this.firstNode = StubHttpServer.start(request -> StubResponse.json(503, ALL_SHARDS_FAILED));
+    this.secondNode = StubHttpServer.start(request -> StubResponse.json(503, ALL_SHARDS_FAILED));
+    final Client client = connectTo(this.firstNode.getHost(), this.secondNode.getHost());
+    for (int i = 0; i < 10; i++) {
+      // when
+      assertThatThrownBy(() -> client.getDocument("blog", "blogpost", "1"))
+          .isInstanceOf(ClientResponseException.class);
+    }
+    // then the other node would have failed the same way, and no circuit opened
+    assertThat(this.firstNode.getRequests().size() + this.secondNode.getRequests().size())
+        .isEqualTo(10);
+  }
+
+  @Test
+  public void shouldFailOverWhenNodeIsUnavailable() throws IOException {
+    // given
+    this.firstNode = StubHttpServer.start(request -> StubResponse.json(503, NO_MASTER));
+    this.secondNode = StubHttpServer.start(request -> StubResponse.json(200, FOUND));
+    final Client client = connectTo(this.firstNode.getHost(), this.secondNode.getHost());
+    for (int i = 0; i < 10; i++) {
+      // when
+      final boolean found = client.getDocument("blog", "blogpost", "1").isExists();
+      // then whichever node was tried first
+      assertThat(found).isTrue();
+    }
+  }
+
+  @Test
+  public void shouldFailOverWhenProxyReportsNodeUnavailable() throws IOException {
+    // given
+    this.firstNode = StubHttpServer.start(request -> StubResponse.body(503, "text/html",
+        "<html><body>Service Unavailable</body></html>".getBytes(StandardCharsets.UTF_8)));
+    this.secondNode = StubHttpServer.start(request -> StubResponse.json(200, FOUND));
+    final Client client = connectTo(this.firstNode.getHost(), this.secondNode.getHost());
+    for (int i = 0; i < 10; i++) {
+      // when
+      final boolean found = client.getDocument("blog", "blogpost", "1").isExists();
+      // then whichever node was tried first
+      assertThat(found).isTrue();
+    }
+  }
+
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.junit.After;
+import org.junit.Test;
+import org.lambdamatic.elasticsearch.exceptions.ClientIOException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.GetDocumentResponse;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.StubResponse;
+
+/**
+ * Testing the time budget of the asynchronous requests of the {@link Client}.
+ */
+public class ClientTimeoutTest {
+
+  private static final String SEARCH_RESPONSE = "{\"took\":1,\"timed_out\":false,"
+      + "\"hits\":{\"total\":3,\"max_score\":null,\"hits\":[]}}";
+
+  private static final String MULTI_SEARCH_RESPONSE = "{\"responses\":[" + SEARCH_RESPONSE + "]}";
+
+  private static final String GET_DOCUMENT_RESPONSE = "{\"_index\":\"blog\",\"_type\":\"blogpost\","
+      + "\"_id\":\"1\",\"_version\":1,\"found\":true,\"_source\":{\"title\":\"post\"}}";
+
+  private StubHttpServer node;
+
+  private Client client;
+
+  @After
+  public void stopNode() {
+    if (this.client != null) {
+      this.client.close();
+    }
+    if (this.node != null) {
+      this.node.close();
+    }
+  }
+
+  /**
+   * Starts a node that responds after the given delay.
+   */
+  private Client connectToSlowNode(final long delayMillis) throws IOException {
+    this.node = StubHttpServer.start(request -> StubResponse
+        .json(200, request.getUri().contains("_msearch") ? MULTI_SEARCH_RESPONSE
+            : request.getUri().contains("_search") ? SEARCH_RESPONSE : GET_DOCUMENT_RESPONSE)
+        .delay(delayMillis));
+    this.client = Client.connectTo(this.node.getHost());
+    return this.client;
+  }
+
+  private static StringEntity matchAll() {
+    return new StringEntity("{\"query\":{\"match_all\":{}}}", ContentType.APPLICATION_JSON);
+  }
+
+  /**
+   * Verifies that the given future failed with a {@link ClientIOException} caused by a
+   * {@link SocketTimeoutException}.
+   */
+  private static void assertTimedOut(final CompletableFuture<?> result) {
+    final Throwable failure = catchThrowable(() -> result.get(1, TimeUnit.SECONDS));
+    assertThat(failure).isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(ClientIOException.class);
+    assertThat(failure.getCause().getCause()).isInstanceOf(SocketTimeoutException.class)
+        .hasMessageContaining("did not complete within 100ms");
+  }
+
+  @Test
+  public void shouldFailAsyncSearchWhenTimeoutExpires() throws Exception {
+    // given
+    final Client client = connectToSlowNode(5000);
+    // when
+    final CompletableFuture<SearchResponse<Object>> result = client.asyncSearch("blog",
+        "blogpost", null, null, matchAll(), 100, TimeUnit.MILLISECONDS, null);
+    // then
+    assertTimedOut(result);
+  }
+
+  @Test
+  public void shouldFailCoalescedAsyncSearchWhenTimeoutExpires() throws Exception {
+    // given
+    final Client client = connectToSlowNode(5000).coalesceSearches(10, 10, TimeUnit.MILLISECONDS);
+    // when
+    final CompletableFuture<SearchResponse<Object>> result = client.asyncSearch("blog",
+        "blogpost", null, null, matchAll(), 100, TimeUnit.MILLISECONDS, null);
+    // then
+    assertTimedOut(result);
+  }
+
+  @Test
+  public void shouldFailAsyncGetDocumentWhenTimeoutExpires() throws Exception {
+    // given
+    final Client client = connectToSlowNode(5000);
+    // when
+    final CompletableFuture<GetDocumentResponse> result =
+        client.asyncGetDocument("blog", "blogpost", "1", null, 100, TimeUnit.MILLISECONDS);
+    // then
+    assertTimedOut(result);
+  }
+
+  @Test
+  public void shouldGetDocumentAsynchronouslyWithinTimeout() throws Exception {
+    // given
+    final Client client = connectToSlowNode(0);
+    // when
+    final CompletableFuture<GetDocumentResponse> result =
+        client.asyncGetDocument("blog", "blogpost", "1", null, 5, TimeUnit.SECONDS);
+    // then
+    assertThat(result.get(5, TimeUnit.SECONDS).isExists()).isTrue();
+  }
+
+}
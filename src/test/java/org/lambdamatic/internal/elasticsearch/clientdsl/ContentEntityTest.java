@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.lambdamatic.elasticsearch.exceptions.CodecException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Testing the {@link ContentEntity}.
+ */
+public class ContentEntityTest {
+
+  private static final String CONTENT = "{\"title\":\"Caf\u00e9 \u2014 \u65e5\u672c\"}";
+
+  private static byte[] writeTo(final ContentEntity entity) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    entity.writeTo(output);
+    return output.toByteArray();
+  }
+
+  @Test
+  public void shouldWriteSameUtf8ContentAsItReads() throws IOException {
+    // given
+    final byte[] expectedContent = CONTENT.getBytes(StandardCharsets.UTF_8);
+    // when
+    final ContentEntity entity = new ContentEntity(output -> output.write(expectedContent));
+    // then
+    assertThat(entity.getContentLength()).isEqualTo(expectedContent.length);
+    assertThat(IOUtils.toByteArray(entity.getContent())).isEqualTo(expectedContent);
+    assertThat(writeTo(entity)).isEqualTo(expectedContent);
+    // the entity is repeatable
+    assertThat(IOUtils.toByteArray(entity.getContent())).isEqualTo(expectedContent);
+    assertThat(entity.getContentType().getValue()).isEqualTo("application/json; charset=UTF-8");
+    assertThat(entity.getContentAsString()).isEqualTo(CONTENT);
+  }
+
+  @Test
+  public void shouldDescribeBinaryContentInsteadOfDecodingIt() throws IOException {
+    // when
+    final ContentEntity entity = new ContentEntity(ContentFormat.SMILE, output -> {
+      try (final JsonGenerator generator = ContentFormat.SMILE.createGenerator(output)) {
+        generator.writeStartObject();
+        generator.writeStringField("title", "Caf\u00e9");
+        generator.writeEndObject();
+      }
+    });
+    // then
+    assertThat(entity.getContentFormat()).isEqualTo(ContentFormat.SMILE);
+    assertThat(entity.getContentType().getValue()).isEqualTo("application/smile");
+    assertThat(IOUtils.toByteArray(entity.getContent())).isEqualTo(writeTo(entity))
+        .hasSize((int) entity.getContentLength());
+    assertThat(entity.getContentAsString())
+        .isEqualTo("<" + entity.getContentLength() + " bytes of SMILE content>");
+  }
+
+  @Test
+  public void shouldReportFailureToWriteContent() {
+    // when
+    final Throwable thrown = catchThrowable(() -> new ContentEntity(output -> {
+      throw new IOException("failed");
+    }));
+    // then
+    assertThat(thrown).isInstanceOf(CodecException.class).hasCauseInstanceOf(IOException.class);
+  }
+
+}
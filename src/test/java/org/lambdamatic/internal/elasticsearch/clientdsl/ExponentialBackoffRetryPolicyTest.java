@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Testing the {@link ExponentialBackoffRetryPolicy}.
+ */
+public class ExponentialBackoffRetryPolicyTest {
+
+  @Test
+  public void shouldRetryRejectedRequestWithExponentialBackoff() {
+    // given
+    final ExponentialBackoffRetryPolicy retryPolicy = new ExponentialBackoffRetryPolicy()
+        .maxRetries(3).initialBackoff(100, TimeUnit.MILLISECONDS);
+    // when/then
+    assertThat(retryPolicy.retryDelayMillis(false, 429, 0)).isBetween(50L, 100L);
+    assertThat(retryPolicy.retryDelayMillis(false, 429, 1)).isBetween(100L, 200L);
+    assertThat(retryPolicy.retryDelayMillis(false, 429, 2)).isBetween(200L, 400L);
+    assertThat(retryPolicy.retryDelayMillis(false, 429, 3)).isNegative();
+  }
+
+  @Test
+  public void shouldOnlyRetryIdempotentRequestOnTransientError() {
+    // given
+    final ExponentialBackoffRetryPolicy retryPolicy = new ExponentialBackoffRetryPolicy();
+    // when/then
+    assertThat(retryPolicy.retryDelayMillis(true, 503, 0)).isNotNegative();
+    assertThat(retryPolicy.retryDelayMillis(false, 503, 0)).isNegative();
+    assertThat(retryPolicy.retryDelayMillis(true, 400, 0)).isNegative();
+    assertThat(retryPolicy.retryDelayMillis(true, 500, 0)).isNegative();
+  }
+
+  @Test
+  public void shouldNotExceedRetryBudget() {
+    // given
+    final ExponentialBackoffRetryPolicy retryPolicy =
+        new ExponentialBackoffRetryPolicy().retryBudgetRatio(0.5);
+    // when: the initial reserve is spent
+    for (int i = 0; i < 10; i++) {
+      assertThat(retryPolicy.retryDelayMillis(false, 429, 0)).isNotNegative();
+    }
+    // then: one retry is earned every two requests
+    assertThat(retryPolicy.retryDelayMillis(false, 429, 0)).isNegative();
+    retryPolicy.onRequest();
+    assertThat(retryPolicy.retryDelayMillis(false, 429, 0)).isNegative();
+    retryPolicy.onRequest();
+    assertThat(retryPolicy.retryDelayMillis(false, 429, 0)).isNotNegative();
+  }
+
+  @Test
+  public void shouldKeepRetriesEarnedByLastThousandRequests() {
+    // given
+    final ExponentialBackoffRetryPolicy retryPolicy =
+        new ExponentialBackoffRetryPolicy().retryBudgetRatio(0.1);
+    // when
+    for (int i = 0; i < 5000; i++) {
+      retryPolicy.onRequest();
+    }
+    // then: the reserve plus the retries earned by the last 1000 requests
+    for (int i = 0; i < 110; i++) {
+      assertThat(retryPolicy.retryDelayMillis(false, 429, 0)).isNotNegative();
+    }
+    assertThat(retryPolicy.retryDelayMillis(false, 429, 0)).isNegative();
+  }
+
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.BulkResponse;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.ReceivedRequest;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.StubResponse;
+
+/**
+ * Testing the {@link GzipCompression} of the bodies exchanged by a {@link Client} with a stub
+ * Elasticsearch node.
+ */
+public class GzipCompressionTest {
+
+  private static final String BULK_RESPONSE = "{\"took\":3,\"errors\":false,\"items\":["
+      + "{\"index\":{\"_index\":\"blog\",\"_type\":\"blogpost\",\"_id\":\"1\",\"_version\":1,"
+      + "\"result\":\"created\",\"status\":201}}]}";
+
+  private StubHttpServer node;
+
+  private Client client;
+
+  @After
+  public void stopNode() {
+    if (this.client != null) {
+      this.client.close();
+    }
+    if (this.node != null) {
+      this.node.close();
+    }
+  }
+
+  /**
+   * Starts a node that compresses its responses when the request accepts gzip.
+   */
+  private Client client() throws IOException {
+    this.node = StubHttpServer.start(request -> "gzip".equals(request.getHeader("Accept-Encoding"))
+        ? StubResponse.body(200, "application/json; charset=UTF-8", gzip(BULK_RESPONSE))
+            .header("Content-Encoding", "gzip")
+        : StubResponse.json(200, BULK_RESPONSE));
+    this.client = Client.connectTo(this.node.getHost());
+    return this.client;
+  }
+
+  private static byte[] bulkRequestBody(final int items) {
+    final StringBuilder requestBody = new StringBuilder();
+    for (int i = 0; i < items; i++) {
+      requestBody.append("{\"index\":{\"_index\":\"blog\",\"_type\":\"blogpost\",\"_id\":\"")
+          .append(i).append("\"}}\n{\"title\":\"Blogpost #").append(i).append("\"}\n");
+    }
+    return requestBody.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] gzip(final String content) throws IOException {
+    final ByteArrayOutputStream compressedContent = new ByteArrayOutputStream();
+    try (final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressedContent)) {
+      gzipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+    return compressedContent.toByteArray();
+  }
+
+  private static byte[] gunzip(final byte[] compressedContent) throws IOException {
+    final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    try (final InputStream gzipInputStream =
+        new GZIPInputStream(new ByteArrayInputStream(compressedContent))) {
+      final byte[] buffer = new byte[4096];
+      int read;
+      while ((read = gzipInputStream.read(buffer)) != -1) {
+        content.write(buffer, 0, read);
+      }
+    }
+    return content.toByteArray();
+  }
+
+  @Test
+  public void shouldCompressRequestAndDecompressResponse() throws IOException {
+    // given
+    final Client client = client().enableCompression(1024);
+    final byte[] requestBody = bulkRequestBody(50);
+    // when
+    final BulkResponse bulkResponse = client.bulk(requestBody);
+    // then the request body was compressed
+    final ReceivedRequest request = this.node.getRequests().get(0);
+    assertThat(request.getHeader("Accept-Encoding")).isEqualTo("gzip");
+    assertThat(request.getHeader("Content-Encoding")).isEqualTo("gzip");
+    assertThat(gunzip(request.getBodyBytes())).isEqualTo(requestBody);
+    // then the response body was decompressed
+    assertThat(bulkResponse.getItems()).hasSize(1);
+    // then the stats count the bytes before and after compression
+    final CompressionStats stats = client.getCompressionStats();
+    final int sentBytes = request.getBodyBytes().length;
+    final int receivedBytes = gzip(BULK_RESPONSE).length;
+    final int responseBytes = BULK_RESPONSE.getBytes(StandardCharsets.UTF_8).length;
+    assertThat(sentBytes).isLessThan(requestBody.length);
+    assertThat(stats.getRequestBodyBytes()).isEqualTo(requestBody.length);
+    assertThat(stats.getSentRequestBodyBytes()).isEqualTo(sentBytes);
+    assertThat(stats.getResponseBodyBytes()).isEqualTo(responseBytes);
+    assertThat(stats.getReceivedResponseBodyBytes()).isEqualTo(receivedBytes);
+    assertThat(stats.getRequestCompressionRatio())
+        .isEqualTo((double) sentBytes / requestBody.length);
+    assertThat(stats.getResponseCompressionRatio())
+        .isEqualTo((double) receivedBytes / responseBytes);
+  }
+
+  @Test
+  public void shouldNotCompressRequestBodyBelowMinimumSize() throws IOException {
+    // given
+    final Client client = client();
+    final byte[] requestBody = bulkRequestBody(1);
+    client.enableCompression(requestBody.length + 1);
+    // when
+    client.bulk(requestBody);
+    // then the request body was sent as is, but the response was still compressed
+    final ReceivedRequest request = this.node.getRequests().get(0);
+    assertThat(request.getHeader("Accept-Encoding")).isEqualTo("gzip");
+    assertThat(request.getHeader("Content-Encoding")).isNull();
+    assertThat(request.getBodyBytes()).isEqualTo(requestBody);
+    final CompressionStats stats = client.getCompressionStats();
+    assertThat(stats.getRequestBodyBytes()).isEqualTo(requestBody.length);
+    assertThat(stats.getSentRequestBodyBytes()).isEqualTo(requestBody.length);
+    assertThat(stats.getRequestCompressionRatio()).isEqualTo(1.0);
+    assertThat(stats.getReceivedResponseBodyBytes()).isEqualTo(gzip(BULK_RESPONSE).length);
+  }
+
+  @Test
+  public void shouldNotCompressWhenDisabled() throws IOException {
+    // given
+    final Client client = client();
+    final byte[] requestBody = bulkRequestBody(50);
+    // when
+    final BulkResponse bulkResponse = client.bulk(requestBody);
+    // then
+    final ReceivedRequest request = this.node.getRequests().get(0);
+    assertThat(request.getHeader("Accept-Encoding")).isNull();
+    assertThat(request.getHeader("Content-Encoding")).isNull();
+    assertThat(request.getBodyBytes()).isEqualTo(requestBody);
+    assertThat(bulkResponse.getItems()).hasSize(1);
+    final CompressionStats stats = client.getCompressionStats();
+    final int responseBytes = BULK_RESPONSE.getBytes(StandardCharsets.UTF_8).length;
+    assertThat(stats.getSentRequestBodyBytes()).isEqualTo(requestBody.length);
+    assertThat(stats.getResponseBodyBytes()).isEqualTo(responseBytes);
+    assertThat(stats.getReceivedResponseBodyBytes()).isEqualTo(responseBytes);
+    assertThat(stats.getRequestCompressionRatio()).isEqualTo(1.0);
+    assertThat(stats.getResponseCompressionRatio()).isEqualTo(1.0);
+  }
+
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Testing the {@link HedgingPolicy}.
+ */
+public class HedgingPolicyTest {
+
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  public void shouldHedgeAfterPercentileOfRecentLatencies() {
+    // given
+    final HedgingPolicy hedgingPolicy = new HedgingPolicy().delayPercentile(0.9);
+    // when: 90 fast and 10 slow searches
+    for (int i = 0; i < LatencyTracker.MIN_SAMPLES - 1; i++) {
+      hedgingPolicy.onLatency("search", (i % 10 == 0 ? 500 : 10 + i % 10) * MILLIS);
+      assertThat(hedgingPolicy.hedgeDelayNanos("search")).isNegative();
+    }
+    hedgingPolicy.onLatency("search", 19 * MILLIS);
+    // then
+    assertThat(hedgingPolicy.hedgeDelayNanos("search")).isEqualTo(19 * MILLIS);
+    assertThat(hedgingPolicy.hedgeDelayNanos("get")).isNegative();
+  }
+
+  @Test
+  public void shouldNotHedgeBeforeMinimumDelay() {
+    // given
+    final HedgingPolicy hedgingPolicy =
+        new HedgingPolicy().minDelay(20, TimeUnit.MILLISECONDS);
+    // when
+    for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+      hedgingPolicy.onLatency("get", 2 * MILLIS);
+    }
+    // then
+    assertThat(hedgingPolicy.hedgeDelayNanos("get")).isEqualTo(20 * MILLIS);
+  }
+
+  @Test
+  public void shouldNotExceedHedgeBudget() {
+    // given
+    final HedgingPolicy hedgingPolicy = new HedgingPolicy().maxHedgeRatio(0.5);
+    // when: the initial reserve is spent
+    for (int i = 0; i < 10; i++) {
+      assertThat(hedgingPolicy.spendHedge()).isTrue();
+    }
+    // then: one hedge is earned every two requests
+    assertThat(hedgingPolicy.spendHedge()).isFalse();
+    hedgingPolicy.onRequest();
+    assertThat(hedgingPolicy.spendHedge()).isFalse();
+    hedgingPolicy.onRequest();
+    assertThat(hedgingPolicy.spendHedge()).isTrue();
+  }
+
+  @Test
+  public void shouldKeepHedgesEarnedByLastHundredRequests() {
+    // given
+    final HedgingPolicy hedgingPolicy = new HedgingPolicy().maxHedgeRatio(0.1);
+    // when
+    for (int i = 0; i < 1000; i++) {
+      hedgingPolicy.onRequest();
+    }
+    // then: the reserve plus the hedges earned by the last 100 requests
+    for (int i = 0; i < 20; i++) {
+      assertThat(hedgingPolicy.spendHedge()).isTrue();
+    }
+    assertThat(hedgingPolicy.spendHedge()).isFalse();
+  }
+
+}
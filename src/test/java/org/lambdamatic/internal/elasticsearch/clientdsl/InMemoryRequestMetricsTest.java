@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.clientdsl.InMemoryRequestMetrics.OperationMetrics;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.StubResponse;
+
+/**
+ * Testing the {@link InMemoryRequestMetrics}, and the operations that the {@link MeteredRequest}
+ * reports them under.
+ */
+public class InMemoryRequestMetricsTest {
+
+  private static final long RETRY_DELAY_MILLIS = 500;
+
+  private StubHttpServer node;
+
+  private Client client;
+
+  @After
+  public void stopNode() {
+    if (this.client != null) {
+      this.client.close();
+    }
+    if (this.node != null) {
+      this.node.close();
+    }
+  }
+
+  /**
+   * @return a {@link Client} connected to a node that rejects every other request, and that retries
+   *         them after {@link #RETRY_DELAY_MILLIS}
+   */
+  private Client rejectingClient(final InMemoryRequestMetrics requestMetrics) throws IOException {
+    final AtomicInteger requests = new AtomicInteger();
+    this.node = StubHttpServer.start(request -> requests.incrementAndGet() % 2 == 1
+        ? StubResponse.json(429, "{\"error\":{\"type\":\"es_rejected_execution_exception\","
+            + "\"reason\":\"rejected\"},\"status\":429}")
+        : StubResponse.json(200, "{\"docs\":[]}"));
+    this.client = Client.connectTo(this.node.getHost()).requestMetrics(requestMetrics)
+        .retryPolicy(new ExponentialBackoffRetryPolicy()
+            .initialBackoff(RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS).retryBudgetRatio(1));
+    return this.client;
+  }
+
+  @Test
+  public void shouldDescribeRequests() {
+    assertThat(MeteredRequest.describe("GET", "/blog/post/_search?scroll=1m"))
+        .containsExactly("search", "blog", "post");
+    assertThat(MeteredRequest.describe("GET", "/blog/post/1")).containsExactly("get", "blog",
+        "post");
+    assertThat(MeteredRequest.describe("PUT", "/blog/post/1")).containsExactly("index", "blog",
+        "post");
+    assertThat(MeteredRequest.describe("POST", "/blog/post")).containsExactly("index", "blog",
+        "post");
+    assertThat(MeteredRequest.describe("GET", "/blog/post/_mget")).containsExactly("mget",
+        "blog", "post");
+    assertThat(MeteredRequest.describe("GET", "/blog/_mapping/post")).containsExactly("mapping",
+        "blog", "post");
+    assertThat(MeteredRequest.describe("DELETE", "/_search/scroll"))
+        .containsExactly("clear_scroll", null, null);
+    assertThat(MeteredRequest.describe("POST", "/_bulk")).containsExactly("bulk", null, null);
+    assertThat(MeteredRequest.describe("HEAD", "/blog")).containsExactly("index_exists", "blog",
+        null);
+  }
+
+  @Test
+  public void shouldRecordMeasurementsPerOperation() {
+    // given
+    final InMemoryRequestMetrics requestMetrics = new InMemoryRequestMetrics();
+    // when
+    requestMetrics.onRequest("search", "blog", "post", "checkout-1");
+    requestMetrics.onRequest("search", "blog", "post", "checkout-1");
+    requestMetrics.onRequest("search", "blog", "post", null);
+    requestMetrics.onEncode("search", "blog", "post", 1_000);
+    requestMetrics.onResponse("search", "blog", "post", "checkout-1", 200, 2_000_000, 100, 5_000);
+    requestMetrics.onDecode("search", "blog", "post", 3_000);
+    requestMetrics.onResponse("search", "blog", "post", null, 429, 1_000_000, 100, 50);
+    requestMetrics.onRequest("get", "blog", "post", null);
+    requestMetrics.onResponse("get", "blog", "post", null, 0, 500_000, 0, 0);
+    // then
+    final OperationMetrics searchMetrics = requestMetrics.getOperationMetrics("search", "blog",
+        "post");
+    assertThat(searchMetrics.getCalls()).isEqualTo(2);
+    assertThat(searchMetrics.getInFlight()).isEqualTo(1);
+    assertThat(searchMetrics.getInFlightOpaqueIds()).containsExactly(entry("checkout-1", 1));
+    assertThat(searchMetrics.getErrors()).containsExactly(entry(429, 1L));
+    assertThat(searchMetrics.getRequestBytes()).isEqualTo(200);
+    assertThat(searchMetrics.getResponseBytes()).isEqualTo(5_050);
+    assertThat(searchMetrics.getNetworkLatency().getCount()).isEqualTo(2);
+    assertThat(searchMetrics.getNetworkLatency().getMaxNanos()).isEqualTo(2_000_000);
+    assertThat(searchMetrics.getEncodeLatency().getCount()).isEqualTo(1);
+    assertThat(searchMetrics.getDecodeLatency().getCount()).isEqualTo(1);
+    assertThat(requestMetrics.getOperationMetrics("get", "blog", "post").getErrors())
+        .containsExactly(entry(0, 1L));
+    assertThat(requestMetrics.getOperationMetrics()).extracting(OperationMetrics::getOperation)
+        .containsExactly("get", "search");
+    assertThat(requestMetrics.dump()).contains("search blog/post: calls=2, inFlight=1");
+  }
+
+  @Test
+  public void shouldNotMeasureRetryDelayAsNetworkTime() throws IOException {
+    // given
+    final InMemoryRequestMetrics requestMetrics = new InMemoryRequestMetrics();
+    final Client client = rejectingClient(requestMetrics);
+    // when
+    client.multiGet("blog", "post", Collections.singletonList("1"));
+    // then
+    final OperationMetrics mgetMetrics = requestMetrics.getOperationMetrics("mget", "blog", "post");
+    assertThat(mgetMetrics.getCalls()).isEqualTo(1);
+    assertThat(mgetMetrics.getNetworkLatency().getMaxNanos())
+        .isLessThan(TimeUnit.MILLISECONDS.toNanos(RETRY_DELAY_MILLIS));
+  }
+
+  @Test
+  public void shouldNotMeasureRetryDelayOfLimitedRequestAsNetworkTime() throws Exception {
+    // given
+    final InMemoryRequestMetrics requestMetrics = new InMemoryRequestMetrics();
+    final Client client = rejectingClient(requestMetrics)
+        .concurrencyLimiter(new AdaptiveConcurrencyLimiter().initialLimit(1).limitRange(1, 1));
+    // when
+    client.asyncMultiGet("blog", "post", Collections.singletonList("1")).get(5, TimeUnit.SECONDS);
+    // then
+    final OperationMetrics mgetMetrics = requestMetrics.getOperationMetrics("mget", "blog", "post");
+    assertThat(mgetMetrics.getCalls()).isEqualTo(1);
+    assertThat(mgetMetrics.getNetworkLatency().getMaxNanos())
+        .isLessThan(TimeUnit.MILLISECONDS.toNanos(RETRY_DELAY_MILLIS));
+  }
+
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Testing the {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+  @Test
+  public void shouldCountEachValueInBucketThatContainsIt() {
+    for (long value : new long[] {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789,
+        Long.MAX_VALUE}) {
+      // when
+      final int bucketIndex = LatencyHistogram.bucketIndex(value);
+      // then
+      assertThat(LatencyHistogram.highestValue(bucketIndex)).as("value " + value)
+          .isGreaterThanOrEqualTo(value);
+      if (bucketIndex > 0) {
+        assertThat(LatencyHistogram.highestValue(bucketIndex - 1)).as("value " + value)
+            .isLessThan(value);
+      }
+    }
+  }
+
+  @Test
+  public void shouldComputePercentilesWithinRelativePrecision() {
+    // given
+    final LatencyHistogram histogram = new LatencyHistogram();
+    // when
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+    }
+    // then
+    assertThat(histogram.getCount()).isEqualTo(1000);
+    assertThat(histogram.getMaxNanos()).isEqualTo(TimeUnit.MICROSECONDS.toNanos(1000));
+    assertThat(histogram.getMeanNanos()).isEqualTo(500_500);
+    assertThat((double) histogram.getValueAtPercentile(0.5)).isCloseTo(500_000,
+        within(500_000 / LatencyHistogram.SUB_BUCKET_COUNT * 1.0));
+    assertThat((double) histogram.getValueAtPercentile(0.99)).isCloseTo(990_000,
+        within(990_000 / LatencyHistogram.SUB_BUCKET_COUNT * 1.0));
+    assertThat(histogram.getValueAtPercentile(1)).isEqualTo(histogram.getMaxNanos());
+  }
+
+  @Test
+  public void shouldReportZeroWhenEmpty() {
+    // given
+    final LatencyHistogram histogram = new LatencyHistogram();
+    // then
+    assertThat(histogram.getCount()).isEqualTo(0);
+    assertThat(histogram.getMeanNanos()).isEqualTo(0);
+    assertThat(histogram.getValueAtPercentile(0.99)).isEqualTo(0);
+  }
+
+}
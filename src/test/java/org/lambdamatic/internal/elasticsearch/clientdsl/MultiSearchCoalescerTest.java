@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponse;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.StubResponse;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Testing the {@link MultiSearchCoalescer}.
+ */
+public class MultiSearchCoalescerTest {
+
+  private static final String MULTI_SEARCH_RESPONSE = "{\"responses\":[{\"took\":1,"
+      + "\"timed_out\":false,\"hits\":{\"total\":3,\"max_score\":null,\"hits\":[]}}]}";
+
+  private StubHttpServer node;
+
+  private Client client;
+
+  @Before
+  public void startNode() throws Exception {
+    this.node = StubHttpServer.start(request -> StubResponse.json(200, MULTI_SEARCH_RESPONSE));
+    this.client = Client.connectTo(this.node.getHost());
+  }
+
+  @After
+  public void stopNode() {
+    this.client.close();
+    this.node.close();
+  }
+
+  private static StringEntity matchAll() {
+    return new StringEntity("{\"query\":{\"match_all\":{}}}", ContentType.APPLICATION_JSON);
+  }
+
+  private static MultiSearchCoalescer searchCoalescer(final Client client) {
+    return new MultiSearchCoalescer(client, new JsonFactory(new ObjectMapper()), 10, 1,
+        TimeUnit.MINUTES);
+  }
+
+  @Test
+  public void shouldSendPendingSearchesWhenClosed() throws Exception {
+    // given
+    final MultiSearchCoalescer searchCoalescer = searchCoalescer(this.client);
+    final CompletableFuture<SearchResponse<?>> response =
+        searchCoalescer.submit("blog", "blogpost", null, null, matchAll(), null);
+    assertThat(response.isDone()).isFalse();
+    // when
+    searchCoalescer.close();
+    // then
+    assertThat(response.get(5, TimeUnit.SECONDS).getTotalHits()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldSendSearchesRightAwayOnceClosed() throws Exception {
+    // given
+    final MultiSearchCoalescer searchCoalescer = searchCoalescer(this.client);
+    searchCoalescer.close();
+    // when
+    final CompletableFuture<SearchResponse<?>> response =
+        searchCoalescer.submit("blog", "blogpost", null, null, matchAll(), null);
+    // then
+    assertThat(response.get(5, TimeUnit.SECONDS).getTotalHits()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldSendPendingSearchesWhenReplaced() throws Exception {
+    // given a search that waits for a minute
+    this.client.coalesceSearches(10, 1, TimeUnit.MINUTES);
+    final CompletableFuture<SearchResponse<Object>> response = CompletableFuture.supplyAsync(
+        () -> this.client.search("blog", "blogpost", null, null, matchAll()));
+    Thread.sleep(200);
+    // when
+    this.client.coalesceSearches(10, 10, TimeUnit.MILLISECONDS);
+    // then
+    assertThat(response.get(5, TimeUnit.SECONDS).getTotalHits()).isEqualTo(3);
+  }
+
+}
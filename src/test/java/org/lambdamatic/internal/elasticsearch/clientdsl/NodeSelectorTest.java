@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.ConnectException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.http.HttpHost;
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.clientdsl.NodeSelector.Node;
+
+/**
+ * Testing the {@link NodeSelector} and the parsing of the sniffed node addresses.
+ */
+public class NodeSelectorTest {
+
+  private static final HttpHost NODE1 = new HttpHost("node1", 9200);
+
+  private static final HttpHost NODE2 = new HttpHost("node2", 9200);
+
+  private static List<HttpHost> hosts(final List<Node> nodes) {
+    return nodes.stream().map(Node::getHost).collect(Collectors.toList());
+  }
+
+  private static NodeSelector nodeSelector() {
+    return new NodeSelector(host -> null, new CircuitBreakerSettings(), NODE1, NODE2);
+  }
+
+  @Test
+  public void shouldNotSelectNodeThatCouldNotBeConnectedTo() {
+    // given
+    final NodeSelector nodeSelector = nodeSelector();
+    final Node node1 = nodeSelector.select().stream().filter(node -> node.getHost().equals(NODE1))
+        .findFirst().get();
+    // when
+    node1.onRequest();
+    node1.onFailure(new ConnectException());
+    // then
+    for (int i = 0; i < 10; i++) {
+      assertThat(hosts(nodeSelector.select())).containsExactly(NODE2);
+    }
+  }
+
+  @Test
+  public void shouldNotSelectAnyNodeWhenAllCircuitsAreOpen() {
+    // given
+    final NodeSelector nodeSelector = nodeSelector();
+    // when
+    for (Node node : nodeSelector.select()) {
+      node.onRequest();
+      node.onFailure(new ConnectException());
+    }
+    // then
+    assertThat(nodeSelector.select()).isEmpty();
+  }
+
+  @Test
+  public void shouldConvertPublishAddressToHost() {
+    // given
+    final NodeSniffer nodeSniffer = new NodeSniffer(null, null, "https");
+    // when/then
+    assertThat(nodeSniffer.toHost("127.0.0.1:9201"))
+        .isEqualTo(new HttpHost("127.0.0.1", 9201, "https"));
+    assertThat(nodeSniffer.toHost("es-node-1/10.0.0.12:9200"))
+        .isEqualTo(new HttpHost("10.0.0.12", 9200, "https"));
+    assertThat(nodeSniffer.toHost("[::1]:9200")).isEqualTo(new HttpHost("::1", 9200, "https"));
+  }
+
+}
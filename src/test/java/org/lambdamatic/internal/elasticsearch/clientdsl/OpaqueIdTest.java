@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Testing the {@link OpaqueId} tags.
+ */
+public class OpaqueIdTest {
+
+  @Test
+  public void shouldRestorePreviousTagWhenScopeIsClosed() {
+    // given
+    final String outerOpaqueId;
+    final String innerOpaqueId;
+    final String clearedOpaqueId;
+    // when
+    final OpaqueId.Scope outerScope = OpaqueId.tag("checkout-1");
+    final OpaqueId.Scope innerScope = OpaqueId.tag("checkout-1/search");
+    innerOpaqueId = OpaqueId.get();
+    innerScope.close();
+    final OpaqueId.Scope clearedScope = OpaqueId.tag(null);
+    clearedOpaqueId = OpaqueId.get();
+    clearedScope.close();
+    outerOpaqueId = OpaqueId.get();
+    outerScope.close();
+    // then
+    assertThat(innerOpaqueId).isEqualTo("checkout-1/search");
+    assertThat(clearedOpaqueId).isNull();
+    assertThat(outerOpaqueId).isEqualTo("checkout-1");
+    assertThat(OpaqueId.get()).isNull();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectTagWithLineBreak() {
+    OpaqueId.tag("checkout-1\r\nX-Injected: true");
+  }
+
+}
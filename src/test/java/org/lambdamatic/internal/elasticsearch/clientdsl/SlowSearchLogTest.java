@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.clientdsl.SlowSearchLog.FingerprintStats;
+
+/**
+ * Testing the {@link SlowSearchLog}.
+ */
+public class SlowSearchLogTest {
+
+  @Test
+  public void shouldReportMostExpensiveFingerprints() {
+    // given
+    final SlowSearchLog slowSearchLog = new SlowSearchLog(100, TimeUnit.MILLISECONDS);
+    // when
+    slowSearchLog.record("must=term(title)", "com.sample.Foo", null, "blog", "post", 10_000_000,
+        5, 10, 100);
+    slowSearchLog.record("must=term(title)", "com.sample.Foo", null, "blog", "post", 20_000_000,
+        15, 10, 100);
+    slowSearchLog.record("must=match(body)", "com.sample.Bar", "checkout-1", "blog", "post",
+        150_000_000, 120, 3, 3);
+    slowSearchLog.record("filter=range_gt(stars)", null, null, "blog", "post", 1_000_000, 1, 0,
+        0);
+    // then
+    final List<FingerprintStats> topFingerprints = slowSearchLog.getTopFingerprints(2);
+    assertThat(topFingerprints).extracting(FingerprintStats::getFingerprint)
+        .containsExactly("must=match(body)", "must=term(title)");
+    assertThat(topFingerprints.get(0).getSlowSearches()).isEqualTo(1);
+    assertThat(topFingerprints.get(0).getOrigin()).isEqualTo("com.sample.Bar");
+    final FingerprintStats termStats = topFingerprints.get(1);
+    assertThat(termStats.getLatency().getCount()).isEqualTo(2);
+    assertThat(termStats.getTotalLatencyNanos()).isEqualTo(30_000_000);
+    assertThat(termStats.getSlowSearches()).isEqualTo(0);
+    assertThat(termStats.getTookMillis()).isEqualTo(20);
+    assertThat(termStats.getHits()).isEqualTo(20);
+    assertThat(slowSearchLog.report(10)).startsWith("must=match(body) (com.sample.Bar)")
+        .contains("filter=range_gt(stars)");
+  }
+
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+import org.junit.After;
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.Handler;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.StubResponse;
+
+/**
+ * Testing the {@link UrlConnectionTransport} against a stub Elasticsearch node.
+ */
+public class UrlConnectionTransportTest {
+
+  private static final String NOT_FOUND = "{\"error\":{\"type\":\"index_not_found_exception\","
+      + "\"reason\":\"no such index\"},\"status\":404}";
+
+  private static final String FOUND =
+      "{\"_index\":\"blog\",\"_type\":\"blogpost\",\"_id\":\"1\",\"found\":true,\"_source\":{}}";
+
+  private StubHttpServer node;
+
+  private UrlConnectionTransport transport;
+
+  @After
+  public void stopNode() {
+    if (this.transport != null) {
+      this.transport.close();
+    }
+    if (this.node != null) {
+      this.node.close();
+    }
+  }
+
+  private UrlConnectionTransport transport(final Handler handler) throws IOException {
+    this.node = StubHttpServer.start(handler);
+    this.transport = new UrlConnectionTransport(this.node.getHost(), new ClientConfig());
+    return this.transport;
+  }
+
+  private static Response performRequest(final UrlConnectionTransport transport,
+      final String method, final String endpoint) throws IOException {
+    return transport.performRequest(method, endpoint, Collections.emptyMap(), null,
+        new GzipCompression().newResponseConsumer());
+  }
+
+  @Test
+  public void shouldReturnNotFoundResponseToHeadRequest() throws IOException {
+    // given
+    final UrlConnectionTransport transport = transport(request -> StubResponse.status(404));
+    // when
+    final Response response = performRequest(transport, "HEAD", "/blog");
+    // then
+    assertThat(response.getStatusLine().getStatusCode()).isEqualTo(404);
+    assertThat(response.getEntity()).isNull();
+  }
+
+  @Test
+  public void shouldThrowResponseExceptionOnClientError() throws IOException {
+    // given
+    final UrlConnectionTransport transport =
+        transport(request -> StubResponse.json(404, NOT_FOUND));
+    // when
+    final Throwable thrown = catchThrowable(() -> performRequest(transport, "GET", "/blog"));
+    // then
+    assertThat(thrown).isInstanceOf(ResponseException.class);
+    final Response response = ((ResponseException) thrown).getResponse();
+    assertThat(response.getStatusLine().getStatusCode()).isEqualTo(404);
+    assertThat(EntityUtils.toString(response.getEntity())).isEqualTo(NOT_FOUND);
+  }
+
+  @Test
+  public void shouldThrowResponseExceptionOnServerError() throws IOException {
+    // given
+    final UrlConnectionTransport transport = transport(request -> StubResponse.json(500,
+        "{\"error\":{\"type\":\"exception\",\"reason\":\"failed\"},\"status\":500}"));
+    // when
+    final Throwable thrown = catchThrowable(
+        () -> transport.performRequest("POST", "/blog/_search", Collections.emptyMap(),
+            new StringEntity("{}", ContentType.APPLICATION_JSON),
+            new GzipCompression().newResponseConsumer()));
+    // then
+    assertThat(thrown).isInstanceOf(ResponseException.class);
+    assertThat(((ResponseException) thrown).getResponse().getStatusLine().getStatusCode())
+        .isEqualTo(500);
+    assertThat(this.node.getRequests().get(0).getBody()).isEqualTo("{}");
+  }
+
+  @Test
+  public void shouldDecompressGzipResponseBody() throws IOException {
+    // given
+    final ByteArrayOutputStream compressedBody = new ByteArrayOutputStream();
+    try (final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressedBody)) {
+      gzipOutputStream.write(FOUND.getBytes(StandardCharsets.UTF_8));
+    }
+    final UrlConnectionTransport transport = transport(request -> StubResponse
+        .body(200, "application/json", compressedBody.toByteArray())
+        .header("Content-Encoding", "gzip"));
+    // when
+    final Response response = transport.performRequest("GET", "/blog/blogpost/1",
+        Collections.emptyMap(), null, new GzipCompression().newResponseConsumer(),
+        new BasicHeader(OpaqueId.HEADER, "gzip-1"));
+    // then
+    assertThat(EntityUtils.toString(response.getEntity())).isEqualTo(FOUND);
+    assertThat(this.node.getRequests().get(0).getOpaqueId()).isEqualTo("gzip-1");
+  }
+
+  @Test
+  public void shouldAbortCancelledRequest() throws Exception {
+    // given
+    final UrlConnectionTransport transport =
+        transport(request -> StubResponse.json(200, FOUND).delay(200));
+    final AtomicBoolean cancelled = new AtomicBoolean(false);
+    final CompletableFuture<Response> response = new CompletableFuture<>();
+    // when
+    transport.performRequest("GET", "/blog/blogpost/1", Collections.emptyMap(), null,
+        new CancellableResponseConsumer(new GzipCompression().newResponseConsumer(),
+            cancelled::get),
+        new ResponseListener() {
+
+          @Override
+          public void onSuccess(final Response result) {
+            response.complete(result);
+          }
+
+          @Override
+          public void onFailure(final Exception exception) {
+            response.completeExceptionally(exception);
+          }
+        });
+    cancelled.set(true);
+    final Throwable thrown = catchThrowable(() -> response.get(5, TimeUnit.SECONDS));
+    // then
+    assertThat(thrown).isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(CancelledRequestException.class);
+  }
+
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.clientdsl.responses;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.clientdsl.responses.SearchResponseParser.SourceDecoder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Testing the {@link SearchResponseParser}.
+ */
+public class SearchResponseParserTest {
+
+  private static final JsonFactory JSON_FACTORY = new ObjectMapper().getFactory();
+
+  /** Decodes a source into "id:title", reading it from the given parser. */
+  private static final SourceDecoder<String> TITLE_DECODER =
+      (id, parser) -> id + ":" + parser.<JsonNode>readValueAsTree().get("title").asText();
+
+  private static final String RESPONSE_BODY = "{\"took\":3,\"timed_out\":true,"
+      + "\"_shards\":{\"total\":5,\"successful\":4,\"failed\":1,\"failures\":[{\"shard\":2}]},"
+      + "\"hits\":{\"total\":12,\"max_score\":1.5,\"hits\":["
+      + "{\"_index\":\"blog\",\"_type\":\"post\",\"_id\":\"1\",\"_score\":1.5,"
+      + "\"_source\":{\"title\":\"First\",\"tags\":[\"a\",{\"b\":null}]},\"sort\":[1.5,\"1\"]},"
+      + "{\"_source\":{\"title\":\"Second\"},\"_index\":\"blog\",\"_type\":\"post\",\"_id\":\"2\"}"
+      + "]},\"aggregations\":{\"tags\":{\"buckets\":[]}}}";
+
+  private static <D> SearchResponse<D> parse(final String responseBody,
+      final SourceDecoder<D> sourceDecoder) throws IOException {
+    try (final JsonParser parser = JSON_FACTORY.createParser(responseBody)) {
+      return SearchResponseParser.parse(parser, sourceDecoder);
+    }
+  }
+
+  @Test
+  public void shouldDecodeSourcesWhileParsing() throws IOException {
+    // when
+    final SearchResponse<String> response = parse(RESPONSE_BODY, TITLE_DECODER);
+    // then
+    assertThat(response.getTotalHits()).isEqualTo(12);
+    assertThat(response.getTookMillis()).isEqualTo(3);
+    assertThat(response.isTimedOut()).isTrue();
+    assertThat(response.getFailedShards()).isEqualTo(1);
+    assertThat(response.getDocuments()).containsExactly("1:First", "2:Second");
+    assertThat(response.getSearchHits()).extracting("id", "indexName", "source")
+        .containsExactly(tuple("1", "blog", null),
+            tuple("2", "blog", null));
+    assertThat(response.getSearchHits().get(0).getSortValues().toString())
+        .isEqualTo("[1.5,\"1\"]");
+  }
+
+  @Test
+  public void shouldKeepSourcesWithoutDecoder() throws IOException {
+    // when
+    final SearchResponse<Object> response = parse(RESPONSE_BODY, null);
+    // then
+    assertThat(response.getSearchHits()).hasSize(2);
+    assertThat(response.getSearchHits().get(1).getSource().get("title").asText())
+        .isEqualTo("Second");
+    assertThatThrownBy(response::getDocuments).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void shouldParseScrollResponseWithoutHits() throws IOException {
+    // when
+    final SearchResponse<String> response = parse(
+        "{\"_scroll_id\":\"c2Nhbg==\",\"hits\":{\"total\":0,\"hits\":[]}}", TITLE_DECODER);
+    // then
+    assertThat(response.getScrollId()).isEqualTo("c2Nhbg==");
+    assertThat(response.isTimedOut()).isFalse();
+    assertThat(response.getFailedShards()).isEqualTo(0);
+    assertThat(response.getDocuments()).isEmpty();
+  }
+
+}
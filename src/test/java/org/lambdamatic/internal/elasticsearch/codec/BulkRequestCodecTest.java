@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.sample.acme.Invoice;
+import com.sample.blog.Blogpost;
+
+/**
+ * Testing the {@link BulkRequestCodec}.
+ */
+public class BulkRequestCodecTest {
+
+  @Test
+  public void shouldEncodeCreateActionWhenDocumentIdIsSet() throws JSONException {
+    // given
+    final Blogpost blogpost = new Blogpost();
+    blogpost.setTitle("Title \"ipsum\"");
+    final String documentSource =
+        new DocumentCodec<>(Blogpost.class, ObjectMapperFactory.getObjectMapper())
+            .encode(blogpost);
+    // when
+    final byte[] payload =
+        new BulkRequestCodec().encodeIndexAction("blogposts", "blogpost", "1", documentSource);
+    // then
+    final String[] lines = new String(payload, StandardCharsets.UTF_8).split("\n", -1);
+    assertThat(lines).hasSize(3);
+    JSONAssert.assertEquals(
+        "{\"create\":{\"_index\":\"blogposts\",\"_type\":\"blogpost\",\"_id\":\"1\"}}", lines[0],
+        true);
+    JSONAssert.assertEquals(documentSource, lines[1], true);
+    // NDJSON body must end with a new line
+    assertThat(lines[2]).isEmpty();
+  }
+
+  @Test
+  public void shouldEncodeIndexActionWhenDocumentIdIsMissing() throws JSONException {
+    // when
+    final byte[] payload =
+        new BulkRequestCodec().encodeIndexAction("blogposts", "blogpost", null, "{}");
+    // then
+    final String[] lines = new String(payload, StandardCharsets.UTF_8).split("\n", -1);
+    assertThat(lines).hasSize(3);
+    JSONAssert.assertEquals("{\"index\":{\"_index\":\"blogposts\",\"_type\":\"blogpost\"}}",
+        lines[0], true);
+    assertThat(lines[1]).isEqualTo("{}");
+  }
+
+  @Test
+  public void shouldEncodeRoutingOfDocument() throws JSONException {
+    // given
+    final Invoice invoice = new Invoice();
+    invoice.setCustomerId("acme");
+    // when
+    final byte[] payload = new BulkRequestCodec().encodeIndexAction("invoices", "invoice", "1",
+        invoice, new DocumentCodec<>(Invoice.class, ObjectMapperFactory.getObjectMapper()));
+    // then
+    final String[] lines = new String(payload, StandardCharsets.UTF_8).split("\n", -1);
+    assertThat(lines).hasSize(3);
+    JSONAssert.assertEquals(
+        "{\"create\":{\"_index\":\"invoices\",\"_type\":\"invoice\",\"_id\":\"1\","
+            + "\"_routing\":\"acme\"}}",
+        lines[0], true);
+  }
+
+  @Test
+  public void shouldStreamDocumentSourceAsUtf8() {
+    // given
+    final Blogpost blogpost = new Blogpost();
+    blogpost.setTitle("Caf\u00e9 \u2014 \u65e5\u672c");
+    final DocumentCodec<Blogpost> documentCodec =
+        new DocumentCodec<>(Blogpost.class, ObjectMapperFactory.getObjectMapper());
+    // when
+    final byte[] payload = new BulkRequestCodec().encodeIndexAction("blogposts", "blogpost", "1",
+        blogpost, documentCodec);
+    // then the streamed action is the same as the one built from the document source
+    assertThat(payload).isEqualTo(new BulkRequestCodec().encodeIndexAction("blogposts",
+        "blogpost", "1", documentCodec.encode(blogpost)));
+    assertThat(new String(payload, StandardCharsets.UTF_8))
+        .contains("\"title\":\"Caf\u00e9 \u2014 \u65e5\u672c\"");
+  }
+
+}
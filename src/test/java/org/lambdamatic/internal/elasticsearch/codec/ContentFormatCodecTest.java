@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.sample.blog.Blogpost;
+import com.sample.citybikesnyc.BikeStation;
+
+/**
+ * Testing the {@link DocumentCodec} with the binary {@link ContentFormat}s, and comparing them with
+ * JSON.
+ */
+public class ContentFormatCodecTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ContentFormatCodecTest.class);
+
+  private static <T> T readSample(final Class<T> domainType, final String resourceName)
+      throws IOException {
+    try (final InputStream content =
+        ContentFormatCodecTest.class.getClassLoader().getResourceAsStream(resourceName)) {
+      return ObjectMapperFactory.getObjectMapper().readValue(content, domainType);
+    }
+  }
+
+  private static byte[] encode(final DocumentCodec<?> documentCodec, final Object domainObject,
+      final ContentFormat contentFormat) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    documentCodec.encode(domainObject, contentFormat, output);
+    return output.toByteArray();
+  }
+
+  private static <T> T decode(final DocumentCodec<T> documentCodec, final byte[] source,
+      final ContentFormat contentFormat) throws IOException {
+    try (final JsonParser parser = contentFormat.createParser(new ByteArrayInputStream(source))) {
+      parser.nextToken();
+      return documentCodec.decode("1", parser);
+    }
+  }
+
+  private static <T> void verifyRoundTrip(final Class<T> domainType, final String resourceName)
+      throws IOException {
+    // given
+    final DocumentCodec<T> documentCodec =
+        new DocumentCodec<>(domainType, ObjectMapperFactory.getObjectMapper());
+    final T domainObject = readSample(domainType, resourceName);
+    documentCodec.setDomainObjectId(domainObject, "1");
+    final byte[] jsonSource = encode(documentCodec, domainObject, ContentFormat.JSON);
+    for (ContentFormat contentFormat : new ContentFormat[] {ContentFormat.SMILE,
+        ContentFormat.CBOR}) {
+      // when
+      final byte[] source = encode(documentCodec, domainObject, contentFormat);
+      final T decodedObject = decode(documentCodec, source, contentFormat);
+      // then
+      assertThat(source.length).as(contentFormat.name()).isLessThan(jsonSource.length);
+      assertThat(new String(encode(documentCodec, decodedObject, ContentFormat.JSON),
+          StandardCharsets.UTF_8)).as(contentFormat.name())
+              .isEqualTo(new String(jsonSource, StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void shouldEncodeAndDecodeBlogpostInBinaryFormats() throws IOException {
+    verifyRoundTrip(Blogpost.class, "blogpost.json");
+  }
+
+  @Test
+  public void shouldEncodeAndDecodeBikeStationInBinaryFormats() throws IOException {
+    verifyRoundTrip(BikeStation.class, "bikestation.json");
+  }
+
+  @Test
+  public void shouldFindContentFormatOfEntity() {
+    // given
+    final ByteArrayEntity entity = new ByteArrayEntity(new byte[0]);
+    // when
+    entity.setContentType("application/smile");
+    // then
+    assertThat(ContentFormat.of(entity)).isEqualTo(ContentFormat.SMILE);
+    entity.setContentType("application/json; charset=UTF-8");
+    assertThat(ContentFormat.of(entity)).isEqualTo(ContentFormat.JSON);
+    assertThat(ContentFormat.of(null)).isEqualTo(ContentFormat.JSON);
+  }
+
+  /**
+   * Compares the encoding and decoding throughput and the payload size of the sample documents in
+   * each {@link ContentFormat}. Not run by default, as it only logs its measurements.
+   */
+  @Test
+  @Ignore("benchmark")
+  public void benchmarkContentFormats() throws IOException {
+    benchmark(Blogpost.class, "blogpost.json");
+    benchmark(BikeStation.class, "bikestation.json");
+  }
+
+  private static <T> void benchmark(final Class<T> domainType, final String resourceName)
+      throws IOException {
+    final DocumentCodec<T> documentCodec =
+        new DocumentCodec<>(domainType, ObjectMapperFactory.getObjectMapper());
+    final T domainObject = readSample(domainType, resourceName);
+    final int warmupIterations = 50_000;
+    final int iterations = 200_000;
+    for (ContentFormat contentFormat : ContentFormat.values()) {
+      final byte[] source = encode(documentCodec, domainObject, contentFormat);
+      for (int i = 0; i < warmupIterations; i++) {
+        decode(documentCodec, encode(documentCodec, domainObject, contentFormat), contentFormat);
+      }
+      final long encodeStartNanos = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        encode(documentCodec, domainObject, contentFormat);
+      }
+      final long encodeNanos = System.nanoTime() - encodeStartNanos;
+      final long decodeStartNanos = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        decode(documentCodec, source, contentFormat);
+      }
+      final long decodeNanos = System.nanoTime() - decodeStartNanos;
+      LOGGER.info("{} in {}: {} bytes, {} encodes/s, {} decodes/s", domainType.getSimpleName(),
+          contentFormat, source.length, iterations * 1_000_000_000L / encodeNanos,
+          iterations * 1_000_000_000L / decodeNanos);
+    }
+  }
+
+}
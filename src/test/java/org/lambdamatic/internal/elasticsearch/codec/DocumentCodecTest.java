@@ -11,8 +11,10 @@ package org.lambdamatic.internal.elasticsearch.codec;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.function.Supplier;
@@ -22,14 +24,17 @@ import org.assertj.core.api.Assertions;
 import org.json.JSONException;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.lambdamatic.elasticsearch.exceptions.CodecException;
 import org.lambdamatic.elasticsearch.types.Location;
 import org.lambdamatic.internal.elasticsearch.MappingException;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentFormat;
 import org.lambdamatic.internal.elasticsearch.codec.DocumentCodec;
 import org.lambdamatic.internal.elasticsearch.codec.ObjectMapperFactory;
 import org.skyscreamer.jsonassert.JSONAssert;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.sample.acme.Invoice;
 import com.sample.blog.Blogpost;
 import com.sample.blog.Comment;
 import com.sample.citybikesnyc.BikeStation;
@@ -49,6 +54,41 @@ public class DocumentCodecTest {
     Assertions.assertThat(idFieldName).isEqualTo("id");
   }
 
+  @Test
+  public void shouldGetRoutingValue() {
+    // given
+    final Invoice invoice = new Invoice();
+    invoice.setCustomerId("acme");
+    // when
+    final String routing =
+        new DocumentCodec<>(Invoice.class, ObjectMapperFactory.getObjectMapper())
+            .getDomainObjectRouting(invoice);
+    // then
+    assertThat(routing).isEqualTo("acme");
+    assertThat(MappingUtils.getRoutingFieldName(Invoice.class)).isEqualTo("customer_id");
+  }
+
+  @Test
+  public void shouldNotGetRoutingValueWhenNoRoutingFieldExists() {
+    // given
+    final Blogpost blogpost = new Blogpost();
+    // when
+    final String routing =
+        new DocumentCodec<>(Blogpost.class, ObjectMapperFactory.getObjectMapper())
+            .getDomainObjectRouting(blogpost);
+    // then
+    assertThat(routing).isNull();
+    assertThat(MappingUtils.getRoutingFieldName(Blogpost.class)).isNull();
+  }
+
+  @Test(expected = CodecException.class)
+  public void shouldNotGetRoutingValueWhenRoutingFieldIsNotSet() {
+    // when
+    new DocumentCodec<>(Invoice.class, ObjectMapperFactory.getObjectMapper())
+        .getDomainObjectRouting(new Invoice());
+    // expect an exception
+  }
+
   @Ignore
   @Test(expected = MappingException.class)
   public void shouldNotValidateWhenNoIdFieldExists() {
@@ -102,6 +142,26 @@ public class DocumentCodecTest {
     JSONAssert.assertEquals(expectedContent, actualContent, false);
   }
 
+  @Test
+  public void shouldEncodeNonAsciiTextAsUtf8IntoOutputStream() {
+    // given
+    final Blogpost blogpost = new Blogpost();
+    blogpost.setTitle("Caf\u00e9 \u2014 \u65e5\u672c");
+    final DocumentCodec<Blogpost> documentCodec =
+        new DocumentCodec<>(Blogpost.class, ObjectMapperFactory.getObjectMapper());
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final ByteArrayOutputStream formatOutput = new ByteArrayOutputStream();
+    // when
+    documentCodec.encode(blogpost, output);
+    documentCodec.encode(blogpost, ContentFormat.JSON, formatOutput);
+    // then the bytes are the UTF-8 encoding of the document source, whatever the platform charset
+    final byte[] expectedContent = documentCodec.encode(blogpost).getBytes(StandardCharsets.UTF_8);
+    assertThat(output.toByteArray()).isEqualTo(expectedContent);
+    assertThat(formatOutput.toByteArray()).isEqualTo(expectedContent);
+    assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8))
+        .contains("\"title\":\"Caf\u00e9 \u2014 \u65e5\u672c\"");
+  }
+
   @Test
   public void shouldDecodeBlogPost() throws JsonParseException, JsonMappingException, IOException {
     // given
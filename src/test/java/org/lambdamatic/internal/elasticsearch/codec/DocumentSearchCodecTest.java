@@ -10,15 +10,18 @@ package org.lambdamatic.internal.elasticsearch.codec;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 
 import org.apache.commons.io.IOUtils;
 import org.json.JSONException;
 import org.junit.Test;
 import org.lambdamatic.elasticsearch.searchdsl.QueryExpression;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentFormat;
 import org.lambdamatic.internal.elasticsearch.searchdsl.DocumentSearch;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
@@ -54,6 +57,41 @@ public class DocumentSearchCodecTest {
     JSONAssert.assertEquals(expectation, jsonSearchRequest, JSONCompareMode.LENIENT);
   }
 
+  @Test
+  public void shouldSerializeSearchTimeout() throws IOException, JSONException {
+    // given
+    final QueryExpression<QBlogpost> filterExpression =
+        b -> b.status.hasExactTerm(BlogpostStatus.PUBLISHED);
+    final DocumentSearch query =
+        DocumentSearchBuilder.filter(filterExpression).build().timeout(120);
+    // when
+    final String jsonSearchRequest = new DocumentSearchCodec().encode(query);
+    // then
+    JSONAssert.assertEquals("{\"timeout\": \"120ms\"}", jsonSearchRequest,
+        JSONCompareMode.LENIENT);
+  }
+
+  @Test
+  public void shouldEncodeNonAsciiTextAsUtf8IntoOutputStream() {
+    // given
+    final QueryExpression<QBlogpost> mustMatchExpression =
+        b -> b.title.matches("Caf\u00e9 \u2014 \u65e5\u672c");
+    final DocumentSearch query = DocumentSearchBuilder.mustMatch(mustMatchExpression).build();
+    final DocumentSearchCodec documentSearchCodec = new DocumentSearchCodec();
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final ByteArrayOutputStream formatOutput = new ByteArrayOutputStream();
+    // when
+    documentSearchCodec.encode(query, output);
+    documentSearchCodec.encode(query, ContentFormat.JSON, formatOutput);
+    // then
+    final byte[] expectedContent =
+        documentSearchCodec.encode(query).getBytes(StandardCharsets.UTF_8);
+    assertThat(output.toByteArray()).isEqualTo(expectedContent);
+    assertThat(formatOutput.toByteArray()).isEqualTo(expectedContent);
+    assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8))
+        .contains("Caf\u00e9 \u2014 \u65e5\u672c");
+  }
+
   private String loadExpectedContentFromFile(final String fileName) throws IOException {
     final InputStream content = Thread.currentThread().getContextClassLoader()
         .getResourceAsStream("requests" + File.separator + fileName);
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.lambdamatic.elasticsearch.exceptions.CodecException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Testing the {@link SearchCursorCodec}.
+ */
+public class SearchCursorCodecTest {
+
+  @Test
+  public void shouldEncodeAndDecodeSortValues() throws IOException {
+    // given
+    final JsonNode sortValues = new ObjectMapper().readTree("[1.2345, \"blogpost#42\"]");
+    final SearchCursorCodec searchCursorCodec = new SearchCursorCodec();
+    // when
+    final String cursor = searchCursorCodec.encode(sortValues);
+    // then
+    assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    assertThat(searchCursorCodec.decode(cursor)).isEqualTo(sortValues);
+  }
+
+  @Test(expected = CodecException.class)
+  public void shouldRejectInvalidCursor() {
+    new SearchCursorCodec().decode("not a cursor!");
+  }
+
+}
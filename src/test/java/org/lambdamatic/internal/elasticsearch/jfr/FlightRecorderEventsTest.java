@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.clientdsl.ContentFormat;
+import org.lambdamatic.internal.elasticsearch.codec.DocumentCodec;
+import org.lambdamatic.internal.elasticsearch.codec.ObjectMapperFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.sample.blog.Blogpost;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Testing the {@link FlightRecorderEvents} emitted by the codecs.
+ */
+public class FlightRecorderEventsTest {
+
+  private static final String CODEC_EVENT = "org.lambdamatic.elasticsearch.Codec";
+
+  @Test
+  public void shouldNotBeginEventsWhenNotRecording() {
+    assertThat(FlightRecorderEvents.beginCodec()).isNull();
+    assertThat(FlightRecorderEvents.beginRequest()).isNull();
+  }
+
+  @Test
+  public void shouldRecordCodecEvents() throws IOException {
+    // given
+    final DocumentCodec<Blogpost> documentCodec =
+        new DocumentCodec<>(Blogpost.class, ObjectMapperFactory.getObjectMapper());
+    final Blogpost blogpost = new Blogpost();
+    blogpost.setTitle("Flight Recorder");
+    final Path recordingFile = Files.createTempFile("lambdamatic", ".jfr");
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    // when
+    try (final Recording recording = new Recording()) {
+      recording.enable(CODEC_EVENT).withThreshold(Duration.ZERO);
+      recording.start();
+      documentCodec.encode(blogpost, ContentFormat.SMILE, output);
+      try (final JsonParser parser = ContentFormat.SMILE
+          .createParser(new ByteArrayInputStream(output.toByteArray()))) {
+        parser.nextToken();
+        documentCodec.decode("1", parser);
+      }
+      recording.stop();
+      recording.dump(recordingFile);
+    }
+    // then
+    final List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+        .filter(event -> event.getEventType().getName().equals(CODEC_EVENT))
+        .collect(Collectors.toList());
+    Files.delete(recordingFile);
+    assertThat(events).extracting(event -> event.getString("operation")).containsExactly("encode",
+        "decode");
+    assertThat(events).extracting(event -> event.getString("target"))
+        .containsOnly(Blogpost.class.getName());
+    assertThat(events.get(0).getString("contentFormat")).isEqualTo("SMILE");
+    assertThat(events.get(0).getLong("payloadBytes")).isEqualTo(output.size());
+    assertThat(events.get(1).getString("documentId")).isEqualTo("1");
+    // the SMILE header is not part of the document source
+    assertThat(events.get(1).getLong("payloadBytes")).isPositive()
+        .isLessThanOrEqualTo(output.size());
+  }
+
+}
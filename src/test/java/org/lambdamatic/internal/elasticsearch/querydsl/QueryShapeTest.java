@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.querydsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.searchdsl.BooleanQuery;
+import org.lambdamatic.internal.elasticsearch.searchdsl.MatchQuery;
+import org.lambdamatic.internal.elasticsearch.searchdsl.Query;
+import org.lambdamatic.internal.elasticsearch.searchdsl.QueryUtils;
+import org.lambdamatic.internal.elasticsearch.searchdsl.RangeQuery;
+import org.lambdamatic.internal.elasticsearch.searchdsl.RangeQuery.RangeType;
+import org.lambdamatic.internal.elasticsearch.searchdsl.TermQuery;
+
+/**
+ * Testing the shape of the queries, as computed by {@link QueryUtils#getQueryShape(Query)}.
+ */
+public class QueryShapeTest {
+
+  @Test
+  public void shouldDescribeQueryShapeWithoutValues() {
+    // given
+    final Query query = BooleanQuery.and(new TermQuery("title", "foo"),
+        BooleanQuery.or(new RangeQuery(RangeType.GT, "stars", 3),
+            new RangeQuery(RangeType.LT, "stars", 1)),
+        new MatchQuery("body", "bar").boost(2f));
+    // when
+    final String shape = QueryUtils.getQueryShape(query);
+    // then
+    assertThat(shape)
+        .isEqualTo("and(term(title),or(range_gt(stars),range_lt(stars)),match(body))");
+  }
+
+  @Test
+  public void shouldGiveSameShapeToQueriesWithDifferentValues() {
+    // given
+    final Query query = BooleanQuery.and(new TermQuery("title", "foo"),
+        new RangeQuery(RangeType.GTE, "stars", 3));
+    final Query otherQuery = BooleanQuery.and(new TermQuery("title", "bar"),
+        new RangeQuery(RangeType.GTE, "stars", 5));
+    // when
+    final String shape = QueryUtils.getQueryShape(query);
+    final String otherShape = QueryUtils.getQueryShape(otherQuery);
+    // then
+    assertThat(shape).isEqualTo(otherShape);
+    assertThat(QueryUtils.getQueryShape(null)).isNull();
+  }
+
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.querydsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.lambdamatic.internal.elasticsearch.searchdsl.BooleanQuery;
+import org.lambdamatic.internal.elasticsearch.searchdsl.MatchQuery;
+import org.lambdamatic.internal.elasticsearch.searchdsl.Query;
+import org.lambdamatic.internal.elasticsearch.searchdsl.QueryUtils;
+import org.lambdamatic.internal.elasticsearch.searchdsl.TermQuery;
+
+/**
+ * Testing the {@link QueryUtils#getRequiredTermValue(Query, String)} method, used to route the
+ * searches.
+ */
+public class RequiredTermValueTest {
+
+  @Test
+  public void shouldFindTermValueInTermQuery() {
+    // given
+    final Query query = new TermQuery("customer_id", "acme");
+    // when
+    final Object value = QueryUtils.getRequiredTermValue(query, "customer_id");
+    // then
+    assertThat(value).isEqualTo("acme");
+  }
+
+  @Test
+  public void shouldFindTermValueInNestedConjunction() {
+    // given
+    final Query query = BooleanQuery.and(new MatchQuery("title", "invoice"),
+        BooleanQuery.and(new TermQuery("status", "PAID"), new TermQuery("customer_id", "acme")));
+    // when
+    final Object value = QueryUtils.getRequiredTermValue(query, "customer_id");
+    // then
+    assertThat(value).isEqualTo("acme");
+  }
+
+  @Test
+  public void shouldNotFindTermValueInDisjunction() {
+    // given
+    final Query query =
+        BooleanQuery.or(new TermQuery("customer_id", "acme"), new TermQuery("status", "PAID"));
+    // when
+    final Object value = QueryUtils.getRequiredTermValue(query, "customer_id");
+    // then
+    assertThat(value).isNull();
+  }
+
+  @Test
+  public void shouldNotFindTermValueOnOtherField() {
+    // given
+    final Query query = new TermQuery("status", "PAID");
+    // when
+    final Object value = QueryUtils.getRequiredTermValue(query, "customer_id");
+    // then
+    assertThat(value).isNull();
+    assertThat(QueryUtils.getRequiredTermValue(null, "customer_id")).isNull();
+  }
+
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.reactivestreams;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.lambdamatic.elasticsearch.MultiGetResult;
+import org.lambdamatic.elasticsearch.exceptions.ClientResponseException;
+import org.lambdamatic.internal.elasticsearch.MultiGetResultBuilder;
+import org.lambdamatic.internal.elasticsearch.clientdsl.Client;
+import org.lambdamatic.internal.elasticsearch.codec.CodecRegistry;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer;
+import org.lambdamatic.internal.elasticsearch.testutils.StubHttpServer.StubResponse;
+
+import com.sample.blog.Blogpost;
+
+/**
+ * Testing the {@link MultiGetDocumentsSubscription} against a stub Elasticsearch node.
+ */
+public class MultiGetDocumentsSubscriptionTest {
+
+  private static final String FOUND = "{\"_index\":\"blog\",\"_type\":\"blogpost\",\"_id\":\"1\","
+      + "\"_version\":1,\"found\":true,\"_source\":{\"title\":\"Blogpost #1\"}}";
+
+  private static final String MISSING =
+      "{\"_index\":\"blog\",\"_type\":\"blogpost\",\"_id\":\"2\",\"found\":false}";
+
+  private static final String FAILED = "{\"_index\":\"blog\",\"_type\":\"blogpost\",\"_id\":\"2\","
+      + "\"error\":{\"root_cause\":[],\"type\":\"no_shard_available_action_exception\","
+      + "\"reason\":\"No shard available\"}}";
+
+  private StubHttpServer node;
+
+  private Client client;
+
+  @After
+  public void stopNode() {
+    if (this.client != null) {
+      this.client.close();
+    }
+    if (this.node != null) {
+      this.node.close();
+    }
+  }
+
+  private CompletableFuture<MultiGetResult<Blogpost>> getAll(final String... documents)
+      throws IOException {
+    this.node = StubHttpServer.start(request -> StubResponse.json(200,
+        "{\"docs\":[" + String.join(",", documents) + "]}"));
+    this.client = Client.connectTo(this.node.getHost());
+    final CodecRegistry codecRegistry = new CodecRegistry();
+    codecRegistry.registerCodec(Blogpost.class);
+    final List<String> documentIds = Arrays.asList("1", "2");
+    final CompletableFuture<MultiGetResult<Blogpost>> result = new CompletableFuture<>();
+    new MultiGetDocumentsPublisher(this.client, "blog", "blogpost",
+        Collections.singletonList(documentIds))
+            .subscribe(new MultiGetDocumentsResponseSubscriber<>(
+                new MultiGetResultBuilder<>(codecRegistry, Blogpost.class, documentIds),
+                result::complete, result::completeExceptionally));
+    return result;
+  }
+
+  @Test
+  public void shouldReportMissingDocument() throws Exception {
+    // when
+    final MultiGetResult<Blogpost> result = getAll(FOUND, MISSING).get(5, TimeUnit.SECONDS);
+    // then
+    assertThat(result.getDocuments()).hasSize(1);
+    assertThat(result.get("1").getTitle()).isEqualTo("Blogpost #1");
+    assertThat(result.getMissingIds()).containsExactly("2");
+  }
+
+  @Test
+  public void shouldReportDocumentErrorAsFailure() throws Exception {
+    // when
+    final CompletableFuture<MultiGetResult<Blogpost>> result = getAll(FOUND, FAILED);
+    final Throwable thrown = catchThrowable(() -> result.get(5, TimeUnit.SECONDS));
+    // then the document is not taken for a missing one
+    assertThat(thrown).isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(ClientResponseException.class);
+    assertThat(((ClientResponseException) thrown.getCause()).getErrorResponse().getError()
+        .getType()).isEqualTo("no_shard_available_action_exception");
+  }
+
+}
@@ -77,6 +77,23 @@ public class ESAssertions extends AbstractAssert<ESAssertions, Client> {
     return this;
   }
 
+  /**
+   * Verifies that no search context (such as a scroll) remains open on the given index, with
+   * retries and a default timeout, as the search contexts may be released asynchronously.
+   * 
+   * @param indexName the name of the index
+   * @return this {@link ESAssertions} for method calls chaining.
+   */
+  public ESAssertions hasNoOpenSearchContext(final String indexName) {
+    final long openContexts = doCountWithTimeout(0, () -> countOpenContexts(actual, indexName),
+        timeout);
+    if (openContexts != 0) {
+      failWithMessage("Expected no open search context in index <%s> but there were <%s>",
+          indexName, openContexts);
+    }
+    return this;
+  }
+
   private long doCountWithTimeout(final long expectedCount, final Supplier<Long> countSupplier, final long timeout) {
     final long startTime = System.currentTimeMillis();
     while (System.currentTimeMillis() < startTime + timeout) {
@@ -118,4 +135,16 @@ public class ESAssertions extends AbstractAssert<ESAssertions, Client> {
         client.getIndexStats(indexName);
     return indexStats.getIndex(indexName).getTotal().getDocs().getCount();
   }
+
+  /**
+   * Counts the search contexts currently open on the given index.
+   * 
+   * @param client the Elasticsearch client
+   * @param indexName the name of the index
+   * @return the number of open search contexts in the index (in all shards)
+   */
+  private static long countOpenContexts(final Client client, final String indexName) {
+    final GetIndexStatsResponse indexStats = client.getIndexStats(indexName);
+    return indexStats.getIndex(indexName).getTotal().getSearch().getOpenContexts();
+  }
 }
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Red Hat. All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors: Red Hat - Initial Contribution
+ *******************************************************************************/
+
+package org.lambdamatic.internal.elasticsearch.testutils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.http.HttpHost;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server that responds to the requests of the tests in place of an Elasticsearch
+ * node, and records the requests that it received.
+ */
+public class StubHttpServer implements AutoCloseable {
+
+  private final HttpServer server;
+
+  private final ExecutorService executor;
+
+  private final List<ReceivedRequest> requests = new CopyOnWriteArrayList<>();
+
+  private final Handler handler;
+
+  private StubHttpServer(final Handler handler) throws IOException {
+    this.handler = handler;
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.executor = Executors.newCachedThreadPool(runnable -> {
+      final Thread thread = new Thread(runnable, "stub-http-server");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.server.setExecutor(this.executor);
+    this.server.createContext("/", this::handle);
+  }
+
+  /**
+   * Starts a server on a random local port.
+   *
+   * @param handler the {@link Handler} that builds the response to each request
+   * @return the started {@link StubHttpServer}
+   * @throws IOException if the server could not be started
+   */
+  public static StubHttpServer start(final Handler handler) throws IOException {
+    final StubHttpServer stubHttpServer = new StubHttpServer(handler);
+    stubHttpServer.server.start();
+    return stubHttpServer;
+  }
+
+  /**
+   * @return the {@link HttpHost} to connect to this server.
+   */
+  public HttpHost getHost() {
+    return new HttpHost(this.server.getAddress().getHostString(),
+        this.server.getAddress().getPort());
+  }
+
+  /**
+   * @return the requests received so far, in order of arrival.
+   */
+  public List<ReceivedRequest> getRequests() {
+    return new ArrayList<>(this.requests);
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    try {
+      final ReceivedRequest request = new ReceivedRequest(exchange.getRequestMethod(),
+          exchange.getRequestURI().toString(), exchange.getRequestHeaders(),
+          readAll(exchange.getRequestBody()));
+      this.requests.add(request);
+      final StubResponse response = this.handler.handle(request);
+      if (response.delayMillis > 0) {
+        Thread.sleep(response.delayMillis);
+      }
+      for (Entry<String, String> header : response.headers.entrySet()) {
+        exchange.getResponseHeaders().add(header.getKey(), header.getValue());
+      }
+      if (response.body == null || request.getMethod().equals("HEAD")) {
+        exchange.sendResponseHeaders(response.status, -1);
+      } else {
+        exchange.sendResponseHeaders(response.status, response.body.length);
+        try (final OutputStream responseBody = exchange.getResponseBody()) {
+          responseBody.write(response.body);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      exchange.sendResponseHeaders(500, -1);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private static byte[] readAll(final InputStream inputStream) throws IOException {
+    final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[4096];
+    int read;
+    while ((read = inputStream.read(buffer)) != -1) {
+      content.write(buffer, 0, read);
+    }
+    return content.toByteArray();
+  }
+
+  @Override
+  public void close() {
+    this.server.stop(0);
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Builds the response to a request.
+   */
+  @FunctionalInterface
+  public interface Handler {
+
+    StubResponse handle(ReceivedRequest request) throws Exception;
+
+  }
+
+  /**
+   * A request received by the server.
+   */
+  public static class ReceivedRequest {
+
+    private final String method;
+
+    private final String uri;
+
+    private final Headers headers;
+
+    private final byte[] body;
+
+    ReceivedRequest(final String method, final String uri, final Headers headers,
+        final byte[] body) {
+      this.method = method;
+      this.uri = uri;
+      this.headers = headers;
+      this.body = body;
+    }
+
+    public String getMethod() {
+      return this.method;
+    }
+
+    /**
+     * @return the path and query string of the request.
+     */
+    public String getUri() {
+      return this.uri;
+    }
+
+    /**
+     * @return the value of the <code>X-Opaque-Id</code> header, or <code>null</code>.
+     */
+    public String getOpaqueId() {
+      return getHeader("X-Opaque-Id");
+    }
+
+    /**
+     * @param name the name of the header, which is not case-sensitive
+     * @return the first value of the header, or <code>null</code>.
+     */
+    public String getHeader(final String name) {
+      return this.headers.getFirst(name);
+    }
+
+    public String getBody() {
+      return new String(this.body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the body as it was received, without decoding.
+     */
+    public byte[] getBodyBytes() {
+      return this.body;
+    }
+
+    @Override
+    public String toString() {
+      return this.method + " " + this.uri;
+    }
+
+  }
+
+  /**
+   * The response that the server sends to a request.
+   */
+  public static class StubResponse {
+
+    private final int status;
+
+    private final byte[] body;
+
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    private long delayMillis;
+
+    private StubResponse(final int status, final byte[] body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    /**
+     * @param status the status code
+     * @param body the JSON body
+     * @return a response with a JSON body
+     */
+    public static StubResponse json(final int status, final String body) {
+      return new StubResponse(status, body.getBytes(StandardCharsets.UTF_8))
+          .header("Content-Type", "application/json; charset=UTF-8");
+    }
+
+    /**
+     * @param status the status code
+     * @param contentType the content type of the body
+     * @param body the body
+     * @return a response with the given body
+     */
+    public static StubResponse body(final int status, final String contentType,
+        final byte[] body) {
+      return new StubResponse(status, body).header("Content-Type", contentType);
+    }
+
+    /**
+     * @param status the status code
+     * @return a response without body
+     */
+    public static StubResponse status(final int status) {
+      return new StubResponse(status, null);
+    }
+
+    /**
+     * Adds a header to the response.
+     *
+     * @param name the name of the header
+     * @param value the value of the header
+     * @return this {@link StubResponse} for method calls chaining
+     */
+    public StubResponse header(final String name, final String value) {
+      this.headers.put(name, value);
+      return this;
+    }
+
+    /**
+     * Delays the response.
+     *
+     * @param delayMillis the delay before sending the response, in milliseconds
+     * @return this {@link StubResponse} for method calls chaining
+     */
+    public StubResponse delay(final long delayMillis) {
+      this.delayMillis = delayMillis;
+      return this;
+    }
+
+  }
+
+}